@@ -0,0 +1,95 @@
+package fr.sii.ogham.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import fr.sii.ogham.html.inliner.ImageResource;
+
+/**
+ * Loads the fixtures shared by the benchmarks. Fixtures are read once during
+ * the setup phase so that I/O never pollutes the measurements. Also provides
+ * free ports for the in-process servers.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public final class BenchmarkResources {
+	private static final String ROOT = "/benchmark/";
+
+	/**
+	 * Read the whole content of the classpath resource as a string.
+	 * 
+	 * @param path
+	 *            the path relative to the benchmark fixtures folder
+	 * @return the content of the resource
+	 * @throws IOException
+	 *             when the resource can't be read
+	 */
+	public static String string(String path) throws IOException {
+		try (InputStream stream = open(path)) {
+			return IOUtils.toString(stream, "UTF-8");
+		}
+	}
+
+	/**
+	 * Read the whole content of the classpath resource as a byte array.
+	 * 
+	 * @param path
+	 *            the path relative to the benchmark fixtures folder
+	 * @return the content of the resource
+	 * @throws IOException
+	 *             when the resource can't be read
+	 */
+	public static byte[] bytes(String path) throws IOException {
+		try (InputStream stream = open(path)) {
+			return IOUtils.toByteArray(stream);
+		}
+	}
+
+	/**
+	 * Load the GIF images used by the image inlining fixture.
+	 * 
+	 * @return the images referenced by the HTML fixture
+	 * @throws IOException
+	 *             when an image can't be read
+	 */
+	public static List<ImageResource> images() throws IOException {
+		String[] names = { "fb.gif", "h1.gif", "left.gif", "right.gif", "tw.gif" };
+		List<ImageResource> images = new ArrayList<>(names.length);
+		for (String name : names) {
+			images.add(new ImageResource(name, "images/" + name, bytes("inliner/images/images/" + name), "image/gif"));
+		}
+		return images;
+	}
+
+	/**
+	 * Find a local port that is currently free so that in-process servers
+	 * never collide with a running service or another fork.
+	 * 
+	 * @return a free port
+	 * @throws IOException
+	 *             when no port can be allocated
+	 */
+	public static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static InputStream open(String path) throws IOException {
+		InputStream stream = BenchmarkResources.class.getResourceAsStream(ROOT + path);
+		if (stream == null) {
+			throw new IOException("Benchmark fixture " + path + " not found");
+		}
+		return stream;
+	}
+
+	private BenchmarkResources() {
+		super();
+	}
+}
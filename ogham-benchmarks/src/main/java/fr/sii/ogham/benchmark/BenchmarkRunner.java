@@ -0,0 +1,43 @@
+package fr.sii.ogham.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. It runs every benchmark of this package
+ * (or only those matching the regular expressions given on the command line)
+ * and always attaches the GC profiler so that the allocation rate
+ * (<code>gc.alloc.rate.norm</code>) is reported along with the throughput.
+ * 
+ * <p>
+ * Any standard JMH option is accepted:
+ * </p>
+ * 
+ * <pre>
+ * java -jar ogham-benchmarks/target/benchmarks.jar HtmlInliner -f 1 -wi 3 -i 5
+ * </pre>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public final class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cli = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		if (cli.getIncludes().isEmpty()) {
+			builder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+		}
+		Options options = builder.parent(cli).addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+
+	private BenchmarkRunner() {
+		super();
+	}
+}
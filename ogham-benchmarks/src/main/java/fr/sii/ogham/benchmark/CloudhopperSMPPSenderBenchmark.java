@@ -0,0 +1,89 @@
+package fr.sii.ogham.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cloudhopper.smpp.SmppSessionConfiguration;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.helper.sms.cloudhopper.CloudhopperSMPPServer;
+import fr.sii.ogham.helper.sms.rule.SmppServerException;
+import fr.sii.ogham.sms.builder.CloudhopperSMPPBuilder;
+import fr.sii.ogham.sms.message.Sender;
+import fr.sii.ogham.sms.message.Sms;
+import fr.sii.ogham.sms.sender.impl.CloudhopperSMPPSender;
+
+/**
+ * Measures the encoding, splitting and submission of SMS done by
+ * {@link CloudhopperSMPPSender}. Messages are submitted to an in-process
+ * {@link CloudhopperSMPPServer}. The server is restarted for each iteration so
+ * that received PDUs don't accumulate in memory.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CloudhopperSMPPSenderBenchmark {
+	private static final String FROM = "+33203040506";
+	private static final String TO = "0203040506";
+	private static final String LONG_CONTENT = "sms content with a very very very loooooooooooooooooooonnnnnnnnnnnnnnnnng message that is over 160 characters in order to test the behavior of the sender when message has to be split";
+
+	private int port;
+	private CloudhopperSMPPServer server;
+	private CloudhopperSMPPSender sender;
+
+	@Setup(Level.Trial)
+	public void setUpSender() throws IOException {
+		port = BenchmarkResources.freePort();
+		SmppSessionConfiguration configuration = new SmppSessionConfiguration();
+		configuration.setHost("127.0.0.1");
+		configuration.setPort(port);
+		configuration.setSystemId("systemId");
+		configuration.setPassword("password");
+		sender = new CloudhopperSMPPBuilder().withSmppSessionConfiguration(configuration).build();
+	}
+
+	@Setup(Level.Iteration)
+	public void startServer() throws SmppServerException {
+		server = new CloudhopperSMPPServer(port);
+		server.start();
+	}
+
+	@TearDown(Level.Iteration)
+	public void stopServer() {
+		server.stop();
+	}
+
+	@Benchmark
+	public void shortMessage() throws MessageException {
+		sender.send(new Sms("sms content", new Sender(FROM), TO));
+	}
+
+	@Benchmark
+	public void longMessage() throws MessageException {
+		sender.send(new Sms(LONG_CONTENT, new Sender(FROM), TO));
+	}
+
+	@Benchmark
+	public void severalRecipients() throws MessageException {
+		sender.send(new Sms("sms content", new Sender(FROM), TO, "0000000001", "0000000002"));
+	}
+}
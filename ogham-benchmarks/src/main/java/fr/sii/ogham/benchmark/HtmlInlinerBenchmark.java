@@ -0,0 +1,75 @@
+package fr.sii.ogham.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.sii.ogham.core.id.generator.SequentialIdGenerator;
+import fr.sii.ogham.html.inliner.ContentWithImages;
+import fr.sii.ogham.html.inliner.ExternalCss;
+import fr.sii.ogham.html.inliner.ImageResource;
+import fr.sii.ogham.html.inliner.impl.jsoup.JsoupAttachImageInliner;
+import fr.sii.ogham.html.inliner.impl.jsoup.JsoupBase64ImageInliner;
+import fr.sii.ogham.html.inliner.impl.jsoup.JsoupCssInliner;
+
+/**
+ * Measures the jsoup based HTML transformations applied to every HTML email:
+ * CSS inlining and image inlining (both base64 and attachment modes).
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HtmlInlinerBenchmark {
+	private JsoupCssInliner cssInliner;
+	private JsoupBase64ImageInliner base64Inliner;
+	private JsoupAttachImageInliner attachInliner;
+
+	private String cssHtml;
+	private List<ExternalCss> css;
+	private String imagesHtml;
+	private List<ImageResource> images;
+
+	@Setup
+	public void setUp() throws IOException {
+		cssInliner = new JsoupCssInliner();
+		base64Inliner = new JsoupBase64ImageInliner();
+		attachInliner = new JsoupAttachImageInliner(new SequentialIdGenerator());
+		cssHtml = BenchmarkResources.string("inliner/css/mixedStyles.html");
+		css = Arrays.asList(new ExternalCss("css/external1.css", BenchmarkResources.string("inliner/css/css/external1.css")));
+		imagesHtml = BenchmarkResources.string("inliner/images/withImages.html");
+		images = BenchmarkResources.images();
+	}
+
+	@Benchmark
+	public String inlineCss() {
+		return cssInliner.inline(cssHtml, css);
+	}
+
+	@Benchmark
+	public ContentWithImages inlineImagesBase64() {
+		return base64Inliner.inline(imagesHtml, images);
+	}
+
+	@Benchmark
+	public ContentWithImages inlineImagesAttach() {
+		return attachInliner.inline(imagesHtml, images);
+	}
+}
@@ -0,0 +1,84 @@
+package fr.sii.ogham.benchmark;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.email.attachment.Attachment;
+import fr.sii.ogham.email.builder.JavaMailBuilder;
+import fr.sii.ogham.email.message.Email;
+import fr.sii.ogham.email.message.EmailAddress;
+import fr.sii.ogham.email.sender.impl.JavaMailSender;
+
+/**
+ * Measures the MIME assembly and SMTP delivery done by {@link JavaMailSender}.
+ * Emails are sent to an in-process GreenMail SMTP server. The server is
+ * restarted for each iteration so that received messages don't accumulate in
+ * memory and skew the allocation figures.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JavaMailSenderBenchmark {
+	private ServerSetup smtp;
+	private GreenMail greenMail;
+	private JavaMailSender sender;
+
+	private String html;
+	private byte[] image;
+
+	@Setup(Level.Trial)
+	public void setUpSender() throws IOException {
+		smtp = new ServerSetup(BenchmarkResources.freePort(), "127.0.0.1", ServerSetup.PROTOCOL_SMTP);
+		Properties props = new Properties(System.getProperties());
+		props.setProperty("mail.smtp.host", smtp.getBindAddress());
+		props.setProperty("mail.smtp.port", String.valueOf(smtp.getPort()));
+		sender = new JavaMailBuilder().useDefaults(props).build();
+		html = BenchmarkResources.string("inliner/images/withImages.html");
+		image = BenchmarkResources.bytes("inliner/images/images/h1.gif");
+	}
+
+	@Setup(Level.Iteration)
+	public void startServer() {
+		greenMail = new GreenMail(smtp);
+		greenMail.start();
+	}
+
+	@TearDown(Level.Iteration)
+	public void stopServer() {
+		greenMail.stop();
+	}
+
+	@Benchmark
+	public void text() throws MessageException {
+		sender.send(new Email("Subject", "Body", new EmailAddress("sender@sii.fr"), "recipient@sii.fr"));
+	}
+
+	@Benchmark
+	public void htmlWithAttachment() throws MessageException {
+		sender.send(new Email("Subject", html, new EmailAddress("sender@sii.fr"), "recipient@sii.fr", new Attachment("h1.gif", image)));
+	}
+}
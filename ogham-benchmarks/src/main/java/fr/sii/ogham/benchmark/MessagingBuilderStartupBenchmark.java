@@ -0,0 +1,73 @@
+package fr.sii.ogham.benchmark;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.sii.ogham.core.builder.MessagingBuilder;
+import fr.sii.ogham.core.service.MessagingService;
+import fr.sii.ogham.core.service.WarmUpCapable;
+
+/**
+ * Measures the time needed to get a usable messaging service in a fresh JVM
+ * (class loading and initialization included): everything built eagerly,
+ * senders built on first use and senders built on first use but warmed up
+ * immediately.
+ *
+ * <p>
+ * Each measure is a single shot in a new JVM so many forks are needed to get
+ * a meaningful result.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class MessagingBuilderStartupBenchmark {
+	private Properties properties;
+
+	@Setup
+	public void setUp() {
+		properties = new Properties();
+		properties.setProperty("mail.smtp.host", "localhost");
+		properties.setProperty("mail.smtp.port", "3025");
+		properties.setProperty("ogham.email.from", "test.sender@sii.fr");
+		properties.setProperty("ogham.sms.smpp.host", "localhost");
+		properties.setProperty("ogham.sms.smpp.port", "2775");
+		properties.setProperty("ogham.sms.smpp.systemId", "systemId");
+		properties.setProperty("ogham.sms.smpp.password", "password");
+		properties.setProperty("ogham.sms.from", "0102030405");
+	}
+
+	@Benchmark
+	public MessagingService eager() {
+		return new MessagingBuilder().useAllDefaults(properties).build();
+	}
+
+	@Benchmark
+	public MessagingService lazy() {
+		return new MessagingBuilder().useAllDefaults(properties).withLazyInitialization().build();
+	}
+
+	@Benchmark
+	public MessagingService lazyWithWarmUp() {
+		MessagingService service = new MessagingBuilder().useAllDefaults(properties).withLazyInitialization().build();
+		((WarmUpCapable) service).warmUp();
+		return service;
+	}
+}
@@ -0,0 +1,75 @@
+package fr.sii.ogham.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.activation.MimeType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.sii.ogham.core.exception.mimetype.MimeTypeDetectionException;
+import fr.sii.ogham.core.mimetype.FallbackMimeTypeProvider;
+import fr.sii.ogham.core.mimetype.JMimeMagicProvider;
+import fr.sii.ogham.core.mimetype.JavaActivationProvider;
+
+/**
+ * Measures the mimetype detection strategies used for attachments and inlined
+ * images: content based detection (magic numbers) and file name based
+ * detection.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MimeTypeProviderBenchmark {
+	private JMimeMagicProvider magic;
+	private JavaActivationProvider activation;
+	private FallbackMimeTypeProvider fallback;
+
+	private byte[] image;
+	private String html;
+
+	@Setup
+	public void setUp() throws IOException {
+		magic = new JMimeMagicProvider();
+		activation = new JavaActivationProvider();
+		fallback = new FallbackMimeTypeProvider(magic, activation);
+		image = BenchmarkResources.bytes("inliner/images/images/h1.gif");
+		html = BenchmarkResources.string("inliner/images/withImages.html");
+	}
+
+	@Benchmark
+	public MimeType jmimemagicImageStream() throws MimeTypeDetectionException {
+		return magic.detect(new ByteArrayInputStream(image));
+	}
+
+	@Benchmark
+	public MimeType jmimemagicHtmlString() throws MimeTypeDetectionException {
+		return magic.detect(html);
+	}
+
+	@Benchmark
+	public MimeType activationFileName() throws MimeTypeDetectionException {
+		return activation.getMimeType("images/h1.gif");
+	}
+
+	@Benchmark
+	public MimeType fallbackImageStream() throws MimeTypeDetectionException {
+		return fallback.detect(new ByteArrayInputStream(image));
+	}
+}
@@ -0,0 +1,62 @@
+package fr.sii.ogham.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.sii.ogham.core.builder.TemplateBuilder;
+import fr.sii.ogham.core.exception.template.ParseException;
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.template.context.BeanContext;
+import fr.sii.ogham.core.template.parser.TemplateParser;
+import fr.sii.ogham.mock.context.NestedBean;
+import fr.sii.ogham.mock.context.SimpleBean;
+import fr.sii.ogham.template.thymeleaf.builder.ThymeleafBuilder;
+
+/**
+ * Measures template evaluation through the Thymeleaf parser with a
+ * {@link BeanContext} (the context is created for each evaluation like it is
+ * in real usage).
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ThymeleafParserBenchmark {
+	private TemplateParser parser;
+	private SimpleBean bean;
+
+	@Setup
+	public void setUp() {
+		parser = new TemplateBuilder()
+					.registerTemplateParser(new ThymeleafBuilder())
+					.useDefaultResolvers()
+					.withPrefix("/benchmark/template/")
+					.build();
+		bean = new SimpleBean("foo", 42);
+	}
+
+	@Benchmark
+	public Content simpleBean() throws ParseException {
+		return parser.parse("classpath:simple.html", new BeanContext(bean));
+	}
+
+	@Benchmark
+	public Content nestedBean() throws ParseException {
+		return parser.parse("classpath:nested.html", new BeanContext(new NestedBean(bean)));
+	}
+}
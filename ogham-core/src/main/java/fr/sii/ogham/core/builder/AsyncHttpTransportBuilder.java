@@ -0,0 +1,181 @@
+package fr.sii.ogham.core.builder;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+
+import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.util.http.ApacheAsyncHttpTransport;
+import fr.sii.ogham.core.util.http.AsyncHttpTransport;
+
+/**
+ * Builder that helps to construct a non-blocking {@link AsyncHttpTransport}.
+ * A few I/O threads multiplex all the connections so that thousands of
+ * in-flight requests don't need thousands of threads.
+ * 
+ * <p>
+ * The values can be read from properties using
+ * {@link #useDefaults(Properties, String)}. The same keys as
+ * {@link HttpTransportBuilder} are used, plus:
+ * </p>
+ * <ul>
+ * <li><code>&lt;prefix&gt;.ioThreads</code> (default is the number of
+ * processors)</li>
+ * </ul>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class AsyncHttpTransportBuilder implements Builder<AsyncHttpTransport> {
+	private static final int DEFAULT_MAX_PER_ROUTE = 100;
+	private static final int DEFAULT_MAX_TOTAL = 500;
+	private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+	private static final int DEFAULT_READ_TIMEOUT = 30000;
+
+	/**
+	 * Number of threads handling I/O
+	 */
+	private int ioThreads;
+
+	/**
+	 * Maximum number of connections to the same host
+	 */
+	private int maxPerRoute;
+
+	/**
+	 * Maximum number of connections whatever the host
+	 */
+	private int maxTotal;
+
+	/**
+	 * Timeout in milliseconds for establishing the connection
+	 */
+	private int connectTimeout;
+
+	/**
+	 * Timeout in milliseconds while waiting for data
+	 */
+	private int readTimeout;
+
+	public AsyncHttpTransportBuilder() {
+		super();
+		ioThreads = Runtime.getRuntime().availableProcessors();
+		maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+		maxTotal = DEFAULT_MAX_TOTAL;
+		connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+		readTimeout = DEFAULT_READ_TIMEOUT;
+	}
+
+	@Override
+	public AsyncHttpTransport build() throws BuildException {
+		IOReactorConfig reactor = IOReactorConfig.custom()
+				.setIoThreadCount(ioThreads)
+				.setConnectTimeout(connectTimeout)
+				.setSoTimeout(readTimeout)
+				.build();
+		RequestConfig config = RequestConfig.custom()
+				.setConnectTimeout(connectTimeout)
+				.setSocketTimeout(readTimeout)
+				.setConnectionRequestTimeout(connectTimeout)
+				.build();
+		// @formatter:off
+		HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+											.useSystemProperties()
+											.setDefaultIOReactorConfig(reactor)
+											.setDefaultRequestConfig(config)
+											.setMaxConnPerRoute(maxPerRoute)
+											.setMaxConnTotal(Math.max(maxTotal, maxPerRoute));
+		// @formatter:on
+		return new ApacheAsyncHttpTransport(builder.build());
+	}
+
+	/**
+	 * Read the configuration from the provided properties. Missing properties
+	 * keep the current value.
+	 * 
+	 * @param properties
+	 *            the properties to read (may be null)
+	 * @param prefix
+	 *            the prefix of the properties (without trailing '.')
+	 * @return this instance for fluent use
+	 */
+	public AsyncHttpTransportBuilder useDefaults(Properties properties, String prefix) {
+		if (properties == null) {
+			return this;
+		}
+		ioThreads = Integer.parseInt(properties.getProperty(prefix + ".ioThreads", String.valueOf(ioThreads)));
+		maxPerRoute = Integer.parseInt(properties.getProperty(prefix + ".maxConnectionsPerRoute", String.valueOf(maxPerRoute)));
+		maxTotal = Integer.parseInt(properties.getProperty(prefix + ".maxConnections", String.valueOf(maxTotal)));
+		connectTimeout = Integer.parseInt(properties.getProperty(prefix + ".connectTimeout", String.valueOf(connectTimeout)));
+		readTimeout = Integer.parseInt(properties.getProperty(prefix + ".readTimeout", String.valueOf(readTimeout)));
+		return this;
+	}
+
+	/**
+	 * Set the number of I/O threads.
+	 * 
+	 * @param threads
+	 *            the number of I/O threads
+	 * @return this instance for fluent use
+	 */
+	public AsyncHttpTransportBuilder withIoThreads(int threads) {
+		this.ioThreads = threads;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of connections to the same host.
+	 * 
+	 * @param max
+	 *            the maximum number of connections per route
+	 * @return this instance for fluent use
+	 */
+	public AsyncHttpTransportBuilder withMaxConnectionsPerRoute(int max) {
+		this.maxPerRoute = max;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of connections whatever the host.
+	 * 
+	 * @param max
+	 *            the maximum number of connections
+	 * @return this instance for fluent use
+	 */
+	public AsyncHttpTransportBuilder withMaxConnections(int max) {
+		this.maxTotal = max;
+		return this;
+	}
+
+	/**
+	 * Set the timeout for establishing a connection.
+	 * 
+	 * @param timeout
+	 *            the timeout
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return this instance for fluent use
+	 */
+	public AsyncHttpTransportBuilder withConnectTimeout(long timeout, TimeUnit unit) {
+		this.connectTimeout = (int) unit.toMillis(timeout);
+		return this;
+	}
+
+	/**
+	 * Set the timeout while waiting for data.
+	 * 
+	 * @param timeout
+	 *            the timeout
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return this instance for fluent use
+	 */
+	public AsyncHttpTransportBuilder withReadTimeout(long timeout, TimeUnit unit) {
+		this.readTimeout = (int) unit.toMillis(timeout);
+		return this;
+	}
+}
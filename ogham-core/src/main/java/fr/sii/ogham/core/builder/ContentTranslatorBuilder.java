@@ -6,14 +6,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.id.generator.IdGenerator;
 import fr.sii.ogham.core.id.generator.SequentialIdGenerator;
 import fr.sii.ogham.core.message.content.MultiContent;
+import fr.sii.ogham.core.message.content.PreparedTemplateContent;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.mimetype.FallbackMimeTypeProvider;
 import fr.sii.ogham.core.mimetype.JMimeMagicProvider;
 import fr.sii.ogham.core.resource.resolver.LookupMappingResolver;
 import fr.sii.ogham.core.template.parser.TemplateParser;
+import fr.sii.ogham.core.translator.content.CachingTemplateTranslator;
 import fr.sii.ogham.core.translator.content.ContentTranslator;
 import fr.sii.ogham.core.translator.content.EveryContentTranslator;
 import fr.sii.ogham.core.translator.content.MultiContentTranslator;
+import fr.sii.ogham.core.translator.content.PreparedTemplateTranslator;
 import fr.sii.ogham.core.translator.content.TemplateContentTranslator;
 import fr.sii.ogham.core.util.BuilderUtils;
 import fr.sii.ogham.html.inliner.EveryImageInliner;
@@ -34,7 +41,7 @@ import fr.sii.ogham.html.translator.InlineImageTranslator;
  * @author Aurélien Baudet
  *
  */
-public class ContentTranslatorBuilder implements Builder<ContentTranslator> {
+public class ContentTranslatorBuilder implements Builder<ContentTranslator>, InstrumentedBuilder<ContentTranslatorBuilder> {
 	private static final Logger LOG = LoggerFactory.getLogger(ContentTranslatorBuilder.class);
 
 	/**
@@ -55,6 +62,41 @@ public class ContentTranslatorBuilder implements Builder<ContentTranslator> {
 	 */
 	private boolean enableInlining;
 
+	/**
+	 * If true, the chain translator is decorated by a
+	 * {@link PreparedTemplateTranslator} to handle
+	 * {@link PreparedTemplateContent}
+	 */
+	private boolean enablePreparedTemplates;
+
+	/**
+	 * The maximum number of translated contents to remember. If 0, no
+	 * {@link CachingTemplateTranslator} is added
+	 */
+	private int cacheMaxEntries;
+
+	/**
+	 * The time in milliseconds a translated content is remembered
+	 */
+	private long cacheTimeToLive;
+
+	/**
+	 * The generator used to generate content IDs of attached images. The
+	 * generator is shared by all messages so it must be thread-safe
+	 */
+	private IdGenerator contentIdGenerator;
+
+	/**
+	 * The recorder for the measures of the translators
+	 */
+	private MetricsRecorder metrics;
+
+	public ContentTranslatorBuilder() {
+		super();
+		contentIdGenerator = new SequentialIdGenerator();
+		metrics = NoOpMetricsRecorder.INSTANCE;
+	}
+
 	/**
 	 * Generate a chain translator that delegates translation of content to all
 	 * enabled translators.
@@ -67,26 +109,36 @@ public class ContentTranslatorBuilder implements Builder<ContentTranslator> {
 	public ContentTranslator build() throws BuildException {
 		LOG.info("Using translator that calls all registered translators");
 		EveryContentTranslator translator = new EveryContentTranslator();
+		ContentTranslator result = translator;
+		if(enablePreparedTemplates) {
+			LOG.debug("Prepared templates are enabled");
+			result = new PreparedTemplateTranslator(translator, metrics);
+		}
+		if(cacheMaxEntries > 0) {
+			LOG.debug("Rendered content cache is enabled (max entries: {}, time to live: {}ms)", cacheMaxEntries, cacheTimeToLive);
+			result = new CachingTemplateTranslator(result, cacheMaxEntries, cacheTimeToLive, metrics);
+		}
 		if(templateBuilder != null) {
 			TemplateParser templateParser = templateBuilder.build();
 			LOG.debug("Registering content translator that parses templates using {}", templateParser);
-			translator.addTranslator(new TemplateContentTranslator(templateParser));
+			translator.addTranslator(new TemplateContentTranslator(templateParser, metrics));
 		}
 		if(enableMultiContent) {
 			LOG.debug("Multi-content transformation is enabled");
-			translator.addTranslator(new MultiContentTranslator(translator));
+			translator.addTranslator(new MultiContentTranslator(result));
 		}
 		if(enableInlining) {
 			// TODO: extract inliners init to their own builders
 			LOG.debug("CSS inlining is enabled");
 			LookupMappingResolver resolver = new LookupMappingResourceResolverBuilder().useDefaults().build();
-			translator.addTranslator(new InlineCssTranslator(new JsoupCssInliner(), resolver));
+			translator.addTranslator(new InlineCssTranslator(new JsoupCssInliner(), resolver, metrics));
 			LOG.debug("Image inlining is enabled");
-			JMimeMagicProvider mimetypeProvider = new JMimeMagicProvider();
-			ImageInliner imageInliner = new EveryImageInliner(new JsoupAttachImageInliner(new SequentialIdGenerator()), new JsoupBase64ImageInliner());
-			translator.addTranslator(new InlineImageTranslator(imageInliner, resolver, mimetypeProvider));
+			FallbackMimeTypeProvider mimetypeProvider = new FallbackMimeTypeProvider(new JMimeMagicProvider());
+			mimetypeProvider.setMetricsRecorder(metrics);
+			ImageInliner imageInliner = new EveryImageInliner(new JsoupAttachImageInliner(contentIdGenerator), new JsoupBase64ImageInliner());
+			translator.addTranslator(new InlineImageTranslator(imageInliner, resolver, mimetypeProvider, metrics));
 		}
-		return translator;
+		return result;
 	}
 
 	/**
@@ -168,6 +220,46 @@ public class ContentTranslatorBuilder implements Builder<ContentTranslator> {
 		return this;
 	}
 
+	/**
+	 * Enable the management of templates that are shared by many messages
+	 * (see {@link PreparedTemplateContent}). The template is evaluated and
+	 * inlined only once and only the personalization variables are merged for
+	 * each message.
+	 * <p>
+	 * This method is automatically called when calling {@link #useDefaults()}.
+	 * </p>
+	 * 
+	 * @return this builder instance for fluent use
+	 * @see PreparedTemplateTranslator More information about prepared
+	 *      templates management
+	 */
+	public ContentTranslatorBuilder withPreparedTemplateSupport() {
+		enablePreparedTemplates = true;
+		return this;
+	}
+
+	/**
+	 * Enable the cache of translated contents. When the same template is
+	 * translated with the same variable values and locale, the content that
+	 * was fully translated (template evaluation, CSS inlining, image
+	 * inlining...) previously is reused.
+	 * <p>
+	 * This is not enabled by default.
+	 * </p>
+	 * 
+	 * @param maxEntries
+	 *            the maximum number of remembered contents
+	 * @param timeToLive
+	 *            the time in milliseconds a content is remembered
+	 * @return this builder instance for fluent use
+	 * @see CachingTemplateTranslator More information about the cache
+	 */
+	public ContentTranslatorBuilder withRenderedContentCache(int maxEntries, long timeToLive) {
+		cacheMaxEntries = maxEntries;
+		cacheTimeToLive = timeToLive;
+		return this;
+	}
+
 	/**
 	 * Enable the management of resource inlining:
 	 * <ul>
@@ -187,6 +279,35 @@ public class ContentTranslatorBuilder implements Builder<ContentTranslator> {
 		return this;
 	}
 
+	/**
+	 * Use the provided generator for content IDs of images that are attached
+	 * to the message when inlining is enabled. The generator is shared by all
+	 * messages so it must be thread-safe. By default, a
+	 * {@link SequentialIdGenerator} is used.
+	 * 
+	 * @param generator
+	 *            the thread-safe generator for content IDs
+	 * @return this builder instance for fluent use
+	 */
+	public ContentTranslatorBuilder withContentIdGenerator(IdGenerator generator) {
+		contentIdGenerator = generator;
+		return this;
+	}
+
+	/**
+	 * Use the provided recorder for the measures of the translators (template
+	 * evaluation, inlining, cache...). By default, nothing is recorded.
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this builder instance for fluent use
+	 */
+	@Override
+	public ContentTranslatorBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		metrics = recorder;
+		return this;
+	}
+
 	/**
 	 * Tells the builder to use all default behaviors and values. It will enable
 	 * default template management and default multi-content support management.
@@ -196,6 +317,8 @@ public class ContentTranslatorBuilder implements Builder<ContentTranslator> {
 	 * @see #withMultiContentSupport() More information about default
 	 *      multi-content management
 	 * @see #withInlining() More information about default inlining management
+	 * @see #withPreparedTemplateSupport() More information about prepared
+	 *      templates management
 	 */
 	public ContentTranslatorBuilder useDefaults() {
 		useDefaults(BuilderUtils.getDefaultProperties());
@@ -213,11 +336,14 @@ public class ContentTranslatorBuilder implements Builder<ContentTranslator> {
 	 * @see #withMultiContentSupport() More information about default
 	 *      multi-content management
 	 * @see #withInlining() More information about default inlining management
+	 * @see #withPreparedTemplateSupport() More information about prepared
+	 *      templates management
 	 */
 	public ContentTranslatorBuilder useDefaults(Properties properties) {
 		withTemplate(properties);
 		withMultiContentSupport();
 		withInlining();
+		withPreparedTemplateSupport();
 		return this;
 	}
 
@@ -0,0 +1,228 @@
+package fr.sii.ogham.core.builder;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.util.http.ApacheHttpTransport;
+import fr.sii.ogham.core.util.http.HttpTransport;
+
+/**
+ * Builder that helps to construct a pooled {@link HttpTransport}. The
+ * transport keeps connections alive and reuses them across requests. Each
+ * sender should have its own transport so that pools and timeouts can be
+ * tuned independently.
+ * 
+ * <p>
+ * The values can be read from properties using
+ * {@link #useDefaults(Properties, String)}. For example, with the prefix
+ * <code>ogham.sms.ovh.http</code>:
+ * </p>
+ * <ul>
+ * <li><code>ogham.sms.ovh.http.maxConnectionsPerRoute</code> (default 20)</li>
+ * <li><code>ogham.sms.ovh.http.maxConnections</code> (default 100)</li>
+ * <li><code>ogham.sms.ovh.http.connectTimeout</code> in milliseconds (default
+ * 5000)</li>
+ * <li><code>ogham.sms.ovh.http.readTimeout</code> in milliseconds (default
+ * 30000)</li>
+ * <li><code>ogham.sms.ovh.http.keepAlive</code> in milliseconds (default
+ * 30000). Used when the server doesn't indicate how long connections can be
+ * kept alive</li>
+ * </ul>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class HttpTransportBuilder implements Builder<HttpTransport> {
+	private static final int DEFAULT_MAX_PER_ROUTE = 20;
+	private static final int DEFAULT_MAX_TOTAL = 100;
+	private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+	private static final int DEFAULT_READ_TIMEOUT = 30000;
+	private static final long DEFAULT_KEEP_ALIVE = 30000;
+
+	/**
+	 * Maximum number of connections to the same host
+	 */
+	private int maxPerRoute;
+
+	/**
+	 * Maximum number of connections whatever the host
+	 */
+	private int maxTotal;
+
+	/**
+	 * Timeout in milliseconds for establishing the connection
+	 */
+	private int connectTimeout;
+
+	/**
+	 * Timeout in milliseconds while waiting for data
+	 */
+	private int readTimeout;
+
+	/**
+	 * Time in milliseconds an idle connection is kept alive when the server
+	 * doesn't specify it
+	 */
+	private long keepAlive;
+
+	public HttpTransportBuilder() {
+		super();
+		maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+		maxTotal = DEFAULT_MAX_TOTAL;
+		connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+		readTimeout = DEFAULT_READ_TIMEOUT;
+		keepAlive = DEFAULT_KEEP_ALIVE;
+	}
+
+	@Override
+	public HttpTransport build() throws BuildException {
+		return new ApacheHttpTransport(buildClient());
+	}
+
+	/**
+	 * Build the pooled Apache HTTP client configured by this builder. It is
+	 * useful for libraries that accept an Apache HTTP client directly.
+	 * 
+	 * @return the pooled HTTP client
+	 * @throws BuildException
+	 *             when the client couldn't be built
+	 */
+	public CloseableHttpClient buildClient() throws BuildException {
+		PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+		pool.setDefaultMaxPerRoute(maxPerRoute);
+		pool.setMaxTotal(Math.max(maxTotal, maxPerRoute));
+		RequestConfig config = RequestConfig.custom()
+				.setConnectTimeout(connectTimeout)
+				.setSocketTimeout(readTimeout)
+				// waiting for a pooled connection is bounded too
+				.setConnectionRequestTimeout(connectTimeout)
+				.build();
+		// @formatter:off
+		return HttpClientBuilder.create()
+									.useSystemProperties()
+									.setConnectionManager(pool)
+									.setDefaultRequestConfig(config)
+									.setKeepAliveStrategy(new DefaultKeepAlive(keepAlive))
+									.build();
+		// @formatter:on
+	}
+
+	/**
+	 * Read the configuration from the provided properties. Missing properties
+	 * keep the current value.
+	 * 
+	 * @param properties
+	 *            the properties to read (may be null)
+	 * @param prefix
+	 *            the prefix of the properties (without trailing '.')
+	 * @return this instance for fluent use
+	 */
+	public HttpTransportBuilder useDefaults(Properties properties, String prefix) {
+		if (properties == null) {
+			return this;
+		}
+		maxPerRoute = Integer.parseInt(properties.getProperty(prefix + ".maxConnectionsPerRoute", String.valueOf(maxPerRoute)));
+		maxTotal = Integer.parseInt(properties.getProperty(prefix + ".maxConnections", String.valueOf(maxTotal)));
+		connectTimeout = Integer.parseInt(properties.getProperty(prefix + ".connectTimeout", String.valueOf(connectTimeout)));
+		readTimeout = Integer.parseInt(properties.getProperty(prefix + ".readTimeout", String.valueOf(readTimeout)));
+		keepAlive = Long.parseLong(properties.getProperty(prefix + ".keepAlive", String.valueOf(keepAlive)));
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of pooled connections to the same host.
+	 * 
+	 * @param max
+	 *            the maximum number of connections per route
+	 * @return this instance for fluent use
+	 */
+	public HttpTransportBuilder withMaxConnectionsPerRoute(int max) {
+		this.maxPerRoute = max;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of pooled connections whatever the host.
+	 * 
+	 * @param max
+	 *            the maximum number of connections
+	 * @return this instance for fluent use
+	 */
+	public HttpTransportBuilder withMaxConnections(int max) {
+		this.maxTotal = max;
+		return this;
+	}
+
+	/**
+	 * Set the timeout for establishing a connection (and for obtaining a
+	 * connection from the pool).
+	 * 
+	 * @param timeout
+	 *            the timeout
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return this instance for fluent use
+	 */
+	public HttpTransportBuilder withConnectTimeout(long timeout, TimeUnit unit) {
+		this.connectTimeout = (int) unit.toMillis(timeout);
+		return this;
+	}
+
+	/**
+	 * Set the timeout while waiting for data.
+	 * 
+	 * @param timeout
+	 *            the timeout
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return this instance for fluent use
+	 */
+	public HttpTransportBuilder withReadTimeout(long timeout, TimeUnit unit) {
+		this.readTimeout = (int) unit.toMillis(timeout);
+		return this;
+	}
+
+	/**
+	 * Set how long idle connections are kept alive when the server doesn't
+	 * indicate it (using <code>Keep-Alive</code> header).
+	 * 
+	 * @param duration
+	 *            the keep alive duration
+	 * @param unit
+	 *            the unit of the duration
+	 * @return this instance for fluent use
+	 */
+	public HttpTransportBuilder withKeepAlive(long duration, TimeUnit unit) {
+		this.keepAlive = unit.toMillis(duration);
+		return this;
+	}
+
+	/**
+	 * Use the duration provided by the server if any, the configured one
+	 * otherwise.
+	 */
+	private static class DefaultKeepAlive implements ConnectionKeepAliveStrategy {
+		private final long keepAlive;
+
+		public DefaultKeepAlive(long keepAlive) {
+			super();
+			this.keepAlive = keepAlive;
+		}
+
+		@Override
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+			long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return duration > 0 ? duration : keepAlive;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package fr.sii.ogham.core.builder;
+
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+
+/**
+ * Interface for builders that construct components that record measures (see
+ * {@link MetricsRecorder}). Builders that contain other builders provide their
+ * recorder to the contained builders when building.
+ *
+ * @author Aurélien Baudet
+ *
+ * @param <B>
+ *            the type of the builder
+ */
+public interface InstrumentedBuilder<B> {
+	/**
+	 * Use the provided recorder for the measures of the built components. If
+	 * no recorder is provided, the {@link NoOpMetricsRecorder} is used.
+	 *
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this builder instance for fluent use
+	 */
+	public B withMetricsRecorder(MetricsRecorder recorder);
+}
@@ -1,20 +1,33 @@
 package fr.sii.ogham.core.builder;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
 import fr.sii.ogham.core.sender.ConditionalSender;
+import fr.sii.ogham.core.sender.LazySender;
 import fr.sii.ogham.core.service.WrapExceptionMessagingService;
 import fr.sii.ogham.core.service.EverySupportingMessagingService;
+import fr.sii.ogham.core.service.EverySupportingMessagingService.FailureStrategy;
 import fr.sii.ogham.core.service.MessagingService;
+import fr.sii.ogham.core.service.WarmUpCapable;
 import fr.sii.ogham.core.util.BuilderUtils;
+import fr.sii.ogham.core.util.concurrent.NamedThreadFactory;
 import fr.sii.ogham.email.builder.EmailBuilder;
+import fr.sii.ogham.email.message.Email;
 import fr.sii.ogham.sms.builder.SmsBuilder;
+import fr.sii.ogham.sms.message.Sms;
 
 /**
  * Basic implementation of the builder that help to construct the messaging
@@ -27,7 +40,7 @@ import fr.sii.ogham.sms.builder.SmsBuilder;
  * @author Aurélien Baudet
  *
  */
-public class MessagingBuilder implements MessagingServiceBuilder {
+public class MessagingBuilder implements MessagingServiceBuilder, InstrumentedBuilder<MessagingBuilder> {
 	private static final Logger LOG = LoggerFactory.getLogger(MessagingBuilder.class);
 
 	/**
@@ -46,9 +59,38 @@ public class MessagingBuilder implements MessagingServiceBuilder {
 	 */
 	private EmailBuilder emailBuilder;
 
+	/**
+	 * The executor used to call supporting senders concurrently (null for
+	 * sequential dispatch or if the pool is created by the builder)
+	 */
+	private ExecutorService dispatchExecutor;
+
+	/**
+	 * The number of threads of the pool created for each built service to call
+	 * supporting senders concurrently (0 if no pool is created)
+	 */
+	private int dispatchThreads;
+
+	/**
+	 * The strategy to apply when some senders fail in parallel dispatch mode
+	 */
+	private FailureStrategy failureStrategy;
+
+	/**
+	 * Build the senders on first use instead of when the service is built
+	 */
+	private boolean lazy;
+
+	/**
+	 * The recorder provided to the builders of the senders (null to let each
+	 * builder use its own)
+	 */
+	private MetricsRecorder metricsRecorder;
+
 	public MessagingBuilder() {
 		super();
 		builders = new ArrayList<MessagingSenderBuilder<ConditionalSender>>();
+		failureStrategy = FailureStrategy.ALL_OR_NOTHING;
 	}
 
 	/**
@@ -60,6 +102,12 @@ public class MessagingBuilder implements MessagingServiceBuilder {
 	 * stop when the message is handled by a sender to possibly let another send
 	 * the message through another channel.
 	 * 
+	 * <p>
+	 * If lazy initialization is enabled (see {@link #withLazyInitialization()}
+	 * ), the senders are not built here but when they are used for the first
+	 * time.
+	 * </p>
+	 * 
 	 * @return the messaging service instance
 	 * @throws BuildException
 	 *             when one of the sender couldn't be built
@@ -67,11 +115,132 @@ public class MessagingBuilder implements MessagingServiceBuilder {
 	public MessagingService build() throws BuildException {
 		List<ConditionalSender> senders = new ArrayList<ConditionalSender>();
 		for (MessagingSenderBuilder<ConditionalSender> builder : builders) {
-			senders.add(builder.build());
+			BuilderUtils.provideMetricsRecorder(builder, metricsRecorder);
+			senders.add(lazy ? new LazySender(builder, getMessageType(builder)) : builder.build());
+		}
+		if (lazy) {
+			LOG.info("Senders are initialized on first use");
 		}
 		LOG.info("Using service that calls all registered senders");
 		LOG.debug("Registered senders: {}", senders);
-		return new WrapExceptionMessagingService(new EverySupportingMessagingService(senders));
+		if (dispatchThreads > 0) {
+			LOG.info("Supporting senders are called concurrently using {} threads ({} on failure)", dispatchThreads, failureStrategy);
+			return new WrapExceptionMessagingService(new EverySupportingMessagingService(senders, createDispatchExecutor(dispatchThreads), failureStrategy, true));
+		}
+		if (dispatchExecutor != null) {
+			LOG.info("Supporting senders are called concurrently ({} on failure)", failureStrategy);
+		}
+		return new WrapExceptionMessagingService(new EverySupportingMessagingService(senders, dispatchExecutor, failureStrategy));
+	}
+
+	/**
+	 * Use the provided recorder for the measures of all the senders built by
+	 * this builder. The recorder is provided to the email and SMS builders
+	 * (and to any other registered builder that records measures) when
+	 * building. Each service built with its own builder then records into its
+	 * own recorder.
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this builder instance for fluent use
+	 */
+	@Override
+	public MessagingBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		this.metricsRecorder = recorder;
+		return this;
+	}
+
+	/**
+	 * Tells the builder to build each sender (and the heavy components it
+	 * relies on like template engine, CSS inliner or SMPP charsets) only when
+	 * a message that the sender may handle is sent for the first time. The
+	 * startup of an application that never sends some kind of messages is then
+	 * faster.
+	 * 
+	 * <p>
+	 * As configuration errors are then only detected on first use, the
+	 * service also implements {@link WarmUpCapable}. Calling
+	 * {@link WarmUpCapable#warmUp()} on the built service initializes all the
+	 * senders immediately.
+	 * </p>
+	 * 
+	 * @return this builder instance for fluent use
+	 */
+	public MessagingBuilder withLazyInitialization() {
+		this.lazy = true;
+		return this;
+	}
+
+	/**
+	 * Tells the builder to call the senders that support a message
+	 * concurrently instead of one after the other. A message that is sent
+	 * through several channels then only waits for the slowest sender instead
+	 * of the sum of all senders.
+	 * 
+	 * <p>
+	 * The senders are executed on a bounded pool of at most
+	 * <code>maxThreads</code> daemon threads. When the pool and its queue are
+	 * full, the sender is called in the calling thread. The message is
+	 * considered as sent only if all supporting senders succeed (see
+	 * {@link FailureStrategy#ALL_OR_NOTHING}).
+	 * </p>
+	 * <p>
+	 * Each built service has its own pool. The built service implements
+	 * {@link Closeable}: closing it shuts the pool down.
+	 * </p>
+	 * 
+	 * @param maxThreads
+	 *            the maximum number of threads used to call senders
+	 * @return this builder instance for fluent use
+	 */
+	public MessagingBuilder withParallelDispatch(int maxThreads) {
+		return withParallelDispatch(maxThreads, FailureStrategy.ALL_OR_NOTHING);
+	}
+
+	/**
+	 * Tells the builder to call the senders that support a message
+	 * concurrently instead of one after the other.
+	 * 
+	 * <p>
+	 * The senders are executed on a bounded pool of at most
+	 * <code>maxThreads</code> daemon threads. When the pool and its queue are
+	 * full, the sender is called in the calling thread.
+	 * </p>
+	 * <p>
+	 * Each built service has its own pool. The built service implements
+	 * {@link Closeable}: closing it shuts the pool down.
+	 * </p>
+	 * 
+	 * @param maxThreads
+	 *            the maximum number of threads used to call senders
+	 * @param failureStrategy
+	 *            the strategy to apply when some senders fail
+	 * @return this builder instance for fluent use
+	 */
+	public MessagingBuilder withParallelDispatch(int maxThreads, FailureStrategy failureStrategy) {
+		this.dispatchThreads = maxThreads;
+		this.dispatchExecutor = null;
+		this.failureStrategy = failureStrategy;
+		return this;
+	}
+
+	/**
+	 * Tells the builder to call the senders that support a message
+	 * concurrently using the provided executor instead of one after the other.
+	 * The executor is not managed by Ogham so you are responsible of shutting
+	 * it down.
+	 * 
+	 * @param executor
+	 *            the executor used to call senders
+	 * @param failureStrategy
+	 *            the strategy to apply when some senders fail
+	 * @return this builder instance for fluent use
+	 */
+	public MessagingBuilder withParallelDispatch(ExecutorService executor, FailureStrategy failureStrategy) {
+		this.dispatchExecutor = executor;
+		this.dispatchThreads = 0;
+		this.failureStrategy = failureStrategy;
+		return this;
 	}
 
 	/**
@@ -239,4 +408,21 @@ public class MessagingBuilder implements MessagingServiceBuilder {
 	public EmailBuilder getEmailBuilder() {
 		return emailBuilder;
 	}
+
+	private static ExecutorService createDispatchExecutor(int maxThreads) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(maxThreads * 16), new NamedThreadFactory("ogham-dispatch"),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private Class<? extends Message> getMessageType(MessagingSenderBuilder<ConditionalSender> builder) {
+		if (builder instanceof EmailBuilder) {
+			return Email.class;
+		}
+		if (builder instanceof SmsBuilder) {
+			return Sms.class;
+		}
+		return Message.class;
+	}
 }
@@ -25,7 +25,14 @@ public abstract class CompositeCondition<T> implements Condition<T> {
 	
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("conditions").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		CompositeCondition<?> other = (CompositeCondition<?>) obj;
+		return new EqualsBuilder().append(conditions, other.conditions).isEqual();
 	}
 	
 	@Override
@@ -12,7 +12,7 @@ import fr.sii.ogham.core.util.HashCodeBuilder;
  * @param <T>
  *            the type of the object to test
  */
-public class FixedCondition<T> implements Condition<T> {
+public class FixedCondition<T> implements StaticCondition<T> {
 
 	private boolean accept;
 
@@ -28,7 +28,14 @@ public class FixedCondition<T> implements Condition<T> {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("accept").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		FixedCondition<?> other = (FixedCondition<?>) obj;
+		return new EqualsBuilder().append(accept, other.accept).isEqual();
 	}
 	
 	@Override
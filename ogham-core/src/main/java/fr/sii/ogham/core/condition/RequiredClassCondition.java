@@ -13,7 +13,7 @@ import fr.sii.ogham.core.util.HashCodeBuilder;
  *            The type of the object to test for acceptance. Has no effect on
  *            the acceptance
  */
-public class RequiredClassCondition<T> implements Condition<T> {
+public class RequiredClassCondition<T> implements StaticCondition<T> {
 	/**
 	 * The class to check if exists in the classpath
 	 */
@@ -37,7 +37,14 @@ public class RequiredClassCondition<T> implements Condition<T> {
 	
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("className").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		RequiredClassCondition<?> other = (RequiredClassCondition<?>) obj;
+		return new EqualsBuilder().append(className, other.className).isEqual();
 	}
 
 	@Override
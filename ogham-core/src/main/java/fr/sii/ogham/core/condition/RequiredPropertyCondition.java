@@ -9,13 +9,18 @@ import fr.sii.ogham.core.util.HashCodeBuilder;
  * Condition that checks if the provided property is defined either in the
  * system property or in the provided properties.
  * 
+ * <p>
+ * This is a {@link StaticCondition}: properties that are defined or removed
+ * once the senders are built may not be taken into account.
+ * </p>
+ * 
  * @author Aurélien Baudet
  *
  * @param <T>
  *            The type of the object to test for acceptance. Has no effect on
  *            the acceptance
  */
-public class RequiredPropertyCondition<T> implements Condition<T> {
+public class RequiredPropertyCondition<T> implements StaticCondition<T> {
 	/**
 	 * The properties to use for checking if property is defined or not
 	 */
@@ -59,7 +64,14 @@ public class RequiredPropertyCondition<T> implements Condition<T> {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("key", "properties").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		RequiredPropertyCondition<?> other = (RequiredPropertyCondition<?>) obj;
+		return new EqualsBuilder().append(key, other.key).append(properties, other.properties).isEqual();
 	}
 	
 	@Override
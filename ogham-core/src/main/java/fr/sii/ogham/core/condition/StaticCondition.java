@@ -0,0 +1,17 @@
+package fr.sii.ogham.core.condition;
+
+/**
+ * Marker for conditions whose result depends neither on the tested object nor
+ * on the time of the evaluation (available classes, configuration
+ * properties...). Such conditions can be evaluated once when the senders are
+ * built instead of for each message (see
+ * {@link fr.sii.ogham.core.util.ConditionUtils#precompute(Condition)}).
+ * 
+ * @author Aurélien Baudet
+ *
+ * @param <T>
+ *            The type of the object to test for acceptance. Has no effect on
+ *            the acceptance
+ */
+public interface StaticCondition<T> extends Condition<T> {
+}
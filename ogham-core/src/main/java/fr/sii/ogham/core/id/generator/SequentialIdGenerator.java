@@ -1,22 +1,54 @@
 package fr.sii.ogham.core.id.generator;
 
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Generates identifiers by appending an incremented number to the provided
+ * name. The counter is shared by all threads and incremented atomically
+ * (without locking) so the same instance can be safely used concurrently
+ * without generating duplicate identifiers.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
 public class SequentialIdGenerator implements IdGenerator {
-	private int idx;
-	
-	public SequentialIdGenerator(int initial) {
+	/**
+	 * The next value to use
+	 */
+	private final AtomicLong idx;
+
+	/**
+	 * Initialize the generator with the first value to use
+	 * 
+	 * @param initial
+	 *            the first value
+	 */
+	public SequentialIdGenerator(long initial) {
 		super();
-		this.idx = initial;
+		this.idx = new AtomicLong(initial);
+	}
+
+	/**
+	 * Initialize the generator with the first value to use. Kept for
+	 * compatibility with code compiled against previous versions.
+	 * 
+	 * @param initial
+	 *            the first value
+	 */
+	public SequentialIdGenerator(int initial) {
+		this((long) initial);
 	}
 
+	/**
+	 * Initialize the generator starting at 0
+	 */
 	public SequentialIdGenerator() {
 		this(0);
 	}
-	
 
 	@Override
 	public String generate(String name) {
-		return name+(idx++);
+		return name + idx.getAndIncrement();
 	}
 
 }
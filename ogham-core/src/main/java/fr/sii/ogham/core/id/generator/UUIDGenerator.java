@@ -1,13 +1,35 @@
 package fr.sii.ogham.core.id.generator;
 
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Generates identifiers by appending a random (version 4) UUID to the provided
+ * name.
+ * 
+ * <p>
+ * The random bits are provided by {@link ThreadLocalRandom} instead of
+ * {@link UUID#randomUUID()}. {@link UUID#randomUUID()} relies on a shared
+ * {@link java.security.SecureRandom} that becomes a point of contention when
+ * many threads generate identifiers. The generated identifiers are unique
+ * enough to be used as content IDs but must not be used where unpredictability
+ * is required.
+ * </p>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
 public class UUIDGenerator implements IdGenerator {
 
 	@Override
 	public String generate(String name) {
-		// TODO: name should be exactly 5 characters
-		return UUID.fromString(name).toString();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long mostSigBits = random.nextLong();
+		long leastSigBits = random.nextLong();
+		// set version (4: random) and variant (IETF) as UUID.randomUUID() does
+		mostSigBits = (mostSigBits & 0xffffffffffff0fffL) | 0x0000000000004000L;
+		leastSigBits = (leastSigBits & 0x3fffffffffffffffL) | 0x8000000000000000L;
+		return name + new UUID(mostSigBits, leastSigBits).toString();
 	}
 
 }
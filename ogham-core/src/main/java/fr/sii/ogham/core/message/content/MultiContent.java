@@ -85,7 +85,14 @@ public class MultiContent implements Content {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("contents").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		MultiContent other = (MultiContent) obj;
+		return new EqualsBuilder().append(contents, other.contents).isEqual();
 	}
 	
 	private static Content[] toContent(String[] strs) {
@@ -0,0 +1,72 @@
+package fr.sii.ogham.core.message.content;
+
+import fr.sii.ogham.core.template.context.Context;
+import fr.sii.ogham.core.util.EqualsBuilder;
+import fr.sii.ogham.core.util.HashCodeBuilder;
+
+/**
+ * Content of one message that is based on a shared
+ * {@link PreparedTemplateContent}. It only provides the values of the
+ * personalization variables for the message.
+ *
+ * @author Aurélien Baudet
+ * @see PreparedTemplateContent#personalize(Context)
+ */
+public class PersonalizedContent implements Content {
+	/**
+	 * The shared template
+	 */
+	private final PreparedTemplateContent template;
+
+	/**
+	 * The values of the personalization variables
+	 */
+	private final Context context;
+
+	/**
+	 * Initialize the content with the shared template and the values of the
+	 * personalization variables.
+	 *
+	 * @param template
+	 *            the shared template
+	 * @param context
+	 *            the values of the personalization variables
+	 */
+	public PersonalizedContent(PreparedTemplateContent template, Context context) {
+		super();
+		this.template = template;
+		this.context = context;
+	}
+
+	public PreparedTemplateContent getTemplate() {
+		return template;
+	}
+
+	public Context getContext() {
+		return context;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("PersonalizedContent [template=").append(template.getPath()).append(", context=").append(context).append("]");
+		return builder.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		return new HashCodeBuilder().append(template, context).hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		PersonalizedContent other = (PersonalizedContent) obj;
+		return new EqualsBuilder().append(template, other.template).append(context, other.context).isEqual();
+	}
+}
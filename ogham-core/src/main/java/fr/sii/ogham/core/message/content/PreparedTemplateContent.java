@@ -0,0 +1,141 @@
+package fr.sii.ogham.core.message.content;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import fr.sii.ogham.core.template.context.BeanContext;
+import fr.sii.ogham.core.template.context.Context;
+
+/**
+ * <p>
+ * Content that points to a template that is shared by many messages (a
+ * campaign for example). The template is evaluated only once with the shared
+ * context. The variables that change for each recipient are declared as
+ * personalization variables: they are left as substitution slots in the
+ * evaluated result and only these slots are filled for each message.
+ * </p>
+ * <p>
+ * The whole preparation (template evaluation, CSS inlining, image
+ * inlining...) is done the first time the content is sent. The next messages
+ * only merge the personalization values into the prepared result.
+ * </p>
+ *
+ * <pre>
+ * PreparedTemplateContent template = new PreparedTemplateContent("classpath:/campaign.html", sharedContext, "name", "code");
+ * for (Customer customer : customers) {
+ * 	service.send(new Email("subject", template.personalize(new SimpleContext("name", customer.getName()).addValue("code", customer.getCode())), customer.getEmail()));
+ * }
+ * </pre>
+ * <p>
+ * The personalization variables must only be printed as-is by the template
+ * (for example using <code>th:text="${name}"</code>). They can't be used in
+ * conditions, loops or be transformed by the template engine because the
+ * template is not evaluated again for each recipient. Values are escaped if
+ * the prepared content is HTML. If a variable is printed in a link parameter
+ * (URL-encoded) or without escaping (<code>th:utext</code>), the template is
+ * evaluated for each recipient instead and a warning is logged.
+ * </p>
+ * <p>
+ * The instance is immutable and is meant to be created once and shared by all
+ * messages. The prepared result is associated to this instance (identity), so
+ * creating a new instance for each message would evaluate the template each
+ * time.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class PreparedTemplateContent implements Content {
+	/**
+	 * The path to the template
+	 */
+	private final String path;
+
+	/**
+	 * The context shared by all messages
+	 */
+	private final Context context;
+
+	/**
+	 * The names of the variables that are specific to each message
+	 */
+	private final List<String> variables;
+
+	/**
+	 * Initialize the content with the path to the template, the shared
+	 * context and the names of the variables that are specific to each
+	 * message.
+	 *
+	 * @param path
+	 *            the path to the template
+	 * @param context
+	 *            the context shared by all messages
+	 * @param variables
+	 *            the names of the variables that are specific to each message
+	 */
+	public PreparedTemplateContent(String path, Context context, String... variables) {
+		super();
+		this.path = path;
+		this.context = context;
+		this.variables = Collections.unmodifiableList(Arrays.asList(variables.clone()));
+	}
+
+	/**
+	 * Shortcut for directly using any object as source for shared variable
+	 * substitutions.
+	 *
+	 * @param path
+	 *            the path to the template
+	 * @param bean
+	 *            the object that contains the shared variable values
+	 * @param variables
+	 *            the names of the variables that are specific to each message
+	 */
+	public PreparedTemplateContent(String path, Object bean, String... variables) {
+		this(path, new BeanContext(bean), variables);
+	}
+
+	/**
+	 * Create the content of one message.
+	 *
+	 * @param context
+	 *            the values of the personalization variables for the message
+	 * @return the content for the message
+	 */
+	public PersonalizedContent personalize(Context context) {
+		return new PersonalizedContent(this, context);
+	}
+
+	/**
+	 * Create the content of one message using any object as source for the
+	 * personalization variables.
+	 *
+	 * @param bean
+	 *            the object that contains the values of the personalization
+	 *            variables for the message
+	 * @return the content for the message
+	 */
+	public PersonalizedContent personalize(Object bean) {
+		return personalize(new BeanContext(bean));
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public Context getContext() {
+		return context;
+	}
+
+	public List<String> getVariables() {
+		return variables;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("PreparedTemplateContent [path=").append(path).append(", context=").append(context).append(", variables=").append(variables).append("]");
+		return builder.toString();
+	}
+}
@@ -63,6 +63,13 @@ public class StringContent implements MayHaveStringContent, UpdatableStringConte
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("content").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		StringContent other = (StringContent) obj;
+		return new EqualsBuilder().append(content, other.content).isEqual();
 	}
 }
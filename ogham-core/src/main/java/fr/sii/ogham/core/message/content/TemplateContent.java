@@ -72,6 +72,13 @@ public class TemplateContent implements Content {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("path", "context").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		TemplateContent other = (TemplateContent) obj;
+		return new EqualsBuilder().append(path, other.path).append(context, other.context).isEqual();
 	}
 }
@@ -0,0 +1,179 @@
+package fr.sii.ogham.core.metrics;
+
+/**
+ * Names of the measures emitted by Ogham components. Each timer has an
+ * associated counter of errors (same name suffixed by <code>.errors</code>).
+ * 
+ * @author Aurélien Baudet
+ * @see MetricsRecorder
+ */
+public final class MetricNames {
+	/**
+	 * Common prefix for all measures
+	 */
+	public static final String PREFIX = "ogham";
+
+	/**
+	 * Suffix for error counters
+	 */
+	public static final String ERRORS_SUFFIX = ".errors";
+
+	/**
+	 * Timer for the whole content translation done by the
+	 * {@link fr.sii.ogham.core.sender.ContentTranslatorSender}
+	 */
+	public static final String CONTENT_TRANSLATION = PREFIX + ".sender.translate";
+
+	/**
+	 * Timer for message filling done by the
+	 * {@link fr.sii.ogham.core.sender.FillerSender}
+	 */
+	public static final String FILL = PREFIX + ".sender.fill";
+
+	/**
+	 * Timer for template parsing
+	 */
+	public static final String TEMPLATE_PARSE = PREFIX + ".template.parse";
+
+	/**
+	 * Histogram of the size (number of characters) of parsed templates
+	 */
+	public static final String TEMPLATE_SIZE = PREFIX + ".template.size";
+
+	/**
+	 * Timer for the preparation of shared templates (rendering and inlining
+	 * done once for all recipients)
+	 */
+	public static final String TEMPLATE_PREPARE = PREFIX + ".template.prepare";
+
+	/**
+	 * Timer for merging per-recipient values into prepared templates
+	 */
+	public static final String TEMPLATE_MERGE = PREFIX + ".template.merge";
+
+	/**
+	 * Counter of translated contents found in the rendered content cache
+	 */
+	public static final String TEMPLATE_CACHE_HIT = PREFIX + ".template.cache.hit";
+
+	/**
+	 * Counter of translated contents not found (or expired) in the rendered
+	 * content cache
+	 */
+	public static final String TEMPLATE_CACHE_MISS = PREFIX + ".template.cache.miss";
+
+	/**
+	 * Timer for the sending of a message handled by the
+	 * {@link fr.sii.ogham.core.service.AsyncMessagingService} (measured in the
+	 * background thread)
+	 */
+	public static final String ASYNC_SEND = PREFIX + ".async.send";
+
+	/**
+	 * Histogram of the number of messages waiting or being sent by the
+	 * {@link fr.sii.ogham.core.service.AsyncMessagingService} (measured each
+	 * time a message is submitted)
+	 */
+	public static final String ASYNC_PENDING = PREFIX + ".async.pending";
+
+	/**
+	 * Timer for CSS inlining (including CSS loading)
+	 */
+	public static final String CSS_INLINE = PREFIX + ".html.css.inline";
+
+	/**
+	 * Timer for image inlining (including image loading and mimetype
+	 * detection)
+	 */
+	public static final String IMAGE_INLINE = PREFIX + ".html.image.inline";
+
+	/**
+	 * Histogram of the number of images inlined per content
+	 */
+	public static final String IMAGE_COUNT = PREFIX + ".html.image.count";
+
+	/**
+	 * Timer for mimetype detection
+	 */
+	public static final String MIMETYPE_DETECTION = PREFIX + ".mimetype.detect";
+
+	/**
+	 * Timer for building the MIME message using Java Mail API
+	 */
+	public static final String JAVAMAIL_MIME_BUILD = PREFIX + ".email.javamail.mime";
+
+	/**
+	 * Timer for sending email using Java Mail transport
+	 */
+	public static final String JAVAMAIL_SEND = PREFIX + ".email.javamail.send";
+
+	/**
+	 * Timer for sending email through SendGrid
+	 */
+	public static final String SENDGRID_SEND = PREFIX + ".email.sendgrid.send";
+
+	/**
+	 * Timer for the HTTP request to SendGrid (only the time spent waiting for
+	 * SendGrid)
+	 */
+	public static final String SENDGRID_REQUEST = PREFIX + ".email.sendgrid.request";
+
+	/**
+	 * Histogram of the number of emails coalesced into a single SendGrid
+	 * request
+	 */
+	public static final String SENDGRID_BATCH_SIZE = PREFIX + ".email.sendgrid.batch.size";
+
+	/**
+	 * Timer for sending SMS using Cloudhopper (including session management)
+	 */
+	public static final String CLOUDHOPPER_SEND = PREFIX + ".sms.cloudhopper.send";
+
+	/**
+	 * Histogram of the number of SMPP submits (segments x recipients) per SMS
+	 */
+	public static final String CLOUDHOPPER_SUBMITS = PREFIX + ".sms.cloudhopper.submits";
+
+	/**
+	 * Counter of delivery receipts received through Cloudhopper (the error
+	 * counter is incremented for receipts that could not be correlated)
+	 */
+	public static final String CLOUDHOPPER_RECEIPTS = PREFIX + ".sms.cloudhopper.receipts";
+
+	/**
+	 * Counter of submits refused by a SMSC because it is throttling (load
+	 * balanced sender only)
+	 */
+	public static final String CLOUDHOPPER_THROTTLED = PREFIX + ".sms.cloudhopper.throttled";
+
+	/**
+	 * Timer for sending SMS through OVH web service
+	 */
+	public static final String OVH_SEND = PREFIX + ".sms.ovh.send";
+
+	/**
+	 * Histogram of the number of SMS (segments) needed to send the content
+	 * through OVH
+	 */
+	public static final String OVH_SEGMENTS = PREFIX + ".sms.ovh.segments";
+
+	/**
+	 * Histogram of the number of messages coalesced into a single OVH request
+	 */
+	public static final String OVH_BATCH_SIZE = PREFIX + ".sms.ovh.batch.size";
+
+	/**
+	 * Get the name of the error counter associated to the timer
+	 * 
+	 * @param name
+	 *            the name of the timer
+	 * @return the name of the error counter
+	 */
+	public static String errors(String name) {
+		return name + ERRORS_SUFFIX;
+	}
+
+	private MetricNames() {
+		super();
+	}
+}
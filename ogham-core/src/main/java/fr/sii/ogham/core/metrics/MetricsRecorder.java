@@ -0,0 +1,73 @@
+package fr.sii.ogham.core.metrics;
+
+/**
+ * <p>
+ * Service provider interface used to record measures all along the sending
+ * pipeline (template parsing, CSS inlining, image inlining, MIME message
+ * construction, transport...).
+ * </p>
+ * <p>
+ * The measures are identified by a name (see {@link MetricNames} for the names
+ * emitted by Ogham). Implementations are called on hot paths so they must be
+ * thread-safe and as cheap as possible.
+ * </p>
+ * <p>
+ * The recorder is provided to each instrumented component by the builders
+ * (see <code>withMetricsRecorder</code> on the builders) so that several
+ * messaging services can record their measures in distinct recorders. When
+ * no recorder is provided, the {@link NoOpMetricsRecorder} is used.
+ * </p>
+ * <p>
+ * A timer is measured this way:
+ * 
+ * <pre>
+ * long start = metrics.startTimer();
+ * try {
+ * 	// do the work
+ * } finally {
+ * 	metrics.stopTimer(MetricNames.TEMPLATE_PARSE, start);
+ * }
+ * </pre>
+ * 
+ * @author Aurélien Baudet
+ * @see NoOpMetricsRecorder
+ */
+public interface MetricsRecorder {
+	/**
+	 * Start a timer. The returned value must be provided to
+	 * {@link #stopTimer(String, long)}.
+	 * 
+	 * @return the start time (the unit depends on the implementation)
+	 */
+	public long startTimer();
+
+	/**
+	 * Stop the timer and record the elapsed time since the provided start
+	 * time.
+	 * 
+	 * @param name
+	 *            the name of the timer
+	 * @param start
+	 *            the value returned by {@link #startTimer()}
+	 */
+	public void stopTimer(String name, long start);
+
+	/**
+	 * Increment a counter by one.
+	 * 
+	 * @param name
+	 *            the name of the counter
+	 */
+	public void increment(String name);
+
+	/**
+	 * Record a value in a histogram (distribution of values like sizes or
+	 * number of elements).
+	 * 
+	 * @param name
+	 *            the name of the histogram
+	 * @param value
+	 *            the value to record
+	 */
+	public void record(String name, long value);
+}
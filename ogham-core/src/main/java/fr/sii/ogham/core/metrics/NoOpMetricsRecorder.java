@@ -0,0 +1,45 @@
+package fr.sii.ogham.core.metrics;
+
+/**
+ * Default implementation that records nothing. It doesn't read the clock and
+ * doesn't allocate anything so instrumentation has no cost when metrics are
+ * not needed.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public final class NoOpMetricsRecorder implements MetricsRecorder {
+	/**
+	 * The shared instance
+	 */
+	public static final NoOpMetricsRecorder INSTANCE = new NoOpMetricsRecorder();
+
+	private NoOpMetricsRecorder() {
+		super();
+	}
+
+	@Override
+	public long startTimer() {
+		return 0;
+	}
+
+	@Override
+	public void stopTimer(String name, long start) {
+		// nothing to record
+	}
+
+	@Override
+	public void increment(String name) {
+		// nothing to record
+	}
+
+	@Override
+	public void record(String name, long value) {
+		// nothing to record
+	}
+
+	@Override
+	public String toString() {
+		return "NoOpMetricsRecorder";
+	}
+}
@@ -14,6 +14,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.exception.mimetype.MimeTypeDetectionException;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.util.IOUtils;
 
 /**
@@ -31,6 +34,11 @@ public class FallbackMimeTypeProvider implements MimeTypeProvider {
 	 */
 	private List<MimeTypeProvider> providers;
 
+	/**
+	 * The recorder for the measures
+	 */
+	private MetricsRecorder metrics;
+
 	public FallbackMimeTypeProvider(MimeTypeProvider... providers) {
 		this(new ArrayList<>(Arrays.asList(providers)));
 	}
@@ -38,6 +46,7 @@ public class FallbackMimeTypeProvider implements MimeTypeProvider {
 	public FallbackMimeTypeProvider(List<MimeTypeProvider> providers) {
 		super();
 		this.providers = providers;
+		this.metrics = NoOpMetricsRecorder.INSTANCE;
 	}
 
 	@Override
@@ -74,16 +83,21 @@ public class FallbackMimeTypeProvider implements MimeTypeProvider {
 
 	@Override
 	public MimeType detect(InputStream stream) throws MimeTypeDetectionException {
+		long start = metrics.startTimer();
 		try {
 			ByteArrayInputStream copy = new ByteArrayInputStream(IOUtils.toByteArray(stream));
 			copy.mark(Integer.MAX_VALUE);
 			MimeType mimetype = detect(copy);
 			if(mimetype==null) {
+				metrics.increment(MetricNames.errors(MetricNames.MIMETYPE_DETECTION));
 				throw new MimeTypeDetectionException("No mimetype provider could provide the mimetype from the provided content");
 			}
 			return mimetype;
 		} catch (IOException e1) {
+			metrics.increment(MetricNames.errors(MetricNames.MIMETYPE_DETECTION));
 			throw new MimeTypeDetectionException("Can't read the content of the stream", e1);
+		} finally {
+			metrics.stopTimer(MetricNames.MIMETYPE_DETECTION, start);
 		}
 	}
 
@@ -106,18 +120,24 @@ public class FallbackMimeTypeProvider implements MimeTypeProvider {
 
 	@Override
 	public MimeType detect(String content) throws MimeTypeDetectionException {
-		for (MimeTypeProvider provider : providers) {
-			try {
-				LOG.debug("Trying to get mime type using {} from content {}", provider, content);
-				MimeType mimetype = provider.detect(content);
-				LOG.debug("{} has detected mime type {} from content {}", provider, mimetype, content);
-				return mimetype;
-			} catch (MimeTypeDetectionException e) {
-				// nothing to do => try next one
-				LOG.debug("{} could not detect mime type from content {}. Cause: {}", provider, content, e);
+		long start = metrics.startTimer();
+		try {
+			for (MimeTypeProvider provider : providers) {
+				try {
+					LOG.debug("Trying to get mime type using {} from content {}", provider, content);
+					MimeType mimetype = provider.detect(content);
+					LOG.debug("{} has detected mime type {} from content {}", provider, mimetype, content);
+					return mimetype;
+				} catch (MimeTypeDetectionException e) {
+					// nothing to do => try next one
+					LOG.debug("{} could not detect mime type from content {}. Cause: {}", provider, content, e);
+				}
 			}
+			metrics.increment(MetricNames.errors(MetricNames.MIMETYPE_DETECTION));
+			throw new MimeTypeDetectionException("No mimetype provider could provide the mimetype from the provided content");
+		} finally {
+			metrics.stopTimer(MetricNames.MIMETYPE_DETECTION, start);
 		}
-		throw new MimeTypeDetectionException("No mimetype provider could provide the mimetype from the provided content");
 	}
 
 	/**
@@ -131,4 +151,14 @@ public class FallbackMimeTypeProvider implements MimeTypeProvider {
 		providers.add(provider);
 	}
 
+	/**
+	 * Use the provided recorder for the measures of the detection from
+	 * contents. By default, nothing is recorded.
+	 * 
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public void setMetricsRecorder(MetricsRecorder metrics) {
+		this.metrics = metrics;
+	}
 }
@@ -13,6 +13,12 @@ import fr.sii.ogham.core.util.IOUtils;
  * Basic implementation of a {@link NamedResource} that simply stores a
  * reference to the provided bytes.
  * 
+ * <p>
+ * The hash code is computed from the whole content only once so the resource
+ * can be used as a key in caches. The content must therefore never be
+ * modified.
+ * </p>
+ * 
  * @author Aurélien Baudet
  *
  */
@@ -27,6 +33,11 @@ public class ByteResource implements NamedResource {
 	 */
 	private String name;
 
+	/**
+	 * The cached hash code (0 if not computed yet)
+	 */
+	private int hash;
+
 	public ByteResource(String name, InputStream stream) throws IOException {
 		this(name, IOUtils.toByteArray(stream));
 	}
@@ -56,17 +67,43 @@ public class ByteResource implements NamedResource {
 		return name;
 	}
 
+	/**
+	 * Get the content of the resource. The returned array must not be
+	 * modified.
+	 * 
+	 * @return the content of the resource
+	 */
 	public byte[] getBytes() {
 		return bytes;
 	}
 
 	@Override
 	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = computeHashCode();
+			hash = h;
+		}
+		return h;
+	}
+
+	private int computeHashCode() {
 		return new HashCodeBuilder().append(name, bytes).hashCode();
 	}
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("name", "bytes").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		ByteResource other = (ByteResource) obj;
+		// cheap rejection when both hash codes are already known
+		if (hash != 0 && other.hash != 0 && hash != other.hash) {
+			return false;
+		}
+		return new EqualsBuilder().append(name, other.name).append(bytes, other.bytes).isEqual();
 	}
 }
\ No newline at end of file
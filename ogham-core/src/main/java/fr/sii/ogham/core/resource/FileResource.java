@@ -83,6 +83,13 @@ public class FileResource implements NamedResource {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("name", "file").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		FileResource other = (FileResource) obj;
+		return new EqualsBuilder().append(name, other.name).append(file, other.file).isEqual();
 	}
 }
@@ -100,6 +100,13 @@ public class LookupResource implements NamedResource {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("name", "path").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		LookupResource other = (LookupResource) obj;
+		return new EqualsBuilder().append(name, other.name).append(path, other.path).isEqual();
 	}
 }
@@ -10,6 +10,7 @@ import fr.sii.ogham.core.exception.resource.NoResolverException;
 import fr.sii.ogham.core.exception.resource.ResourceResolutionException;
 import fr.sii.ogham.core.resource.Resource;
 import fr.sii.ogham.core.util.LookupUtils;
+import fr.sii.ogham.core.util.ResolvedLookup;
 
 /**
  * <p>
@@ -82,25 +83,26 @@ public class LookupMappingResolver implements ConditionalResolver {
 
 	@Override
 	public Resource getResource(String path) throws ResourceResolutionException {
-		ResourceResolver resolver = getResolver(path);
-		if(resolver==null) {
+		ResolvedLookup<ResourceResolver> resolved = LookupUtils.resolve(mapping, path);
+		if(resolved==null || resolved.getValue()==null) {
 			throw new NoResolverException("No resource resolver available for "+path, path);
 		}
+		ResourceResolver resolver = resolved.getValue();
 		LOG.debug("Loading resource {} using resolver {}...", path, resolver);
-		return resolver.getResource(LookupUtils.getRealPath(mapping, path));
+		return resolver.getResource(resolved.getRealPath());
 	}
 
 	@Override
 	public boolean supports(String path) {
 		LOG.debug("Finding resolver for resource {}...", path);
-		String lookupType = LookupUtils.getLookupType(mapping, path);
-		if (lookupType != null) {
-			ResourceResolver resolver = mapping.get(lookupType);
-			boolean supports = resolver instanceof ConditionalResolver ? ((ConditionalResolver) resolver).supports(LookupUtils.getRealPath(lookupType, path)) : true;
+		ResolvedLookup<ResourceResolver> resolved = LookupUtils.resolve(mapping, path);
+		if (resolved != null) {
+			ResourceResolver resolver = resolved.getValue();
+			boolean supports = resolver instanceof ConditionalResolver ? ((ConditionalResolver) resolver).supports(resolved.getRealPath()) : true;
 			if (supports) {
-				LOG.debug("{} can be used for resolving lookup '{}' and can handle resource {}", resolver, lookupType, path);
+				LOG.debug("{} can be used for resolving lookup '{}' and can handle resource {}", resolver, resolved.getLookup(), path);
 			} else {
-				LOG.debug("{} can be used for resolving lookup '{}' but can't handle resource {}", resolver, lookupType, path);
+				LOG.debug("{} can be used for resolving lookup '{}' but can't handle resource {}", resolver, resolved.getLookup(), path);
 			}
 			return supports;
 		} else {
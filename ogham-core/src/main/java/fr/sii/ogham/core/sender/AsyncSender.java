@@ -0,0 +1,32 @@
+package fr.sii.ogham.core.sender;
+
+import java.util.concurrent.Future;
+
+import fr.sii.ogham.core.exception.MessageException;
+
+/**
+ * Implemented by senders that are able to send a message without blocking the
+ * calling thread while the provider processes the message.
+ * 
+ * @author Aurélien Baudet
+ *
+ * @param <M>
+ *            The type of message that the sender is able to handle
+ */
+public interface AsyncSender<M> {
+	/**
+	 * Sends the message without waiting for the provider response. The
+	 * returned future completes once the provider has accepted the message.
+	 * If the message couldn't be sent, the future fails with a
+	 * {@link MessageException} (available through
+	 * {@link java.util.concurrent.ExecutionException#getCause()}).
+	 * 
+	 * @param message
+	 *            the message to send
+	 * @return the future result of the sending
+	 * @throws MessageException
+	 *             when the message is invalid and couldn't be prepared for
+	 *             sending
+	 */
+	public Future<Void> sendAsync(M message) throws MessageException;
+}
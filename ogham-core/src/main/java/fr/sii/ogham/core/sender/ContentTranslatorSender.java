@@ -1,5 +1,7 @@
 package fr.sii.ogham.core.sender;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -7,7 +9,13 @@ import fr.sii.ogham.core.exception.MessageException;
 import fr.sii.ogham.core.exception.MessageNotSentException;
 import fr.sii.ogham.core.exception.handler.ContentTranslatorException;
 import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
 import fr.sii.ogham.core.translator.content.ContentTranslator;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
 
 /**
  * Decorator sender that transforms the content of the message before really
@@ -18,7 +26,7 @@ import fr.sii.ogham.core.translator.content.ContentTranslator;
  * @author Aurélien Baudet
  * @see ContentTranslator
  */
-public class ContentTranslatorSender implements ConditionalSender {
+public class ContentTranslatorSender implements ConditionalSender, ConnectionStatusProvider {
 	private static final Logger LOG = LoggerFactory.getLogger(ContentTranslatorSender.class);
 
 	/**
@@ -31,6 +39,11 @@ public class ContentTranslatorSender implements ConditionalSender {
 	 */
 	private MessageSender delegate;
 
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
 	/**
 	 * Initialize the sender with the provided translator and decorated sender.
 	 * The translator implementation will transform the content of the message.
@@ -43,9 +56,27 @@ public class ContentTranslatorSender implements ConditionalSender {
 	 *            The decorated sender will really send the message
 	 */
 	public ContentTranslatorSender(ContentTranslator translator, MessageSender delegate) {
+		this(translator, delegate, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initialize the sender with the provided translator and decorated sender.
+	 * The translator implementation will transform the content of the message.
+	 * The decorated sender will really send the message.
+	 * 
+	 * @param translator
+	 *            the translator implementation that will transform the content
+	 *            of the message
+	 * @param delegate
+	 *            The decorated sender will really send the message
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public ContentTranslatorSender(ContentTranslator translator, MessageSender delegate, MetricsRecorder metrics) {
 		super();
 		this.translator = translator;
 		this.delegate = delegate;
+		this.metrics = metrics;
 	}
 
 	@Override
@@ -55,15 +86,24 @@ public class ContentTranslatorSender implements ConditionalSender {
 
 	@Override
 	public void send(Message message) throws MessageException {
+		long start = metrics.startTimer();
 		try {
 			LOG.debug("Translate the message content {} using {}", message.getContent(), translator);
 			message.setContent(translator.translate(message.getContent()));
 			LOG.debug("Message content {} translated using {}", message.getContent(), translator);
-			LOG.debug("Sending translated message {} using {}", message, delegate);
-			delegate.send(message);
 		} catch (ContentTranslatorException e) {
+			metrics.increment(MetricNames.errors(MetricNames.CONTENT_TRANSLATION));
 			throw new MessageNotSentException("Failed to send message due to content handler", message, e);
+		} finally {
+			metrics.stopTimer(MetricNames.CONTENT_TRANSLATION, start);
 		}
+		LOG.debug("Sending translated message {} using {}", message, delegate);
+		delegate.send(message);
+	}
+
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return ConnectionStatusUtils.collect(delegate);
 	}
 
 	@Override
@@ -8,6 +8,9 @@ import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.exception.MessageException;
 import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
 
 /**
  * Decorator implementation that will try to send the message until one
@@ -18,7 +21,7 @@ import fr.sii.ogham.core.message.Message;
  * @author Aurélien Baudet
  *
  */
-public class FallbackSender implements MessageSender {
+public class FallbackSender implements MessageSender, ConnectionStatusProvider {
 	private static final Logger LOG = LoggerFactory.getLogger(FallbackSender.class);
 
 	/**
@@ -64,6 +67,11 @@ public class FallbackSender implements MessageSender {
 		throw new MessageException("No sender could handle the message", message);
 	}
 
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return ConnectionStatusUtils.collect(senders);
+	}
+
 	/**
 	 * Register a new sender to try. The sender is added at the end. It will be
 	 * used only after all previously registered senders have failed.
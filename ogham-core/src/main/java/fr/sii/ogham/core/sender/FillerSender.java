@@ -1,11 +1,20 @@
 package fr.sii.ogham.core.sender;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.filler.FillMessageException;
 import fr.sii.ogham.core.filler.MessageFiller;
 import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
 
 /**
  * Decorator sender that adds extra information to the message. This sender
@@ -16,7 +25,7 @@ import fr.sii.ogham.core.message.Message;
  * @author Aurélien Baudet
  *
  */
-public class FillerSender implements ConditionalSender {
+public class FillerSender implements ConditionalSender, ConnectionStatusProvider {
 	private static final Logger LOG = LoggerFactory.getLogger(FillerSender.class);
 
 	/**
@@ -31,6 +40,11 @@ public class FillerSender implements ConditionalSender {
 	 */
 	private MessageSender delegate;
 
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
 	/**
 	 * Initialize the sender with the filler instance and the decorated sender.
 	 * 
@@ -41,16 +55,40 @@ public class FillerSender implements ConditionalSender {
 	 *            the decorated sender that will really send the message
 	 */
 	public FillerSender(MessageFiller filler, MessageSender delegate) {
+		this(filler, delegate, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initialize the sender with the filler instance and the decorated sender.
+	 * 
+	 * @param filler
+	 *            the filler that will add additional information on the message
+	 *            before sending it
+	 * @param delegate
+	 *            the decorated sender that will really send the message
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public FillerSender(MessageFiller filler, MessageSender delegate, MetricsRecorder metrics) {
 		super();
 		this.filler = filler;
 		this.delegate = delegate;
+		this.metrics = metrics;
 	}
 
 	@Override
 	public void send(Message message) throws MessageException {
 		LOG.debug("Filling message {} with {} filler", message, filler);
 		// fill message with automatic values
-		filler.fill(message);
+		long start = metrics.startTimer();
+		try {
+			filler.fill(message);
+		} catch (FillMessageException e) {
+			metrics.increment(MetricNames.errors(MetricNames.FILL));
+			throw e;
+		} finally {
+			metrics.stopTimer(MetricNames.FILL, start);
+		}
 		LOG.debug("Message {} is filled, send it using {}", message, delegate);
 		// send message
 		delegate.send(message);
@@ -61,6 +99,11 @@ public class FillerSender implements ConditionalSender {
 		return delegate instanceof ConditionalSender ? ((ConditionalSender) delegate).supports(message) : true;
 	}
 
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return ConnectionStatusUtils.collect(delegate);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
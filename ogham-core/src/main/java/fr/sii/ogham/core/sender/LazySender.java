@@ -0,0 +1,120 @@
+package fr.sii.ogham.core.sender;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.service.WarmUpCapable;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
+
+/**
+ * Decorator sender that builds the real sender only when it is needed for the
+ * first time. This avoids paying the initialization of heavy components
+ * (template engines, CSS inliner, SMPP charsets...) for a kind of message that
+ * is never sent by the application.
+ *
+ * <p>
+ * The real sender is built when a message of the handled type is checked for
+ * support or sent, or when {@link #warmUp()} is called. Messages of any other
+ * type are directly rejected without building the real sender.
+ * </p>
+ * <p>
+ * If the build fails, the error is reported to the caller and the build is
+ * attempted again the next time.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class LazySender implements ConditionalSender, WarmUpCapable, ConnectionStatusProvider {
+	private static final Logger LOG = LoggerFactory.getLogger(LazySender.class);
+
+	/**
+	 * The builder used to create the real sender
+	 */
+	private final Builder<? extends ConditionalSender> builder;
+
+	/**
+	 * The type of messages that the real sender may handle
+	 */
+	private final Class<? extends Message> messageType;
+
+	/**
+	 * The real sender (null until built)
+	 */
+	private volatile ConditionalSender delegate;
+
+	/**
+	 * Initialize the sender with the builder of the real sender.
+	 *
+	 * @param builder
+	 *            the builder used to create the real sender on first use
+	 * @param messageType
+	 *            the type of messages that the real sender may handle
+	 */
+	public LazySender(Builder<? extends ConditionalSender> builder, Class<? extends Message> messageType) {
+		super();
+		this.builder = builder;
+		this.messageType = messageType;
+	}
+
+	@Override
+	public boolean supports(Message message) {
+		return messageType.isInstance(message) && getDelegate().supports(message);
+	}
+
+	@Override
+	public void send(Message message) throws MessageException {
+		getDelegate().send(message);
+	}
+
+	@Override
+	public void warmUp() throws BuildException {
+		getDelegate();
+	}
+
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		// never build the real sender only to get its statuses
+		ConditionalSender sender = delegate;
+		return sender == null ? Collections.<ConnectionStatus> emptyList() : ConnectionStatusUtils.collect(sender);
+	}
+
+	/**
+	 * @return true if the real sender has been built
+	 */
+	public boolean isInitialized() {
+		return delegate != null;
+	}
+
+	private ConditionalSender getDelegate() {
+		ConditionalSender sender = delegate;
+		if (sender == null) {
+			synchronized (this) {
+				sender = delegate;
+				if (sender == null) {
+					LOG.info("Initializing sender for {}...", messageType.getSimpleName());
+					sender = builder.build();
+					LOG.debug("Sender for {} initialized: {}", messageType.getSimpleName(), sender);
+					delegate = sender;
+				}
+			}
+		}
+		return sender;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("LazySender [messageType=").append(messageType.getSimpleName()).append(", delegate=").append(delegate == null ? "not initialized" : delegate).append("]");
+		return sb.toString();
+	}
+}
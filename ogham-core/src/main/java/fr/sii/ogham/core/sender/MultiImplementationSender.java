@@ -2,7 +2,9 @@ package fr.sii.ogham.core.sender;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -12,6 +14,10 @@ import org.slf4j.LoggerFactory;
 import fr.sii.ogham.core.condition.Condition;
 import fr.sii.ogham.core.exception.MessageException;
 import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.util.ConditionUtils;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
 
 /**
  * Decorator sender that is able to handle a particular type of message. And for
@@ -21,8 +27,19 @@ import fr.sii.ogham.core.message.Message;
  * There can be any kind of condition (for example, based on a required class in
  * the classpath or a particular property value...).
  * 
- * The implementation selection is done in the {@link #supports(Message)}
- * method.
+ * The implementation is selected for each message, both by
+ * {@link #supports(Message)} and by {@link #send(Message)}. No state is kept
+ * between both calls so the sender can be used concurrently (and both methods
+ * may be called from different threads).
+ * 
+ * <p>
+ * The conditions that don't depend on the message (see
+ * {@link fr.sii.ogham.core.condition.StaticCondition}) are evaluated only once
+ * (see {@link ConditionUtils#precompute(Condition)}). Implementations that can
+ * never be used are then discarded and only the conditions that depend on the
+ * message are evaluated for each message. Implementations must therefore be
+ * registered using {@link #addImplementation(Condition, MessageSender)}.
+ * </p>
  * 
  * @author Aurélien Baudet
  *
@@ -30,7 +47,7 @@ import fr.sii.ogham.core.message.Message;
  *            The type of message that the implementations can handle
  * @see Condition
  */
-public class MultiImplementationSender<M extends Message> implements ConditionalSender {
+public class MultiImplementationSender<M extends Message> implements ConditionalSender, ConnectionStatusProvider {
 	private static final Logger LOG = LoggerFactory.getLogger(MultiImplementationSender.class);
 
 	/**
@@ -39,9 +56,21 @@ public class MultiImplementationSender<M extends Message> implements Conditional
 	private Map<Condition<Message>, MessageSender> implementations;
 
 	/**
-	 * The selected sender implementation
+	 * The type of message that this sender handles
 	 */
-	private MessageSender sender;
+	private final Class<M> managedClass;
+
+	/**
+	 * The implementations that may be used with the precomputed conditions
+	 * (null if not computed yet)
+	 */
+	private volatile List<Implementation> candidates;
+
+	/**
+	 * The last selected sender implementation (only kept for
+	 * {@link #getSender()}, never read to send a message)
+	 */
+	private volatile MessageSender lastSelected;
 
 	/**
 	 * Initialize with no registered implementation.
@@ -74,6 +103,7 @@ public class MultiImplementationSender<M extends Message> implements Conditional
 	public MultiImplementationSender(Map<Condition<Message>, MessageSender> implementations) {
 		super();
 		this.implementations = implementations;
+		this.managedClass = getManagedClass();
 	}
 
 	/**
@@ -90,28 +120,61 @@ public class MultiImplementationSender<M extends Message> implements Conditional
 	 */
 	public final MultiImplementationSender<M> addImplementation(Condition<Message> condition, MessageSender implementation) {
 		implementations.put(condition, implementation);
+		candidates = null;
 		return this;
 	}
 
 	@Override
 	public boolean supports(Message message) {
-		sender = null;
-		boolean supports = message.getClass().isAssignableFrom(getManagedClass());
-		if (supports) {
-			LOG.debug("Can handle the message type {}. Is there any implementation available to send it ?", message.getClass());
+		if (!message.getClass().isAssignableFrom(managedClass)) {
+			LOG.debug("Can't handle the message type {}", message.getClass());
+			lastSelected = null;
+			return false;
+		}
+		LOG.debug("Can handle the message type {}. Is there any implementation available to send it ?", message.getClass());
+		MessageSender sender = select(message);
+		lastSelected = sender;
+		if (sender != null) {
+			LOG.debug("The implementation {} can handle the message {}", sender, message);
+		}
+		return sender != null;
+	}
+
+	/**
+	 * Find the first implementation that can handle the message.
+	 * 
+	 * @param message
+	 *            the message to send
+	 * @return the implementation to use or null if none can handle the message
+	 */
+	private MessageSender select(Message message) {
+		for (Implementation candidate : getCandidates()) {
+			if (candidate.condition.accept(message)) {
+				return candidate.sender;
+			}
+		}
+		return null;
+	}
+
+	private List<Implementation> getCandidates() {
+		List<Implementation> list = candidates;
+		if (list == null) {
+			list = new ArrayList<>(implementations.size());
 			for (Entry<Condition<Message>, MessageSender> entry : implementations.entrySet()) {
-				if (entry.getKey().accept(message)) {
-					sender = entry.getValue();
+				Condition<Message> condition = ConditionUtils.precompute(entry.getKey());
+				if (ConditionUtils.isFixed(condition, false)) {
+					LOG.debug("The implementation {} can't be used ({})", entry.getValue(), entry.getKey());
+					continue;
+				}
+				list.add(new Implementation(condition, entry.getValue()));
+				if (ConditionUtils.isFixed(condition, true)) {
+					// next implementations will never be selected
 					break;
 				}
 			}
-			if(sender!=null) {
-				LOG.debug("The implementation {} can handle the message {}", sender, message);
-			}
-		} else {
-			LOG.debug("Can't handle the message type {}", message.getClass());
+			candidates = list;
 		}
-		return supports && sender != null;
+		return list;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -125,15 +188,51 @@ public class MultiImplementationSender<M extends Message> implements Conditional
 
 	@Override
 	public void send(Message message) throws MessageException {
+		MessageSender sender = select(message);
+		lastSelected = sender;
+		if (sender == null) {
+			throw new MessageException("No implementation available to send the message", message);
+		}
 		LOG.debug("Sending message {} using {} implementation", message, sender);
 		sender.send(message);
 	}
 
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return ConnectionStatusUtils.collect(implementations.values());
+	}
+
 	public Map<Condition<Message>, MessageSender> getImplementations() {
 		return implementations;
 	}
 
+	/**
+	 * Get the implementation selected by the last call to
+	 * {@link #supports(Message)} or {@link #send(Message)}.
+	 * 
+	 * <p>
+	 * This is not thread-safe: when messages are sent concurrently, the
+	 * returned implementation may have been selected for another message.
+	 * </p>
+	 * 
+	 * @return the last selected implementation or null if none could handle
+	 *         the last message
+	 * @deprecated the implementation is selected for each message, there is
+	 *             no current implementation anymore
+	 */
+	@Deprecated
 	public MessageSender getSender() {
-		return sender;
+		return lastSelected;
+	}
+
+	private static class Implementation {
+		private final Condition<Message> condition;
+		private final MessageSender sender;
+
+		public Implementation(Condition<Message> condition, MessageSender sender) {
+			super();
+			this.condition = condition;
+			this.sender = sender;
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,245 @@
+package fr.sii.ogham.core.service;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.MessagingException;
+import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.sender.AsyncSender;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
+
+/**
+ * <p>
+ * Sends the messages in background threads provided by an {@link Executor}.
+ * The calling thread is released as soon as the message is submitted to the
+ * executor. The real sending is delegated to a {@link MessagingService}.
+ * </p>
+ * <p>
+ * The service keeps track of the messages that are submitted but not sent
+ * yet. When the service is closed, new messages are rejected and the service
+ * waits for the pending messages to be sent (up to the shutdown timeout). The
+ * executor is not shut down by this service as it may be shared.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class AsyncMessagingService implements AsyncSender<Message>, WarmUpCapable, ConnectionStatusProvider, Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncMessagingService.class);
+
+	/**
+	 * The service that really sends the messages
+	 */
+	private final MessagingService delegate;
+
+	/**
+	 * The executor that provides the background threads
+	 */
+	private final Executor executor;
+
+	/**
+	 * The maximum time (in milliseconds) to wait for pending messages when
+	 * closing the service
+	 */
+	private final long shutdownTimeout;
+
+	/**
+	 * Used to wait for the pending messages
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * The number of messages submitted but not sent yet (guarded by lock)
+	 */
+	private int pending;
+
+	/**
+	 * True once the service is closed (guarded by lock)
+	 */
+	private boolean closed;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	/**
+	 * Initializes the service with the delegate service and the executor.
+	 *
+	 * @param delegate
+	 *            the service that really sends the messages
+	 * @param executor
+	 *            the executor that provides the background threads
+	 * @param shutdownTimeout
+	 *            the maximum time (in milliseconds) to wait for pending
+	 *            messages when closing the service
+	 */
+	public AsyncMessagingService(MessagingService delegate, Executor executor, long shutdownTimeout) {
+		this(delegate, executor, shutdownTimeout, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initializes the service with the delegate service and the executor.
+	 *
+	 * @param delegate
+	 *            the service that really sends the messages
+	 * @param executor
+	 *            the executor that provides the background threads
+	 * @param shutdownTimeout
+	 *            the maximum time (in milliseconds) to wait for pending
+	 *            messages when closing the service
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public AsyncMessagingService(MessagingService delegate, Executor executor, long shutdownTimeout, MetricsRecorder metrics) {
+		super();
+		this.delegate = delegate;
+		this.executor = executor;
+		this.shutdownTimeout = shutdownTimeout;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Submits the message to the executor. The returned future completes once
+	 * the message is sent. If the message couldn't be sent, the future fails
+	 * with a {@link MessageException}. The failure is also logged so messages
+	 * that are submitted without looking at the result are not lost silently.
+	 *
+	 * @param message
+	 *            the message to send
+	 * @return the future result of the sending
+	 * @throws MessageException
+	 *             when the service is closed or when the executor rejects the
+	 *             message
+	 */
+	@Override
+	public Future<Void> sendAsync(final Message message) throws MessageException {
+		int current;
+		synchronized (lock) {
+			if (closed) {
+				throw new MessageException("Message can't be sent because the asynchronous messaging service is closed", message);
+			}
+			current = ++pending;
+		}
+		metrics.record(MetricNames.ASYNC_PENDING, current);
+		FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+			@Override
+			public Void call() throws MessageException {
+				try {
+					doSend(message);
+					return null;
+				} finally {
+					release();
+				}
+			}
+		});
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			release();
+			throw new MessageException("Message can't be sent because the executor rejected it", message, e);
+		}
+		return task;
+	}
+
+	/**
+	 * Get the number of messages that are submitted but not sent yet.
+	 *
+	 * @return the number of pending messages
+	 */
+	public int getPendingMessages() {
+		synchronized (lock) {
+			return pending;
+		}
+	}
+
+	/**
+	 * Rejects new messages and waits for the pending messages to be sent (up
+	 * to the shutdown timeout).
+	 *
+	 * @return true if all pending messages are sent, false if the timeout is
+	 *         reached or if the thread is interrupted
+	 */
+	public boolean shutdown() {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeout);
+		synchronized (lock) {
+			closed = true;
+			while (pending > 0) {
+				long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0) {
+					LOG.warn("{} message(s) still pending after {}ms on shutdown", pending, shutdownTimeout);
+					return false;
+				}
+				try {
+					lock.wait(remaining);
+				} catch (InterruptedException e) {
+					LOG.warn("Interrupted while waiting for {} pending message(s) on shutdown", pending);
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	@Override
+	public void close() {
+		shutdown();
+	}
+
+	@Override
+	public void warmUp() {
+		if (delegate instanceof WarmUpCapable) {
+			((WarmUpCapable) delegate).warmUp();
+		}
+	}
+
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return ConnectionStatusUtils.collect(delegate);
+	}
+
+	private void doSend(Message message) throws MessageException {
+		long start = metrics.startTimer();
+		try {
+			delegate.send(message);
+		} catch (MessageException e) {
+			metrics.increment(MetricNames.errors(MetricNames.ASYNC_SEND));
+			LOG.error("Failed to send message asynchronously", e);
+			throw e;
+		} catch (MessagingException | RuntimeException e) {
+			metrics.increment(MetricNames.errors(MetricNames.ASYNC_SEND));
+			LOG.error("Failed to send message asynchronously", e);
+			throw new MessageException("Message can't be sent asynchronously", message, e);
+		} finally {
+			metrics.stopTimer(MetricNames.ASYNC_SEND, start);
+		}
+	}
+
+	private void release() {
+		synchronized (lock) {
+			pending--;
+			lock.notifyAll();
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("AsyncMessagingService [delegate=").append(delegate).append(", executor=").append(executor).append(", shutdownTimeout=").append(shutdownTimeout).append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,102 @@
+package fr.sii.ogham.core.service;
+
+/**
+ * Snapshot of the state of the connections kept opened by a sender to a
+ * server (SMSC for example).
+ *
+ * @author Aurélien Baudet
+ * @see ConnectionStatusProvider
+ */
+public class ConnectionStatus {
+	/**
+	 * The name of the server
+	 */
+	private final String name;
+
+	/**
+	 * The number of sessions that are currently opened
+	 */
+	private final int openedSessions;
+
+	/**
+	 * The maximum number of sessions that may be opened
+	 */
+	private final int maxSessions;
+
+	/**
+	 * The number of requests waiting for a response
+	 */
+	private final int pendingRequests;
+
+	/**
+	 * The maximum number of requests that may wait for a response (for all
+	 * sessions)
+	 */
+	private final int maxPendingRequests;
+
+	/**
+	 * False if the server is temporarily not used (after failures for
+	 * example)
+	 */
+	private final boolean available;
+
+	/**
+	 * Initializes the status.
+	 *
+	 * @param name
+	 *            the name of the server
+	 * @param openedSessions
+	 *            the number of sessions that are currently opened
+	 * @param maxSessions
+	 *            the maximum number of sessions that may be opened
+	 * @param pendingRequests
+	 *            the number of requests waiting for a response
+	 * @param maxPendingRequests
+	 *            the maximum number of requests that may wait for a response
+	 *            (for all sessions)
+	 * @param available
+	 *            false if the server is temporarily not used (after failures
+	 *            for example)
+	 */
+	public ConnectionStatus(String name, int openedSessions, int maxSessions, int pendingRequests, int maxPendingRequests, boolean available) {
+		super();
+		this.name = name;
+		this.openedSessions = openedSessions;
+		this.maxSessions = maxSessions;
+		this.pendingRequests = pendingRequests;
+		this.maxPendingRequests = maxPendingRequests;
+		this.available = available;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getOpenedSessions() {
+		return openedSessions;
+	}
+
+	public int getMaxSessions() {
+		return maxSessions;
+	}
+
+	public int getPendingRequests() {
+		return pendingRequests;
+	}
+
+	public int getMaxPendingRequests() {
+		return maxPendingRequests;
+	}
+
+	public boolean isAvailable() {
+		return available;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("ConnectionStatus [name=").append(name).append(", sessions=").append(openedSessions).append("/").append(maxSessions).append(", pending=").append(pendingRequests).append("/")
+				.append(maxPendingRequests).append(", available=").append(available).append("]");
+		return builder.toString();
+	}
+}
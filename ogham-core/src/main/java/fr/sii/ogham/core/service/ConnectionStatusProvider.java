@@ -0,0 +1,25 @@
+package fr.sii.ogham.core.service;
+
+import java.util.List;
+
+/**
+ * Implemented by senders that keep connections opened to a server (pool of
+ * SMPP sessions for example) and by services and senders that delegate to
+ * other senders. It is useful for monitoring.
+ *
+ * <p>
+ * Providing the statuses must never open a new connection nor build a lazily
+ * initialized sender: only the connections that already exist are reported.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public interface ConnectionStatusProvider {
+	/**
+	 * Get the current state of the opened connections.
+	 *
+	 * @return the statuses (one per server), may be empty
+	 */
+	public List<ConnectionStatus> getConnectionStatuses();
+}
@@ -1,7 +1,15 @@
 package fr.sii.ogham.core.service;
 
+import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +18,7 @@ import fr.sii.ogham.core.exception.MessageNotSentException;
 import fr.sii.ogham.core.exception.MessagingException;
 import fr.sii.ogham.core.message.Message;
 import fr.sii.ogham.core.sender.ConditionalSender;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
 
 /**
  * Implementation that will ask each sender if it is able to handle the message.
@@ -19,17 +28,81 @@ import fr.sii.ogham.core.sender.ConditionalSender;
  * If several senders can handle the message, then each sender that is able to
  * handle it will be used.
  * 
+ * <p>
+ * By default, the supporting senders are called one after the other in the
+ * calling thread. If an {@link ExecutorService} is provided, the supporting
+ * senders are called concurrently using the executor (parallel dispatch). In
+ * this mode, the {@link FailureStrategy} indicates how failures of some senders
+ * are reported. When only one sender supports the message, it is directly
+ * called in the calling thread. As the same message instance is shared by the
+ * senders, parallel dispatch should only be enabled if the senders that may
+ * support the same message don't update it concurrently (for example, one email
+ * sender and one SMS sender).
+ * </p>
+ * <p>
+ * If the service manages the executor (see
+ * {@link #EverySupportingMessagingService(List, ExecutorService, FailureStrategy, boolean)}),
+ * the executor is shut down when the service is closed.
+ * </p>
+ * 
  * @author Aurélien Baudet
  * @see ConditionalSender
  */
-public class EverySupportingMessagingService implements MessagingService {
+public class EverySupportingMessagingService implements MessagingService, WarmUpCapable, ConnectionStatusProvider, Closeable {
 	private static final Logger LOG = LoggerFactory.getLogger(EverySupportingMessagingService.class);
 
+	/**
+	 * Indicates how failures are handled when several senders are used
+	 * concurrently.
+	 * 
+	 * @author Aurélien Baudet
+	 *
+	 */
+	public static enum FailureStrategy {
+		/**
+		 * The message is considered as sent only if all supporting senders have
+		 * successfully sent it. If any sender fails, the senders that are not
+		 * started yet are cancelled and an exception is thrown once the
+		 * senders that are already running are done (their failures are also
+		 * reported). As a running sender can't be safely stopped, "nothing"
+		 * can't be guaranteed: the message may still have been delivered by
+		 * some of the senders.
+		 */
+		ALL_OR_NOTHING,
+		/**
+		 * The message is considered as sent if at least one supporting sender
+		 * has successfully sent it. Failures of other senders are only logged.
+		 */
+		BEST_EFFORT
+	}
+
 	/**
 	 * The list of senders used to handle messages
 	 */
 	private List<ConditionalSender> senders;
 
+	/**
+	 * The executor used to call senders concurrently. If null, senders are
+	 * called sequentially
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * The strategy used to handle failures when senders are called
+	 * concurrently
+	 */
+	private FailureStrategy failureStrategy;
+
+	/**
+	 * If true, the executor is shut down when the service is closed
+	 */
+	private boolean managedExecutor;
+
+	/**
+	 * True once the service is closed
+	 */
+	private volatile boolean closed;
+
 	/**
 	 * Initialize the service with none, one or several sender implementations.
 	 * The registration order has no consequence.
@@ -49,8 +122,47 @@ public class EverySupportingMessagingService implements MessagingService {
 	 *            the senders to register
 	 */
 	public EverySupportingMessagingService(List<ConditionalSender> senders) {
+		this(senders, null, FailureStrategy.ALL_OR_NOTHING);
+	}
+
+	/**
+	 * Initialize the service with the provided sender implementations. The
+	 * supporting senders are called concurrently using the provided executor.
+	 * The registration order has no consequence.
+	 * 
+	 * @param senders
+	 *            the senders to register
+	 * @param executor
+	 *            the executor used to call the supporting senders concurrently
+	 *            (null to call senders sequentially)
+	 * @param failureStrategy
+	 *            the strategy to apply when some senders fail
+	 */
+	public EverySupportingMessagingService(List<ConditionalSender> senders, ExecutorService executor, FailureStrategy failureStrategy) {
+		this(senders, executor, failureStrategy, false);
+	}
+
+	/**
+	 * Initialize the service with the provided sender implementations. The
+	 * supporting senders are called concurrently using the provided executor.
+	 * The registration order has no consequence.
+	 * 
+	 * @param senders
+	 *            the senders to register
+	 * @param executor
+	 *            the executor used to call the supporting senders concurrently
+	 *            (null to call senders sequentially)
+	 * @param failureStrategy
+	 *            the strategy to apply when some senders fail
+	 * @param managedExecutor
+	 *            true to shut down the executor when the service is closed
+	 */
+	public EverySupportingMessagingService(List<ConditionalSender> senders, ExecutorService executor, FailureStrategy failureStrategy, boolean managedExecutor) {
 		super();
 		this.senders = senders;
+		this.executor = executor;
+		this.failureStrategy = failureStrategy;
+		this.managedExecutor = managedExecutor;
 	}
 
 	/**
@@ -70,26 +182,48 @@ public class EverySupportingMessagingService implements MessagingService {
 	 */
 	@Override
 	public void send(Message message) throws MessagingException {
+		if (closed) {
+			throw new MessageNotSentException("Message can't be sent because the messaging service is closed", message);
+		}
 		LOG.info("Sending message...");
 		LOG.debug("{}", message);
 		LOG.debug("Find senders that is able to send the message {}", message);
-		boolean sent = false;
+		List<ConditionalSender> supporting = new ArrayList<>(senders.size());
 		for (ConditionalSender sender : senders) {
 			if (sender.supports(message)) {
-				LOG.debug("Sending message {} using sender {}...", message, sender);
-				sender.send(message);
-				LOG.debug("Message {} sent using sender {}", message, sender);
-				sent = true;
+				supporting.add(sender);
 			} else {
 				LOG.debug("Sender {} can't handle the message {}", sender, message);
 			}
 		}
-		if(sent) {
-			LOG.info("Message sent");
-			LOG.debug("{}", message);
-		} else {
+		if (supporting.isEmpty()) {
 			throw new MessageNotSentException("No sender available to send the message", message);
 		}
+		if (executor == null || supporting.size() == 1) {
+			sendSequentially(message, supporting);
+		} else {
+			sendConcurrently(message, supporting);
+		}
+		LOG.info("Message sent");
+		LOG.debug("{}", message);
+	}
+
+	/**
+	 * Initialize now the senders that are lazily initialized (see
+	 * {@link WarmUpCapable}).
+	 */
+	@Override
+	public void warmUp() {
+		for (ConditionalSender sender : senders) {
+			if (sender instanceof WarmUpCapable) {
+				((WarmUpCapable) sender).warmUp();
+			}
+		}
+	}
+
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return ConnectionStatusUtils.collect(senders);
 	}
 
 	/**
@@ -103,4 +237,154 @@ public class EverySupportingMessagingService implements MessagingService {
 		senders.add(sender);
 		return this;
 	}
+
+	/**
+	 * Use the provided executor to call supporting senders concurrently.
+	 * 
+	 * @param executor
+	 *            the executor used to call the supporting senders concurrently
+	 *            (null to call senders sequentially)
+	 * @param failureStrategy
+	 *            the strategy to apply when some senders fail
+	 * @return this instance for fluent use
+	 */
+	public EverySupportingMessagingService setExecutor(ExecutorService executor, FailureStrategy failureStrategy) {
+		this.executor = executor;
+		this.failureStrategy = failureStrategy;
+		return this;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Close the service: new messages are rejected. If the executor is
+	 * managed by the service, it is shut down (the senders that are running
+	 * are not interrupted).
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		if (managedExecutor && executor != null) {
+			LOG.debug("Shutting down executor used to call senders concurrently");
+			executor.shutdown();
+		}
+	}
+
+	public FailureStrategy getFailureStrategy() {
+		return failureStrategy;
+	}
+
+	private static void sendSequentially(Message message, List<ConditionalSender> supporting) throws MessagingException {
+		for (ConditionalSender sender : supporting) {
+			LOG.debug("Sending message {} using sender {}...", message, sender);
+			sender.send(message);
+			LOG.debug("Message {} sent using sender {}", message, sender);
+		}
+	}
+
+	private void sendConcurrently(Message message, List<ConditionalSender> supporting) throws MessagingException {
+		LOG.debug("Sending message {} concurrently using senders {}...", message, supporting);
+		List<SendTask> tasks = new ArrayList<>(supporting.size());
+		List<Future<Void>> futures = new ArrayList<>(supporting.size());
+		for (ConditionalSender sender : supporting) {
+			SendTask task = new SendTask(sender, message);
+			tasks.add(task);
+			futures.add(executor.submit(task));
+		}
+		List<Throwable> failures = new ArrayList<>();
+		for (Future<Void> future : futures) {
+			Throwable failure = await(future);
+			if (failure != null) {
+				failures.add(failure);
+				if (failureStrategy == FailureStrategy.ALL_OR_NOTHING) {
+					cancelNotStarted(tasks, futures);
+				}
+			}
+		}
+		if (failures.isEmpty()) {
+			return;
+		}
+		if (failureStrategy == FailureStrategy.BEST_EFFORT && failures.size() < supporting.size()) {
+			for (Throwable failure : failures) {
+				LOG.warn("Message {} couldn't be sent by one of the senders. Cause: {}", message, failure.getMessage());
+				LOG.debug("Sender failure", failure);
+			}
+			return;
+		}
+		MessageNotSentException e = new MessageNotSentException("Message couldn't be sent by " + failures.size() + " of the " + supporting.size() + " supporting senders", message, failures.get(0));
+		for (int i = 1; i < failures.size(); i++) {
+			e.addSuppressed(failures.get(i));
+		}
+		throw e;
+	}
+
+	private static Throwable await(Future<Void> future) throws MessagingException {
+		try {
+			future.get();
+			return null;
+		} catch (ExecutionException e) {
+			return e.getCause();
+		} catch (CancellationException e) {
+			// only tasks that were not started are cancelled
+			LOG.debug("Sending has been cancelled due to failure of another sender", e);
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessagingException("Interrupted while waiting for senders", e);
+		}
+	}
+
+	private static void cancelNotStarted(List<SendTask> tasks, List<Future<Void>> futures) {
+		for (int i = 0; i < tasks.size(); i++) {
+			// a sender that is already running can't be safely stopped: wait
+			// for its result instead
+			if (tasks.get(i).skip()) {
+				futures.get(i).cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Task that sends the message using one sender.
+	 * 
+	 * @author Aurélien Baudet
+	 *
+	 */
+	private static class SendTask implements Callable<Void> {
+		private final ConditionalSender sender;
+		private final Message message;
+		/**
+		 * Set either when the task starts or when it is skipped
+		 */
+		private final AtomicBoolean claimed = new AtomicBoolean();
+
+		public SendTask(ConditionalSender sender, Message message) {
+			super();
+			this.sender = sender;
+			this.message = message;
+		}
+
+		/**
+		 * Prevent the task from sending the message if it is not started yet.
+		 * 
+		 * @return true if the task is skipped, false if it is already started
+		 */
+		public boolean skip() {
+			return claimed.compareAndSet(false, true);
+		}
+
+		@Override
+		public Void call() throws Exception {
+			if (!claimed.compareAndSet(false, true)) {
+				LOG.debug("Sending message {} using sender {} skipped due to failure of another sender", message, sender);
+				return null;
+			}
+			LOG.debug("Sending message {} using sender {}...", message, sender);
+			sender.send(message);
+			LOG.debug("Message {} sent using sender {}", message, sender);
+			return null;
+		}
+	}
 }
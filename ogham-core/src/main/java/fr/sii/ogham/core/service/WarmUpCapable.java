@@ -0,0 +1,23 @@
+package fr.sii.ogham.core.service;
+
+import fr.sii.ogham.core.exception.builder.BuildException;
+
+/**
+ * Implemented by services and senders that initialize some components lazily
+ * (on first use). Calling {@link #warmUp()} initializes them immediately. This
+ * is useful to detect configuration errors at startup or to avoid paying the
+ * initialization on the first message.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public interface WarmUpCapable {
+	/**
+	 * Initialize now all the components that are lazily initialized. Calling
+	 * this method several times has no effect.
+	 *
+	 * @throws BuildException
+	 *             when a component couldn't be initialized
+	 */
+	public void warmUp() throws BuildException;
+}
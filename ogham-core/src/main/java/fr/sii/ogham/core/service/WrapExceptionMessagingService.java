@@ -1,7 +1,12 @@
 package fr.sii.ogham.core.service;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
 import fr.sii.ogham.core.exception.MessagingException;
 import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
 
 /**
  * Decorator that catch all exceptions including {@link RuntimeException}. It
@@ -9,7 +14,7 @@ import fr.sii.ogham.core.message.Message;
  * 
  * @author Aurélien Baudet
  */
-public class WrapExceptionMessagingService implements MessagingService {
+public class WrapExceptionMessagingService implements MessagingService, WarmUpCapable, ConnectionStatusProvider, Closeable {
 	/**
 	 * The delegate service that will really send messages
 	 */
@@ -45,4 +50,27 @@ public class WrapExceptionMessagingService implements MessagingService {
 			throw new MessagingException("Message can't be sent due to uncaught exception. Cause: "+e.getMessage(), e);
 		}
 	}
+
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return ConnectionStatusUtils.collect(delegate);
+	}
+
+	@Override
+	public void warmUp() {
+		if (delegate instanceof WarmUpCapable) {
+			((WarmUpCapable) delegate).warmUp();
+		}
+	}
+
+	public MessagingService getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (delegate instanceof Closeable) {
+			((Closeable) delegate).close();
+		}
+	}
 }
@@ -91,6 +91,13 @@ public class BeanContext implements Context {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("bean").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		BeanContext other = (BeanContext) obj;
+		return new EqualsBuilder().append(bean, other.bean).isEqual();
 	}
 }
@@ -70,6 +70,13 @@ public class SimpleContext implements Context {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("variables").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		SimpleContext other = (SimpleContext) obj;
+		return new EqualsBuilder().append(variables, other.variables).isEqual();
 	}
 }
@@ -0,0 +1,27 @@
+package fr.sii.ogham.core.template.prepared;
+
+import java.util.Map;
+
+import fr.sii.ogham.core.message.content.Content;
+
+/**
+ * Immutable representation of a content that has been prepared once for many
+ * messages. The content contains substitution slots that are filled for each
+ * message.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public interface CompiledContent {
+	/**
+	 * Generate the content of one message by filling the substitution slots
+	 * with the provided values. The compiled content is not modified so it
+	 * can be merged concurrently.
+	 *
+	 * @param values
+	 *            the values of the personalization variables indexed by the
+	 *            variable names
+	 * @return the content for the message
+	 */
+	public Content merge(Map<String, Object> values);
+}
@@ -0,0 +1,49 @@
+package fr.sii.ogham.core.template.prepared;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.email.attachment.Attachment;
+import fr.sii.ogham.email.message.content.ContentWithAttachments;
+
+/**
+ * Compiled form of a {@link ContentWithAttachments} (HTML with inlined images
+ * for example). The attachments are loaded only once and are shared by all
+ * the generated contents.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class CompiledContentWithAttachments implements CompiledContent {
+	/**
+	 * The compiled decorated content
+	 */
+	private final CompiledContent content;
+
+	/**
+	 * The shared attachments
+	 */
+	private final List<Attachment> attachments;
+
+	public CompiledContentWithAttachments(CompiledContent content, List<Attachment> attachments) {
+		super();
+		this.content = content;
+		this.attachments = new ArrayList<>(attachments);
+	}
+
+	@Override
+	public Content merge(Map<String, Object> values) {
+		// new list because attachments may be added later to the content of the
+		// message
+		return new ContentWithAttachments(content.merge(values), new ArrayList<>(attachments));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("CompiledContentWithAttachments [content=").append(content).append(", attachments=").append(attachments).append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,43 @@
+package fr.sii.ogham.core.template.prepared;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.message.content.MultiContent;
+
+/**
+ * Compiled form of a {@link MultiContent}. Each sub content is merged
+ * independently.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class CompiledMultiContent implements CompiledContent {
+	/**
+	 * The compiled sub contents
+	 */
+	private final List<CompiledContent> contents;
+
+	public CompiledMultiContent(List<CompiledContent> contents) {
+		super();
+		this.contents = new ArrayList<>(contents);
+	}
+
+	@Override
+	public Content merge(Map<String, Object> values) {
+		MultiContent result = new MultiContent();
+		for (CompiledContent content : contents) {
+			result.addContent(content.merge(values));
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("CompiledMultiContent [contents=").append(contents).append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,99 @@
+package fr.sii.ogham.core.template.prepared;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.message.content.StringContent;
+
+/**
+ * Compiled form of a string content. The string is split into static parts
+ * and substitution slots: the static parts are kept as-is and each slot is
+ * replaced by the value of its variable. If the content is HTML, the values
+ * are escaped.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class CompiledStringContent implements CompiledContent {
+	/**
+	 * The static parts (one more than the number of slots)
+	 */
+	private final String[] parts;
+
+	/**
+	 * The name of the variable to insert after each static part
+	 */
+	private final String[] slots;
+
+	/**
+	 * Escape the values for HTML or not
+	 */
+	private final boolean escapeHtml;
+
+	/**
+	 * The total length of the static parts
+	 */
+	private final int staticLength;
+
+	/**
+	 * Initialize the compiled content with the static parts and the slots.
+	 * There must be exactly one more part than slots.
+	 *
+	 * @param parts
+	 *            the static parts
+	 * @param slots
+	 *            the name of the variable to insert after each static part
+	 * @param escapeHtml
+	 *            true to escape the values for HTML
+	 */
+	public CompiledStringContent(List<String> parts, List<String> slots, boolean escapeHtml) {
+		super();
+		if (parts.size() != slots.size() + 1) {
+			throw new IllegalArgumentException("There must be exactly one more static part than slots");
+		}
+		this.parts = parts.toArray(new String[parts.size()]);
+		this.slots = slots.toArray(new String[slots.size()]);
+		this.escapeHtml = escapeHtml;
+		int length = 0;
+		for (String part : this.parts) {
+			length += part.length();
+		}
+		this.staticLength = length;
+	}
+
+	@Override
+	public Content merge(Map<String, Object> values) {
+		StringBuilder sb = new StringBuilder(staticLength + 16 * slots.length);
+		sb.append(parts[0]);
+		for (int i = 0; i < slots.length; i++) {
+			sb.append(toString(values.get(slots[i])));
+			sb.append(parts[i + 1]);
+		}
+		return new StringContent(sb.toString());
+	}
+
+	/**
+	 * @return the number of substitution slots
+	 */
+	public int getSlotCount() {
+		return slots.length;
+	}
+
+	private String toString(Object value) {
+		if (value == null) {
+			return "";
+		}
+		String str = value.toString();
+		return escapeHtml ? StringEscapeUtils.escapeHtml4(str) : str;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("CompiledStringContent [length=").append(staticLength).append(", slots=").append(slots.length).append(", escapeHtml=").append(escapeHtml).append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,71 @@
+package fr.sii.ogham.core.template.prepared;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import fr.sii.ogham.core.exception.handler.ContentTranslatorException;
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.message.content.MayHaveStringContent;
+import fr.sii.ogham.core.message.content.MultiContent;
+import fr.sii.ogham.email.message.content.ContentWithAttachments;
+
+/**
+ * Utility class that converts a translated content into its immutable
+ * {@link CompiledContent} form.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public final class ContentCompiler {
+
+	/**
+	 * Compile the content. The markers found in the string contents are
+	 * converted into substitution slots.
+	 *
+	 * @param content
+	 *            the translated content
+	 * @param markers
+	 *            the markers of the substitution slots
+	 * @return the compiled content
+	 * @throws ContentTranslatorException
+	 *             when the content (or one of its sub contents) can't provide
+	 *             a string
+	 */
+	public static CompiledContent compile(Content content, SlotMarkers markers) throws ContentTranslatorException {
+		if (content instanceof ContentWithAttachments) {
+			ContentWithAttachments withAttachments = (ContentWithAttachments) content;
+			return new CompiledContentWithAttachments(compile(withAttachments.getContent(), markers), withAttachments.getAttachments());
+		}
+		if (content instanceof MultiContent) {
+			List<CompiledContent> contents = new ArrayList<>();
+			for (Content c : ((MultiContent) content).getContents()) {
+				contents.add(compile(c, markers));
+			}
+			return new CompiledMultiContent(contents);
+		}
+		if (content instanceof MayHaveStringContent && ((MayHaveStringContent) content).canProvideString()) {
+			return markers.compile(((MayHaveStringContent) content).asString());
+		}
+		throw new ContentTranslatorException("Content can't be compiled: " + content + " doesn't provide a string");
+	}
+
+	/**
+	 * Compile a content that doesn't contain any substitution slot. Merging
+	 * the result provides a new copy of the content each time.
+	 *
+	 * @param content
+	 *            the translated content
+	 * @return the compiled content
+	 * @throws ContentTranslatorException
+	 *             when the content (or one of its sub contents) can't provide
+	 *             a string
+	 */
+	public static CompiledContent compile(Content content) throws ContentTranslatorException {
+		return compile(content, new SlotMarkers(Collections.<String> emptyList()));
+	}
+
+	private ContentCompiler() {
+		super();
+	}
+}
@@ -0,0 +1,187 @@
+package fr.sii.ogham.core.template.prepared;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import fr.sii.ogham.core.util.HtmlUtils;
+
+/**
+ * <p>
+ * Generates the markers that are given to the template engine instead of the
+ * real values of the personalization variables and then finds them in the
+ * evaluated content to build a {@link CompiledStringContent}.
+ * </p>
+ * <p>
+ * A marker is made of letters, digits and underscores so it is not modified
+ * by the HTML inliners. A random part is added to ensure that the markers
+ * can't be confused with the content of the template. The marker ends with a
+ * probe (<code>&lt;i&gt;</code>) that tells how the template engine printed
+ * the variable:
+ * <ul>
+ * <li>escaped for HTML (<code>th:text</code> for example): the value can be
+ * substituted by escaping it for HTML</li>
+ * <li>as-is in a text content or in an attribute: the value can be
+ * substituted as is (text) or escaped (attribute)</li>
+ * <li>otherwise (not escaped in HTML text with <code>th:utext</code>,
+ * URL-encoded in a link parameter...): the value can't be substituted. The
+ * variable is reported as unsafe (see {@link #getUnsafeVariables()})</li>
+ * </ul>
+ * <p>
+ * An instance is used for a single preparation: it remembers which variables
+ * have been found.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class SlotMarkers {
+	private static final String SUFFIX = "__";
+
+	/**
+	 * Added after each marker to know how the template engine printed it
+	 */
+	private static final String PROBE = "<i>";
+
+	/**
+	 * The probe escaped for HTML
+	 */
+	private static final String ESCAPED_PROBE = "&lt;i&gt;";
+
+	private static final Random RANDOM = new SecureRandom();
+
+	/**
+	 * The names of the personalization variables
+	 */
+	private final List<String> variables;
+
+	/**
+	 * The start of every marker
+	 */
+	private final String prefix;
+
+	/**
+	 * The indices of the variables that have been found
+	 */
+	private final BitSet found;
+
+	/**
+	 * The indices of the variables that have been found in a context where
+	 * they can't be substituted
+	 */
+	private final BitSet unsafe;
+
+	public SlotMarkers(List<String> variables) {
+		super();
+		this.variables = variables;
+		this.prefix = "__ogham_" + Long.toHexString(RANDOM.nextLong()) + "_";
+		this.found = new BitSet(variables.size());
+		this.unsafe = new BitSet(variables.size());
+	}
+
+	/**
+	 * Get the marker to use instead of the value of the variable.
+	 *
+	 * @param variable
+	 *            the name of the personalization variable
+	 * @return the marker
+	 */
+	public String getMarker(String variable) {
+		int index = variables.indexOf(variable);
+		if (index < 0) {
+			throw new IllegalArgumentException("Unknown personalization variable " + variable);
+		}
+		return prefix + index + SUFFIX + PROBE;
+	}
+
+	/**
+	 * Split the evaluated content into static parts and substitution slots.
+	 * Values will be escaped if the content is HTML.
+	 *
+	 * @param content
+	 *            the evaluated content that contains the markers
+	 * @return the compiled content
+	 */
+	public CompiledStringContent compile(String content) {
+		boolean html = HtmlUtils.isHtml(content);
+		List<String> parts = new ArrayList<>();
+		List<String> slots = new ArrayList<>();
+		int partStart = 0;
+		int idx = content.indexOf(prefix);
+		while (idx >= 0) {
+			int indexStart = idx + prefix.length();
+			int indexEnd = indexStart;
+			while (indexEnd < content.length() && Character.isDigit(content.charAt(indexEnd))) {
+				indexEnd++;
+			}
+			int variable = indexEnd > indexStart && content.startsWith(SUFFIX, indexEnd) ? Integer.parseInt(content.substring(indexStart, indexEnd)) : -1;
+			if (variable >= 0 && variable < variables.size()) {
+				parts.add(content.substring(partStart, idx));
+				slots.add(variables.get(variable));
+				found.set(variable);
+				partStart = indexEnd + SUFFIX.length();
+				int probeLength = getProbeLength(content, idx, partStart, html);
+				if (probeLength < 0) {
+					unsafe.set(variable);
+				} else {
+					partStart += probeLength;
+				}
+				idx = content.indexOf(prefix, partStart);
+			} else {
+				idx = content.indexOf(prefix, indexStart);
+			}
+		}
+		parts.add(content.substring(partStart));
+		return new CompiledStringContent(parts, slots, html);
+	}
+
+	/**
+	 * Check how the probe following the marker has been printed.
+	 *
+	 * @return the length of the probe or -1 if the variable is printed in a
+	 *         context where it can't be substituted
+	 */
+	private static int getProbeLength(String content, int markerStart, int probeStart, boolean html) {
+		if (content.startsWith(ESCAPED_PROBE, probeStart)) {
+			return ESCAPED_PROBE.length();
+		}
+		// in HTML, the probe is only printed as-is in an attribute value
+		// (HTML parsers don't escape '<' in attributes)
+		if (content.startsWith(PROBE, probeStart) && (!html || isInTag(content, markerStart))) {
+			return PROBE.length();
+		}
+		return -1;
+	}
+
+	private static boolean isInTag(String content, int index) {
+		return content.lastIndexOf('<', index) > content.lastIndexOf('>', index);
+	}
+
+	/**
+	 * @return the personalization variables that have not been found in any
+	 *         compiled content so far
+	 */
+	public List<String> getMissingVariables() {
+		List<String> missing = new ArrayList<>();
+		for (int i = 0; i < variables.size(); i++) {
+			if (!found.get(i)) {
+				missing.add(variables.get(i));
+			}
+		}
+		return missing;
+	}
+
+	/**
+	 * @return the personalization variables that have been found in a
+	 *         context where they can't be substituted (URL, unescaped HTML...)
+	 */
+	public List<String> getUnsafeVariables() {
+		List<String> result = new ArrayList<>();
+		for (int i = unsafe.nextSetBit(0); i >= 0; i = unsafe.nextSetBit(i + 1)) {
+			result.add(variables.get(i));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,208 @@
+package fr.sii.ogham.core.translator.content;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.sii.ogham.core.exception.handler.ContentTranslatorException;
+import fr.sii.ogham.core.exception.template.ContextException;
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.message.content.TemplateContent;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.template.context.LocaleContext;
+import fr.sii.ogham.core.template.prepared.CompiledContent;
+import fr.sii.ogham.core.template.prepared.ContentCompiler;
+import fr.sii.ogham.core.util.EqualsBuilder;
+
+/**
+ * <p>
+ * Decorator that remembers the fully translated content (template evaluation,
+ * CSS inlining, image inlining...) of the most recently used
+ * {@link TemplateContent}s. This is useful when the same template is sent
+ * with the same values again and again (alerts sent to a distribution list as
+ * separate messages for example).
+ * </p>
+ * <p>
+ * The translated content is identified by the path of the template, the
+ * variable values and the locale (if the context is a {@link LocaleContext}).
+ * The variable values are compared using their <code>equals</code> method so
+ * values that don't implement it are only equal to themselves. The variable
+ * values must not be modified once the content has been sent.
+ * </p>
+ * <p>
+ * At most <code>maxEntries</code> contents are kept (least recently used ones
+ * are forgotten first) and each content is forgotten after
+ * <code>timeToLive</code> milliseconds. As contents are mutable, a new copy of
+ * the remembered content is returned each time.
+ * </p>
+ * <p>
+ * Any other content is directly translated by the delegate.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class CachingTemplateTranslator implements ContentTranslator {
+	private static final Logger LOG = LoggerFactory.getLogger(CachingTemplateTranslator.class);
+
+	/**
+	 * The translator that really translates the contents
+	 */
+	private final ContentTranslator delegate;
+
+	/**
+	 * The time to live of each entry in nanoseconds
+	 */
+	private final long timeToLive;
+
+	/**
+	 * The translated contents indexed by template, values and locale
+	 */
+	private final Map<Key, Entry> cache;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	/**
+	 * Initializes the translator.
+	 *
+	 * @param delegate
+	 *            the translator that really translates the contents
+	 * @param maxEntries
+	 *            the maximum number of remembered contents
+	 * @param timeToLive
+	 *            the time in milliseconds a content is remembered
+	 */
+	public CachingTemplateTranslator(ContentTranslator delegate, final int maxEntries, long timeToLive) {
+		this(delegate, maxEntries, timeToLive, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initializes the translator.
+	 *
+	 * @param delegate
+	 *            the translator that really translates the contents
+	 * @param maxEntries
+	 *            the maximum number of remembered contents
+	 * @param timeToLive
+	 *            the time in milliseconds a content is remembered
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public CachingTemplateTranslator(ContentTranslator delegate, final int maxEntries, long timeToLive, MetricsRecorder metrics) {
+		super();
+		this.delegate = delegate;
+		this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+		this.cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Content translate(Content content) throws ContentTranslatorException {
+		if (!(content instanceof TemplateContent)) {
+			return delegate.translate(content);
+		}
+		Key key = toKey((TemplateContent) content);
+		if (key == null) {
+			return delegate.translate(content);
+		}
+		long now = System.nanoTime();
+		Entry entry;
+		synchronized (cache) {
+			entry = cache.get(key);
+			if (entry != null && entry.expiration - now < 0) {
+				cache.remove(key);
+				entry = null;
+			}
+		}
+		if (entry != null) {
+			LOG.debug("Translated content of template {} found in cache", key.path);
+			metrics.increment(MetricNames.TEMPLATE_CACHE_HIT);
+			return entry.content.merge(Collections.<String, Object> emptyMap());
+		}
+		metrics.increment(MetricNames.TEMPLATE_CACHE_MISS);
+		CompiledContent compiled = ContentCompiler.compile(delegate.translate(content));
+		synchronized (cache) {
+			cache.put(key, new Entry(compiled, now + timeToLive));
+		}
+		return compiled.merge(Collections.<String, Object> emptyMap());
+	}
+
+	private static Key toKey(TemplateContent template) {
+		try {
+			Map<String, Object> variables = template.getContext() == null ? new HashMap<String, Object>() : new HashMap<>(template.getContext().getVariables());
+			Locale locale = template.getContext() instanceof LocaleContext ? ((LocaleContext) template.getContext()).getLocale() : null;
+			return new Key(template.getPath(), variables, locale);
+		} catch (ContextException e) {
+			LOG.debug("Variable values of template {} are not available. Skip cache", template.getPath(), e);
+			return null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("CachingTemplateTranslator [delegate=").append(delegate).append("]");
+		return builder.toString();
+	}
+
+	private static class Key {
+		private final String path;
+		private final Map<String, Object> variables;
+		private final Locale locale;
+		private final int hash;
+
+		public Key(String path, Map<String, Object> variables, Locale locale) {
+			super();
+			this.path = path;
+			this.variables = variables;
+			this.locale = locale;
+			this.hash = 31 * (31 * (path == null ? 0 : path.hashCode()) + variables.hashCode()) + (locale == null ? 0 : locale.hashCode());
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && new EqualsBuilder().append(path, other.path).append(locale, other.locale).append(variables, other.variables).isEqual();
+		}
+	}
+
+	private static class Entry {
+		private final CompiledContent content;
+		private final long expiration;
+
+		public Entry(CompiledContent content, long expiration) {
+			super();
+			this.content = content;
+			this.expiration = expiration;
+		}
+	}
+}
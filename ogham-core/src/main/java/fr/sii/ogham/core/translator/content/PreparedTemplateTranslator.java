@@ -0,0 +1,202 @@
+package fr.sii.ogham.core.translator.content;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.sii.ogham.core.exception.handler.ContentTranslatorException;
+import fr.sii.ogham.core.exception.template.ContextException;
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.message.content.PersonalizedContent;
+import fr.sii.ogham.core.message.content.PreparedTemplateContent;
+import fr.sii.ogham.core.message.content.TemplateContent;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.template.context.Context;
+import fr.sii.ogham.core.template.context.LocaleContext;
+import fr.sii.ogham.core.template.context.SimpleContext;
+import fr.sii.ogham.core.template.prepared.CompiledContent;
+import fr.sii.ogham.core.template.prepared.ContentCompiler;
+import fr.sii.ogham.core.template.prepared.SlotMarkers;
+
+/**
+ * <p>
+ * Decorator that handles {@link PreparedTemplateContent} and
+ * {@link PersonalizedContent}.
+ * </p>
+ * <p>
+ * The first time a {@link PreparedTemplateContent} is encountered, the
+ * template is translated by the delegate (template evaluation, CSS inlining,
+ * image inlining...) using the shared context. The personalization variables
+ * are replaced by markers (see {@link SlotMarkers}). The result is then
+ * compiled into a {@link CompiledContent} and kept as long as the
+ * {@link PreparedTemplateContent} instance is in use. Each message then only
+ * merges its own values into the compiled content.
+ * </p>
+ * <p>
+ * A value can only be substituted if the template prints it as text (escaped
+ * for HTML). If a personalization variable is printed elsewhere (link
+ * parameter that must be URL-encoded, unescaped HTML...), a warning is logged
+ * and the template is evaluated for each message instead.
+ * </p>
+ * <p>
+ * Any other content is directly translated by the delegate.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class PreparedTemplateTranslator implements ContentTranslator {
+	private static final Logger LOG = LoggerFactory.getLogger(PreparedTemplateTranslator.class);
+
+	/**
+	 * The translator used to prepare the template and to translate any other
+	 * content
+	 */
+	private final ContentTranslator delegate;
+
+	/**
+	 * The compiled contents indexed by the prepared template instance
+	 */
+	private final Map<PreparedTemplateContent, CompiledContent> compiled;
+
+	/**
+	 * Placeholder for the templates that are evaluated for each message
+	 */
+	private static final CompiledContent EVALUATED_PER_MESSAGE = new CompiledContent() {
+		@Override
+		public Content merge(Map<String, Object> values) {
+			throw new IllegalStateException("The template is evaluated for each message");
+		}
+	};
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	public PreparedTemplateTranslator(ContentTranslator delegate) {
+		this(delegate, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	public PreparedTemplateTranslator(ContentTranslator delegate, MetricsRecorder metrics) {
+		super();
+		this.delegate = delegate;
+		this.compiled = Collections.synchronizedMap(new WeakHashMap<PreparedTemplateContent, CompiledContent>());
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Content translate(Content content) throws ContentTranslatorException {
+		if (content instanceof PersonalizedContent) {
+			PersonalizedContent personalized = (PersonalizedContent) content;
+			CompiledContent compiledContent = getCompiled(personalized.getTemplate());
+			if (compiledContent == EVALUATED_PER_MESSAGE) {
+				return evaluate(personalized.getTemplate(), personalized);
+			}
+			return merge(compiledContent, personalized);
+		}
+		if (content instanceof PreparedTemplateContent) {
+			PreparedTemplateContent template = (PreparedTemplateContent) content;
+			CompiledContent compiledContent = getCompiled(template);
+			if (compiledContent == EVALUATED_PER_MESSAGE) {
+				return evaluate(template, null);
+			}
+			return merge(compiledContent, null);
+		}
+		return delegate.translate(content);
+	}
+
+	private Content merge(CompiledContent compiledContent, PersonalizedContent personalized) throws ContentTranslatorException {
+		long start = metrics.startTimer();
+		try {
+			Map<String, Object> values = personalized == null || personalized.getContext() == null ? Collections.<String, Object> emptyMap() : personalized.getContext().getVariables();
+			return compiledContent.merge(values);
+		} catch (ContextException e) {
+			throw new ContentTranslatorException("failed to get personalization values of " + personalized, e);
+		} finally {
+			metrics.stopTimer(MetricNames.TEMPLATE_MERGE, start);
+		}
+	}
+
+	private Content evaluate(PreparedTemplateContent template, PersonalizedContent personalized) throws ContentTranslatorException {
+		try {
+			Map<String, Object> values = personalized == null || personalized.getContext() == null ? Collections.<String, Object> emptyMap() : personalized.getContext().getVariables();
+			return delegate.translate(new TemplateContent(template.getPath(), createContext(template, values)));
+		} catch (ContextException e) {
+			throw new ContentTranslatorException("failed to get values of " + (personalized == null ? template : personalized), e);
+		}
+	}
+
+	private CompiledContent getCompiled(PreparedTemplateContent template) throws ContentTranslatorException {
+		CompiledContent compiledContent = compiled.get(template);
+		if (compiledContent == null) {
+			// concurrent first uses may prepare the template several times but
+			// the result is always the same
+			compiledContent = prepare(template);
+			compiled.put(template, compiledContent);
+		}
+		return compiledContent;
+	}
+
+	private CompiledContent prepare(PreparedTemplateContent template) throws ContentTranslatorException {
+		long start = metrics.startTimer();
+		try {
+			LOG.info("Prepare template {} shared by several messages", template.getPath());
+			SlotMarkers markers = new SlotMarkers(template.getVariables());
+			Map<String, Object> values = new HashMap<>();
+			for (String variable : template.getVariables()) {
+				values.put(variable, markers.getMarker(variable));
+			}
+			Content translated = delegate.translate(new TemplateContent(template.getPath(), createContext(template, values)));
+			CompiledContent result = ContentCompiler.compile(translated, markers);
+			List<String> unsafe = markers.getUnsafeVariables();
+			if (!unsafe.isEmpty()) {
+				LOG.warn("Personalization variables {} are printed by template {} in a context where they can't be substituted (URL, unescaped HTML...). The template will be evaluated for each message",
+						unsafe, template.getPath());
+				return EVALUATED_PER_MESSAGE;
+			}
+			List<String> missing = markers.getMissingVariables();
+			if (!missing.isEmpty()) {
+				LOG.warn("Personalization variables {} are not directly printed by template {}. They won't be substituted", missing, template.getPath());
+			}
+			LOG.debug("Template {} prepared: {}", template.getPath(), result);
+			return result;
+		} catch (ContextException e) {
+			metrics.increment(MetricNames.errors(MetricNames.TEMPLATE_PREPARE));
+			throw new ContentTranslatorException("failed to get shared values of " + template, e);
+		} catch (ContentTranslatorException e) {
+			metrics.increment(MetricNames.errors(MetricNames.TEMPLATE_PREPARE));
+			throw e;
+		} finally {
+			metrics.stopTimer(MetricNames.TEMPLATE_PREPARE, start);
+		}
+	}
+
+	/**
+	 * Create the context to evaluate the template: the shared values and the
+	 * provided values (that override shared ones).
+	 */
+	private static Context createContext(PreparedTemplateContent template, Map<String, Object> values) throws ContextException {
+		Map<String, Object> variables = template.getContext() == null ? new HashMap<String, Object>() : new HashMap<>(template.getContext().getVariables());
+		variables.putAll(values);
+		Context context = new SimpleContext(variables);
+		if (template.getContext() instanceof LocaleContext) {
+			context = new LocaleContext(context, ((LocaleContext) template.getContext()).getLocale());
+		}
+		return context;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("PreparedTemplateTranslator [delegate=").append(delegate).append("]");
+		return builder.toString();
+	}
+}
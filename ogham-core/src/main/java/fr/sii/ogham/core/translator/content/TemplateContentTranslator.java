@@ -6,7 +6,11 @@ import org.slf4j.LoggerFactory;
 import fr.sii.ogham.core.exception.handler.ContentTranslatorException;
 import fr.sii.ogham.core.exception.template.ParseException;
 import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.message.content.MayHaveStringContent;
 import fr.sii.ogham.core.message.content.TemplateContent;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.template.parser.TemplateParser;
 
 /**
@@ -33,21 +37,39 @@ public class TemplateContentTranslator implements ContentTranslator {
 	 */
 	private TemplateParser parser;
 
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
 	public TemplateContentTranslator(TemplateParser parser) {
+		this(parser, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	public TemplateContentTranslator(TemplateParser parser, MetricsRecorder metrics) {
 		super();
 		this.parser = parser;
+		this.metrics = metrics;
 	}
 
 	@Override
 	public Content translate(Content content) throws ContentTranslatorException {
 		if (content instanceof TemplateContent) {
+			long start = metrics.startTimer();
 			try {
 				TemplateContent template = (TemplateContent) content;
 				LOG.info("Parse template {} using context {}", template.getPath(), template.getContext());
 				LOG.debug("Parse template content {} using {}", template, parser);
-				return parser.parse(template.getPath(), template.getContext());
+				Content parsed = parser.parse(template.getPath(), template.getContext());
+				if (parsed instanceof MayHaveStringContent && ((MayHaveStringContent) parsed).canProvideString()) {
+					metrics.record(MetricNames.TEMPLATE_SIZE, ((MayHaveStringContent) parsed).asString().length());
+				}
+				return parsed;
 			} catch (ParseException e) {
+				metrics.increment(MetricNames.errors(MetricNames.TEMPLATE_PARSE));
 				throw new ContentTranslatorException("failed to translate templated content", e);
+			} finally {
+				metrics.stopTimer(MetricNames.TEMPLATE_PARSE, start);
 			}
 		} else {
 			LOG.trace("Not a TemplateContent => skip it");
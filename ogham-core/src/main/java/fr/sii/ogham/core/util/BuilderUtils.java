@@ -3,6 +3,8 @@ package fr.sii.ogham.core.util;
 import java.util.Properties;
 
 import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
 
 /**
  * Helper class for {@link Builder} implementations. It separates the builder
@@ -22,6 +24,21 @@ public final class BuilderUtils {
 	public static Properties getDefaultProperties() {
 		return System.getProperties();
 	}
+
+	/**
+	 * Provide the recorder to the builder if the builder is an
+	 * {@link InstrumentedBuilder}. Nothing is done if the recorder is null.
+	 * 
+	 * @param builder
+	 *            the builder that may record measures
+	 * @param recorder
+	 *            the recorder for the measures (may be null)
+	 */
+	public static void provideMetricsRecorder(Object builder, MetricsRecorder recorder) {
+		if (recorder != null && builder instanceof InstrumentedBuilder) {
+			((InstrumentedBuilder<?>) builder).withMetricsRecorder(recorder);
+		}
+	}
 	
 	private BuilderUtils() {
 		super();
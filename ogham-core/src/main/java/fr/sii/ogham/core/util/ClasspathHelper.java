@@ -1,5 +1,8 @@
 package fr.sii.ogham.core.util;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,13 +16,29 @@ public final class ClasspathHelper {
 	private static final Logger LOG = LoggerFactory.getLogger(ClasspathHelper.class);
 	
 	/**
-	 * Test if the class name is defined in the classpath.
+	 * Result of the previous checks indexed by class name. The classpath
+	 * doesn't change at runtime so each class is loaded only once.
+	 */
+	private static final ConcurrentMap<String, Boolean> EXISTING = new ConcurrentHashMap<>();
+
+	/**
+	 * Test if the class name is defined in the classpath. The result is
+	 * remembered so the class is searched only the first time.
 	 * 
 	 * @param className
 	 *            the class name
 	 * @return true if the class exists in the classpath, false otherwise
 	 */
 	public static boolean exists(String className) {
+		Boolean exists = EXISTING.get(className);
+		if (exists == null) {
+			exists = load(className);
+			EXISTING.putIfAbsent(className, exists);
+		}
+		return exists;
+	}
+
+	private static boolean load(String className) {
 		try {
 			Class.forName(className);
 			return true;
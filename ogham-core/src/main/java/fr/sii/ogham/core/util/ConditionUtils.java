@@ -0,0 +1,119 @@
+package fr.sii.ogham.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.sii.ogham.core.condition.AndCondition;
+import fr.sii.ogham.core.condition.Condition;
+import fr.sii.ogham.core.condition.FixedCondition;
+import fr.sii.ogham.core.condition.OrCondition;
+import fr.sii.ogham.core.condition.StaticCondition;
+
+/**
+ * Utility class for handling conditions.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public final class ConditionUtils {
+
+	/**
+	 * <p>
+	 * Evaluate now all the parts of the condition that don't depend on the
+	 * tested object (see {@link StaticCondition}) and provide the equivalent
+	 * condition that only contains the parts that need to be evaluated for
+	 * each object.
+	 * </p>
+	 * <p>
+	 * {@link AndCondition}s and {@link OrCondition}s are simplified according
+	 * to the result of their static conditions. If the whole condition is
+	 * static, a {@link FixedCondition} is returned. Any other condition is
+	 * returned unchanged.
+	 * </p>
+	 * For example:
+	 * <ul>
+	 * <li><code>RequiredClass(existing) AND custom</code> gives
+	 * <code>custom</code></li>
+	 * <li><code>RequiredClass(missing) AND custom</code> gives
+	 * <code>Fixed(false)</code></li>
+	 * <li><code>RequiredProperty(missing) OR custom</code> gives
+	 * <code>custom</code></li>
+	 * </ul>
+	 *
+	 * @param condition
+	 *            the condition to simplify
+	 * @param <T>
+	 *            the type of the object to test for acceptance
+	 * @return the equivalent condition
+	 */
+	public static <T> Condition<T> precompute(Condition<T> condition) {
+		if (condition instanceof FixedCondition) {
+			return condition;
+		}
+		if (condition instanceof StaticCondition) {
+			return new FixedCondition<>(condition.accept(null));
+		}
+		if (condition instanceof AndCondition) {
+			return precompute((AndCondition<T>) condition);
+		}
+		if (condition instanceof OrCondition) {
+			return precompute((OrCondition<T>) condition);
+		}
+		return condition;
+	}
+
+	/**
+	 * Indicates if the condition always gives the same result.
+	 *
+	 * @param condition
+	 *            the condition to check
+	 * @param accept
+	 *            the expected result
+	 * @return true if the condition is fixed to the expected result
+	 */
+	public static boolean isFixed(Condition<?> condition, boolean accept) {
+		return condition instanceof FixedCondition && ((FixedCondition<?>) condition).accept(null) == accept;
+	}
+
+	private static <T> Condition<T> precompute(AndCondition<T> condition) {
+		List<Condition<T>> remaining = new ArrayList<>();
+		for (Condition<T> c : condition.getConditions()) {
+			Condition<T> precomputed = precompute(c);
+			if (isFixed(precomputed, false)) {
+				return precomputed;
+			}
+			if (!isFixed(precomputed, true)) {
+				remaining.add(precomputed);
+			}
+		}
+		return simplify(remaining, true, new AndCondition<>(remaining));
+	}
+
+	private static <T> Condition<T> precompute(OrCondition<T> condition) {
+		List<Condition<T>> remaining = new ArrayList<>();
+		for (Condition<T> c : condition.getConditions()) {
+			Condition<T> precomputed = precompute(c);
+			if (isFixed(precomputed, true)) {
+				return precomputed;
+			}
+			if (!isFixed(precomputed, false)) {
+				remaining.add(precomputed);
+			}
+		}
+		return simplify(remaining, false, new OrCondition<>(remaining));
+	}
+
+	private static <T> Condition<T> simplify(List<Condition<T>> remaining, boolean acceptIfEmpty, Condition<T> composite) {
+		if (remaining.isEmpty()) {
+			return new FixedCondition<>(acceptIfEmpty);
+		}
+		if (remaining.size() == 1) {
+			return remaining.get(0);
+		}
+		return composite;
+	}
+
+	private ConditionUtils() {
+		super();
+	}
+}
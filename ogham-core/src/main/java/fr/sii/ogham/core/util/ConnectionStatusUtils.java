@@ -0,0 +1,52 @@
+package fr.sii.ogham.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+
+/**
+ * Utility class for collecting {@link ConnectionStatus}es.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public final class ConnectionStatusUtils {
+
+	/**
+	 * Collect the statuses of all the provided objects that are
+	 * {@link ConnectionStatusProvider}s. Other objects are ignored.
+	 *
+	 * @param candidates
+	 *            the senders or services
+	 * @return the statuses of all providers
+	 */
+	public static List<ConnectionStatus> collect(Collection<?> candidates) {
+		List<ConnectionStatus> statuses = new ArrayList<>();
+		for (Object candidate : candidates) {
+			if (candidate instanceof ConnectionStatusProvider) {
+				statuses.addAll(((ConnectionStatusProvider) candidate).getConnectionStatuses());
+			}
+		}
+		return statuses;
+	}
+
+	/**
+	 * Collect the statuses of all the provided objects that are
+	 * {@link ConnectionStatusProvider}s. Other objects are ignored.
+	 *
+	 * @param candidates
+	 *            the senders or services
+	 * @return the statuses of all providers
+	 */
+	public static List<ConnectionStatus> collect(Object... candidates) {
+		return collect(Arrays.asList(candidates));
+	}
+
+	private ConnectionStatusUtils() {
+		super();
+	}
+}
@@ -1,6 +1,5 @@
 package fr.sii.ogham.core.util;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -9,30 +8,28 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URLEncodedUtils;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.message.BasicNameValuePair;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import fr.sii.ogham.core.builder.HttpTransportBuilder;
 import fr.sii.ogham.core.exception.template.BeanException;
 import fr.sii.ogham.core.exception.util.HttpException;
+import fr.sii.ogham.core.util.http.HttpTransport;
 import fr.sii.ogham.core.util.http.Parameter;
 import fr.sii.ogham.core.util.http.Response;
 
 /**
- * Utility class that helps to send HTTP requests.
+ * Utility class that helps to send HTTP requests. Requests are sent through a
+ * shared pooled {@link HttpTransport} with default configuration. Senders that
+ * need their own pool or timeouts should use a dedicated transport (see
+ * {@link HttpTransportBuilder}).
  * 
  * @author Aurélien Baudet
  *
  */
 public final class HttpUtils {
-	private static final Logger LOG = LoggerFactory.getLogger(HttpUtils.class);
-	private static final HttpClient CLIENT = HttpClientBuilder.create().useSystemProperties().build();
+	private static final HttpTransport TRANSPORT = new HttpTransportBuilder().build();
 
 	/**
 	 * Do a GET request on the provided URL and construct the Query String part
@@ -52,23 +49,7 @@ public final class HttpUtils {
 	 *             when the request has failed
 	 */
 	public static Response get(String url, List<Parameter> params) throws HttpException {
-		String fullUrl = url;
-		String paramsStr = URLEncodedUtils.format(convert(params), "UTF-8");
-		fullUrl += (fullUrl.contains("?") ? "&" : "?") + paramsStr;
-		// spaces are replaced by '+' but some servers doesn't handle it
-		// correctly
-		// => convert space to '%20'
-		fullUrl = fullUrl.replaceAll("\\+", "%20");
-		try {
-			LOG.debug("Sending HTTP GET request to {}", fullUrl);
-			HttpGet request = new HttpGet(fullUrl);
-			HttpResponse response = CLIENT.execute(request);
-			int statusCode = response.getStatusLine().getStatusCode();
-			LOG.debug("HTTP GET request successfully sent to {}. Status code: {}", fullUrl, statusCode);
-			return new Response(statusCode, IOUtils.toString(response.getEntity().getContent()));
-		} catch (IOException e) {
-			throw new HttpException("Failed to send GET request to " + fullUrl, e);
-		}
+		return TRANSPORT.get(url, params);
 	}
 
 	/**
@@ -121,24 +102,8 @@ public final class HttpUtils {
 	 * @throws HttpException
 	 *             when the request has failed
 	 */
-	@SuppressWarnings("unchecked")
 	public static Response get(String url, Object... params) throws HttpException {
-		try {
-			Map<String, Object> map = new HashMap<>();
-			for (Object bean : params) {
-				if (bean instanceof Parameter) {
-					Parameter p = (Parameter) bean;
-					map.put(p.getName(), p.getValue());
-				} else if (bean instanceof Map) {
-					map.putAll((Map<String, Object>) bean);
-				} else {
-					map.putAll(BeanUtils.convert(bean));
-				}
-			}
-			return get(url, map);
-		} catch (BeanException e) {
-			throw new HttpException("Failed to convert bean fields into request parameters", e);
-		}
+		return get(url, toParameters(params));
 	}
 
 	/**
@@ -167,6 +132,67 @@ public final class HttpUtils {
 		return get(url, convert(params));
 	}
 
+	/**
+	 * Build the full URL (base URL and query string). If the URL already
+	 * contains parameters (already contains a '?' character), then the
+	 * parameters are added to the existing parameters. The parameters are
+	 * converted into <code>application/x-www-form-urlencoded</code>. If there
+	 * is a space, it is encoded into '%20'.
+	 * 
+	 * @param url
+	 *            the base url
+	 * @param params
+	 *            the list of parameters to append to the query string
+	 * @return the full URL
+	 */
+	public static String buildUrl(String url, List<Parameter> params) {
+		String paramsStr = URLEncodedUtils.format(convert(params), "UTF-8");
+		// spaces are replaced by '+' but some servers doesn't handle it
+		// correctly
+		// => convert space to '%20'
+		return url + (url.contains("?") ? "&" : "?") + paramsStr.replace("+", "%20");
+	}
+
+	/**
+	 * Convert anything into a list of parameters:
+	 * <ul>
+	 * <li>{@link Parameter}: used as is</li>
+	 * <li>{@link Map}: each entry is used as a parameter</li>
+	 * <li>A bean (any object): each property of the bean is used as parameter
+	 * (see {@link BeanUtils})</li>
+	 * </ul>
+	 * 
+	 * <p>
+	 * Parameters that are not going to change (authentication, options...)
+	 * should be converted once and reused.
+	 * </p>
+	 * 
+	 * @param params
+	 *            none, one or several parameters
+	 * @return the list of parameters
+	 * @throws HttpException
+	 *             when a bean couldn't be converted
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<Parameter> toParameters(Object... params) throws HttpException {
+		try {
+			Map<String, Object> map = new HashMap<>();
+			for (Object bean : params) {
+				if (bean instanceof Parameter) {
+					Parameter p = (Parameter) bean;
+					map.put(p.getName(), p.getValue());
+				} else if (bean instanceof Map) {
+					map.putAll((Map<String, Object>) bean);
+				} else {
+					map.putAll(BeanUtils.convert(bean));
+				}
+			}
+			return convert(map);
+		} catch (BeanException e) {
+			throw new HttpException("Failed to convert bean fields into request parameters", e);
+		}
+	}
+
 	/**
 	 * Convert the map into a list of parameters
 	 * 
@@ -1,5 +1,6 @@
 package fr.sii.ogham.core.util;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -29,6 +30,8 @@ public final class LookupUtils {
 	 */
 	public static final String DELIMITER = ":";
 
+	private static final char DELIMITER_CHAR = ':';
+
 	/**
 	 * <p>
 	 * Search for the entry that is able to handle the lookup provided in the
@@ -81,25 +84,68 @@ public final class LookupUtils {
 	 *         handle it
 	 */
 	public static <T> Entry<String, T> getLookupEntry(Map<String, T> mapping, String path) {
-		// store the empty lookup entry if any
-		Entry<String, T> emptyLookupEntry = null;
-		for (Entry<String, T> entry : mapping.entrySet()) {
-			// do not handle the empty lookup entry now, keep it for later
-			if (entry.getKey().isEmpty()) {
-				emptyLookupEntry = entry;
-			} else if (path.startsWith(entry.getKey() + DELIMITER)) {
-				// if a lookup is found and it's not the default => stop now and
-				// return it
-				LOG.trace("Lookup {} found for resource path {}", entry.getKey(), path);
-				return entry;
+		ResolvedLookup<T> resolved = resolve(mapping, path);
+		return resolved == null ? null : new SimpleImmutableEntry<>(resolved.getLookup(), resolved.getValue());
+	}
+
+	/**
+	 * <p>
+	 * Search for the entry that is able to handle the lookup provided in the
+	 * path and provide both the entry and the path without the lookup prefix.
+	 * The rules are the same as {@link #getLookupEntry(Map, String)}. If
+	 * several lookups can handle the path (for example <code>"foo"</code> and
+	 * <code>"foo:bar"</code> for the path <code>"foo:bar:/foobar.txt"</code>),
+	 * the longest one is used.
+	 * </p>
+	 * <p>
+	 * Each ':' character of the path gives a candidate lookup that is directly
+	 * searched in the mapping. A lookup can't be longer than the longest
+	 * lookup of the mapping so only the ':' characters at the beginning of the
+	 * path are considered (the rest of the path, an inline template for
+	 * example, may contain many ':' characters). This method should be
+	 * preferred when both the resolver and the real path are needed as the
+	 * path is analyzed only once.
+	 * </p>
+	 * 
+	 * @param mapping
+	 *            the mapping that contains the lookups (without ':' character)
+	 * @param path
+	 *            the path used to get the associated lookup entry
+	 * @param <T>
+	 *            the type for entries
+	 * @return the resolved lookup or null if no lookup can handle the path
+	 */
+	public static <T> ResolvedLookup<T> resolve(Map<String, T> mapping, String path) {
+		int idx = path.indexOf(DELIMITER_CHAR);
+		if (idx < 0) {
+			// if the path doesn't contain ':' character, then we can use empty
+			// lookup entry as default lookup
+			T value = mapping.get("");
+			return value == null && !mapping.containsKey("") ? null : new ResolvedLookup<>("", value, path);
+		}
+		// try the longest lookup first
+		for (idx = path.lastIndexOf(DELIMITER_CHAR, longestLookup(mapping)); idx > 0; idx = path.lastIndexOf(DELIMITER_CHAR, idx - 1)) {
+			String lookup = path.substring(0, idx);
+			T value = mapping.get(lookup);
+			if (value != null || mapping.containsKey(lookup)) {
+				LOG.trace("Lookup {} found for resource path {}", lookup, path);
+				return new ResolvedLookup<>(lookup, value, path.substring(idx + 1));
 			}
 		}
-		// if the path doesn't contain ':' character, then we can use empty
-		// lookup entry as default lookup
 		// if the path contains ':' character but the lookup is unknown in the
 		// mapping then it means that the lookup is either not registered or the
 		// lookup can't be handled
-		return path.contains(DELIMITER) ? null : emptyLookupEntry;
+		return null;
+	}
+
+	private static int longestLookup(Map<String, ?> mapping) {
+		int longest = 0;
+		for (String lookup : mapping.keySet()) {
+			if (lookup != null && lookup.length() > longest) {
+				longest = lookup.length();
+			}
+		}
+		return longest;
 	}
 
 	/**
@@ -151,8 +197,8 @@ public final class LookupUtils {
 	 *         handle it
 	 */
 	public static String getLookupType(Map<String, ?> mapping, String path) {
-		Entry<String, ?> entry = getLookupEntry(mapping, path);
-		return entry == null ? null : entry.getKey();
+		ResolvedLookup<?> resolved = resolve(mapping, path);
+		return resolved == null ? null : resolved.getLookup();
 	}
 
 	/**
@@ -207,8 +253,8 @@ public final class LookupUtils {
 	 *         handle it
 	 */
 	public static <T> T getResolver(Map<String, T> mapping, String path) {
-		Entry<String, T> entry = getLookupEntry(mapping, path);
-		return entry == null ? null : entry.getValue();
+		ResolvedLookup<T> resolved = resolve(mapping, path);
+		return resolved == null ? null : resolved.getValue();
 	}
 
 	/**
@@ -246,8 +292,8 @@ public final class LookupUtils {
 	 * @return the path without lookup
 	 */
 	public static String getRealPath(Map<String, ?> mapping, String path) {
-		Entry<String, ?> entry = getLookupEntry(mapping, path);
-		return entry == null ? path : getRealPath(entry.getKey(), path);
+		ResolvedLookup<?> resolved = resolve(mapping, path);
+		return resolved == null ? path : resolved.getRealPath();
 	}
 
 	/**
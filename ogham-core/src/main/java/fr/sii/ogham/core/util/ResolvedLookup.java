@@ -0,0 +1,53 @@
+package fr.sii.ogham.core.util;
+
+/**
+ * Result of the lookup resolution of a path (see
+ * {@link LookupUtils#resolve(java.util.Map, String)}). It provides in one
+ * place the lookup that has been found, the associated value (generally a
+ * resolver) and the path without the lookup prefix.
+ *
+ * @author Aurélien Baudet
+ *
+ * @param <T>
+ *            the type of the value associated to the lookup
+ */
+public class ResolvedLookup<T> {
+	/**
+	 * The lookup without ':' character (empty string for default lookup)
+	 */
+	private final String lookup;
+
+	/**
+	 * The value associated to the lookup
+	 */
+	private final T value;
+
+	/**
+	 * The path without the lookup prefix
+	 */
+	private final String realPath;
+
+	public ResolvedLookup(String lookup, T value, String realPath) {
+		super();
+		this.lookup = lookup;
+		this.value = value;
+		this.realPath = realPath;
+	}
+
+	public String getLookup() {
+		return lookup;
+	}
+
+	public T getValue() {
+		return value;
+	}
+
+	public String getRealPath() {
+		return realPath;
+	}
+
+	@Override
+	public String toString() {
+		return "'" + lookup + "' -> " + realPath;
+	}
+}
@@ -0,0 +1,65 @@
+package fr.sii.ogham.core.util.concurrent;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+
+/**
+ * Callback shared by several operations (the parts of a message processed
+ * separately for example). The result completes once all operations are
+ * completed or fails as soon as one of them fails.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class AllCompletedCallback implements FutureCallback<Void> {
+	/**
+	 * The result of all operations
+	 */
+	private final BasicFuture<Void> result;
+
+	/**
+	 * The number of operations that are not completed yet
+	 */
+	private final AtomicInteger remaining;
+
+	/**
+	 * Initialize the callback.
+	 *
+	 * @param count
+	 *            the number of operations
+	 */
+	public AllCompletedCallback(int count) {
+		super();
+		this.result = new BasicFuture<>(null);
+		this.remaining = new AtomicInteger(count);
+	}
+
+	@Override
+	public void completed(Void nothing) {
+		if (remaining.decrementAndGet() == 0) {
+			result.completed(null);
+		}
+	}
+
+	@Override
+	public void failed(Exception e) {
+		result.failed(e);
+	}
+
+	@Override
+	public void cancelled() {
+		result.cancel();
+	}
+
+	/**
+	 * Get the result of all operations.
+	 *
+	 * @return the future result
+	 */
+	public Future<Void> getResult() {
+		return result;
+	}
+}
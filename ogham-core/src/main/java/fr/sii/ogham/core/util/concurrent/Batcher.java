@@ -0,0 +1,414 @@
+package fr.sii.ogham.core.util.concurrent;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Groups values that share the same key in order to process them in a single
+ * request (several messages sent in a single HTTP call for example).
+ * </p>
+ * <p>
+ * A value is never delayed if there is nothing to group it with: when no
+ * request is running for the key, the value is dispatched immediately. Values
+ * that are submitted while a request is running for the same key are
+ * grouped. The group is dispatched as soon as one of the following happens:
+ * <ul>
+ * <li>the running requests for the key are done</li>
+ * <li>the group reaches the maximum size</li>
+ * <li>the maximum linger time has elapsed since the first value of the group
+ * has been submitted</li>
+ * </ul>
+ * Sequential callers therefore don't wait for the linger time while
+ * concurrent callers benefit from grouping.
+ * </p>
+ * <p>
+ * Each value has a size (number of recipients for example). A value bigger
+ * than the maximum size is dispatched alone: callers should split such values
+ * before submitting them.
+ * </p>
+ * <p>
+ * Each value gets its own future that is completed by the
+ * {@link BatchHandler} (all at once or one by one).
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ * @param <K>
+ *            the type of the key used to group values
+ * @param <V>
+ *            the type of the grouped values
+ */
+public class Batcher<K, V> implements Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(Batcher.class);
+
+	/**
+	 * Processes a group of values.
+	 *
+	 * @author Aurélien Baudet
+	 *
+	 * @param <V>
+	 *            the type of the grouped values
+	 */
+	public static interface BatchHandler<V> {
+		/**
+		 * Process the group of values. The implementation must complete (or
+		 * fail) every entry. Entries that are not completed when this method
+		 * returns are failed.
+		 *
+		 * @param entries
+		 *            the grouped values
+		 */
+		public void handle(List<Entry<V>> entries);
+	}
+
+	/**
+	 * A submitted value with its result.
+	 *
+	 * @author Aurélien Baudet
+	 *
+	 * @param <V>
+	 *            the type of the value
+	 */
+	public static class Entry<V> {
+		private final V value;
+		private final int size;
+		private final BasicFuture<Void> result;
+
+		public Entry(V value, int size, FutureCallback<Void> callback) {
+			super();
+			this.value = value;
+			this.size = size;
+			this.result = new BasicFuture<>(callback);
+		}
+
+		public V getValue() {
+			return value;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * Indicates that the value has been successfully processed.
+		 */
+		public void completed() {
+			result.completed(null);
+		}
+
+		/**
+		 * Indicates that the value couldn't be processed.
+		 *
+		 * @param e
+		 *            the cause of the failure
+		 */
+		public void failed(Exception e) {
+			result.failed(e);
+		}
+
+		public boolean isDone() {
+			return result.isDone();
+		}
+
+		public Future<Void> getResult() {
+			return result;
+		}
+	}
+
+	/**
+	 * Processes the groups of values
+	 */
+	private final BatchHandler<V> handler;
+
+	/**
+	 * The maximum size of a group
+	 */
+	private final int maxSize;
+
+	/**
+	 * The maximum time (in milliseconds) a value waits for other values
+	 */
+	private final long maxLinger;
+
+	/**
+	 * Used to trigger the dispatch of groups and to process them
+	 */
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * The state of each key that has running requests or pending values
+	 * (guarded by itself)
+	 */
+	private final Map<K, Slot> slots;
+
+	/**
+	 * True once closed (guarded by slots)
+	 */
+	private boolean closed;
+
+	/**
+	 * Initialize the batcher.
+	 *
+	 * @param handler
+	 *            processes the groups of values
+	 * @param maxSize
+	 *            the maximum size of a group
+	 * @param maxLinger
+	 *            the maximum time a value waits for other values
+	 * @param unit
+	 *            the unit of the maximum linger time
+	 * @param executor
+	 *            the executor used to trigger and process groups
+	 */
+	public Batcher(BatchHandler<V> handler, int maxSize, long maxLinger, TimeUnit unit, ScheduledExecutorService executor) {
+		super();
+		if (handler == null) {
+			throw new IllegalArgumentException("[handler] cannot be null");
+		}
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("[maxSize] must be positive");
+		}
+		this.handler = handler;
+		this.maxSize = maxSize;
+		this.maxLinger = unit.toMillis(maxLinger);
+		this.executor = executor;
+		this.slots = new HashMap<>();
+	}
+
+	/**
+	 * Add the value to the group of values that share the same key.
+	 *
+	 * @param key
+	 *            the key used to group values
+	 * @param value
+	 *            the value to process
+	 * @param size
+	 *            the size of the value
+	 * @param callback
+	 *            notified when the value is processed (may be null)
+	 * @return the future result of the processing of this value
+	 * @throws IllegalStateException
+	 *             when the batcher is closed
+	 */
+	public Future<Void> submit(K key, V value, int size, FutureCallback<Void> callback) {
+		Entry<V> entry = new Entry<>(value, size, callback);
+		List<Batch> ready = new ArrayList<>(2);
+		synchronized (slots) {
+			if (closed) {
+				throw new IllegalStateException("Batcher is closed");
+			}
+			Slot slot = slots.get(key);
+			if (slot == null) {
+				slot = new Slot(key);
+				slots.put(key, slot);
+			}
+			Batch batch = slot.pending;
+			if (batch != null && batch.size + size > maxSize) {
+				ready.add(slot.takePending());
+				batch = null;
+			}
+			if (batch == null) {
+				batch = new Batch(slot);
+				if (slot.running == 0 && ready.isEmpty()) {
+					// nothing to group with: don't wait
+					batch.add(entry);
+					ready.add(batch);
+				} else {
+					slot.pending = batch;
+					batch.timer = executor.schedule(new Linger(batch), maxLinger, TimeUnit.MILLISECONDS);
+					batch.add(entry);
+				}
+			} else {
+				batch.add(entry);
+			}
+			if (slot.pending != null && slot.pending.size >= maxSize) {
+				ready.add(slot.takePending());
+			}
+			for (Batch b : ready) {
+				b.slot.running++;
+			}
+		}
+		for (Batch b : ready) {
+			dispatch(b);
+		}
+		return entry.result;
+	}
+
+	/**
+	 * Get the number of values that are submitted but not processed yet
+	 * (waiting for other values or being processed).
+	 *
+	 * @return the number of pending values
+	 */
+	public int getPendingEntries() {
+		synchronized (slots) {
+			int count = 0;
+			for (Slot slot : slots.values()) {
+				count += slot.entries;
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Dispatches all pending groups and stops accepting new values. Already
+	 * dispatched groups are still processed.
+	 */
+	@Override
+	public void close() {
+		List<Batch> remaining = new ArrayList<>();
+		synchronized (slots) {
+			closed = true;
+			for (Slot slot : slots.values()) {
+				if (slot.pending != null) {
+					remaining.add(slot.takePending());
+					slot.running++;
+				}
+			}
+		}
+		for (Batch batch : remaining) {
+			dispatch(batch);
+		}
+		executor.shutdown();
+	}
+
+	private void dispatch(final Batch batch) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				process(batch);
+			}
+		});
+	}
+
+	private void process(Batch batch) {
+		try {
+			handler.handle(batch.entries);
+		} catch (RuntimeException e) {
+			LOG.error("Failed to process a group of " + batch.entries.size() + " values", e);
+			for (Entry<V> entry : batch.entries) {
+				entry.failed(e);
+			}
+		} finally {
+			for (Entry<V> entry : batch.entries) {
+				if (!entry.isDone()) {
+					entry.failed(new IllegalStateException("Value not processed by the batch handler"));
+				}
+			}
+			done(batch);
+		}
+	}
+
+	/**
+	 * Update the state of the key once the group is processed. The values
+	 * that were waiting for this request are dispatched now.
+	 */
+	private void done(Batch batch) {
+		Batch next = null;
+		synchronized (slots) {
+			Slot slot = batch.slot;
+			slot.running--;
+			slot.entries -= batch.entries.size();
+			if (slot.running == 0 && slot.pending != null && !closed) {
+				next = slot.takePending();
+				slot.running++;
+			}
+			if (slot.running == 0 && slot.pending == null) {
+				slots.remove(slot.key);
+			}
+		}
+		if (next != null) {
+			dispatch(next);
+		}
+	}
+
+	/**
+	 * Dispatches the group once the maximum linger time has elapsed unless it
+	 * has already been dispatched.
+	 */
+	private class Linger implements Runnable {
+		private final Batch batch;
+
+		public Linger(Batch batch) {
+			super();
+			this.batch = batch;
+		}
+
+		@Override
+		public void run() {
+			synchronized (slots) {
+				if (batch.slot.pending != batch) {
+					return;
+				}
+				batch.slot.takePending();
+				batch.slot.running++;
+			}
+			process(batch);
+		}
+	}
+
+	/**
+	 * The state of a key
+	 */
+	private class Slot {
+		private final K key;
+		/**
+		 * The number of dispatched groups that are not processed yet
+		 */
+		private int running;
+		/**
+		 * The number of values not processed yet
+		 */
+		private int entries;
+		/**
+		 * The group waiting for dispatch (may be null)
+		 */
+		private Batch pending;
+
+		public Slot(K key) {
+			super();
+			this.key = key;
+		}
+
+		public Batch takePending() {
+			Batch batch = pending;
+			pending = null;
+			if (batch.timer != null) {
+				batch.timer.cancel(false);
+			}
+			return batch;
+		}
+	}
+
+	private class Batch {
+		private final Slot slot;
+		private final List<Entry<V>> entries;
+		private int size;
+		private ScheduledFuture<?> timer;
+
+		public Batch(Slot slot) {
+			super();
+			this.slot = slot;
+			this.entries = new ArrayList<>();
+		}
+
+		public void add(Entry<V> entry) {
+			entries.add(entry);
+			size += entry.size;
+			slot.entries++;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package fr.sii.ogham.core.util.concurrent;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factory that gives a meaningful name to the created threads (the
+ * provided prefix followed by a sequence number). The created threads are
+ * daemon threads by default so that they don't prevent the JVM from exiting.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class NamedThreadFactory implements ThreadFactory {
+	/**
+	 * The prefix used to name threads
+	 */
+	private final String prefix;
+
+	/**
+	 * Whether the created threads are daemon or not
+	 */
+	private final boolean daemon;
+
+	/**
+	 * The sequence used to number threads
+	 */
+	private final AtomicInteger sequence;
+
+	/**
+	 * Initialize the factory with the prefix for thread names. The created
+	 * threads are daemon threads.
+	 * 
+	 * @param prefix
+	 *            the prefix for the name of the created threads
+	 */
+	public NamedThreadFactory(String prefix) {
+		this(prefix, true);
+	}
+
+	/**
+	 * Initialize the factory with the prefix for thread names.
+	 * 
+	 * @param prefix
+	 *            the prefix for the name of the created threads
+	 * @param daemon
+	 *            true to create daemon threads
+	 */
+	public NamedThreadFactory(String prefix, boolean daemon) {
+		super();
+		this.prefix = prefix;
+		this.daemon = daemon;
+		this.sequence = new AtomicInteger();
+	}
+
+	@Override
+	public Thread newThread(Runnable r) {
+		Thread thread = new Thread(r, prefix + "-" + sequence.incrementAndGet());
+		thread.setDaemon(daemon);
+		return thread;
+	}
+}
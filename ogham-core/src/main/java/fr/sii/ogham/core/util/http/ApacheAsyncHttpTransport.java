@@ -0,0 +1,104 @@
+package fr.sii.ogham.core.util.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.sii.ogham.core.exception.util.HttpException;
+import fr.sii.ogham.core.util.HttpUtils;
+
+/**
+ * {@link AsyncHttpTransport} implementation based on Apache HttpAsyncClient
+ * (NIO). The client is started when the transport is created (see
+ * {@link fr.sii.ogham.core.builder.AsyncHttpTransportBuilder}).
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class ApacheAsyncHttpTransport implements AsyncHttpTransport, Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(ApacheAsyncHttpTransport.class);
+
+	/**
+	 * The underlying client
+	 */
+	private final CloseableHttpAsyncClient client;
+
+	public ApacheAsyncHttpTransport(CloseableHttpAsyncClient client) {
+		super();
+		this.client = client;
+		if (!client.isRunning()) {
+			client.start();
+		}
+	}
+
+	@Override
+	public <T> Future<T> get(String url, List<Parameter> params, ResponseParser<T> parser, FutureCallback<T> callback) {
+		return execute(new HttpGet(HttpUtils.buildUrl(url, params)), parser, callback);
+	}
+
+	@Override
+	public <T> Future<T> post(String url, Map<String, String> headers, byte[] body, String contentType, ResponseParser<T> parser, FutureCallback<T> callback) {
+		HttpPost request = new HttpPost(url);
+		for (Entry<String, String> header : headers.entrySet()) {
+			request.setHeader(header.getKey(), header.getValue());
+		}
+		request.setEntity(new ByteArrayEntity(body, ContentType.parse(contentType)));
+		return execute(request, parser, callback);
+	}
+
+	/**
+	 * Close the underlying client: stops the I/O threads and closes all
+	 * connections.
+	 */
+	@Override
+	public void close() throws IOException {
+		client.close();
+	}
+
+	private <T> Future<T> execute(final HttpUriRequest request, final ResponseParser<T> parser, FutureCallback<T> callback) {
+		LOG.debug("Sending HTTP {} request to {}", request.getMethod(), request.getURI());
+		final BasicFuture<T> result = new BasicFuture<>(callback);
+		client.execute(request, new FutureCallback<HttpResponse>() {
+			@Override
+			public void completed(HttpResponse response) {
+				int statusCode = response.getStatusLine().getStatusCode();
+				LOG.debug("HTTP {} request successfully sent to {}. Status code: {}", request.getMethod(), request.getURI(), statusCode);
+				HttpEntity entity = response.getEntity();
+				try (InputStream body = entity == null ? new ByteArrayInputStream(new byte[0]) : entity.getContent()) {
+					result.completed(parser.parse(HttpStatus.valueOf(statusCode), body));
+				} catch (IOException | RuntimeException e) {
+					result.failed(new HttpException("Failed to read response of " + request.getMethod() + " request to " + request.getURI(), e));
+				}
+			}
+
+			@Override
+			public void failed(Exception e) {
+				result.failed(new HttpException("Failed to send " + request.getMethod() + " request to " + request.getURI(), e));
+			}
+
+			@Override
+			public void cancelled() {
+				result.cancel();
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,74 @@
+package fr.sii.ogham.core.util.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.sii.ogham.core.exception.util.HttpException;
+import fr.sii.ogham.core.util.HttpUtils;
+
+/**
+ * {@link HttpTransport} implementation based on Apache HttpClient. The client
+ * is expected to be configured with a pooling connection manager (see
+ * {@link fr.sii.ogham.core.builder.HttpTransportBuilder}).
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class ApacheHttpTransport implements HttpTransport, Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(ApacheHttpTransport.class);
+
+	/**
+	 * Reads the whole body as a string
+	 */
+	private static final ResponseParser<Response> STRING_PARSER = new StringResponseParser();
+
+	/**
+	 * The underlying client
+	 */
+	private final CloseableHttpClient client;
+
+	public ApacheHttpTransport(CloseableHttpClient client) {
+		super();
+		this.client = client;
+	}
+
+	@Override
+	public Response get(String url, List<Parameter> params) throws HttpException {
+		return get(url, params, STRING_PARSER);
+	}
+
+	@Override
+	public <T> T get(String url, List<Parameter> params, ResponseParser<T> parser) throws HttpException {
+		String fullUrl = HttpUtils.buildUrl(url, params);
+		LOG.debug("Sending HTTP GET request to {}", fullUrl);
+		try (CloseableHttpResponse response = client.execute(new HttpGet(fullUrl))) {
+			int statusCode = response.getStatusLine().getStatusCode();
+			LOG.debug("HTTP GET request successfully sent to {}. Status code: {}", fullUrl, statusCode);
+			HttpEntity entity = response.getEntity();
+			// closing the body reads the remaining bytes so the connection goes back to the pool
+			try (InputStream body = entity == null ? new ByteArrayInputStream(new byte[0]) : entity.getContent()) {
+				return parser.parse(HttpStatus.valueOf(statusCode), body);
+			}
+		} catch (IOException e) {
+			throw new HttpException("Failed to send GET request to " + fullUrl, e);
+		}
+	}
+
+	/**
+	 * Close the underlying client and all pooled connections.
+	 */
+	@Override
+	public void close() throws IOException {
+		client.close();
+	}
+}
@@ -0,0 +1,70 @@
+package fr.sii.ogham.core.util.http;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.apache.http.concurrent.FutureCallback;
+
+/**
+ * Non-blocking counterpart of {@link HttpTransport}. Requests are sent using
+ * non-blocking I/O so that many concurrent requests only need a few I/O
+ * threads. Implementations are expected to be thread-safe.
+ * 
+ * <p>
+ * The returned {@link Future} fails with an
+ * {@link fr.sii.ogham.core.exception.util.HttpException} (available through
+ * {@link java.util.concurrent.ExecutionException#getCause()}) if the request
+ * couldn't be sent or the response couldn't be parsed.
+ * </p>
+ * 
+ * <p>
+ * The parser and the callback are executed by an I/O thread so they must not
+ * block.
+ * </p>
+ * 
+ * @author Aurélien Baudet
+ * @see ApacheAsyncHttpTransport
+ */
+public interface AsyncHttpTransport {
+	/**
+	 * Send a GET request on the provided URL. The parameters are appended to
+	 * the query string (see {@link fr.sii.ogham.core.util.HttpUtils}).
+	 * 
+	 * @param url
+	 *            the base url
+	 * @param params
+	 *            the list of parameters to append to the query string
+	 * @param parser
+	 *            the parser that reads the response
+	 * @param callback
+	 *            notified when the response is parsed or when the request has
+	 *            failed (may be null)
+	 * @param <T>
+	 *            the type of the parsed response
+	 * @return the future parsed response
+	 */
+	public <T> Future<T> get(String url, List<Parameter> params, ResponseParser<T> parser, FutureCallback<T> callback);
+
+	/**
+	 * Send a POST request on the provided URL with the provided body.
+	 * 
+	 * @param url
+	 *            the url
+	 * @param headers
+	 *            additional request headers
+	 * @param body
+	 *            the request body
+	 * @param contentType
+	 *            the content type of the body
+	 * @param parser
+	 *            the parser that reads the response
+	 * @param callback
+	 *            notified when the response is parsed or when the request has
+	 *            failed (may be null)
+	 * @param <T>
+	 *            the type of the parsed response
+	 * @return the future parsed response
+	 */
+	public <T> Future<T> post(String url, Map<String, String> headers, byte[] body, String contentType, ResponseParser<T> parser, FutureCallback<T> callback);
+}
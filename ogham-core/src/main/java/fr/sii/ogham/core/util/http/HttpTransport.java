@@ -0,0 +1,51 @@
+package fr.sii.ogham.core.util.http;
+
+import java.util.List;
+
+import fr.sii.ogham.core.exception.util.HttpException;
+
+/**
+ * Abstraction of the HTTP client used by senders that rely on HTTP web
+ * services. Implementations are expected to be thread-safe and to reuse
+ * connections so that a single instance can be shared by concurrent sends.
+ * 
+ * @author Aurélien Baudet
+ * @see ApacheHttpTransport
+ */
+public interface HttpTransport {
+	/**
+	 * Do a GET request on the provided URL. The parameters are appended to the
+	 * query string (see {@link fr.sii.ogham.core.util.HttpUtils}). The whole
+	 * response body is read as a string.
+	 * 
+	 * @param url
+	 *            the base url
+	 * @param params
+	 *            the list of parameters to append to the query string
+	 * @return the response
+	 * @throws HttpException
+	 *             when the request has failed
+	 */
+	public Response get(String url, List<Parameter> params) throws HttpException;
+
+	/**
+	 * Do a GET request on the provided URL. The parameters are appended to the
+	 * query string (see {@link fr.sii.ogham.core.util.HttpUtils}). The
+	 * response body is not buffered: it is directly provided as a stream to
+	 * the parser.
+	 * 
+	 * @param url
+	 *            the base url
+	 * @param params
+	 *            the list of parameters to append to the query string
+	 * @param parser
+	 *            the parser that reads the response
+	 * @param <T>
+	 *            the type of the parsed response
+	 * @return the parsed response
+	 * @throws HttpException
+	 *             when the request has failed or the response couldn't be
+	 *             parsed
+	 */
+	public <T> T get(String url, List<Parameter> params, ResponseParser<T> parser) throws HttpException;
+}
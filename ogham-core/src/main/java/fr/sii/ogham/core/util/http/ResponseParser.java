@@ -0,0 +1,29 @@
+package fr.sii.ogham.core.util.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads an HTTP response directly from the stream (no intermediate string) and
+ * converts it to a business object.
+ * 
+ * @author Aurélien Baudet
+ *
+ * @param <T>
+ *            the type of the parsed response
+ */
+public interface ResponseParser<T> {
+	/**
+	 * Parse the response.
+	 * 
+	 * @param status
+	 *            the HTTP status of the response
+	 * @param body
+	 *            the response body (may be empty but never null). The stream
+	 *            is closed by the transport
+	 * @return the parsed response
+	 * @throws IOException
+	 *             when the response couldn't be read or parsed
+	 */
+	public T parse(HttpStatus status, InputStream body) throws IOException;
+}
@@ -0,0 +1,20 @@
+package fr.sii.ogham.core.util.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import fr.sii.ogham.core.util.IOUtils;
+
+/**
+ * Reads the whole response body as a string.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class StringResponseParser implements ResponseParser<Response> {
+
+	@Override
+	public Response parse(HttpStatus status, InputStream body) throws IOException {
+		return new Response(status, IOUtils.toString(body));
+	}
+}
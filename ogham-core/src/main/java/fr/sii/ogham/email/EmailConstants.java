@@ -54,6 +54,50 @@ public class EmailConstants {
 		 */
 		public static final String PASSWORD = SNEDGRID_PROPERTIES_PREFIX+".password";
 		
+		/**
+		 * The prefix for properties used to configure the HTTP client
+		 */
+		public static final String HTTP_PROPERTIES_PREFIX = SNEDGRID_PROPERTIES_PREFIX+".http";
+		
+		/**
+		 * The property key to enable the non-blocking HTTP client
+		 */
+		public static final String HTTP_ASYNC_PROPERTY = HTTP_PROPERTIES_PREFIX+".async";
+		
+		/**
+		 * The property key for the SendGrid endpoint used by the non-blocking
+		 * HTTP client
+		 */
+		public static final String URL = SNEDGRID_PROPERTIES_PREFIX+".url";
+		
+		/**
+		 * The prefix for properties used to configure the batch mode
+		 */
+		public static final String BATCH_PROPERTIES_PREFIX = SNEDGRID_PROPERTIES_PREFIX+".batch";
+		
+		/**
+		 * The property key to enable the batch mode (emails that share sender,
+		 * subject and content are sent in a single request)
+		 */
+		public static final String BATCH_ENABLE = BATCH_PROPERTIES_PREFIX+".enable";
+		
+		/**
+		 * The property key for the maximum number of recipients in a single
+		 * request
+		 */
+		public static final String BATCH_SIZE = BATCH_PROPERTIES_PREFIX+".size";
+		
+		/**
+		 * The property key for the maximum time (in milliseconds) an email
+		 * waits for other emails to be sent with
+		 */
+		public static final String BATCH_MAX_LINGER = BATCH_PROPERTIES_PREFIX+".maxLinger";
+		
+		/**
+		 * The property key for the number of threads used to send batches
+		 */
+		public static final String BATCH_THREADS = BATCH_PROPERTIES_PREFIX+".threads";
+		
 		private SendGridConstants() {
 			super();
 		}
@@ -434,6 +434,13 @@ public class Attachment {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("resource", "description", "disposition", "contentId").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		Attachment other = (Attachment) obj;
+		return new EqualsBuilder().append(resource, other.resource).append(description, other.description).append(disposition, other.disposition).append(contentId, other.contentId).isEqual();
 	}
 }
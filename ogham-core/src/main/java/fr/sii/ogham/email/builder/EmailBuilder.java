@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.builder.Builder;
 import fr.sii.ogham.core.builder.ContentTranslatorBuilder;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
 import fr.sii.ogham.core.builder.MessageFillerBuilder;
 import fr.sii.ogham.core.builder.MessagingSenderBuilder;
 import fr.sii.ogham.core.builder.TemplateBuilder;
@@ -22,6 +23,8 @@ import fr.sii.ogham.core.exception.builder.BuildException;
 import fr.sii.ogham.core.filler.MessageFiller;
 import fr.sii.ogham.core.filler.SubjectFiller;
 import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.sender.ConditionalSender;
 import fr.sii.ogham.core.sender.ContentTranslatorSender;
 import fr.sii.ogham.core.sender.FillerSender;
@@ -71,7 +74,7 @@ import fr.sii.ogham.template.TemplateConstants;
  * @see ContentTranslatorBuilder
  * @see MessageFillerBuilder
  */
-public class EmailBuilder implements MessagingSenderBuilder<ConditionalSender> {
+public class EmailBuilder implements MessagingSenderBuilder<ConditionalSender>, InstrumentedBuilder<EmailBuilder> {
 	private static final Logger LOG = LoggerFactory.getLogger(EmailBuilder.class);
 
 	/**
@@ -116,6 +119,12 @@ public class EmailBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	 */
 	private String templateSuffixKey;
 
+	/**
+	 * The recorder for the measures. If set, it is also provided to the
+	 * builders of the implementations and of the content translator
+	 */
+	private MetricsRecorder metricsRecorder;
+
 	public EmailBuilder() {
 		super();
 		emailSender = new EmailSender();
@@ -126,6 +135,7 @@ public class EmailBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	@Override
 	public ConditionalSender build() throws BuildException {
 		for (Entry<Condition<Message>, Builder<? extends MessageSender>> impl : implementations.entrySet()) {
+			BuilderUtils.provideMetricsRecorder(impl.getValue(), metricsRecorder);
 			MessageSender s = impl.getValue().build();
 			LOG.debug("Implementation {} registered", s);
 			emailSender.addImplementation(impl.getKey(), s);
@@ -133,7 +143,7 @@ public class EmailBuilder implements MessagingSenderBuilder<ConditionalSender> {
 		if (messageFillerBuilder != null) {
 			MessageFiller messageFiller = messageFillerBuilder.build();
 			LOG.debug("Automatic filling of message enabled {}", messageFiller);
-			sender = new FillerSender(messageFiller, sender);
+			sender = new FillerSender(messageFiller, sender, getMetricsRecorder());
 		}
 		if (resourceTranslatorBuilder != null) {
 			AttachmentResourceTranslator resourceTranslator = resourceTranslatorBuilder.build();
@@ -149,13 +159,31 @@ public class EmailBuilder implements MessagingSenderBuilder<ConditionalSender> {
 				LOG.debug("Use custom property key {} for suffix template resolution", templateSuffixKey);
 				getTemplateBuilder().setSuffixKey(templateSuffixKey);
 			}
+			BuilderUtils.provideMetricsRecorder(contentTranslatorBuilder, metricsRecorder);
 			ContentTranslator contentTranslator = contentTranslatorBuilder.build();
 			LOG.debug("Content translation enabled {}", contentTranslator);
-			sender = new ContentTranslatorSender(contentTranslator, sender);
+			sender = new ContentTranslatorSender(contentTranslator, sender, getMetricsRecorder());
 		}
 		return sender;
 	}
 
+	/**
+	 * Use the provided recorder for the measures of the sender. The recorder
+	 * is also provided to the builders of the registered implementations and
+	 * to the builder of the content translator when building. By default,
+	 * each builder uses its own recorder (nothing is recorded unless
+	 * configured).
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this instance for fluent use
+	 */
+	@Override
+	public EmailBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		metricsRecorder = recorder;
+		return this;
+	}
+
 	/**
 	 * Tells the builder to use all default behaviors and values:
 	 * <ul>
@@ -759,4 +787,8 @@ public class EmailBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	public AttachmentResourceTranslatorBuilder getResourceTranslatorBuilder() {
 		return resourceTranslatorBuilder;
 	}
+
+	private MetricsRecorder getMetricsRecorder() {
+		return metricsRecorder == null ? NoOpMetricsRecorder.INSTANCE : metricsRecorder;
+	}
 }
@@ -5,10 +5,13 @@ import java.util.Properties;
 import javax.mail.Authenticator;
 
 import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
 import fr.sii.ogham.core.charset.FixedCharsetProvider;
 import fr.sii.ogham.core.message.content.Content;
 import fr.sii.ogham.core.message.content.MultiContent;
 import fr.sii.ogham.core.message.content.StringContent;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.mimetype.FallbackMimeTypeProvider;
 import fr.sii.ogham.core.mimetype.FixedMimeTypeProvider;
 import fr.sii.ogham.core.mimetype.JMimeMagicProvider;
@@ -38,7 +41,7 @@ import fr.sii.ogham.email.sender.impl.javamail.StringContentHandler;
  * @author Aurélien Baudet
  *
  */
-public class JavaMailBuilder implements Builder<JavaMailSender> {
+public class JavaMailBuilder implements Builder<JavaMailSender>, InstrumentedBuilder<JavaMailBuilder> {
 	/**
 	 * The properties to use
 	 */
@@ -83,12 +86,18 @@ public class JavaMailBuilder implements Builder<JavaMailSender> {
 	 */
 	private Authenticator authenticator;
 
+	/**
+	 * The recorder for the measures
+	 */
+	private MetricsRecorder metrics;
+
 	public JavaMailBuilder() {
 		super();
 		mapContentHandler = new MapContentHandler();
 		contentHandler = mapContentHandler;
 		attachmentResourceHandler = mapAttachmentResourceHandler = new MapAttachmentResourceHandler();
 		mimetypeProvider = new FallbackMimeTypeProvider();
+		metrics = NoOpMetricsRecorder.INSTANCE;
 	}
 
 	/**
@@ -229,6 +238,21 @@ public class JavaMailBuilder implements Builder<JavaMailSender> {
 
 	@Override
 	public JavaMailSender build() {
-		return new JavaMailSender(properties, contentHandler, attachmentResourceHandler, authenticator, interceptor);
+		mimetypeProvider.setMetricsRecorder(metrics);
+		return new JavaMailSender(properties, contentHandler, attachmentResourceHandler, authenticator, interceptor, metrics);
+	}
+
+	/**
+	 * Use the provided recorder for the measures of the sender (sending time,
+	 * Mime Type detection...). By default, nothing is recorded.
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this instance for fluent use
+	 */
+	@Override
+	public JavaMailBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		metrics = recorder;
+		return this;
 	}
 }
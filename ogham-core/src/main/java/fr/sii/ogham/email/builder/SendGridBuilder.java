@@ -1,19 +1,32 @@
 package fr.sii.ogham.email.builder;
 
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import fr.sii.ogham.core.builder.AsyncHttpTransportBuilder;
 import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.builder.HttpTransportBuilder;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
 import fr.sii.ogham.core.exception.builder.BuildException;
 import fr.sii.ogham.core.message.content.Content;
 import fr.sii.ogham.core.message.content.MultiContent;
 import fr.sii.ogham.core.message.content.StringContent;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.mimetype.FallbackMimeTypeProvider;
 import fr.sii.ogham.core.mimetype.FixedMimeTypeProvider;
 import fr.sii.ogham.core.mimetype.JMimeMagicProvider;
 import fr.sii.ogham.core.mimetype.MimeTypeProvider;
 import fr.sii.ogham.core.util.BuilderUtils;
+import fr.sii.ogham.core.util.concurrent.NamedThreadFactory;
+import fr.sii.ogham.core.util.http.AsyncHttpTransport;
 import fr.sii.ogham.email.EmailConstants.SendGridConstants;
 import fr.sii.ogham.email.sender.impl.SendGridSender;
+import fr.sii.ogham.email.sender.impl.sendgrid.batch.SendGridBatcher;
+import fr.sii.ogham.email.sender.impl.sendgrid.client.AsyncDelegateSendGridClient;
 import fr.sii.ogham.email.sender.impl.sendgrid.client.DelegateSendGridClient;
 import fr.sii.ogham.email.sender.impl.sendgrid.client.SendGridClient;
 import fr.sii.ogham.email.sender.impl.sendgrid.handler.MapContentHandler;
@@ -25,7 +38,22 @@ import fr.sii.ogham.email.sender.impl.sendgrid.handler.StringContentHandler;
  * Builder for the SendGrid-backed sender. It can only build instances using
  * default parameters.
  */
-public final class SendGridBuilder implements Builder<SendGridSender> {
+public final class SendGridBuilder implements Builder<SendGridSender>, InstrumentedBuilder<SendGridBuilder> {
+	/**
+	 * Default maximum number of recipients for a single request in batch mode
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/**
+	 * Default maximum linger time in milliseconds in batch mode
+	 */
+	public static final long DEFAULT_BATCH_MAX_LINGER = 200;
+
+	/**
+	 * Default number of threads used to send batches
+	 */
+	public static final int DEFAULT_BATCH_THREADS = 4;
+
 	/**
 	 * The SendGrid client the built {@link SendGridSender} will use.
 	 */
@@ -63,6 +91,46 @@ public final class SendGridBuilder implements Builder<SendGridSender> {
 	 */
 	private String apiKey;
 
+	/**
+	 * The HTTP client used by the SendGrid library
+	 */
+	private CloseableHttpClient httpClient;
+
+	/**
+	 * The non-blocking HTTP client (if any)
+	 */
+	private AsyncHttpTransport asyncTransport;
+
+	/**
+	 * The properties provided to {@link #useDefaults(Properties)}
+	 */
+	private Properties properties;
+
+	/**
+	 * Whether batch mode is enabled
+	 */
+	private boolean batch;
+
+	/**
+	 * The maximum number of recipients for a single request in batch mode
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * The maximum linger time in milliseconds in batch mode
+	 */
+	private long batchMaxLinger = DEFAULT_BATCH_MAX_LINGER;
+
+	/**
+	 * The number of threads used to send batches
+	 */
+	private int batchThreads = DEFAULT_BATCH_THREADS;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private MetricsRecorder metrics;
+
 	/**
 	 * Constructor.
 	 */
@@ -70,6 +138,7 @@ public final class SendGridBuilder implements Builder<SendGridSender> {
 		mapContentHandler = new MapContentHandler();
 		contentHandler = mapContentHandler;
 		mimetypeProvider = new FallbackMimeTypeProvider();
+		metrics = NoOpMetricsRecorder.INSTANCE;
 	}
 
 	/**
@@ -104,6 +173,17 @@ public final class SendGridBuilder implements Builder<SendGridSender> {
 	 * @return this instance for fluent use
 	 */
 	public SendGridBuilder useDefaults(Properties props) {
+		properties = props;
+		if (Boolean.parseBoolean(props.getProperty(SendGridConstants.BATCH_ENABLE))) {
+			String size = props.getProperty(SendGridConstants.BATCH_SIZE);
+			String linger = props.getProperty(SendGridConstants.BATCH_MAX_LINGER);
+			String threads = props.getProperty(SendGridConstants.BATCH_THREADS);
+			withBatching(size == null ? DEFAULT_BATCH_SIZE : Integer.parseInt(size.trim()), linger == null ? DEFAULT_BATCH_MAX_LINGER : Long.parseLong(linger.trim()),
+					TimeUnit.MILLISECONDS);
+			if (threads != null) {
+				withBatchThreads(Integer.parseInt(threads.trim()));
+			}
+		}
 		withCredentials(props.getProperty(SendGridConstants.USERNAME), props.getProperty(SendGridConstants.PASSWORD));
 		withApiKey(props.getProperty(SendGridConstants.API_KEY));
 		registerMimeTypeProvider(new JMimeMagicProvider());
@@ -188,17 +268,122 @@ public final class SendGridBuilder implements Builder<SendGridSender> {
 		return this;
 	}
 
+	/**
+	 * Sets the non-blocking HTTP client used to call SendGrid. When set (or
+	 * when the property {@link SendGridConstants#HTTP_ASYNC_PROPERTY} is true),
+	 * the built sender doesn't hold a thread while waiting for SendGrid when
+	 * sending through {@link SendGridSender#sendAsync(fr.sii.ogham.email.message.Email)}.
+	 * 
+	 * @param transport
+	 *            the non-blocking HTTP client
+	 * @return the current instance for fluent use
+	 */
+	public SendGridBuilder withAsyncHttpTransport(final AsyncHttpTransport transport) {
+		this.asyncTransport = transport;
+		return this;
+	}
+
+	/**
+	 * Sets the HTTP client used by the SendGrid library. If not set, a pooled
+	 * client is created using the properties prefixed by
+	 * {@link SendGridConstants#HTTP_PROPERTIES_PREFIX} (see
+	 * {@link HttpTransportBuilder}). The client is created once and shared by
+	 * all the sendings.
+	 * 
+	 * @param httpClient
+	 *            the HTTP client to use
+	 * @return the current instance for fluent use
+	 */
+	public SendGridBuilder withHttpClient(final CloseableHttpClient httpClient) {
+		this.httpClient = httpClient;
+		return this;
+	}
+
+	/**
+	 * Enables the batch mode: emails that share sender, subject and content
+	 * are coalesced into a single SendGrid request (see
+	 * {@link SendGridBatcher}).
+	 * 
+	 * @param batchSize
+	 *            the maximum number of recipients for a single request
+	 * @param maxLinger
+	 *            the maximum time an email waits for other emails
+	 * @param unit
+	 *            the unit of the linger time
+	 * @return the current instance for fluent use
+	 */
+	public SendGridBuilder withBatching(final int batchSize, final long maxLinger, final TimeUnit unit) {
+		this.batch = true;
+		this.batchSize = batchSize;
+		this.batchMaxLinger = unit.toMillis(maxLinger);
+		return this;
+	}
+
+	/**
+	 * Set the number of threads used to send batches (only used in batch
+	 * mode).
+	 * 
+	 * @param threads
+	 *            the number of threads
+	 * @return the current instance for fluent use
+	 */
+	public SendGridBuilder withBatchThreads(final int threads) {
+		this.batchThreads = threads;
+		return this;
+	}
+
 	@Override
 	public SendGridSender build() throws BuildException {
+		if (asyncTransport == null && properties != null && Boolean.parseBoolean(properties.getProperty(SendGridConstants.HTTP_ASYNC_PROPERTY))) {
+			asyncTransport = new AsyncHttpTransportBuilder().useDefaults(properties, SendGridConstants.HTTP_PROPERTIES_PREFIX).build();
+		}
+		if (client == null && asyncTransport != null) {
+			String url = properties == null ? null : properties.getProperty(SendGridConstants.URL);
+			if (url == null) {
+				url = AsyncDelegateSendGridClient.DEFAULT_URL;
+			}
+			if (username != null && password != null) {
+				client = new AsyncDelegateSendGridClient(username, password, url, asyncTransport, metrics);
+			} else {
+				client = new AsyncDelegateSendGridClient(apiKey, url, asyncTransport, metrics);
+			}
+		}
 		if (client == null) {
+			// a single pooled HTTP client is shared by all the sendings
+			if (httpClient == null) {
+				HttpTransportBuilder httpBuilder = new HttpTransportBuilder();
+				if (properties != null) {
+					httpBuilder.useDefaults(properties, SendGridConstants.HTTP_PROPERTIES_PREFIX);
+				}
+				httpClient = httpBuilder.buildClient();
+			}
 			if(username!=null && password!=null) {
-				client = new DelegateSendGridClient(username, password);
+				client = new DelegateSendGridClient(username, password, httpClient, metrics);
 			} else {
-				client = new DelegateSendGridClient(apiKey);
+				client = new DelegateSendGridClient(apiKey, httpClient, metrics);
 			}
 		}
 
-		return new SendGridSender(client, contentHandler);
+		SendGridBatcher batcher = null;
+		if (batch) {
+			batcher = new SendGridBatcher(client, batchSize, batchMaxLinger, TimeUnit.MILLISECONDS, Executors.newScheduledThreadPool(batchThreads, new NamedThreadFactory("ogham-sendgrid-batch")), metrics);
+		}
+		return new SendGridSender(client, contentHandler, batcher, metrics);
 	}
 
+
+	/**
+	 * Use the provided recorder for the measures of the sender (requests to
+	 * SendGrid, batches, Mime Type detection...). By default, nothing is
+	 * recorded.
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this instance for fluent use
+	 */
+	@Override
+	public SendGridBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		metrics = recorder;
+		return this;
+	}
 }
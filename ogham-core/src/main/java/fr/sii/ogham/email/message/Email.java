@@ -1162,7 +1162,14 @@ public class Email implements Message, HasContentFluent<Email>, HasSubject, HasS
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("subject", "content", "from", "recipients", "attachments").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		Email other = (Email) obj;
+		return new EqualsBuilder().append(subject, other.subject).append(content, other.content).append(from, other.from).append(recipients, other.recipients).append(attachments, other.attachments).isEqual();
 	}
 
 }
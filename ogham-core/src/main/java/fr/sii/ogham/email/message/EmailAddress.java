@@ -73,6 +73,13 @@ public class EmailAddress {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("address", "personal").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		EmailAddress other = (EmailAddress) obj;
+		return new EqualsBuilder().append(address, other.address).append(personal, other.personal).isEqual();
 	}
 }
@@ -85,6 +85,13 @@ public class Recipient implements Addressee {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("address", "type").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		Recipient other = (Recipient) obj;
+		return new EqualsBuilder().append(address, other.address).append(type, other.type).isEqual();
 	}
 }
@@ -1,5 +1,7 @@
 package fr.sii.ogham.email.sender;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,7 +12,10 @@ import fr.sii.ogham.core.resource.NamedResource;
 import fr.sii.ogham.core.resource.resolver.ResourceResolver;
 import fr.sii.ogham.core.sender.ConditionalSender;
 import fr.sii.ogham.core.sender.MessageSender;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
 import fr.sii.ogham.core.translator.resource.AttachmentResourceTranslator;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
 import fr.sii.ogham.email.attachment.Attachment;
 import fr.sii.ogham.email.exception.attachment.translator.ResourceTranslatorException;
 import fr.sii.ogham.email.message.Email;
@@ -25,7 +30,7 @@ import fr.sii.ogham.email.message.Email;
  * @see ResourceResolver
  * @see NamedResource
  */
-public class AttachmentResourceTranslatorSender implements ConditionalSender {
+public class AttachmentResourceTranslatorSender implements ConditionalSender, ConnectionStatusProvider {
 	private static final Logger LOG = LoggerFactory.getLogger(AttachmentResourceTranslatorSender.class);
 
 	/**
@@ -74,6 +79,11 @@ public class AttachmentResourceTranslatorSender implements ConditionalSender {
 		}
 	}
 
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return ConnectionStatusUtils.collect(delegate);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
@@ -19,6 +19,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.sender.AbstractSpecializedSender;
 import fr.sii.ogham.email.attachment.Attachment;
 import fr.sii.ogham.email.attachment.ContentDisposition;
@@ -65,22 +68,60 @@ public class JavaMailSender extends AbstractSpecializedSender<Email> {
 	 */
 	private Authenticator authenticator;
 
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
 	public JavaMailSender(Properties properties, JavaMailContentHandler contentHandler, JavaMailAttachmentResourceHandler attachmentResourceHandler, Authenticator authenticator) {
 		this(properties, contentHandler, attachmentResourceHandler, authenticator, null);
 	}
 
 	public JavaMailSender(Properties properties, JavaMailContentHandler contentHandler, JavaMailAttachmentResourceHandler attachmentHandler, Authenticator authenticator,
 			JavaMailInterceptor interceptor) {
+		this(properties, contentHandler, attachmentHandler, authenticator, interceptor, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	public JavaMailSender(Properties properties, JavaMailContentHandler contentHandler, JavaMailAttachmentResourceHandler attachmentHandler, Authenticator authenticator,
+			JavaMailInterceptor interceptor, MetricsRecorder metrics) {
 		super();
 		this.properties = properties;
 		this.contentHandler = contentHandler;
 		this.attachmentHandler = attachmentHandler;
 		this.authenticator = authenticator;
 		this.interceptor = interceptor;
+		this.metrics = metrics;
 	}
 
 	@Override
 	public void send(Email email) throws MessageException {
+		MimeMessage mimeMsg = buildMimeMessage(email);
+		long start = metrics.startTimer();
+		try {
+			// message is ready => send it
+			LOG.info("Sending email using Java Mail API through server {}:{}...", properties.getProperty("mail.smtp.host", properties.getProperty("mail.host")),
+					properties.getProperty("mail.smtp.port", properties.getProperty("mail.port")));
+			Transport.send(mimeMsg);
+		} catch (MessagingException e) {
+			metrics.increment(MetricNames.errors(MetricNames.JAVAMAIL_SEND));
+			throw new MessageException("failed to send message using Java Mail API", email, e);
+		} finally {
+			metrics.stopTimer(MetricNames.JAVAMAIL_SEND, start);
+		}
+	}
+
+	/**
+	 * Create the mime message and fill it with the email information (sender,
+	 * recipients, subject, content and attachments).
+	 * 
+	 * @param email
+	 *            the source email
+	 * @return the mime message ready to be sent
+	 * @throws MessageException
+	 *             when the mime message couldn't be created
+	 */
+	private MimeMessage buildMimeMessage(Email email) throws MessageException {
+		long start = metrics.startTimer();
 		try {
 			LOG.debug("Initialize Java mail session with authenticator {} and properties {}", authenticator, properties);
 			LOG.debug("Create the mime message for email {}", email);
@@ -98,12 +139,12 @@ public class JavaMailSender extends AbstractSpecializedSender<Email> {
 				LOG.debug("Executing extra operations for email {}", email);
 				interceptor.intercept(mimeMsg, email);
 			}
-			// message is ready => send it
-			LOG.info("Sending email using Java Mail API through server {}:{}...", properties.getProperty("mail.smtp.host", properties.getProperty("mail.host")),
-					properties.getProperty("mail.smtp.port", properties.getProperty("mail.port")));
-			Transport.send(mimeMsg);
+			return mimeMsg;
 		} catch (UnsupportedEncodingException | MessagingException | ContentHandlerException | AttachmentResourceHandlerException e) {
+			metrics.increment(MetricNames.errors(MetricNames.JAVAMAIL_MIME_BUILD));
 			throw new MessageException("failed to send message using Java Mail API", email, e);
+		} finally {
+			metrics.stopTimer(MetricNames.JAVAMAIL_MIME_BUILD, start);
 		}
 	}
 
@@ -1,129 +1,324 @@
-package fr.sii.ogham.email.sender.impl;
-
-import java.util.HashSet;
-import java.util.Set;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.sendgrid.SendGrid;
-import com.sendgrid.SendGridException;
-
-import fr.sii.ogham.core.exception.MessageException;
-import fr.sii.ogham.core.sender.AbstractSpecializedSender;
-import fr.sii.ogham.email.exception.sendgrid.ContentHandlerException;
-import fr.sii.ogham.email.message.Email;
-import fr.sii.ogham.email.message.EmailAddress;
-import fr.sii.ogham.email.message.Recipient;
-import fr.sii.ogham.email.sender.impl.sendgrid.client.SendGridClient;
-import fr.sii.ogham.email.sender.impl.sendgrid.handler.SendGridContentHandler;
-
-/**
- * SendGrid-backed implementation of the email sender.
- */
-public final class SendGridSender extends AbstractSpecializedSender<Email> {
-
-	private static final Logger LOG = LoggerFactory.getLogger(SendGridSender.class);
-
-	private final SendGridClient service;
-	private final SendGridContentHandler handler;
-
-	/**
-	 * Constructor.
-	 * 
-	 * @param service
-	 *            the underlying SendGrid service
-	 * @param handler
-	 *            the content handler, in change of converting the email content
-	 *            into something the {@link SendGridClient} can work with
-	 */
-	public SendGridSender(final SendGridClient service, final SendGridContentHandler handler) {
-		if (service == null) {
-			throw new IllegalArgumentException("[service] cannot be null");
-		}
-		if (handler == null) {
-			throw new IllegalArgumentException("[handler] cannot be null");
-		}
-
-		this.service = service;
-		this.handler = handler;
-	}
-
-	@Override
-	public void send(final Email message) throws MessageException {
-		if (message == null) {
-			throw new IllegalArgumentException("[message] cannot be null");
-		}
-		final Set<String> violations = validate(message);
-		if (!violations.isEmpty()) {
-			throw new MessageException("The provided email is invalid. (Violations: " + violations + ")", message);
-		}
-
-		try {
-			LOG.debug("Preparing to send email using SendGrid: {}", message);
-			final SendGrid.Email sgEmail = toSendGridEmail(message);
-
-			LOG.debug("Sending email {}", sgEmail);
-			service.send(sgEmail);
-			LOG.debug("Email has been successfully sent");
-		} catch (ContentHandlerException e) {
-			throw new MessageException("A content-related error occurred when trying to build an email", message, e);
-		} catch (SendGridException e) {
-			throw new MessageException("A SendGrid-related error occurred when trying to send an email", message, e);
-		}
-	}
-
-	private Set<String> validate(final Email message) {
-		final Set<String> violations = new HashSet<String>();
-
-		if (message.getContent() == null) {
-			violations.add("Missing content");
-		}
-		if (message.getSubject() == null) {
-			violations.add("Missing subject");
-		}
-
-		if (message.getFrom() == null) {
-			violations.add("Missing sender email address");
-		} else if (message.getFrom().getPersonal() == null) {
-			violations.add("Missing sender name");
-		}
-
-		if (message.getRecipients().isEmpty()) {
-			violations.add("Missing recipients");
-		}
-
-		for (Recipient recipient : message.getRecipients()) {
-			if (recipient.getAddress().getPersonal() == null) {
-				violations.add("Missing recipient name for address " + recipient.getAddress().getAddress());
-			}
-		}
-
-		return violations;
-	}
-
-	private SendGrid.Email toSendGridEmail(final Email message) throws ContentHandlerException {
-		final SendGrid.Email ret = new SendGrid.Email();
-		ret.setSubject(message.getSubject());
-
-		ret.setFrom(message.getFrom().getAddress());
-		ret.setFromName(message.getFrom().getPersonal());
-
-		final String[] tos = new String[message.getRecipients().size()];
-		final String[] toNames = new String[message.getRecipients().size()];
-		int i = 0;
-		for (Recipient recipient : message.getRecipients()) {
-			final EmailAddress address = recipient.getAddress();
-			tos[i] = address.getAddress();
-			toNames[i] = address.getPersonal();
-			i++;
-		}
-		ret.setTo(tos);
-		ret.setToName(toNames);
-
-		handler.setContent(ret, message.getContent());
-
-		return ret;
-	}
-
-}
+package fr.sii.ogham.email.sender.impl;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sendgrid.SendGrid;
+import com.sendgrid.SendGridException;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.sender.AbstractSpecializedSender;
+import fr.sii.ogham.core.sender.AsyncSender;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.email.exception.sendgrid.ContentHandlerException;
+import fr.sii.ogham.email.message.Email;
+import fr.sii.ogham.email.message.EmailAddress;
+import fr.sii.ogham.email.message.Recipient;
+import fr.sii.ogham.email.sender.impl.sendgrid.batch.SendGridBatcher;
+import fr.sii.ogham.email.sender.impl.sendgrid.client.AsyncSendGridClient;
+import fr.sii.ogham.email.sender.impl.sendgrid.client.SendGridClient;
+import fr.sii.ogham.email.sender.impl.sendgrid.handler.SendGridContentHandler;
+
+/**
+ * SendGrid-backed implementation of the email sender. If the client is an
+ * {@link AsyncSendGridClient}, {@link #sendAsync(Email)} doesn't hold the
+ * calling thread while SendGrid processes the request. If a
+ * {@link SendGridBatcher} is provided, emails that share sender, subject and
+ * content are sent in a single request. Emails are only grouped while a
+ * request for the same content is running so {@link #send(Email)} doesn't wait
+ * for the linger time when nothing else is being sent. The number of emails
+ * waiting in the batches is reported as the pending requests of the
+ * <code>sendgrid-batch</code> {@link ConnectionStatus}.
+ */
+public final class SendGridSender extends AbstractSpecializedSender<Email> implements AsyncSender<Email>, ConnectionStatusProvider {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SendGridSender.class);
+
+	/**
+	 * The name of the reported {@link ConnectionStatus}
+	 */
+	public static final String STATUS_NAME = "sendgrid-batch";
+
+	private final SendGridClient service;
+	private final SendGridContentHandler handler;
+	private final SendGridBatcher batcher;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param service
+	 *            the underlying SendGrid service
+	 * @param handler
+	 *            the content handler, in change of converting the email content
+	 *            into something the {@link SendGridClient} can work with
+	 */
+	public SendGridSender(final SendGridClient service, final SendGridContentHandler handler) {
+		this(service, handler, null);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param service
+	 *            the underlying SendGrid service
+	 * @param handler
+	 *            the content handler, in change of converting the email content
+	 *            into something the {@link SendGridClient} can work with
+	 * @param batcher
+	 *            coalesces emails into a single request (may be null to send
+	 *            each email in its own request)
+	 */
+	public SendGridSender(final SendGridClient service, final SendGridContentHandler handler, final SendGridBatcher batcher) {
+		this(service, handler, batcher, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param service
+	 *            the underlying SendGrid service
+	 * @param handler
+	 *            the content handler, in change of converting the email content
+	 *            into something the {@link SendGridClient} can work with
+	 * @param batcher
+	 *            coalesces emails into a single request (may be null to send
+	 *            each email in its own request)
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public SendGridSender(final SendGridClient service, final SendGridContentHandler handler, final SendGridBatcher batcher, MetricsRecorder metrics) {
+		if (service == null) {
+			throw new IllegalArgumentException("[service] cannot be null");
+		}
+		if (handler == null) {
+			throw new IllegalArgumentException("[handler] cannot be null");
+		}
+
+		this.service = service;
+		this.handler = handler;
+		this.batcher = batcher;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void send(final Email message) throws MessageException {
+		checkValid(message);
+		if (batcher != null) {
+			waitFor(message, submitToBatch(message));
+			return;
+		}
+
+		final long start = metrics.startTimer();
+		try {
+			LOG.debug("Preparing to send email using SendGrid: {}", message);
+			final SendGrid.Email sgEmail = toSendGridEmail(message);
+
+			LOG.debug("Sending email {}", sgEmail);
+			service.send(sgEmail);
+			LOG.debug("Email has been successfully sent");
+		} catch (ContentHandlerException e) {
+			metrics.increment(MetricNames.errors(MetricNames.SENDGRID_SEND));
+			throw new MessageException("A content-related error occurred when trying to build an email", message, e);
+		} catch (SendGridException e) {
+			metrics.increment(MetricNames.errors(MetricNames.SENDGRID_SEND));
+			throw new MessageException("A SendGrid-related error occurred when trying to send an email", message, e);
+		} finally {
+			metrics.stopTimer(MetricNames.SENDGRID_SEND, start);
+		}
+	}
+
+	/**
+	 * Sends the email using the non-blocking client. If the client is not an
+	 * {@link AsyncSendGridClient}, the email is sent synchronously and the
+	 * returned future is already completed.
+	 */
+	@Override
+	public Future<Void> sendAsync(final Email message) throws MessageException {
+		if (batcher != null) {
+			checkValid(message);
+			return submitToBatch(message);
+		}
+		if (!(service instanceof AsyncSendGridClient)) {
+			send(message);
+			BasicFuture<Void> done = new BasicFuture<>(null);
+			done.completed(null);
+			return done;
+		}
+		checkValid(message);
+
+		final long start = metrics.startTimer();
+		final SendGrid.Email sgEmail;
+		try {
+			LOG.debug("Preparing to send email asynchronously using SendGrid: {}", message);
+			sgEmail = toSendGridEmail(message);
+		} catch (ContentHandlerException e) {
+			metrics.increment(MetricNames.errors(MetricNames.SENDGRID_SEND));
+			metrics.stopTimer(MetricNames.SENDGRID_SEND, start);
+			throw new MessageException("A content-related error occurred when trying to build an email", message, e);
+		}
+
+		LOG.debug("Sending email {}", sgEmail);
+		final BasicFuture<Void> result = new BasicFuture<>(null);
+		((AsyncSendGridClient) service).sendAsync(sgEmail, new FutureCallback<Void>() {
+			@Override
+			public void completed(Void nothing) {
+				LOG.debug("Email has been successfully sent");
+				metrics.stopTimer(MetricNames.SENDGRID_SEND, start);
+				result.completed(null);
+			}
+
+			@Override
+			public void failed(Exception e) {
+				metrics.increment(MetricNames.errors(MetricNames.SENDGRID_SEND));
+				metrics.stopTimer(MetricNames.SENDGRID_SEND, start);
+				result.failed(new MessageException("A SendGrid-related error occurred when trying to send an email", message, e));
+			}
+
+			@Override
+			public void cancelled() {
+				metrics.stopTimer(MetricNames.SENDGRID_SEND, start);
+				result.cancel();
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * @return the client used to send the emails to SendGrid
+	 */
+	public SendGridClient getClient() {
+		return service;
+	}
+
+	/**
+	 * Get the number of emails (or parts of emails) that are waiting for other
+	 * emails or being sent in batch mode.
+	 * 
+	 * @return the number of pending emails (always 0 if emails are not
+	 *         batched)
+	 */
+	public int getPendingMessages() {
+		return batcher == null ? 0 : batcher.getPendingMessages();
+	}
+
+	/**
+	 * No connection is kept opened to SendGrid. In batch mode, the status only
+	 * reports the emails that are waiting for other emails or being sent.
+	 * Nothing is reported if emails are not batched.
+	 */
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		if (batcher == null) {
+			return Collections.emptyList();
+		}
+		return Collections.singletonList(new ConnectionStatus(STATUS_NAME, 0, 0, getPendingMessages(), 0, true));
+	}
+
+	private Future<Void> submitToBatch(final Email message) throws MessageException {
+		try {
+			LOG.debug("Preparing to send email using SendGrid (batch mode): {}", message);
+			return batcher.submit(message, toSendGridEmail(message));
+		} catch (ContentHandlerException e) {
+			metrics.increment(MetricNames.errors(MetricNames.SENDGRID_SEND));
+			throw new MessageException("A content-related error occurred when trying to build an email", message, e);
+		}
+	}
+
+	private static void waitFor(final Email message, final Future<Void> result) throws MessageException {
+		try {
+			result.get();
+			LOG.debug("Email has been successfully sent");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageException("Interrupted while waiting for email to be sent through SendGrid", message, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MessageException) {
+				throw (MessageException) e.getCause();
+			}
+			throw new MessageException("A SendGrid-related error occurred when trying to send an email", message, e.getCause());
+		}
+	}
+
+	private void checkValid(final Email message) throws MessageException {
+		if (message == null) {
+			throw new IllegalArgumentException("[message] cannot be null");
+		}
+		final Set<String> violations = validate(message);
+		if (!violations.isEmpty()) {
+			throw new MessageException("The provided email is invalid. (Violations: " + violations + ")", message);
+		}
+	}
+
+	private Set<String> validate(final Email message) {
+		final Set<String> violations = new HashSet<String>();
+
+		if (message.getContent() == null) {
+			violations.add("Missing content");
+		}
+		if (message.getSubject() == null) {
+			violations.add("Missing subject");
+		}
+
+		if (message.getFrom() == null) {
+			violations.add("Missing sender email address");
+		} else if (message.getFrom().getPersonal() == null) {
+			violations.add("Missing sender name");
+		}
+
+		if (message.getRecipients().isEmpty()) {
+			violations.add("Missing recipients");
+		}
+
+		for (Recipient recipient : message.getRecipients()) {
+			if (recipient.getAddress().getPersonal() == null) {
+				violations.add("Missing recipient name for address " + recipient.getAddress().getAddress());
+			}
+		}
+
+		return violations;
+	}
+
+	private SendGrid.Email toSendGridEmail(final Email message) throws ContentHandlerException {
+		final SendGrid.Email ret = new SendGrid.Email();
+		ret.setSubject(message.getSubject());
+
+		ret.setFrom(message.getFrom().getAddress());
+		ret.setFromName(message.getFrom().getPersonal());
+
+		final String[] tos = new String[message.getRecipients().size()];
+		final String[] toNames = new String[message.getRecipients().size()];
+		int i = 0;
+		for (Recipient recipient : message.getRecipients()) {
+			final EmailAddress address = recipient.getAddress();
+			tos[i] = address.getAddress();
+			toNames[i] = address.getPersonal();
+			i++;
+		}
+		ret.setTo(tos);
+		ret.setToName(toNames);
+
+		handler.setContent(ret, message.getContent());
+
+		return ret;
+	}
+
+}
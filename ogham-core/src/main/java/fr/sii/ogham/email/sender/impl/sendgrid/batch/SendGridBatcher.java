@@ -0,0 +1,380 @@
+package fr.sii.ogham.email.sender.impl.sendgrid.batch;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sendgrid.SendGrid;
+import com.sendgrid.SendGridException;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.util.concurrent.AllCompletedCallback;
+import fr.sii.ogham.core.util.concurrent.Batcher;
+import fr.sii.ogham.core.util.concurrent.Batcher.BatchHandler;
+import fr.sii.ogham.core.util.concurrent.Batcher.Entry;
+import fr.sii.ogham.email.message.Email;
+import fr.sii.ogham.email.sender.impl.sendgrid.client.SendGridClient;
+
+/**
+ * <p>
+ * Coalesces emails that share sender, subject and content into a single
+ * SendGrid request. Recipients are provided through the SMTP API header
+ * (<code>x-smtpapi</code>) so that each recipient receives its own email and
+ * doesn't see the other recipients.
+ * </p>
+ * <p>
+ * An email is sent immediately if no request with the same sender, subject
+ * and content is running. Otherwise, it is grouped with the other emails
+ * received meanwhile and the group is sent when the running request is done,
+ * when the group reaches the maximum number of recipients or when the maximum
+ * linger time has elapsed (see {@link Batcher}). An email that has more
+ * recipients than the maximum is split into several requests. Each original
+ * email gets its own future.
+ * </p>
+ * <p>
+ * If SendGrid rejects a request and the error mentions some recipient
+ * addresses, only the emails that contain those addresses fail. The other
+ * emails of the batch are sent again in a new request (only once).
+ * Otherwise, all emails of the batch fail.
+ * </p>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class SendGridBatcher implements Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(SendGridBatcher.class);
+
+	/**
+	 * The client used to call SendGrid
+	 */
+	private final SendGridClient client;
+
+	/**
+	 * The maximum number of recipients for a single request
+	 */
+	private final int batchSize;
+
+	/**
+	 * Groups the emails that share sender, subject and content
+	 */
+	private final Batcher<BatchKey, Part> batcher;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	/**
+	 * Initialize the batcher.
+	 * 
+	 * @param client
+	 *            the client used to call SendGrid
+	 * @param batchSize
+	 *            the maximum number of recipients for a single request
+	 * @param maxLinger
+	 *            the maximum time an email waits for other emails
+	 * @param unit
+	 *            the unit of the maximum linger time
+	 * @param executor
+	 *            the executor used to trigger and send batches
+	 */
+	public SendGridBatcher(SendGridClient client, int batchSize, long maxLinger, TimeUnit unit, ScheduledExecutorService executor) {
+		this(client, batchSize, maxLinger, unit, executor, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initialize the batcher.
+	 * 
+	 * @param client
+	 *            the client used to call SendGrid
+	 * @param batchSize
+	 *            the maximum number of recipients for a single request
+	 * @param maxLinger
+	 *            the maximum time an email waits for other emails
+	 * @param unit
+	 *            the unit of the maximum linger time
+	 * @param executor
+	 *            the executor used to trigger and send batches
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public SendGridBatcher(SendGridClient client, int batchSize, long maxLinger, TimeUnit unit, ScheduledExecutorService executor, MetricsRecorder metrics) {
+		super();
+		if (client == null) {
+			throw new IllegalArgumentException("[client] cannot be null");
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("[batchSize] must be positive");
+		}
+		this.client = client;
+		this.batchSize = batchSize;
+		this.batcher = new Batcher<>(new BatchHandler<Part>() {
+			@Override
+			public void handle(List<Entry<Part>> entries) {
+				sendBatch(entries, true);
+			}
+		}, batchSize, maxLinger, unit, executor);
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Add the email to the batch of emails sharing the same sender, subject
+	 * and content.
+	 * 
+	 * @param message
+	 *            the original email
+	 * @param prepared
+	 *            the email already converted for SendGrid (recipients are
+	 *            read from it)
+	 * @return the future result of the sending of this email
+	 * @throws MessageException
+	 *             when the batcher is closed
+	 */
+	public Future<Void> submit(Email message, SendGrid.Email prepared) throws MessageException {
+		BatchKey key = new BatchKey(prepared);
+		Part all = new Part(message, prepared);
+		int recipients = all.addresses.size();
+		try {
+			if (recipients <= batchSize) {
+				return batcher.submit(key, all, recipients, null);
+			}
+			// too many recipients for a single request
+			int parts = (recipients + batchSize - 1) / batchSize;
+			LOG.debug("Email has {} recipients, split into {} requests", recipients, parts);
+			AllCompletedCallback callback = new AllCompletedCallback(parts);
+			for (int from = 0; from < recipients; from += batchSize) {
+				Part chunk = all.subPart(from, Math.min(from + batchSize, recipients));
+				batcher.submit(key, chunk, chunk.addresses.size(), callback);
+			}
+			return callback.getResult();
+		} catch (IllegalStateException e) {
+			throw new MessageException("Failed to send email through SendGrid (sender is closed)", message, e);
+		}
+	}
+
+	/**
+	 * Get the number of emails (or parts of emails) that are waiting for other
+	 * emails or being sent.
+	 * 
+	 * @return the number of pending emails
+	 */
+	public int getPendingMessages() {
+		return batcher.getPendingEntries();
+	}
+
+	/**
+	 * Sends all pending batches and stops accepting new ones. Already
+	 * dispatched batches are still sent.
+	 */
+	@Override
+	public void close() {
+		batcher.close();
+	}
+
+	private void sendBatch(List<Entry<Part>> entries, boolean retry) {
+		SendGrid.Email merged = merge(entries);
+		metrics.record(MetricNames.SENDGRID_BATCH_SIZE, entries.size());
+		LOG.debug("Sending {} emails in a single SendGrid request", entries.size());
+		long start = metrics.startTimer();
+		try {
+			client.send(merged);
+			for (Entry<Part> entry : entries) {
+				entry.completed();
+			}
+		} catch (SendGridException | RuntimeException e) {
+			metrics.increment(MetricNames.errors(MetricNames.SENDGRID_SEND));
+			handleFailure(entries, e, retry);
+		} finally {
+			metrics.stopTimer(MetricNames.SENDGRID_SEND, start);
+		}
+	}
+
+	/**
+	 * Fail the emails that contain a recipient mentioned in the error and
+	 * send the others again. If no recipient is mentioned, all emails fail.
+	 */
+	private void handleFailure(List<Entry<Part>> entries, Exception e, boolean retry) {
+		String error = String.valueOf(e.getMessage()) + (e.getCause() == null ? "" : e.getCause().getMessage());
+		List<Entry<Part>> others = new ArrayList<>(entries.size());
+		for (Entry<Part> entry : entries) {
+			if (entry.getValue().isMentionedIn(error)) {
+				entry.failed(new MessageException("SendGrid rejected a recipient of the email", entry.getValue().message, e));
+			} else {
+				others.add(entry);
+			}
+		}
+		if (retry && !others.isEmpty() && others.size() < entries.size()) {
+			LOG.debug("SendGrid rejected {} emails of the batch, sending the {} others again", entries.size() - others.size(), others.size());
+			sendBatch(others, false);
+			return;
+		}
+		for (Entry<Part> entry : others) {
+			entry.failed(new MessageException("A SendGrid-related error occurred when trying to send an email (sent in a request of " + entries.size() + " emails)",
+					entry.getValue().message, e));
+		}
+	}
+
+	private static SendGrid.Email merge(List<Entry<Part>> entries) {
+		SendGrid.Email template = entries.get(0).getValue().prepared;
+		SendGrid.Email merged = new SendGrid.Email();
+		merged.setFrom(template.getFrom());
+		merged.setFromName(template.getFromName());
+		merged.setSubject(template.getSubject());
+		merged.setText(template.getText());
+		merged.setHtml(template.getHtml());
+		for (Entry<Part> entry : entries) {
+			for (String recipient : entry.getValue().recipients) {
+				merged.addSmtpApiTo(recipient);
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Indicates if the address appears in the text as a whole address: the
+	 * characters around it can't be part of an address (bob@example.com is
+	 * not mentioned in "jimbob@example.com" nor in "bob@example.com.au").
+	 * 
+	 * @param text
+	 *            the text to search in
+	 * @param address
+	 *            the address to search for
+	 * @return true if the address is mentioned
+	 */
+	static boolean isAddressMentioned(String text, String address) {
+		if (address == null || address.isEmpty()) {
+			return false;
+		}
+		String lowerText = text.toLowerCase();
+		String lowerAddress = address.toLowerCase();
+		int idx = lowerText.indexOf(lowerAddress);
+		while (idx >= 0) {
+			int end = idx + lowerAddress.length();
+			if ((idx == 0 || !isAddressChar(lowerText.charAt(idx - 1))) && !continuesAddress(lowerText, end)) {
+				return true;
+			}
+			idx = lowerText.indexOf(lowerAddress, idx + 1);
+		}
+		return false;
+	}
+
+	private static boolean continuesAddress(String text, int end) {
+		if (end >= text.length()) {
+			return false;
+		}
+		char c = text.charAt(end);
+		if (c == '.' || c == '-') {
+			// end of a sentence or a separator unless followed by more of the
+			// address (domain or sub-domain)
+			return end + 1 < text.length() && Character.isLetterOrDigit(text.charAt(end + 1));
+		}
+		return isAddressChar(c);
+	}
+
+	private static boolean isAddressChar(char c) {
+		return Character.isLetterOrDigit(c) || "._%+-@!#$&*/=?^`{|}~".indexOf(c) >= 0;
+	}
+
+	/**
+	 * The recipients of an email that are sent in the same request
+	 */
+	private static class Part {
+		private final Email message;
+		private final SendGrid.Email prepared;
+		private final List<String> addresses;
+		private final List<String> recipients;
+
+		public Part(Email message, SendGrid.Email prepared) {
+			super();
+			this.message = message;
+			this.prepared = prepared;
+			String[] tos = prepared.getTos();
+			String[] names = prepared.getToNames();
+			this.addresses = new ArrayList<>(tos.length);
+			this.recipients = new ArrayList<>(tos.length);
+			for (int i = 0; i < tos.length; i++) {
+				addresses.add(tos[i]);
+				String name = names != null && i < names.length ? names[i] : null;
+				recipients.add(name == null ? tos[i] : name + " <" + tos[i] + ">");
+			}
+		}
+
+		private Part(Email message, SendGrid.Email prepared, List<String> addresses, List<String> recipients) {
+			super();
+			this.message = message;
+			this.prepared = prepared;
+			this.addresses = addresses;
+			this.recipients = recipients;
+		}
+
+		public Part subPart(int from, int to) {
+			return new Part(message, prepared, new ArrayList<>(addresses.subList(from, to)), new ArrayList<>(recipients.subList(from, to)));
+		}
+
+		public boolean isMentionedIn(String error) {
+			for (String address : addresses) {
+				if (isAddressMentioned(error, address)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static class BatchKey {
+		private final String from;
+		private final String fromName;
+		private final String subject;
+		private final String text;
+		private final String html;
+
+		public BatchKey(SendGrid.Email email) {
+			super();
+			this.from = email.getFrom();
+			this.fromName = email.getFromName();
+			this.subject = email.getSubject();
+			this.text = email.getText();
+			this.html = email.getHtml();
+		}
+
+		@Override
+		public int hashCode() {
+			int result = 1;
+			result = 31 * result + hash(from);
+			result = 31 * result + hash(fromName);
+			result = 31 * result + hash(subject);
+			result = 31 * result + hash(text);
+			result = 31 * result + hash(html);
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof BatchKey)) {
+				return false;
+			}
+			BatchKey other = (BatchKey) obj;
+			return same(from, other.from) && same(fromName, other.fromName) && same(subject, other.subject) && same(text, other.text) && same(html, other.html);
+		}
+
+		private static int hash(String value) {
+			return value == null ? 0 : value.hashCode();
+		}
+
+		private static boolean same(String a, String b) {
+			return a == null ? b == null : a.equals(b);
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package fr.sii.ogham.email.sender.impl.sendgrid.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sendgrid.SendGrid;
+import com.sendgrid.SendGrid.Email;
+import com.sendgrid.SendGridException;
+
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.util.http.AsyncHttpTransport;
+import fr.sii.ogham.core.util.http.Response;
+import fr.sii.ogham.core.util.http.StringResponseParser;
+
+/**
+ * Client that sends emails to SendGrid through a non-blocking
+ * {@link AsyncHttpTransport}. The {@link SendGrid} library is only used to
+ * build the request body; the request itself never holds a thread while
+ * SendGrid processes it.
+ */
+public final class AsyncDelegateSendGridClient implements SendGridClient, AsyncSendGridClient {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncDelegateSendGridClient.class);
+
+	/**
+	 * The SendGrid web API endpoint
+	 */
+	public static final String DEFAULT_URL = "https://api.sendgrid.com/api/mail.send.json";
+
+	private static final StringResponseParser PARSER = new StringResponseParser();
+
+	/**
+	 * Builds the request body (includes the credentials when username and
+	 * password are used)
+	 */
+	private final SendGrid delegate;
+
+	/**
+	 * The authentication header (only when API key is used)
+	 */
+	private final Map<String, String> headers;
+
+	/**
+	 * The URL of the SendGrid endpoint
+	 */
+	private final String url;
+
+	/**
+	 * The non-blocking HTTP client
+	 */
+	private final AsyncHttpTransport transport;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	/**
+	 * Initialize the client with username and password.
+	 * 
+	 * @param username
+	 *            the account username
+	 * @param password
+	 *            the account password
+	 * @param url
+	 *            the SendGrid endpoint (see {@link #DEFAULT_URL})
+	 * @param transport
+	 *            the non-blocking HTTP client
+	 */
+	public AsyncDelegateSendGridClient(String username, String password, String url, AsyncHttpTransport transport) {
+		this(username, password, url, transport, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initialize the client with username and password.
+	 * 
+	 * @param username
+	 *            the account username
+	 * @param password
+	 *            the account password
+	 * @param url
+	 *            the SendGrid endpoint (see {@link #DEFAULT_URL})
+	 * @param transport
+	 *            the non-blocking HTTP client
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public AsyncDelegateSendGridClient(String username, String password, String url, AsyncHttpTransport transport, MetricsRecorder metrics) {
+		this(new SendGrid(username, password), Collections.<String, String> emptyMap(), url, transport, metrics);
+	}
+
+	/**
+	 * Initialize the client with an API key.
+	 * 
+	 * @param apiKey
+	 *            the API key
+	 * @param url
+	 *            the SendGrid endpoint (see {@link #DEFAULT_URL})
+	 * @param transport
+	 *            the non-blocking HTTP client
+	 */
+	public AsyncDelegateSendGridClient(String apiKey, String url, AsyncHttpTransport transport) {
+		this(apiKey, url, transport, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initialize the client with an API key.
+	 * 
+	 * @param apiKey
+	 *            the API key
+	 * @param url
+	 *            the SendGrid endpoint (see {@link #DEFAULT_URL})
+	 * @param transport
+	 *            the non-blocking HTTP client
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public AsyncDelegateSendGridClient(String apiKey, String url, AsyncHttpTransport transport, MetricsRecorder metrics) {
+		this(new SendGrid(apiKey), Collections.singletonMap("Authorization", "Bearer " + apiKey), url, transport, metrics);
+	}
+
+	private AsyncDelegateSendGridClient(SendGrid delegate, Map<String, String> headers, String url, AsyncHttpTransport transport, MetricsRecorder metrics) {
+		super();
+		if (transport == null) {
+			throw new IllegalArgumentException("[transport] cannot be null");
+		}
+		this.delegate = delegate;
+		this.headers = headers;
+		this.url = url;
+		this.transport = transport;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Future<Void> sendAsync(final Email email, FutureCallback<Void> callback) {
+		if (email == null) {
+			throw new IllegalArgumentException("[email] cannot be null");
+		}
+
+		LOG.debug("Sending asynchronously to SendGrid client: FROM {}<{}>", email.getFromName(), email.getFrom());
+		LOG.debug("Sending asynchronously to SendGrid client: TO {} (as {})", email.getTos(), email.getToNames());
+		LOG.debug("Sending asynchronously to SendGrid client: SUBJECT {}", email.getSubject());
+
+		final BasicFuture<Void> result = new BasicFuture<>(callback);
+		HttpEntity body = delegate.buildBody(email);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			body.writeTo(out);
+		} catch (IOException e) {
+			result.failed(new SendGridException(e));
+			return result;
+		}
+		final long start = metrics.startTimer();
+		transport.post(url, headers, out.toByteArray(), body.getContentType().getValue(), PARSER, new FutureCallback<Response>() {
+			@Override
+			public void completed(Response response) {
+				metrics.stopTimer(MetricNames.SENDGRID_REQUEST, start);
+				if (response.getStatus().isSuccess()) {
+					LOG.debug("Response from SendGrid client: ({}) {}", response.getStatus(), response.getBody());
+					result.completed(null);
+				} else {
+					metrics.increment(MetricNames.errors(MetricNames.SENDGRID_REQUEST));
+					result.failed(new SendGridException(new IOException("Sending to SendGrid failed: (" + response.getStatus().getCode() + ") " + response.getBody())));
+				}
+			}
+
+			@Override
+			public void failed(Exception e) {
+				metrics.increment(MetricNames.errors(MetricNames.SENDGRID_REQUEST));
+				metrics.stopTimer(MetricNames.SENDGRID_REQUEST, start);
+				result.failed(new SendGridException(e));
+			}
+
+			@Override
+			public void cancelled() {
+				metrics.stopTimer(MetricNames.SENDGRID_REQUEST, start);
+				result.cancel();
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public void send(Email email) throws SendGridException {
+		try {
+			sendAsync(email, null).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SendGridException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SendGridException) {
+				throw (SendGridException) e.getCause();
+			}
+			throw new SendGridException(e);
+		}
+	}
+
+}
@@ -0,0 +1,30 @@
+package fr.sii.ogham.email.sender.impl.sendgrid.client;
+
+import java.util.concurrent.Future;
+
+import org.apache.http.concurrent.FutureCallback;
+
+import com.sendgrid.SendGrid;
+
+/**
+ * Implemented by SendGrid clients that are able to send emails without
+ * blocking the calling thread.
+ */
+public interface AsyncSendGridClient {
+
+	/**
+	 * Sends the provided email to SendGrid without waiting for the response.
+	 * The returned future fails with a {@link com.sendgrid.SendGridException}
+	 * (available through
+	 * {@link java.util.concurrent.ExecutionException#getCause()}) if SendGrid
+	 * rejects the email or can't be reached.
+	 * 
+	 * @param email
+	 *            the email to send, cannot be {@code null}
+	 * @param callback
+	 *            notified once the sending is over (may be {@code null})
+	 * @return the future result of the sending
+	 */
+	Future<Void> sendAsync(SendGrid.Email email, FutureCallback<Void> callback);
+
+}
@@ -2,6 +2,7 @@ package fr.sii.ogham.email.sender.impl.sendgrid.client;
 
 import java.io.IOException;
 
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,29 +10,37 @@ import com.sendgrid.SendGrid;
 import com.sendgrid.SendGrid.Email;
 import com.sendgrid.SendGridException;
 
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+
 /**
- * Facade wrapping the {@link SendGrid} object.
+ * Facade wrapping the {@link SendGrid} object. The {@link SendGrid} object is
+ * created once when the client is constructed so the client can safely be
+ * shared between threads. Provide a pooled HTTP client (see
+ * {@link fr.sii.ogham.core.builder.HttpTransportBuilder#buildClient()}) to
+ * send several emails concurrently.
  */
 public final class DelegateSendGridClient implements SendGridClient {
 
 	private static final Logger LOG = LoggerFactory.getLogger(DelegateSendGridClient.class);
 
-	private SendGrid delegate;
-
 	/**
-	 * The account username
+	 * The entry point to the SendGrid library (null if no credentials are
+	 * provided)
 	 */
-	private String username;
+	private final SendGrid delegate;
 
 	/**
-	 * The account password
+	 * The HTTP client used by the SendGrid library (null if the library
+	 * default client is used)
 	 */
-	private String password;
+	private final CloseableHttpClient httpClient;
 
 	/**
-	 * The API key
+	 * The recorder for the measures
 	 */
-	private String apiKey;
+	private final MetricsRecorder metrics;
 
 	/**
 	 * Constructor.
@@ -42,22 +51,101 @@ public final class DelegateSendGridClient implements SendGridClient {
 	 *             if provided delegate is null
 	 */
 	public DelegateSendGridClient(final SendGrid delegate) {
+		this(delegate, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param delegate
+	 *            the entry point to the SendGrid library
+	 * @param metrics
+	 *            the recorder for the measures
+	 * @throws NullPointerException
+	 *             if provided delegate is null
+	 */
+	public DelegateSendGridClient(final SendGrid delegate, MetricsRecorder metrics) {
 		if (delegate == null) {
 			throw new IllegalArgumentException("[delegate] cannot be null");
 		}
 
 		this.delegate = delegate;
+		this.httpClient = null;
+		this.metrics = metrics;
 	}
 
 	public DelegateSendGridClient(String username, String password) {
-		super();
-		this.username = username;
-		this.password = password;
+		this(username, password, null);
 	}
 
 	public DelegateSendGridClient(String apiKey) {
+		this(apiKey, (CloseableHttpClient) null);
+	}
+
+	/**
+	 * Initialize the client with username and password.
+	 * 
+	 * @param username
+	 *            the account username
+	 * @param password
+	 *            the account password
+	 * @param httpClient
+	 *            the HTTP client used by the SendGrid library (if null, the
+	 *            library default client is used)
+	 */
+	public DelegateSendGridClient(String username, String password, CloseableHttpClient httpClient) {
+		this(username, password, httpClient, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initialize the client with username and password.
+	 * 
+	 * @param username
+	 *            the account username
+	 * @param password
+	 *            the account password
+	 * @param httpClient
+	 *            the HTTP client used by the SendGrid library (if null, the
+	 *            library default client is used)
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public DelegateSendGridClient(String username, String password, CloseableHttpClient httpClient, MetricsRecorder metrics) {
+		super();
+		this.delegate = username == null || password == null ? null : configure(new SendGrid(username, password), httpClient);
+		this.httpClient = httpClient;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Initialize the client with an API key.
+	 * 
+	 * @param apiKey
+	 *            the API key
+	 * @param httpClient
+	 *            the HTTP client used by the SendGrid library (if null, the
+	 *            library default client is used)
+	 */
+	public DelegateSendGridClient(String apiKey, CloseableHttpClient httpClient) {
+		this(apiKey, httpClient, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initialize the client with an API key.
+	 * 
+	 * @param apiKey
+	 *            the API key
+	 * @param httpClient
+	 *            the HTTP client used by the SendGrid library (if null, the
+	 *            library default client is used)
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public DelegateSendGridClient(String apiKey, CloseableHttpClient httpClient, MetricsRecorder metrics) {
 		super();
-		this.apiKey = apiKey;
+		this.delegate = apiKey == null ? null : configure(new SendGrid(apiKey), httpClient);
+		this.httpClient = httpClient;
+		this.metrics = metrics;
 	}
 
 	@Override
@@ -65,6 +153,9 @@ public final class DelegateSendGridClient implements SendGridClient {
 		if (email == null) {
 			throw new IllegalArgumentException("[email] cannot be null");
 		}
+		if (delegate == null) {
+			throw new IllegalStateException("No SendGrid instance available. Either provide an instance manually or provide username/password or provide API key");
+		}
 
 		LOG.debug("Sending to SendGrid client: FROM {}<{}>", email.getFromName(), email.getFrom());
 		LOG.debug("Sending to SendGrid client: TO {} (as {})", email.getTos(), email.getToNames());
@@ -72,22 +163,38 @@ public final class DelegateSendGridClient implements SendGridClient {
 		LOG.debug("Sending to SendGrid client: TEXT CONTENT {}", email.getText());
 		LOG.debug("Sending to SendGrid client: HTML CONTENT {}", email.getHtml());
 
-		if (delegate == null) {
-			if(username!=null && password!=null) {
-				delegate = new SendGrid(username, password);
-			} else if(apiKey!=null) {
-				delegate = new SendGrid(apiKey);
-			} else {
-				throw new IllegalStateException("No SendGrid instance available. Either provide an instance manually or provide username/password or provide API key");
-			}
+		final long start = metrics.startTimer();
+		final SendGrid.Response response;
+		try {
+			response = delegate.send(email);
+		} catch (SendGridException | RuntimeException e) {
+			metrics.increment(MetricNames.errors(MetricNames.SENDGRID_REQUEST));
+			throw e;
+		} finally {
+			metrics.stopTimer(MetricNames.SENDGRID_REQUEST, start);
 		}
-		final SendGrid.Response response = delegate.send(email);
 
 		if (response.getStatus()) {
 			LOG.debug("Response from SendGrid client: ({}) {}", response.getCode(), response.getMessage());
 		} else {
+			metrics.increment(MetricNames.errors(MetricNames.SENDGRID_REQUEST));
 			throw new SendGridException(new IOException("Sending to SendGrid failed: (" + response.getCode() + ") " + response.getMessage()));
 		}
 	}
 
+	/**
+	 * @return the HTTP client used by the SendGrid library (null if the
+	 *         library default client is used)
+	 */
+	public CloseableHttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	private static SendGrid configure(SendGrid sendGrid, CloseableHttpClient httpClient) {
+		if (httpClient != null) {
+			sendGrid.setClient(httpClient);
+		}
+		return sendGrid;
+	}
+
 }
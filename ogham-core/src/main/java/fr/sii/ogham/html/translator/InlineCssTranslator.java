@@ -13,6 +13,9 @@ import fr.sii.ogham.core.message.content.Content;
 import fr.sii.ogham.core.message.content.MayHaveStringContent;
 import fr.sii.ogham.core.message.content.StringContent;
 import fr.sii.ogham.core.message.content.UpdatableStringContent;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.resource.resolver.ResourceResolver;
 import fr.sii.ogham.core.translator.content.ContentTranslator;
 import fr.sii.ogham.core.util.HtmlUtils;
@@ -43,10 +46,20 @@ public class InlineCssTranslator implements ContentTranslator {
 	 */
 	private ResourceResolver resourceResolver;
 
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
 	public InlineCssTranslator(CssInliner cssInliner, ResourceResolver resourceResolver) {
+		this(cssInliner, resourceResolver, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	public InlineCssTranslator(CssInliner cssInliner, ResourceResolver resourceResolver, MetricsRecorder metrics) {
 		super();
 		this.cssInliner = cssInliner;
 		this.resourceResolver = resourceResolver;
+		this.metrics = metrics;
 	}
 
 	@Override
@@ -56,12 +69,20 @@ public class InlineCssTranslator implements ContentTranslator {
 			if (HtmlUtils.isHtml(stringContent)) {
 				List<String> cssFiles = HtmlUtils.getDistinctCssUrls(stringContent);
 				if (!cssFiles.isEmpty()) {
-					// prepare list of css files/urls with their content
-					List<ExternalCss> cssResources = load(cssFiles);
-					// generate the content with inlined css
-					String inlinedContentStr = cssInliner.inline(stringContent, cssResources);
-					// update the HTML content
-					return updateHtmlContent(content, inlinedContentStr);
+					long start = metrics.startTimer();
+					try {
+						// prepare list of css files/urls with their content
+						List<ExternalCss> cssResources = load(cssFiles);
+						// generate the content with inlined css
+						String inlinedContentStr = cssInliner.inline(stringContent, cssResources);
+						// update the HTML content
+						return updateHtmlContent(content, inlinedContentStr);
+					} catch (ContentTranslatorException e) {
+						metrics.increment(MetricNames.errors(MetricNames.CSS_INLINE));
+						throw e;
+					} finally {
+						metrics.stopTimer(MetricNames.CSS_INLINE, start);
+					}
 				}
 			}
 		} else {
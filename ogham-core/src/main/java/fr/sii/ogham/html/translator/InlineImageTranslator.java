@@ -16,6 +16,9 @@ import fr.sii.ogham.core.message.content.Content;
 import fr.sii.ogham.core.message.content.MayHaveStringContent;
 import fr.sii.ogham.core.message.content.StringContent;
 import fr.sii.ogham.core.message.content.UpdatableStringContent;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.mimetype.MimeTypeProvider;
 import fr.sii.ogham.core.resource.resolver.ResourceResolver;
 import fr.sii.ogham.core.translator.content.ContentTranslator;
@@ -59,11 +62,21 @@ public class InlineImageTranslator implements ContentTranslator {
 	 */
 	private MimeTypeProvider mimetypeProvider;
 
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
 	public InlineImageTranslator(ImageInliner inliner, ResourceResolver resourceResolver, MimeTypeProvider mimetypeProvider) {
+		this(inliner, resourceResolver, mimetypeProvider, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	public InlineImageTranslator(ImageInliner inliner, ResourceResolver resourceResolver, MimeTypeProvider mimetypeProvider, MetricsRecorder metrics) {
 		super();
 		this.inliner = inliner;
 		this.resourceResolver = resourceResolver;
 		this.mimetypeProvider = mimetypeProvider;
+		this.metrics = metrics;
 	}
 
 	@Override
@@ -72,14 +85,23 @@ public class InlineImageTranslator implements ContentTranslator {
 			String stringContent = ((MayHaveStringContent) content).asString();
 			List<String> images = HtmlUtils.getDistinctImageUrls(stringContent);
 			if (!images.isEmpty()) {
-				// parepare list of images paths/urls with their content
-				List<ImageResource> imageResources = load(images);
-				// generate new HTML with inlined images
-				ContentWithImages contentWithImages = inliner.inline(stringContent, imageResources);
-				// update the HTML content
-				Content inlinedContent = updateHtmlContent(content, contentWithImages);
-				// if it was already a content with attachments then update it otherwise create a new one
-				return generateFinalContent(content, contentWithImages, inlinedContent);
+				long start = metrics.startTimer();
+				try {
+					// parepare list of images paths/urls with their content
+					List<ImageResource> imageResources = load(images);
+					// generate new HTML with inlined images
+					ContentWithImages contentWithImages = inliner.inline(stringContent, imageResources);
+					// update the HTML content
+					Content inlinedContent = updateHtmlContent(content, contentWithImages);
+					metrics.record(MetricNames.IMAGE_COUNT, images.size());
+					// if it was already a content with attachments then update it otherwise create a new one
+					return generateFinalContent(content, contentWithImages, inlinedContent);
+				} catch (ContentTranslatorException e) {
+					metrics.increment(MetricNames.errors(MetricNames.IMAGE_INLINE));
+					throw e;
+				} finally {
+					metrics.stopTimer(MetricNames.IMAGE_INLINE, start);
+				}
 			}
 		} else {
 			LOG.debug("Neither content usable as string nor HTML. Skip image inlining for {}", content);
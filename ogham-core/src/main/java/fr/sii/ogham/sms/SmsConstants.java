@@ -66,6 +66,48 @@ public class SmsConstants {
 		 */
 		public static final String SMS_CODING_PROPERTY = PROPERTIES_PREFIX + ".ovh.smsCoding";
 		
+		/**
+		 * The key for OVH option smsClass
+		 */
+		public static final String SMS_CLASS_PROPERTY = PROPERTIES_PREFIX + ".ovh.smsClass";
+		
+		/**
+		 * The prefix for the configuration of the HTTP client used to call OVH
+		 * (see {@link fr.sii.ogham.core.builder.HttpTransportBuilder})
+		 */
+		public static final String HTTP_PROPERTIES_PREFIX = PROPERTIES_PREFIX + ".ovh.http";
+		
+		/**
+		 * The key to enable the non-blocking HTTP client for OVH
+		 */
+		public static final String HTTP_ASYNC_PROPERTY = HTTP_PROPERTIES_PREFIX + ".async";
+		
+		/**
+		 * The prefix for the configuration of the batching of OVH requests
+		 */
+		public static final String BATCH_PROPERTIES_PREFIX = PROPERTIES_PREFIX + ".ovh.batch";
+		
+		/**
+		 * The key to enable the batching of SMS that share sender and content
+		 */
+		public static final String BATCH_ENABLE_PROPERTY = BATCH_PROPERTIES_PREFIX + ".enable";
+		
+		/**
+		 * The key for the maximum number of recipients in a single request
+		 */
+		public static final String BATCH_MAX_RECIPIENTS_PROPERTY = BATCH_PROPERTIES_PREFIX + ".maxRecipients";
+		
+		/**
+		 * The key for the maximum time (in milliseconds) a SMS waits for other
+		 * SMS to be sent with
+		 */
+		public static final String BATCH_MAX_LINGER_PROPERTY = BATCH_PROPERTIES_PREFIX + ".maxLinger";
+		
+		/**
+		 * The key for the number of threads used to send batches
+		 */
+		public static final String BATCH_THREADS_PROPERTY = BATCH_PROPERTIES_PREFIX + ".threads";
+		
 		/**
 		 * The URL of the HTTP API for sending SMS through OVH
 		 */
@@ -218,6 +260,77 @@ public class SmsConstants {
 			 * The default value for unbind timeout
 			 */
 			public static final long DEFAULT_UNBIND_TIMEOUT = 5000;
+
+			/**
+			 * The key of property for the maximum number of submissions
+			 * waiting for a delivery receipt
+			 */
+			public static final String DLR_MAX_PENDING_PROPERTY = CLOUDHOPPER_PREFIX + ".dlr.pending.max";
+
+			/**
+			 * The default maximum number of submissions waiting for a
+			 * delivery receipt
+			 */
+			public static final int DEFAULT_DLR_MAX_PENDING = 100000;
+
+			/**
+			 * The key of property for the radix of the message identifiers
+			 * returned by the SMSC in <code>submit_sm_resp</code> (and in
+			 * the <code>receipted_message_id</code> optional parameter)
+			 */
+			public static final String DLR_SUBMIT_ID_RADIX_PROPERTY = CLOUDHOPPER_PREFIX + ".dlr.id.submit.radix";
+
+			/**
+			 * The key of property for the radix of the message identifier
+			 * written in the text of the delivery receipts
+			 */
+			public static final String DLR_RECEIPT_ID_RADIX_PROPERTY = CLOUDHOPPER_PREFIX + ".dlr.id.receipt.radix";
+
+			/**
+			 * The key of property for the comma separated names of the SMSCs
+			 * to use for load balancing. If set, each SMSC is configured using
+			 * the properties prefixed by {@link #SMSC_PREFIX} followed by the
+			 * name of the SMSC. For example,
+			 * <code>ogham.sms.smpp.cloudhopper.smsc.primary.host</code>
+			 * overrides <code>ogham.sms.smpp.host</code> for the SMSC named
+			 * <code>primary</code>.
+			 */
+			public static final String SMSC_PROPERTY = CLOUDHOPPER_PREFIX + ".smsc";
+
+			/**
+			 * The prefix for properties of a single SMSC
+			 */
+			public static final String SMSC_PREFIX = SMSC_PROPERTY + ".";
+
+			/**
+			 * The suffix of the property for the relative weight of a SMSC
+			 */
+			public static final String SMSC_WEIGHT_SUFFIX = ".weight";
+
+			/**
+			 * The suffix of the property for the number of sessions bound to a
+			 * SMSC
+			 */
+			public static final String SMSC_SESSIONS_SUFFIX = ".sessions";
+
+			/**
+			 * The key of property for the load balancing strategy
+			 * (<code>weight</code>, <code>outstanding</code> or
+			 * <code>latency</code>)
+			 */
+			public static final String BALANCING_STRATEGY_PROPERTY = CLOUDHOPPER_PREFIX + ".balancing.strategy";
+
+			/**
+			 * The key of property for the initial pause (in milliseconds) of a
+			 * SMSC that throttles
+			 */
+			public static final String BALANCING_BACKOFF_PROPERTY = CLOUDHOPPER_PREFIX + ".balancing.backoff";
+
+			/**
+			 * The key of property for the maximum pause (in milliseconds) of a
+			 * SMSC that throttles
+			 */
+			public static final String BALANCING_MAX_BACKOFF_PROPERTY = CLOUDHOPPER_PREFIX + ".balancing.backoff.max";
 			
 			private CloudhopperConstants() {
 				super();
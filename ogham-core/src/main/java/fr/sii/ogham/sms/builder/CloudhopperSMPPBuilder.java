@@ -8,17 +8,24 @@ import com.cloudhopper.smpp.SmppConstants;
 import com.cloudhopper.smpp.SmppSessionConfiguration;
 
 import fr.sii.ogham.core.builder.Builder;
-import fr.sii.ogham.core.charset.FixedCharsetProvider;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
 import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.util.BuilderUtils;
 import fr.sii.ogham.sms.SmsConstants;
 import fr.sii.ogham.sms.SmsConstants.SmppConstants.CloudhopperConstants;
 import fr.sii.ogham.sms.SmsConstants.SmppConstants.TimeoutConstants;
+import fr.sii.ogham.sms.dlr.DeliveryReportListener;
+import fr.sii.ogham.sms.encoding.AdaptiveSmsCharsetProvider;
 import fr.sii.ogham.sms.exception.message.EncodingException;
 import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberTranslator;
 import fr.sii.ogham.sms.sender.impl.CloudhopperSMPPSender;
 import fr.sii.ogham.sms.sender.impl.cloudhopper.CloudhopperOptions;
 import fr.sii.ogham.sms.sender.impl.cloudhopper.MapCloudhopperCharsetHandler;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.SubmitSmFactory;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.dlr.DeliveryReceiptHandler;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.dlr.PendingSubmissions;
 
 /**
  * Builder that helps to construct the Cloudhopper SMPP implementation.
@@ -26,9 +33,7 @@ import fr.sii.ogham.sms.sender.impl.cloudhopper.MapCloudhopperCharsetHandler;
  * @author Aurélien Baudet
  *
  */
-public class CloudhopperSMPPBuilder implements Builder<CloudhopperSMPPSender> {
-	private static final String DEFAULT_CHARSET = "UTF-8";
-
+public class CloudhopperSMPPBuilder implements Builder<CloudhopperSMPPSender>, InstrumentedBuilder<CloudhopperSMPPBuilder> {
 	/**
 	 * The configuration for SMPP session to use
 	 */
@@ -39,24 +44,104 @@ public class CloudhopperSMPPBuilder implements Builder<CloudhopperSMPPSender> {
 	 */
 	private CloudhopperOptions options;
 
+	/**
+	 * The listener that receives delivery reports (null to disable delivery
+	 * receipt processing)
+	 */
+	private DeliveryReportListener deliveryReportListener;
+
+	/**
+	 * The maximum number of submissions waiting for a delivery receipt
+	 */
+	private int maxPendingReceipts = CloudhopperConstants.DEFAULT_DLR_MAX_PENDING;
+
+	/**
+	 * The radix of the message identifiers returned in
+	 * <code>submit_sm_resp</code>
+	 */
+	private int submitIdRadix = DeliveryReceiptHandler.DEFAULT_SUBMIT_ID_RADIX;
+
+	/**
+	 * The radix of the message identifier in the receipt text
+	 */
+	private int receiptIdRadix = DeliveryReceiptHandler.DEFAULT_RECEIPT_ID_RADIX;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private MetricsRecorder metrics = NoOpMetricsRecorder.INSTANCE;
+
 	@Override
 	public CloudhopperSMPPSender build() throws BuildException {
-		if(options==null) {
+		CloudhopperOptions senderOptions = buildOptions();
+		MapCloudhopperCharsetHandler charsetHandler = buildCharsetHandler();
+		PhoneNumberTranslator fallbackPhoneNumberTranslator = new DefaultPhoneNumberTranslatorBuilder().useDefaults().build();
+
+		DeliveryReceiptHandler receiptHandler = buildReceiptHandler();
+		if (receiptHandler != null) {
+			enableReceipts(sessionConfiguration);
+		}
+		return new CloudhopperSMPPSender(sessionConfiguration, senderOptions, charsetHandler, fallbackPhoneNumberTranslator, receiptHandler, metrics);
+	}
+
+	/**
+	 * Build the factory for SMPP submits (charset handling and fallback
+	 * addressing policy) shared by Cloudhopper based senders.
+	 * 
+	 * @return the factory
+	 * @throws BuildException
+	 *             when the charset handler can't be built
+	 */
+	SubmitSmFactory buildSubmitSmFactory() throws BuildException {
+		return new SubmitSmFactory(buildCharsetHandler(), new DefaultPhoneNumberTranslatorBuilder().useDefaults().build());
+	}
+
+	/**
+	 * @return the provided options or default ones
+	 */
+	CloudhopperOptions buildOptions() {
+		if (options == null) {
 			options = new CloudhopperOptions(CloudhopperConstants.DEFAULT_RESPONSE_TIMEOUT, CloudhopperConstants.DEFAULT_UNBIND_TIMEOUT);
 		}
-		
-		// Default cloud hopper charset handler (UTF8 --> GSM)
-		FixedCharsetProvider defaultCharsetProvider = new FixedCharsetProvider();
+		return options;
+	}
+
+	/**
+	 * @return the handler for delivery receipts or null if no listener has
+	 *         been provided
+	 */
+	DeliveryReceiptHandler buildReceiptHandler() {
+		if (deliveryReportListener == null) {
+			return null;
+		}
+		return new DeliveryReceiptHandler(deliveryReportListener, new PendingSubmissions(maxPendingReceipts), submitIdRadix, receiptIdRadix, metrics);
+	}
+
+	/**
+	 * Receipts are sent by the SMSC through the session so the session must
+	 * not be bound as transmitter only.
+	 * 
+	 * @param configuration
+	 *            the configuration to update
+	 */
+	static void enableReceipts(SmppSessionConfiguration configuration) {
+		if (configuration.getType() == SmppBindType.TRANSMITTER) {
+			configuration.setType(SmppBindType.TRANSCEIVER);
+		}
+	}
+
+	private static MapCloudhopperCharsetHandler buildCharsetHandler() throws BuildException {
+		// Default cloud hopper charset handler: GSM 7-bit when possible
+		// (UTF8 --> GSM), UCS-2 otherwise (UTF-16BE --> UCS-2)
+		AdaptiveSmsCharsetProvider defaultCharsetProvider = new AdaptiveSmsCharsetProvider();
 		MapCloudhopperCharsetHandler charsetHandler = new MapCloudhopperCharsetHandler(defaultCharsetProvider);
 		try {
-			charsetHandler.addCharset(DEFAULT_CHARSET, CharsetUtil.NAME_GSM);
+			charsetHandler.addCharset(AdaptiveSmsCharsetProvider.DEFAULT_GSM_CHARSET, CharsetUtil.NAME_GSM);
+			charsetHandler.addCharset(AdaptiveSmsCharsetProvider.DEFAULT_UCS2_CHARSET, CharsetUtil.NAME_UCS_2);
 		} catch (EncodingException e) {
 			throw new BuildException("Unable to build default charset handler", e);
 		}
-		
-		PhoneNumberTranslator fallbackPhoneNumberTranslator = new DefaultPhoneNumberTranslatorBuilder().useDefaults().build();
-
-		return new CloudhopperSMPPSender(sessionConfiguration, options, charsetHandler, fallbackPhoneNumberTranslator);
+		return charsetHandler;
 	}
 
 	/**
@@ -87,6 +172,9 @@ public class CloudhopperSMPPBuilder implements Builder<CloudhopperSMPPSender> {
 	 * @return this instance for fluent use
 	 */
 	public CloudhopperSMPPBuilder useDefaults(Properties props) {
+		maxPendingReceipts = getProperty(props, CloudhopperConstants.DLR_MAX_PENDING_PROPERTY, CloudhopperConstants.DEFAULT_DLR_MAX_PENDING);
+		withMessageIdRadix(getProperty(props, CloudhopperConstants.DLR_SUBMIT_ID_RADIX_PROPERTY, DeliveryReceiptHandler.DEFAULT_SUBMIT_ID_RADIX),
+				getProperty(props, CloudhopperConstants.DLR_RECEIPT_ID_RADIX_PROPERTY, DeliveryReceiptHandler.DEFAULT_RECEIPT_ID_RADIX));
 		generateOptionsFrom(props);
 		generateSmppSessionConfigurationFrom(props);
 		return this;
@@ -104,6 +192,59 @@ public class CloudhopperSMPPBuilder implements Builder<CloudhopperSMPPSender> {
 		return this;
 	}
 	
+	/**
+	 * Enable delivery receipt processing. The SMPP session is kept opened
+	 * (bound as transceiver) in order to receive the receipts sent by the
+	 * SMSC. Each receipt is correlated with the sent message and published to
+	 * the listener.
+	 * 
+	 * @param listener
+	 *            the listener that receives the delivery reports
+	 * @return this instance for fluent use
+	 */
+	public CloudhopperSMPPBuilder withDeliveryReportListener(DeliveryReportListener listener) {
+		this.deliveryReportListener = listener;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of submissions that are waiting for a delivery
+	 * receipt. When this number is reached, the oldest submissions are
+	 * forgotten and their receipts won't be correlated.
+	 * 
+	 * @param max
+	 *            the maximum number of pending submissions
+	 * @return this instance for fluent use
+	 */
+	public CloudhopperSMPPBuilder withMaxPendingReceipts(int max) {
+		this.maxPendingReceipts = max;
+		return this;
+	}
+
+	/**
+	 * Set the radixes used to read the message identifiers in order to
+	 * correlate delivery receipts with submissions. Many SMSCs return a
+	 * hexadecimal identifier in <code>submit_sm_resp</code> and write it in
+	 * decimal in the receipt text (default). Use the same radix for both if
+	 * the SMSC writes the identifier the same way. Identifiers that are not
+	 * numbers are correlated as is.
+	 * 
+	 * @param submitRadix
+	 *            the radix of the identifiers returned in
+	 *            <code>submit_sm_resp</code> (and in the
+	 *            <code>receipted_message_id</code> optional parameter)
+	 * @param receiptRadix
+	 *            the radix of the identifier in the receipt text
+	 * @return this instance for fluent use
+	 */
+	public CloudhopperSMPPBuilder withMessageIdRadix(int submitRadix, int receiptRadix) {
+		checkRadix(submitRadix);
+		checkRadix(receiptRadix);
+		this.submitIdRadix = submitRadix;
+		this.receiptIdRadix = receiptRadix;
+		return this;
+	}
+
 	/**
 	 * Provide your own configuration for SMPP session.
 	 * 
@@ -139,7 +280,20 @@ public class CloudhopperSMPPBuilder implements Builder<CloudhopperSMPPSender> {
 	 * @return this instance for fluent use
 	 */
 	public CloudhopperSMPPBuilder generateSmppSessionConfigurationFrom(Properties props) {
-		sessionConfiguration = new SmppSessionConfiguration(SmppBindType.TRANSMITTER, props.getProperty(SmsConstants.SmppConstants.SYSTEMID_PROPERTY), props.getProperty(SmsConstants.SmppConstants.PASSWORD_PROPERTY));
+		sessionConfiguration = createSmppSessionConfiguration(props);
+		return this;
+	}
+
+	/**
+	 * Create a configuration for SMPP session from properties.
+	 * 
+	 * @param props
+	 *            the properties to use for generating configuration for SMPP
+	 *            session
+	 * @return the configuration
+	 */
+	static SmppSessionConfiguration createSmppSessionConfiguration(Properties props) {
+		SmppSessionConfiguration sessionConfiguration = new SmppSessionConfiguration(SmppBindType.TRANSMITTER, props.getProperty(SmsConstants.SmppConstants.SYSTEMID_PROPERTY), props.getProperty(SmsConstants.SmppConstants.PASSWORD_PROPERTY));
 		sessionConfiguration.setHost(props.getProperty(SmsConstants.SmppConstants.HOST_PROPERTY));
 		sessionConfiguration.setPort(Integer.parseInt(props.getProperty(SmsConstants.SmppConstants.PORT_PROPERTY)));
 		sessionConfiguration.setBindTimeout(getProperty(props, TimeoutConstants.BIND_PROPERTY, SmppConstants.DEFAULT_BIND_TIMEOUT));
@@ -170,14 +324,34 @@ public class CloudhopperSMPPBuilder implements Builder<CloudhopperSMPPSender> {
 		// TODO: externalize logs options ?
 //		sessionConfiguration.getLoggingOptions().setLogBytes(false);
 //		sessionConfiguration.setCountersEnabled(false);
-		return this;
+		return sessionConfiguration;
 	}
 	
-	private int getProperty(Properties props, String key, int defaultValue) {
+	private static void checkRadix(int radix) {
+		if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX) {
+			throw new IllegalArgumentException("radix must be between " + Character.MIN_RADIX + " and " + Character.MAX_RADIX);
+		}
+	}
+
+	private static int getProperty(Properties props, String key, int defaultValue) {
 		return Integer.parseInt(props.getProperty(key, String.valueOf(defaultValue)));
 	}
 	
-	private long getProperty(Properties props, String key, long defaultValue) {
+	private static long getProperty(Properties props, String key, long defaultValue) {
 		return Long.parseLong(props.getProperty(key, String.valueOf(defaultValue)));
 	}
+
+	/**
+	 * Use the provided recorder for the measures of the sender (sending time,
+	 * delivery receipts...). By default, nothing is recorded.
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this instance for fluent use
+	 */
+	@Override
+	public CloudhopperSMPPBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		metrics = recorder;
+		return this;
+	}
 }
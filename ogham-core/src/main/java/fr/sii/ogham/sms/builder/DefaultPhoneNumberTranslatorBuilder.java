@@ -1,8 +1,7 @@
 package fr.sii.ogham.sms.builder;
 
 import fr.sii.ogham.core.exception.builder.BuildException;
-import fr.sii.ogham.sms.message.addressing.translator.CompositePhoneNumberTranslator;
-import fr.sii.ogham.sms.message.addressing.translator.DefaultHandler;
+import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberFormatTranslator;
 import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberTranslator;
 
 /**
@@ -15,9 +14,8 @@ import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberTranslator;
 public class DefaultPhoneNumberTranslatorBuilder implements PhoneNumberTranslatorBuilder {
 	@Override
 	public PhoneNumberTranslator build() throws BuildException {
-		CompositePhoneNumberTranslator translator = new CompositePhoneNumberTranslator();
-		translator.add(new DefaultHandler());
-		return translator;
+		// no format enabled: same policy as DefaultHandler
+		return new PhoneNumberFormatTranslator();
 	}
 
 	@Override
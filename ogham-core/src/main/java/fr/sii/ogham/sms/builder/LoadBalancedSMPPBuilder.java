@@ -0,0 +1,274 @@
+package fr.sii.ogham.sms.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.cloudhopper.smpp.SmppSessionConfiguration;
+
+import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
+import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.sms.SmsConstants.SmppConstants;
+import fr.sii.ogham.sms.SmsConstants.SmppConstants.CloudhopperConstants;
+import fr.sii.ogham.sms.sender.impl.LoadBalancedSMPPSender;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.LatencyLoadBalancingStrategy;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.LeastOutstandingLoadBalancingStrategy;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.LoadBalancingStrategy;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.SmscNode;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.WeightedLoadBalancingStrategy;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.dlr.DeliveryReceiptHandler;
+
+/**
+ * Builder that helps to construct the Cloudhopper SMPP implementation that
+ * distributes messages over several SMSCs (see {@link LoadBalancedSMPPSender}
+ * ).
+ *
+ * <p>
+ * The options, charset handling and delivery receipts are configured through
+ * the {@link CloudhopperSMPPBuilder}.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class LoadBalancedSMPPBuilder implements Builder<LoadBalancedSMPPSender>, InstrumentedBuilder<LoadBalancedSMPPBuilder> {
+	/**
+	 * Default initial pause in milliseconds of a SMSC that throttles
+	 */
+	public static final long DEFAULT_BACKOFF = 1000;
+
+	/**
+	 * Default maximum pause in milliseconds of a SMSC that throttles
+	 */
+	public static final long DEFAULT_MAX_BACKOFF = 60000;
+
+	/**
+	 * The builder for common Cloudhopper configuration
+	 */
+	private CloudhopperSMPPBuilder senderBuilder;
+
+	/**
+	 * The configuration of each SMSC
+	 */
+	private final List<SmscDefinition> smscs;
+
+	/**
+	 * Selects the SMSC for each recipient
+	 */
+	private LoadBalancingStrategy strategy;
+
+	/**
+	 * Initial pause in milliseconds of a SMSC that throttles
+	 */
+	private long backoff = DEFAULT_BACKOFF;
+
+	/**
+	 * Maximum pause in milliseconds of a SMSC that throttles
+	 */
+	private long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private MetricsRecorder metrics;
+
+	public LoadBalancedSMPPBuilder() {
+		super();
+		senderBuilder = new CloudhopperSMPPBuilder();
+		smscs = new ArrayList<>();
+		metrics = NoOpMetricsRecorder.INSTANCE;
+	}
+
+	@Override
+	public LoadBalancedSMPPSender build() throws BuildException {
+		if (smscs.isEmpty()) {
+			throw new BuildException("At least one SMSC must be configured for load balancing");
+		}
+		senderBuilder.withMetricsRecorder(metrics);
+		DeliveryReceiptHandler receiptHandler = senderBuilder.buildReceiptHandler();
+		List<SmscNode> nodes = new ArrayList<>(smscs.size());
+		for (SmscDefinition smsc : smscs) {
+			if (receiptHandler != null) {
+				CloudhopperSMPPBuilder.enableReceipts(smsc.configuration);
+			}
+			nodes.add(new SmscNode(smsc.name, smsc.configuration, smsc.weight, smsc.sessions, backoff, maxBackoff));
+		}
+		LoadBalancingStrategy selectedStrategy = strategy == null ? new WeightedLoadBalancingStrategy() : strategy;
+		return new LoadBalancedSMPPSender(nodes, selectedStrategy, senderBuilder.buildOptions(), senderBuilder.buildSubmitSmFactory(), receiptHandler, metrics);
+	}
+
+	/**
+	 * Tells the builder to use all default behaviors and values:
+	 * <ul>
+	 * <li>Generate Cloudhopper options from the provided properties</li>
+	 * <li>Register each SMSC listed in
+	 * <code>ogham.sms.smpp.cloudhopper.smsc</code>. The configuration of the
+	 * session is generated from the same properties as
+	 * {@link CloudhopperSMPPBuilder} but each
+	 * <code>ogham.sms.smpp.&lt;key&gt;</code> property can be overridden for a
+	 * SMSC using
+	 * <code>ogham.sms.smpp.cloudhopper.smsc.&lt;name&gt;.&lt;key&gt;</code></li>
+	 * <li>Use the load balancing strategy and pauses defined by the provided
+	 * properties</li>
+	 * </ul>
+	 *
+	 * @param props
+	 *            the properties to use
+	 * @return this instance for fluent use
+	 */
+	public LoadBalancedSMPPBuilder useDefaults(Properties props) {
+		senderBuilder.generateOptionsFrom(props);
+		String maxPending = props.getProperty(CloudhopperConstants.DLR_MAX_PENDING_PROPERTY);
+		if (maxPending != null) {
+			senderBuilder.withMaxPendingReceipts(Integer.parseInt(maxPending.trim()));
+		}
+		String submitRadix = props.getProperty(CloudhopperConstants.DLR_SUBMIT_ID_RADIX_PROPERTY);
+		String receiptRadix = props.getProperty(CloudhopperConstants.DLR_RECEIPT_ID_RADIX_PROPERTY);
+		if (submitRadix != null || receiptRadix != null) {
+			senderBuilder.withMessageIdRadix(submitRadix == null ? DeliveryReceiptHandler.DEFAULT_SUBMIT_ID_RADIX : Integer.parseInt(submitRadix.trim()),
+					receiptRadix == null ? DeliveryReceiptHandler.DEFAULT_RECEIPT_ID_RADIX : Integer.parseInt(receiptRadix.trim()));
+		}
+		String names = props.getProperty(CloudhopperConstants.SMSC_PROPERTY, "");
+		for (String name : names.split(",")) {
+			name = name.trim();
+			if (!name.isEmpty()) {
+				Properties smscProps = getSmscProperties(props, name);
+				String weight = props.getProperty(CloudhopperConstants.SMSC_PREFIX + name + CloudhopperConstants.SMSC_WEIGHT_SUFFIX, "1");
+				String sessions = props.getProperty(CloudhopperConstants.SMSC_PREFIX + name + CloudhopperConstants.SMSC_SESSIONS_SUFFIX, "1");
+				withSmsc(name, CloudhopperSMPPBuilder.createSmppSessionConfiguration(smscProps), Integer.parseInt(weight.trim()), Integer.parseInt(sessions.trim()));
+			}
+		}
+		String strategyName = props.getProperty(CloudhopperConstants.BALANCING_STRATEGY_PROPERTY);
+		if (strategyName != null) {
+			withStrategy(toStrategy(strategyName.trim()));
+		}
+		String initialBackoff = props.getProperty(CloudhopperConstants.BALANCING_BACKOFF_PROPERTY);
+		String maximumBackoff = props.getProperty(CloudhopperConstants.BALANCING_MAX_BACKOFF_PROPERTY);
+		withBackoff(initialBackoff == null ? backoff : Long.parseLong(initialBackoff.trim()), maximumBackoff == null ? maxBackoff : Long.parseLong(maximumBackoff.trim()), TimeUnit.MILLISECONDS);
+		return this;
+	}
+
+	/**
+	 * Set the builder used for common Cloudhopper configuration (options,
+	 * delivery receipts...). The SMPP session configuration of this builder
+	 * is not used.
+	 *
+	 * @param senderBuilder
+	 *            the builder for common configuration
+	 * @return this instance for fluent use
+	 */
+	public LoadBalancedSMPPBuilder withSenderBuilder(CloudhopperSMPPBuilder senderBuilder) {
+		this.senderBuilder = senderBuilder;
+		return this;
+	}
+
+	/**
+	 * Register a SMSC.
+	 *
+	 * @param name
+	 *            the name of the SMSC (used for logs)
+	 * @param configuration
+	 *            the configuration used to bind sessions to the SMSC
+	 * @param weight
+	 *            the relative weight of the SMSC
+	 * @param sessions
+	 *            the number of sessions to bind to the SMSC
+	 * @return this instance for fluent use
+	 */
+	public LoadBalancedSMPPBuilder withSmsc(String name, SmppSessionConfiguration configuration, int weight, int sessions) {
+		smscs.add(new SmscDefinition(name, configuration, weight, sessions));
+		return this;
+	}
+
+	/**
+	 * Set the strategy used to select the SMSC for each recipient (weighted
+	 * random by default).
+	 *
+	 * @param strategy
+	 *            the load balancing strategy
+	 * @return this instance for fluent use
+	 */
+	public LoadBalancedSMPPBuilder withStrategy(LoadBalancingStrategy strategy) {
+		this.strategy = strategy;
+		return this;
+	}
+
+	/**
+	 * Set the pause applied to a SMSC that throttles. The pause is doubled
+	 * each time the SMSC throttles again until the maximum is reached.
+	 *
+	 * @param initial
+	 *            the initial pause
+	 * @param max
+	 *            the maximum pause
+	 * @param unit
+	 *            the unit of the pauses
+	 * @return this instance for fluent use
+	 */
+	public LoadBalancedSMPPBuilder withBackoff(long initial, long max, TimeUnit unit) {
+		this.backoff = unit.toMillis(initial);
+		this.maxBackoff = unit.toMillis(max);
+		return this;
+	}
+
+	private static Properties getSmscProperties(Properties props, String name) {
+		String prefix = CloudhopperConstants.SMSC_PREFIX + name + ".";
+		Properties smscProps = new Properties();
+		for (String key : props.stringPropertyNames()) {
+			smscProps.setProperty(key, props.getProperty(key));
+		}
+		// SMSC specific values override global ones
+		for (String key : props.stringPropertyNames()) {
+			if (key.startsWith(prefix)) {
+				smscProps.setProperty(SmppConstants.SMPP_PREFIX + "." + key.substring(prefix.length()), props.getProperty(key));
+			}
+		}
+		return smscProps;
+	}
+
+	private static LoadBalancingStrategy toStrategy(String name) {
+		switch (name) {
+			case "outstanding":
+				return new LeastOutstandingLoadBalancingStrategy();
+			case "latency":
+				return new LatencyLoadBalancingStrategy();
+			case "weight":
+				return new WeightedLoadBalancingStrategy();
+			default:
+				throw new IllegalArgumentException("Unknown load balancing strategy " + name + " (expected weight, outstanding or latency)");
+		}
+	}
+
+	private static class SmscDefinition {
+		private final String name;
+		private final SmppSessionConfiguration configuration;
+		private final int weight;
+		private final int sessions;
+
+		public SmscDefinition(String name, SmppSessionConfiguration configuration, int weight, int sessions) {
+			super();
+			this.name = name;
+			this.configuration = configuration;
+			this.weight = weight;
+			this.sessions = sessions;
+		}
+	}
+
+	/**
+	 * Use the provided recorder for the measures of the sender and of the
+	 * senders of each SMSC. By default, nothing is recorded.
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this instance for fluent use
+	 */
+	@Override
+	public LoadBalancedSMPPBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		metrics = recorder;
+		return this;
+	}
+}
@@ -0,0 +1,196 @@
+package fr.sii.ogham.sms.builder;
+
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
+import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.util.concurrent.NamedThreadFactory;
+import fr.sii.ogham.sms.SmsConstants.OvhConstants;
+import fr.sii.ogham.sms.sender.impl.OvhBatchingSmsSender;
+import fr.sii.ogham.sms.sender.impl.OvhSmsSender;
+
+/**
+ * Builder that helps to construct the OVH implementation that coalesces SMS
+ * sharing the same sender and content into a single request (see
+ * {@link OvhBatchingSmsSender}).
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class OvhBatchingSmsBuilder implements Builder<OvhBatchingSmsSender>, InstrumentedBuilder<OvhBatchingSmsBuilder> {
+	/**
+	 * Default maximum number of recipients for a single request
+	 */
+	public static final int DEFAULT_MAX_RECIPIENTS = 100;
+
+	/**
+	 * Default maximum linger time in milliseconds
+	 */
+	public static final long DEFAULT_MAX_LINGER = 200;
+
+	/**
+	 * Default number of threads used to send batches
+	 */
+	public static final int DEFAULT_THREADS = 4;
+
+	/**
+	 * The builder for the sender that really calls OVH
+	 */
+	private OvhSmsBuilder senderBuilder;
+
+	/**
+	 * The maximum number of recipients for a single request
+	 */
+	private int maxRecipients = DEFAULT_MAX_RECIPIENTS;
+
+	/**
+	 * The maximum linger time in milliseconds
+	 */
+	private long maxLinger = DEFAULT_MAX_LINGER;
+
+	/**
+	 * The number of threads used to send batches
+	 */
+	private int threads = DEFAULT_THREADS;
+
+	/**
+	 * The executor used to trigger and send batches
+	 */
+	private ScheduledExecutorService executor;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private MetricsRecorder metrics;
+
+	public OvhBatchingSmsBuilder() {
+		super();
+		senderBuilder = new OvhSmsBuilder();
+		metrics = NoOpMetricsRecorder.INSTANCE;
+	}
+
+	@Override
+	public OvhBatchingSmsSender build() throws BuildException {
+		OvhSmsSender delegate = senderBuilder.withMetricsRecorder(metrics).build();
+		if (executor == null) {
+			executor = Executors.newScheduledThreadPool(threads, new NamedThreadFactory("ogham-ovh-batch"));
+		}
+		return new OvhBatchingSmsSender(delegate, maxRecipients, maxLinger, TimeUnit.MILLISECONDS, executor, metrics);
+	}
+
+	/**
+	 * Tells the builder to use all default behaviors and values:
+	 * <ul>
+	 * <li>Configure the OVH sender using the provided properties (see
+	 * {@link OvhSmsBuilder#useDefaults(Properties)})</li>
+	 * <li>Configure the batching (maximum number of recipients, maximum
+	 * linger time and number of threads) using the provided properties</li>
+	 * </ul>
+	 * 
+	 * @param properties
+	 *            the properties to use
+	 * @return this instance for fluent use
+	 */
+	public OvhBatchingSmsBuilder useDefaults(Properties properties) {
+		senderBuilder.useDefaults(properties);
+		String recipients = properties.getProperty(OvhConstants.BATCH_MAX_RECIPIENTS_PROPERTY);
+		if (recipients != null) {
+			withMaxRecipients(Integer.parseInt(recipients.trim()));
+		}
+		String linger = properties.getProperty(OvhConstants.BATCH_MAX_LINGER_PROPERTY);
+		if (linger != null) {
+			withMaxLinger(Long.parseLong(linger.trim()), TimeUnit.MILLISECONDS);
+		}
+		String nbThreads = properties.getProperty(OvhConstants.BATCH_THREADS_PROPERTY);
+		if (nbThreads != null) {
+			withThreads(Integer.parseInt(nbThreads.trim()));
+		}
+		return this;
+	}
+
+	/**
+	 * Set the builder of the sender that really calls OVH. Use it to
+	 * configure the URL, authentication, options or HTTP client.
+	 * 
+	 * @param senderBuilder
+	 *            the builder of the OVH sender
+	 * @return this instance for fluent use
+	 */
+	public OvhBatchingSmsBuilder withSenderBuilder(OvhSmsBuilder senderBuilder) {
+		this.senderBuilder = senderBuilder;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of recipients for a single request. A batch is
+	 * sent as soon as it reaches this limit.
+	 * 
+	 * @param maxRecipients
+	 *            the maximum number of recipients
+	 * @return this instance for fluent use
+	 */
+	public OvhBatchingSmsBuilder withMaxRecipients(int maxRecipients) {
+		this.maxRecipients = maxRecipients;
+		return this;
+	}
+
+	/**
+	 * Set the maximum time a SMS waits for other SMS with the same sender and
+	 * content before the request is sent.
+	 * 
+	 * @param maxLinger
+	 *            the maximum linger time
+	 * @param unit
+	 *            the unit of the linger time
+	 * @return this instance for fluent use
+	 */
+	public OvhBatchingSmsBuilder withMaxLinger(long maxLinger, TimeUnit unit) {
+		this.maxLinger = unit.toMillis(maxLinger);
+		return this;
+	}
+
+	/**
+	 * Set the number of threads used to send batches. Ignored if an executor
+	 * is provided using {@link #withExecutor(ScheduledExecutorService)}.
+	 * 
+	 * @param threads
+	 *            the number of threads
+	 * @return this instance for fluent use
+	 */
+	public OvhBatchingSmsBuilder withThreads(int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Set the executor used to trigger and send batches.
+	 * 
+	 * @param executor
+	 *            the executor to use
+	 * @return this instance for fluent use
+	 */
+	public OvhBatchingSmsBuilder withExecutor(ScheduledExecutorService executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Use the provided recorder for the measures of the batches and of the
+	 * sender that sends each batch. By default, nothing is recorded.
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this instance for fluent use
+	 */
+	@Override
+	public OvhBatchingSmsBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		metrics = recorder;
+		return this;
+	}
+}
@@ -4,12 +4,20 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Properties;
 
+import fr.sii.ogham.core.builder.AsyncHttpTransportBuilder;
 import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.builder.HttpTransportBuilder;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
 import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.util.http.AsyncHttpTransport;
+import fr.sii.ogham.core.util.http.HttpTransport;
 import fr.sii.ogham.sms.SmsConstants.OvhConstants;
 import fr.sii.ogham.sms.sender.impl.OvhSmsSender;
 import fr.sii.ogham.sms.sender.impl.ovh.OvhAuthParams;
 import fr.sii.ogham.sms.sender.impl.ovh.OvhOptions;
+import fr.sii.ogham.sms.sender.impl.ovh.SmsClass;
 import fr.sii.ogham.sms.sender.impl.ovh.SmsCoding;
 
 /**
@@ -18,7 +26,7 @@ import fr.sii.ogham.sms.sender.impl.ovh.SmsCoding;
  * @author Aurélien Baudet
  *
  */
-public class OvhSmsBuilder implements Builder<OvhSmsSender> {
+public class OvhSmsBuilder implements Builder<OvhSmsSender>, InstrumentedBuilder<OvhSmsBuilder> {
 	/**
 	 * The properties to use
 	 */
@@ -38,6 +46,21 @@ public class OvhSmsBuilder implements Builder<OvhSmsSender> {
 	 * The OVH web service URL
 	 */
 	private URL ovhUrl;
+	
+	/**
+	 * The HTTP client used to call OVH web service
+	 */
+	private HttpTransport httpTransport;
+	
+	/**
+	 * The non-blocking HTTP client used to send SMS asynchronously
+	 */
+	private AsyncHttpTransport asyncHttpTransport;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private MetricsRecorder metrics = NoOpMetricsRecorder.INSTANCE;
 
 	@Override
 	public OvhSmsSender build() throws BuildException {
@@ -56,12 +79,22 @@ public class OvhSmsBuilder implements Builder<OvhSmsSender> {
 			if(options==null) {
 				String noStop = properties.getProperty(OvhConstants.NO_STOP_PROPERTY);
 				String smsCoding = properties.getProperty(OvhConstants.SMS_CODING_PROPERTY);
+				String smsClass = properties.getProperty(OvhConstants.SMS_CLASS_PROPERTY);
 				options = new OvhOptions(noStop==null ? true : Boolean.valueOf(noStop), 
 											properties.getProperty(OvhConstants.TAG_PROPERTY), 
-											smsCoding==null ? null : SmsCoding.valueOf(smsCoding));
+											smsCoding==null ? null : SmsCoding.valueOf(smsCoding),
+											smsClass==null ? null : SmsClass.valueOf(smsClass));
+			}
+			// initialize a dedicated pooled HTTP client using values from properties
+			if(httpTransport==null) {
+				httpTransport = new HttpTransportBuilder().useDefaults(properties, OvhConstants.HTTP_PROPERTIES_PREFIX).build();
+			}
+			// non-blocking HTTP client is only created if enabled
+			if(asyncHttpTransport==null && properties!=null && Boolean.parseBoolean(properties.getProperty(OvhConstants.HTTP_ASYNC_PROPERTY))) {
+				asyncHttpTransport = new AsyncHttpTransportBuilder().useDefaults(properties, OvhConstants.HTTP_PROPERTIES_PREFIX).build();
 			}
 			// create sender implementation
-			return new OvhSmsSender(ovhUrl, authParams, options);
+			return new OvhSmsSender(ovhUrl, authParams, options, httpTransport, asyncHttpTransport, metrics);
 		} catch(MalformedURLException e) {
 			throw new BuildException("Invalid URL for OVH API", e);
 		}
@@ -73,6 +106,8 @@ public class OvhSmsBuilder implements Builder<OvhSmsSender> {
 	 * <li>Use the provided properties</li>
 	 * <li>Initialize OVH authentication using provided properties</li>
 	 * <li>Initialize OVH options using provided properties</li>
+	 * <li>Initialize the HTTP client (pool, timeouts, keep-alive) using provided
+	 * properties</li>
 	 * </ul>
 	 * 
 	 * @param properties
@@ -135,4 +170,49 @@ public class OvhSmsBuilder implements Builder<OvhSmsSender> {
 		return this;
 	}
 
+	/**
+	 * Set the HTTP client used to call OVH web service. If not set, a pooled
+	 * client is created using the properties prefixed by
+	 * {@link OvhConstants#HTTP_PROPERTIES_PREFIX} (see
+	 * {@link HttpTransportBuilder}).
+	 * 
+	 * @param httpTransport
+	 *            the HTTP client to use
+	 * @return this instance for fluent use
+	 */
+	public OvhSmsBuilder withHttpTransport(HttpTransport httpTransport) {
+		this.httpTransport = httpTransport;
+		return this;
+	}
+
+	/**
+	 * Set the non-blocking HTTP client used by
+	 * {@link OvhSmsSender#sendAsync(fr.sii.ogham.sms.message.Sms)}. If not
+	 * set, a client is only created when the property
+	 * {@link OvhConstants#HTTP_ASYNC_PROPERTY} is true (see
+	 * {@link AsyncHttpTransportBuilder}).
+	 * 
+	 * @param asyncHttpTransport
+	 *            the non-blocking HTTP client to use
+	 * @return this instance for fluent use
+	 */
+	public OvhSmsBuilder withAsyncHttpTransport(AsyncHttpTransport asyncHttpTransport) {
+		this.asyncHttpTransport = asyncHttpTransport;
+		return this;
+	}
+
+
+	/**
+	 * Use the provided recorder for the measures of the sender (requests to
+	 * OVH). By default, nothing is recorded.
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this instance for fluent use
+	 */
+	@Override
+	public OvhSmsBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		metrics = recorder;
+		return this;
+	}
 }
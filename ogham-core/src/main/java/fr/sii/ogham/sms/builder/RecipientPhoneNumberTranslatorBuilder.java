@@ -4,9 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.exception.builder.BuildException;
-import fr.sii.ogham.sms.message.addressing.translator.CompositePhoneNumberTranslator;
-import fr.sii.ogham.sms.message.addressing.translator.DefaultHandler;
+import fr.sii.ogham.sms.message.addressing.translator.CachingPhoneNumberTranslator;
 import fr.sii.ogham.sms.message.addressing.translator.InternationalNumberFormatHandler;
+import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberFormat;
+import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberFormatTranslator;
 import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberTranslator;
 
 /**
@@ -24,14 +25,23 @@ public class RecipientPhoneNumberTranslatorBuilder implements PhoneNumberTransla
 	 */
 	private boolean enableInternational;
 
+	/**
+	 * Maximum number of remembered translations (0 to disable cache)
+	 */
+	private int cacheSize;
+
 	@Override
 	public PhoneNumberTranslator build() throws BuildException {
-		CompositePhoneNumberTranslator translator = new CompositePhoneNumberTranslator();
+		PhoneNumberTranslator translator;
 		if(enableInternational) {
 			LOG.debug("Enable international phone number format");
-			translator.add(new InternationalNumberFormatHandler());
+			translator = new PhoneNumberFormatTranslator(PhoneNumberFormat.INTERNATIONAL);
+		} else {
+			translator = new PhoneNumberFormatTranslator();
+		}
+		if (cacheSize > 0) {
+			translator = new CachingPhoneNumberTranslator(translator, cacheSize);
 		}
-		translator.add(new DefaultHandler());
 		return translator;
 	}
 
@@ -46,4 +56,17 @@ public class RecipientPhoneNumberTranslatorBuilder implements PhoneNumberTransla
 		return this;
 	}
 
+	/**
+	 * Remember the translations of the most recently used phone numbers (see
+	 * {@link CachingPhoneNumberTranslator}).
+	 * 
+	 * @param maxEntries
+	 *            the maximum number of remembered translations
+	 * @return this instance for fluent use
+	 */
+	public PhoneNumberTranslatorBuilder enableCache(int maxEntries) {
+		this.cacheSize = maxEntries;
+		return this;
+	}
+
 }
@@ -1,13 +1,17 @@
 package fr.sii.ogham.sms.builder;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.exception.builder.BuildException;
 import fr.sii.ogham.sms.message.addressing.translator.AlphanumericCodeNumberFormatHandler;
-import fr.sii.ogham.sms.message.addressing.translator.CompositePhoneNumberTranslator;
-import fr.sii.ogham.sms.message.addressing.translator.DefaultHandler;
+import fr.sii.ogham.sms.message.addressing.translator.CachingPhoneNumberTranslator;
 import fr.sii.ogham.sms.message.addressing.translator.InternationalNumberFormatHandler;
+import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberFormat;
+import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberFormatTranslator;
 import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberTranslator;
 import fr.sii.ogham.sms.message.addressing.translator.ShortCodeNumberFormatHandler;
 
@@ -36,22 +40,30 @@ public class SenderPhoneNumberTranslatorBuilder implements PhoneNumberTranslator
 	 */
 	private boolean enableInternational;
 
+	/**
+	 * Maximum number of remembered translations (0 to disable cache)
+	 */
+	private int cacheSize;
+
 	@Override
 	public PhoneNumberTranslator build() throws BuildException {
-		CompositePhoneNumberTranslator translator = new CompositePhoneNumberTranslator();
+		List<PhoneNumberFormat> formats = new ArrayList<>();
 		if(enableAlphanum) {
 			LOG.debug("Enable phone number with alpha numeric code format");
-			translator.add(new AlphanumericCodeNumberFormatHandler());
+			formats.add(PhoneNumberFormat.ALPHANUMERIC);
 		}
 		if(enableShortCode) {
 			LOG.debug("Enable phone number with short code format (less than 5 digits)");
-			translator.add(new ShortCodeNumberFormatHandler());
+			formats.add(PhoneNumberFormat.SHORT_CODE);
 		}
 		if(enableInternational) {
 			LOG.debug("Enable international phone number format");
-			translator.add(new InternationalNumberFormatHandler());
+			formats.add(PhoneNumberFormat.INTERNATIONAL);
+		}
+		PhoneNumberTranslator translator = new PhoneNumberFormatTranslator(formats.toArray(new PhoneNumberFormat[formats.size()]));
+		if (cacheSize > 0) {
+			translator = new CachingPhoneNumberTranslator(translator, cacheSize);
 		}
-		translator.add(new DefaultHandler());
 		return translator;
 	}
 
@@ -77,4 +89,17 @@ public class SenderPhoneNumberTranslatorBuilder implements PhoneNumberTranslator
 		this.enableInternational = true;
 		return this;
 	}
+
+	/**
+	 * Remember the translations of the most recently used phone numbers (see
+	 * {@link CachingPhoneNumberTranslator}).
+	 * 
+	 * @param maxEntries
+	 *            the maximum number of remembered translations
+	 * @return this instance for fluent use
+	 */
+	public PhoneNumberTranslatorBuilder enableCache(int maxEntries) {
+		this.cacheSize = maxEntries;
+		return this;
+	}
 }
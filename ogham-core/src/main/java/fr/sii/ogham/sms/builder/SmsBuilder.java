@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 
 import fr.sii.ogham.core.builder.Builder;
 import fr.sii.ogham.core.builder.ContentTranslatorBuilder;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
 import fr.sii.ogham.core.builder.MessageFillerBuilder;
 import fr.sii.ogham.core.builder.MessagingSenderBuilder;
 import fr.sii.ogham.core.builder.TemplateBuilder;
@@ -20,6 +21,8 @@ import fr.sii.ogham.core.condition.RequiredPropertyCondition;
 import fr.sii.ogham.core.exception.builder.BuildException;
 import fr.sii.ogham.core.filler.MessageFiller;
 import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.sender.ConditionalSender;
 import fr.sii.ogham.core.sender.ContentTranslatorSender;
 import fr.sii.ogham.core.sender.FillerSender;
@@ -73,7 +76,7 @@ import fr.sii.ogham.template.TemplateConstants;
  * @see ContentTranslatorBuilder
  * @see MessageFillerBuilder
  */
-public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
+public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender>, InstrumentedBuilder<SmsBuilder> {
 	private static final Logger LOG = LoggerFactory.getLogger(SmsBuilder.class);
 
 	/**
@@ -123,6 +126,12 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	 */
 	private String templateSuffixKey;
 
+	/**
+	 * The recorder for the measures. If set, it is also provided to the
+	 * builders of the implementations and of the content translator
+	 */
+	private MetricsRecorder metricsRecorder;
+
 	public SmsBuilder() {
 		super();
 		smsSender = new SmsSender();
@@ -133,6 +142,7 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	@Override
 	public ConditionalSender build() throws BuildException {
 		for (Entry<Condition<Message>, Builder<? extends MessageSender>> impl : implementations.entrySet()) {
+			BuilderUtils.provideMetricsRecorder(impl.getValue(), metricsRecorder);
 			MessageSender s = impl.getValue().build();
 			LOG.debug("Implementation {} registered", s);
 			smsSender.addImplementation(impl.getKey(), s);
@@ -146,7 +156,8 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 				LOG.debug("Use custom property key {} for suffix template resolution", templateSuffixKey);
 				getTemplateBuilder().setSuffixKey(templateSuffixKey);
 			}
-			sender = new ContentTranslatorSender(contentTranslatorBuilder.build(), sender);
+			BuilderUtils.provideMetricsRecorder(contentTranslatorBuilder, metricsRecorder);
+			sender = new ContentTranslatorSender(contentTranslatorBuilder.build(), sender, getMetricsRecorder());
 		}
 		if (senderNumberTranslatorBuilder == null) {
 			LOG.debug("Using default phone number translation for sender phone number");
@@ -160,11 +171,28 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 		if (messageFillerBuilder != null) {
 			MessageFiller messageFiller = messageFillerBuilder.build();
 			LOG.debug("Automatic filling of message enabled {}", messageFiller);
-			sender = new FillerSender(messageFiller, sender);
+			sender = new FillerSender(messageFiller, sender, getMetricsRecorder());
 		}
 		return sender;
 	}
 
+	/**
+	 * Use the provided recorder for the measures of the sender. The recorder
+	 * is also provided to the builders of the registered implementations and
+	 * to the builder of the content translator when building. By default,
+	 * each builder uses its own recorder (nothing is recorded unless
+	 * configured).
+	 * 
+	 * @param recorder
+	 *            the recorder for the measures
+	 * @return this instance for fluent use
+	 */
+	@Override
+	public SmsBuilder withMetricsRecorder(MetricsRecorder recorder) {
+		metricsRecorder = recorder;
+		return this;
+	}
+
 	/**
 	 * Tells the builder to use all default behaviors and values:
 	 * <ul>
@@ -318,6 +346,9 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	 * <li>The property <code>ogham.sms.ovh.login</code> is set</li>
 	 * <li>The property <code>ogham.sms.ovh.password</code> is set</li>
 	 * </ul>
+	 * If the property <code>ogham.sms.ovh.batch.enable</code> is true, SMS
+	 * sharing the same sender and content are sent in a single request (see
+	 * {@link OvhBatchingSmsBuilder}).
 	 * 
 	 * @param properties
 	 *            the properties to use for checking if property exists
@@ -325,6 +356,14 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	 */
 	public SmsBuilder withOvhHttpApi(Properties properties) {
 		try {
+			// SMS sharing sender and content are sent in a single request if
+			// batching is enabled
+			Builder<? extends MessageSender> ovhBuilder;
+			if (Boolean.parseBoolean(properties.getProperty(SmsConstants.OvhConstants.BATCH_ENABLE_PROPERTY))) {
+				ovhBuilder = new OvhBatchingSmsBuilder().useDefaults(properties);
+			} else {
+				ovhBuilder = new OvhSmsBuilder().useDefaults(properties);
+			}
 			// Use OVH implementation only if SmsConstants.ACCOUNT_PROPERTY is
 			// set
 			// @formatter:off
@@ -332,7 +371,7 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 										new RequiredPropertyCondition<Message>(SmsConstants.OvhConstants.ACCOUNT_PROPERTY, properties),
 										new RequiredPropertyCondition<Message>(SmsConstants.OvhConstants.LOGIN_PROPERTY, properties),
 										new RequiredPropertyCondition<Message>(SmsConstants.OvhConstants.PASSWORD_PROPERTY, properties)),
-					new OvhSmsBuilder().useDefaults(properties));
+					ovhBuilder);
 			// @formatter:on
 		} catch (Exception e) {
 			LOG.debug("Can't register OVH implementation", e);
@@ -350,6 +389,9 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	 * <li>The class <code>com.cloudhopper.smpp.SmppClient</code> is available
 	 * in the classpath</li>
 	 * </ul>
+	 * If the property <code>ogham.sms.smpp.cloudhopper.smsc</code> is set,
+	 * messages are distributed over the listed SMSCs (see
+	 * {@link LoadBalancedSMPPBuilder}) instead.
 	 * The registration can silently fail if the ch-smpp jar is not in the
 	 * classpath. In this case, the Cloudhopper implementation is not registered
 	 * at all.
@@ -360,6 +402,17 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	 */
 	public SmsBuilder withCloudhopper(Properties properties) {
 		try {
+			// Several SMSCs: distribute messages using load balanced
+			// implementation
+			if (properties.getProperty(SmsConstants.SmppConstants.CloudhopperConstants.SMSC_PROPERTY) != null) {
+				// @formatter:off
+				registerImplementation(new AndCondition<>(
+											new RequiredPropertyCondition<Message>(SmsConstants.SmppConstants.CloudhopperConstants.SMSC_PROPERTY, properties),
+											new RequiredClassCondition<Message>("com.cloudhopper.smpp.SmppClient")),
+						new LoadBalancedSMPPBuilder().useDefaults(properties));
+				// @formatter:on
+				return this;
+			}
 			// Use Cloudhopper SMPP implementation only if SmppClient class is
 			// in the classpath and the SmppConstants.SMPP_HOST_PROPERTY
 			// property is set
@@ -714,4 +767,8 @@ public class SmsBuilder implements MessagingSenderBuilder<ConditionalSender> {
 	public PhoneNumberTranslatorBuilder getSenderNumberTranslatorBuilder() {
 		return senderNumberTranslatorBuilder;
 	}
+
+	private MetricsRecorder getMetricsRecorder() {
+		return metricsRecorder == null ? NoOpMetricsRecorder.INSTANCE : metricsRecorder;
+	}
 }
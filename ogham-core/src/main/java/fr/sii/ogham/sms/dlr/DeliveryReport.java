@@ -0,0 +1,90 @@
+package fr.sii.ogham.sms.dlr;
+
+import fr.sii.ogham.sms.message.PhoneNumber;
+import fr.sii.ogham.sms.message.Sms;
+
+/**
+ * Report of the delivery of a SMS to a recipient. The report is built from
+ * the delivery receipt sent back by the SMSC.
+ *
+ * <p>
+ * The original message and the recipient are only available if the receipt
+ * could be correlated with a submission made by the same sender. Submissions
+ * are kept for a bounded number of messages so a receipt that arrives very
+ * late may not be correlated.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class DeliveryReport {
+	/**
+	 * The identifier of the message provided by the SMSC
+	 */
+	private final String messageId;
+
+	/**
+	 * The state of the message
+	 */
+	private final DeliveryStatus status;
+
+	/**
+	 * The network specific error code (may be null)
+	 */
+	private final String errorCode;
+
+	/**
+	 * The original message (null if not correlated)
+	 */
+	private final Sms message;
+
+	/**
+	 * The phone number of the recipient (null if not correlated)
+	 */
+	private final PhoneNumber recipient;
+
+	public DeliveryReport(String messageId, DeliveryStatus status, String errorCode, Sms message, PhoneNumber recipient) {
+		super();
+		this.messageId = messageId;
+		this.status = status;
+		this.errorCode = errorCode;
+		this.message = message;
+		this.recipient = recipient;
+	}
+
+	public String getMessageId() {
+		return messageId;
+	}
+
+	public DeliveryStatus getStatus() {
+		return status;
+	}
+
+	public String getErrorCode() {
+		return errorCode;
+	}
+
+	public Sms getMessage() {
+		return message;
+	}
+
+	public PhoneNumber getRecipient() {
+		return recipient;
+	}
+
+	/**
+	 * Indicates if the receipt has been correlated with a submission.
+	 *
+	 * @return true if the original message is available
+	 */
+	public boolean isCorrelated() {
+		return message != null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("{messageId: ").append(messageId).append(", status: ").append(status).append(", errorCode: ").append(errorCode).append(", recipient: ").append(recipient).append("}");
+		return builder.toString();
+	}
+}
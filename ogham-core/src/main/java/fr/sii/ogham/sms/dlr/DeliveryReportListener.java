@@ -0,0 +1,25 @@
+package fr.sii.ogham.sms.dlr;
+
+/**
+ * Receives the delivery reports sent back by the SMSC for the SMS that were
+ * previously sent.
+ *
+ * <p>
+ * The listener is called from the thread that handles the SMPP session so
+ * implementations should return quickly and dispatch long processing to
+ * another thread.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public interface DeliveryReportListener {
+	/**
+	 * Called each time a delivery receipt is received. A long message that
+	 * has been split into several parts receives one report per part.
+	 *
+	 * @param report
+	 *            the report of the delivery
+	 */
+	void onDeliveryReport(DeliveryReport report);
+}
@@ -0,0 +1,110 @@
+package fr.sii.ogham.sms.dlr;
+
+/**
+ * The final (or intermediate) state of a SMS as reported by the SMSC in a
+ * delivery receipt. The states match the SMPP <code>message_state</code>
+ * values and the <code>stat</code> field of the receipt text.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public enum DeliveryStatus {
+	/**
+	 * The message is in enroute state
+	 */
+	ENROUTE(1, "ENROUTE"),
+
+	/**
+	 * The message has been delivered to the destination
+	 */
+	DELIVERED(2, "DELIVRD"),
+
+	/**
+	 * The validity period of the message has expired
+	 */
+	EXPIRED(3, "EXPIRED"),
+
+	/**
+	 * The message has been deleted
+	 */
+	DELETED(4, "DELETED"),
+
+	/**
+	 * The message is undeliverable
+	 */
+	UNDELIVERABLE(5, "UNDELIV"),
+
+	/**
+	 * The message has been manually read on behalf of the subscriber by
+	 * customer service
+	 */
+	ACCEPTED(6, "ACCEPTD"),
+
+	/**
+	 * The message is in invalid state
+	 */
+	UNKNOWN(7, "UNKNOWN"),
+
+	/**
+	 * The message has been rejected
+	 */
+	REJECTED(8, "REJECTD");
+
+	/**
+	 * The value of the SMPP <code>message_state</code> optional parameter
+	 */
+	private final int messageState;
+
+	/**
+	 * The value of the <code>stat</code> field in the receipt text
+	 */
+	private final String code;
+
+	private DeliveryStatus(int messageState, String code) {
+		this.messageState = messageState;
+		this.code = code;
+	}
+
+	public int getMessageState() {
+		return messageState;
+	}
+
+	public String getCode() {
+		return code;
+	}
+
+	/**
+	 * Get the status from the <code>stat</code> field of the receipt text.
+	 *
+	 * @param code
+	 *            the value of the <code>stat</code> field
+	 * @return the matching status or {@link #UNKNOWN} if the code is not
+	 *         recognized
+	 */
+	public static DeliveryStatus fromCode(String code) {
+		for (DeliveryStatus status : values()) {
+			if (status.code.equalsIgnoreCase(code)) {
+				return status;
+			}
+		}
+		return UNKNOWN;
+	}
+
+	/**
+	 * Get the status from the SMPP <code>message_state</code> value.
+	 *
+	 * @param messageState
+	 *            the value of the <code>message_state</code> optional
+	 *            parameter
+	 * @return the matching status or {@link #UNKNOWN} if the value is not
+	 *         recognized
+	 */
+	public static DeliveryStatus fromMessageState(int messageState) {
+		for (DeliveryStatus status : values()) {
+			if (status.messageState == messageState) {
+				return status;
+			}
+		}
+		return UNKNOWN;
+	}
+}
@@ -0,0 +1,77 @@
+package fr.sii.ogham.sms.encoding;
+
+import java.nio.charset.Charset;
+
+import fr.sii.ogham.core.charset.CharsetProvider;
+
+/**
+ * Provider that selects the cheapest charset for a SMS. If every character of
+ * the content is part of the GSM 03.38 alphabet (including the extension
+ * table), the charset associated to GSM 7-bit is provided. Otherwise, the
+ * charset associated to UCS-2 is provided.
+ * 
+ * <p>
+ * Java doesn't provide a GSM charset. The provided charsets are only used as
+ * keys to select the real encoder (for example Cloudhopper charsets). By
+ * default, UTF-8 stands for GSM 7-bit and UTF-16BE stands for UCS-2.
+ * </p>
+ * 
+ * @author Aurélien Baudet
+ * @see SegmentationUtils#isGsm7(CharSequence)
+ */
+public class AdaptiveSmsCharsetProvider implements CharsetProvider {
+	/**
+	 * The default charset used when content can be encoded using GSM 7-bit
+	 */
+	public static final String DEFAULT_GSM_CHARSET = "UTF-8";
+
+	/**
+	 * The default charset used when content requires UCS-2
+	 */
+	public static final String DEFAULT_UCS2_CHARSET = "UTF-16BE";
+
+	/**
+	 * The charset provided for GSM 7-bit compatible content
+	 */
+	private final Charset gsmCharset;
+
+	/**
+	 * The charset provided for other content
+	 */
+	private final Charset ucs2Charset;
+
+	/**
+	 * Initialize the provider with default charsets (UTF-8 for GSM 7-bit and
+	 * UTF-16BE for UCS-2)
+	 */
+	public AdaptiveSmsCharsetProvider() {
+		this(Charset.forName(DEFAULT_GSM_CHARSET), Charset.forName(DEFAULT_UCS2_CHARSET));
+	}
+
+	/**
+	 * Initialize the provider with the charsets to provide.
+	 * 
+	 * @param gsmCharset
+	 *            the charset provided for GSM 7-bit compatible content
+	 * @param ucs2Charset
+	 *            the charset provided for other content
+	 */
+	public AdaptiveSmsCharsetProvider(Charset gsmCharset, Charset ucs2Charset) {
+		super();
+		this.gsmCharset = gsmCharset;
+		this.ucs2Charset = ucs2Charset;
+	}
+
+	@Override
+	public Charset getCharset(String str) {
+		return SegmentationUtils.isGsm7(str) ? gsmCharset : ucs2Charset;
+	}
+
+	public Charset getGsmCharset() {
+		return gsmCharset;
+	}
+
+	public Charset getUcs2Charset() {
+		return ucs2Charset;
+	}
+}
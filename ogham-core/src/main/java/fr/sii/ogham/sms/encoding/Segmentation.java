@@ -0,0 +1,64 @@
+package fr.sii.ogham.sms.encoding;
+
+/**
+ * The result of the analysis of a SMS content: the encoding that is required
+ * to send it, its length expressed in units of that encoding (septets for
+ * GSM 7-bit, 16 bits units for UCS-2) and the number of SMS (segments) needed
+ * to send it.
+ * 
+ * @author Aurélien Baudet
+ * @see SegmentationUtils#analyze(CharSequence)
+ */
+public class Segmentation {
+	/**
+	 * The required encoding
+	 */
+	private final SmsEncoding encoding;
+
+	/**
+	 * The length in units of the encoding
+	 */
+	private final int length;
+
+	/**
+	 * The number of segments
+	 */
+	private final int segments;
+
+	public Segmentation(SmsEncoding encoding, int length) {
+		super();
+		this.encoding = encoding;
+		this.length = length;
+		if (length <= encoding.getSingleLimit()) {
+			segments = 1;
+		} else {
+			segments = (length + encoding.getSegmentLimit() - 1) / encoding.getSegmentLimit();
+		}
+	}
+
+	public SmsEncoding getEncoding() {
+		return encoding;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public int getSegments() {
+		return segments;
+	}
+
+	/**
+	 * @return true if the content has to be split into several SMS
+	 */
+	public boolean isMultipart() {
+		return segments > 1;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("Segmentation [encoding=").append(encoding).append(", length=").append(length).append(", segments=").append(segments).append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,192 @@
+package fr.sii.ogham.sms.encoding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Utility class to determine how a SMS content will be sent: whether it can
+ * be encoded using the GSM 03.38 default alphabet (7 bits per character) or
+ * whether UCS-2 is required, how many SMS are needed to send it and how the
+ * encoded content is split.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public final class SegmentationUtils {
+	/**
+	 * The characters of the GSM 03.38 basic character set (escape character
+	 * excluded)
+	 */
+	private static final String GSM_BASIC = "@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+			+ "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà";
+
+	/**
+	 * The characters of the GSM 03.38 extension table (encoded using escape
+	 * character followed by the character so they use two septets)
+	 */
+	private static final String GSM_EXTENSION = "\f^{}\\[~]|€";
+
+	/**
+	 * Upper bound (exclusive) of the characters indexed by the lookup table.
+	 * It covers Latin-1 and Greek characters. The only GSM character above is
+	 * '€'.
+	 */
+	private static final int TABLE_SIZE = 0x400;
+
+	/**
+	 * Number of septets for each character (0 if the character is not part of
+	 * the GSM alphabet)
+	 */
+	private static final byte[] SEPTETS = new byte[TABLE_SIZE];
+
+	/**
+	 * The euro sign is the only GSM character outside of the lookup table
+	 */
+	private static final char EURO = '€';
+
+	/**
+	 * The GSM escape character that introduces a character of the extension
+	 * table
+	 */
+	private static final byte GSM_ESCAPE = 0x1B;
+
+	static {
+		for (int i = 0; i < GSM_BASIC.length(); i++) {
+			SEPTETS[GSM_BASIC.charAt(i)] = 1;
+		}
+		for (int i = 0; i < GSM_EXTENSION.length(); i++) {
+			char c = GSM_EXTENSION.charAt(i);
+			if (c < TABLE_SIZE) {
+				SEPTETS[c] = 2;
+			}
+		}
+	}
+
+	/**
+	 * Get the number of septets needed to encode the character using GSM
+	 * 03.38 default alphabet.
+	 * 
+	 * @param c
+	 *            the character to encode
+	 * @return 1 for characters of the basic character set, 2 for characters
+	 *         of the extension table, 0 if the character can't be encoded
+	 */
+	public static int septets(char c) {
+		if (c < TABLE_SIZE) {
+			return SEPTETS[c];
+		}
+		return c == EURO ? 2 : 0;
+	}
+
+	/**
+	 * Indicates if the content can be encoded using GSM 03.38 default
+	 * alphabet.
+	 * 
+	 * @param content
+	 *            the content to check
+	 * @return true if every character has a GSM 7-bit representation
+	 */
+	public static boolean isGsm7(CharSequence content) {
+		for (int i = 0, l = content.length(); i < l; i++) {
+			if (septets(content.charAt(i)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Analyze the content in a single pass to determine the required
+	 * encoding, the length expressed in units of that encoding and the number
+	 * of SMS needed to send it. GSM 7-bit is used if possible, UCS-2
+	 * otherwise.
+	 * 
+	 * @param content
+	 *            the content of the SMS
+	 * @return the segmentation information
+	 */
+	public static Segmentation analyze(CharSequence content) {
+		int septets = 0;
+		int length = content.length();
+		for (int i = 0; i < length; i++) {
+			int s = septets(content.charAt(i));
+			if (s == 0) {
+				// UCS-2 counts UTF-16 units (surrogate pairs use two)
+				return new Segmentation(SmsEncoding.UCS_2, length);
+			}
+			septets += s;
+		}
+		return new Segmentation(SmsEncoding.GSM_7BIT, septets);
+	}
+
+	/**
+	 * <p>
+	 * Split the encoded content into the parts of a long SMS. If the content
+	 * fits in a single SMS, a single part containing the whole content is
+	 * returned. Otherwise, each part contains at most the number of units
+	 * allowed for a part of a long SMS (the User Data Header is not included).
+	 * </p>
+	 * <p>
+	 * A character is never split across two parts:
+	 * <ul>
+	 * <li>{@link SmsEncoding#GSM_7BIT}: the content must be unpacked (one
+	 * septet per byte). An escape character stays with the character of the
+	 * extension table that follows it</li>
+	 * <li>{@link SmsEncoding#UCS_2}: the content is big endian (two bytes per
+	 * unit). Surrogate pairs stay in the same part</li>
+	 * <li>{@link SmsEncoding#OCTET_8BIT}: one byte per character</li>
+	 * </ul>
+	 * 
+	 * @param encoded
+	 *            the encoded content
+	 * @param encoding
+	 *            the encoding used for the content
+	 * @return the parts
+	 */
+	public static List<byte[]> split(byte[] encoded, SmsEncoding encoding) {
+		int unitSize = encoding == SmsEncoding.UCS_2 ? 2 : 1;
+		if (encoded.length <= encoding.getSingleLimit() * unitSize) {
+			return Arrays.asList(encoded);
+		}
+		int limit = encoding.getSegmentLimit() * unitSize;
+		List<byte[]> parts = new ArrayList<>(encoded.length / limit + 1);
+		int start = 0;
+		while (start < encoded.length) {
+			int end = start;
+			while (end < encoded.length) {
+				int size = characterSize(encoded, end, encoding);
+				if (end + size - start > limit) {
+					break;
+				}
+				end += size;
+			}
+			parts.add(Arrays.copyOfRange(encoded, start, end));
+			start = end;
+		}
+		return parts;
+	}
+
+	/**
+	 * Get the number of bytes of the character that starts at the index.
+	 */
+	private static int characterSize(byte[] encoded, int index, SmsEncoding encoding) {
+		int remaining = encoded.length - index;
+		switch (encoding) {
+			case GSM_7BIT:
+				return encoded[index] == GSM_ESCAPE && remaining > 1 ? 2 : 1;
+			case UCS_2:
+				if (remaining < 2) {
+					return remaining;
+				}
+				char unit = (char) (((encoded[index] & 0xFF) << 8) | (encoded[index + 1] & 0xFF));
+				return Character.isHighSurrogate(unit) && remaining >= 4 ? 4 : 2;
+			default:
+				return 1;
+		}
+	}
+
+	private SegmentationUtils() {
+		super();
+	}
+}
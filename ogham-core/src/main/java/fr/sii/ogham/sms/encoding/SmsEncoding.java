@@ -0,0 +1,52 @@
+package fr.sii.ogham.sms.encoding;
+
+/**
+ * The encodings that can be used to send a SMS. The encoding determines how
+ * many characters fit in a single SMS and in each part of a long
+ * (concatenated) SMS. Parts of a long SMS are shorter because each part
+ * carries a User Data Header used to reassemble the message.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public enum SmsEncoding {
+	/**
+	 * GSM 03.38 default alphabet: 7 bits per character (some characters of
+	 * the extension table use two septets)
+	 */
+	GSM_7BIT(160, 153),
+
+	/**
+	 * UCS-2: 16 bits per character (characters outside of the Basic
+	 * Multilingual Plane use two units)
+	 */
+	UCS_2(70, 67),
+
+	/**
+	 * 8-bit data (Latin-1 for example): one byte per character
+	 */
+	OCTET_8BIT(140, 134);
+
+	/**
+	 * Maximum number of units for a SMS that is not split
+	 */
+	private final int singleLimit;
+
+	/**
+	 * Maximum number of units for each part of a long SMS
+	 */
+	private final int segmentLimit;
+
+	private SmsEncoding(int singleLimit, int segmentLimit) {
+		this.singleLimit = singleLimit;
+		this.segmentLimit = segmentLimit;
+	}
+
+	public int getSingleLimit() {
+		return singleLimit;
+	}
+
+	public int getSegmentLimit() {
+		return segmentLimit;
+	}
+}
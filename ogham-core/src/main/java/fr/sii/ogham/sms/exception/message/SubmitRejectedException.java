@@ -0,0 +1,30 @@
+package fr.sii.ogham.sms.exception.message;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.message.Message;
+
+/**
+ * The SMSC has answered a <code>submit_sm</code> with an error status. The
+ * status is available so that callers can distinguish temporary rejections
+ * (throttling, full queue) from definitive ones.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class SubmitRejectedException extends MessageException {
+	private static final long serialVersionUID = 1;
+
+	private final int commandStatus;
+
+	public SubmitRejectedException(String message, Message msg, int commandStatus) {
+		super(message, msg);
+		this.commandStatus = commandStatus;
+	}
+
+	/**
+	 * @return the command status of the <code>submit_sm_resp</code>
+	 */
+	public int getCommandStatus() {
+		return commandStatus;
+	}
+}
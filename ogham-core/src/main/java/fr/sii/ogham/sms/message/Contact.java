@@ -106,6 +106,13 @@ public class Contact {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("name", "phoneNumber").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		Contact other = (Contact) obj;
+		return new EqualsBuilder().append(name, other.name).append(phoneNumber, other.phoneNumber).isEqual();
 	}
 }
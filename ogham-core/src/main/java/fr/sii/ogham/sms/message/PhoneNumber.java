@@ -47,7 +47,14 @@ public class PhoneNumber {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("number").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		PhoneNumber other = (PhoneNumber) obj;
+		return new EqualsBuilder().append(number, other.number).isEqual();
 	}
 
 }
@@ -693,6 +693,13 @@ public class Sms implements Message, HasContentFluent<Sms>, HasRecipients<Recipi
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("from", "recipients", "content").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		Sms other = (Sms) obj;
+		return new EqualsBuilder().append(from, other.from).append(recipients, other.recipients).append(content, other.content).isEqual();
 	}
 }
@@ -61,7 +61,14 @@ public class AddressedPhoneNumber extends PhoneNumber {
 
 	@Override
 	public boolean equals(Object obj) {
-		return new EqualsBuilder(this, obj).appendFields("number", "ton", "npi").isEqual();
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		AddressedPhoneNumber other = (AddressedPhoneNumber) obj;
+		return new EqualsBuilder().append(getNumber(), other.getNumber()).append(ton, other.ton).append(npi, other.npi).isEqual();
 	}
 
 }
@@ -0,0 +1,75 @@
+package fr.sii.ogham.sms.message.addressing.translator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fr.sii.ogham.sms.exception.message.PhoneNumberTranslatorException;
+import fr.sii.ogham.sms.message.PhoneNumber;
+import fr.sii.ogham.sms.message.addressing.AddressedPhoneNumber;
+
+/**
+ * Decorator that remembers the translations of the most recently used phone
+ * numbers. This is useful when the same numbers are translated again and
+ * again (the sender of the messages for example) by a translator that is
+ * costly.
+ * 
+ * <p>
+ * At most <code>maxEntries</code> numbers are kept (least recently used ones
+ * are forgotten first). As {@link PhoneNumber} is mutable, a copy of the
+ * remembered translation is returned.
+ * </p>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class CachingPhoneNumberTranslator implements PhoneNumberTranslator {
+	/**
+	 * The translator that really translates the numbers
+	 */
+	private final PhoneNumberTranslator delegate;
+
+	/**
+	 * The translations indexed by number
+	 */
+	private final Map<String, AddressedPhoneNumber> cache;
+
+	/**
+	 * Initializes the translator.
+	 * 
+	 * @param delegate
+	 *            the translator that really translates the numbers
+	 * @param maxEntries
+	 *            the maximum number of remembered translations
+	 */
+	public CachingPhoneNumberTranslator(PhoneNumberTranslator delegate, final int maxEntries) {
+		super();
+		this.delegate = delegate;
+		this.cache = new LinkedHashMap<String, AddressedPhoneNumber>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, AddressedPhoneNumber> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	@Override
+	public AddressedPhoneNumber translate(PhoneNumber phoneNumber) throws PhoneNumberTranslatorException {
+		String number = phoneNumber.getNumber();
+		if (number == null) {
+			return delegate.translate(phoneNumber);
+		}
+		AddressedPhoneNumber translated;
+		synchronized (cache) {
+			translated = cache.get(number);
+		}
+		if (translated == null) {
+			translated = delegate.translate(phoneNumber);
+			synchronized (cache) {
+				cache.put(number, translated);
+			}
+		}
+		return new AddressedPhoneNumber(translated.getNumber(), translated.getTon(), translated.getNpi());
+	}
+}
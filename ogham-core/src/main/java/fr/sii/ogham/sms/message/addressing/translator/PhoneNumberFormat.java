@@ -0,0 +1,49 @@
+package fr.sii.ogham.sms.message.addressing.translator;
+
+import fr.sii.ogham.sms.message.addressing.NumberingPlanIndicator;
+import fr.sii.ogham.sms.message.addressing.TypeOfNumber;
+
+/**
+ * The phone number formats recognized by {@link PhoneNumberFormatTranslator}
+ * with the addressing policy (TON / NPI) associated to each format. The
+ * formats are the same as the ones handled by
+ * {@link AlphanumericCodeNumberFormatHandler},
+ * {@link ShortCodeNumberFormatHandler} and
+ * {@link InternationalNumberFormatHandler}.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public enum PhoneNumberFormat {
+	/**
+	 * The number contains other characters than digits (and an optional
+	 * leading "+"): TON is set to 5 and NPI to 0
+	 */
+	ALPHANUMERIC(TypeOfNumber.ALPHANUMERIC, NumberingPlanIndicator.UNKNOWN),
+
+	/**
+	 * The number has 5 characters or less: TON is set to 3 and NPI to 0
+	 */
+	SHORT_CODE(TypeOfNumber.NETWORK_SPECIFIC, NumberingPlanIndicator.UNKNOWN),
+
+	/**
+	 * The number starts with a "+": TON is set to 1 and NPI to 1
+	 */
+	INTERNATIONAL(TypeOfNumber.INTERNATIONAL, NumberingPlanIndicator.ISDN_TELEPHONE);
+
+	private final TypeOfNumber ton;
+	private final NumberingPlanIndicator npi;
+
+	private PhoneNumberFormat(TypeOfNumber ton, NumberingPlanIndicator npi) {
+		this.ton = ton;
+		this.npi = npi;
+	}
+
+	public TypeOfNumber getTon() {
+		return ton;
+	}
+
+	public NumberingPlanIndicator getNpi() {
+		return npi;
+	}
+}
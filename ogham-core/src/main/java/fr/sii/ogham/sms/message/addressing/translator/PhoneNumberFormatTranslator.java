@@ -0,0 +1,108 @@
+package fr.sii.ogham.sms.message.addressing.translator;
+
+import fr.sii.ogham.sms.exception.message.PhoneNumberTranslatorException;
+import fr.sii.ogham.sms.message.PhoneNumber;
+import fr.sii.ogham.sms.message.addressing.AddressedPhoneNumber;
+import fr.sii.ogham.sms.message.addressing.NumberingPlanIndicator;
+import fr.sii.ogham.sms.message.addressing.TypeOfNumber;
+
+/**
+ * Translator that gives the same result as a
+ * {@link CompositePhoneNumberTranslator} made of the handlers of the enabled
+ * {@link PhoneNumberFormat}s (in the same order) followed by a
+ * {@link DefaultHandler}.
+ * 
+ * <p>
+ * Instead of asking each handler in turn, the number is scanned only once to
+ * determine all the formats it matches. The result is then read from a
+ * decision table computed at construction: for each combination of matched
+ * formats, the table contains the addressing policy of the first enabled
+ * format. The resolution is linear in the length of the number and does not
+ * allocate anything but the result.
+ * </p>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class PhoneNumberFormatTranslator implements PhoneNumberTranslator {
+	private static final int SHORTCODE_LENGTH = 5;
+
+	private static final char INTERNATIONAL_PREFIX = '+';
+
+	/**
+	 * TON for each combination of matched formats (indexed by bit mask of
+	 * format ordinals)
+	 */
+	private final TypeOfNumber[] tons;
+
+	/**
+	 * NPI for each combination of matched formats (indexed by bit mask of
+	 * format ordinals)
+	 */
+	private final NumberingPlanIndicator[] npis;
+
+	/**
+	 * Initializes the translator with the formats to recognize.
+	 * 
+	 * @param formats
+	 *            the enabled formats ordered by priority
+	 */
+	public PhoneNumberFormatTranslator(PhoneNumberFormat... formats) {
+		super();
+		int size = 1 << PhoneNumberFormat.values().length;
+		tons = new TypeOfNumber[size];
+		npis = new NumberingPlanIndicator[size];
+		for (int mask = 0; mask < size; mask++) {
+			tons[mask] = TypeOfNumber.UNKNOWN;
+			npis[mask] = NumberingPlanIndicator.ISDN_TELEPHONE;
+			for (PhoneNumberFormat format : formats) {
+				if ((mask & bit(format)) != 0) {
+					tons[mask] = format.getTon();
+					npis[mask] = format.getNpi();
+					break;
+				}
+			}
+		}
+	}
+
+	@Override
+	public AddressedPhoneNumber translate(PhoneNumber phoneNumber) throws PhoneNumberTranslatorException {
+		String number = phoneNumber.getNumber();
+		int mask = number == null ? 0 : match(number);
+		return new AddressedPhoneNumber(number, tons[mask], npis[mask]);
+	}
+
+	/**
+	 * Scan the number once to find all the formats it matches.
+	 * 
+	 * @param number
+	 *            the number to analyze
+	 * @return the bit mask of matched formats
+	 */
+	private static int match(String number) {
+		int length = number.length();
+		int mask = 0;
+		boolean international = length > 0 && number.charAt(0) == INTERNATIONAL_PREFIX;
+		if (international) {
+			mask |= bit(PhoneNumberFormat.INTERNATIONAL);
+		}
+		if (length <= SHORTCODE_LENGTH) {
+			mask |= bit(PhoneNumberFormat.SHORT_CODE);
+		}
+		// numeric only: optional leading "+" followed by at least one digit
+		int start = international ? 1 : 0;
+		boolean numeric = length > start;
+		for (int i = start; numeric && i < length; i++) {
+			char c = number.charAt(i);
+			numeric = c >= '0' && c <= '9';
+		}
+		if (!numeric) {
+			mask |= bit(PhoneNumberFormat.ALPHANUMERIC);
+		}
+		return mask;
+	}
+
+	private static int bit(PhoneNumberFormat format) {
+		return 1 << format.ordinal();
+	}
+}
@@ -1,20 +1,20 @@
 package fr.sii.ogham.sms.sender.impl;
 
+import java.io.Closeable;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.cloudhopper.commons.gsm.GsmUtil;
 import com.cloudhopper.smpp.SmppConstants;
 import com.cloudhopper.smpp.SmppSession;
 import com.cloudhopper.smpp.SmppSessionConfiguration;
+import com.cloudhopper.smpp.SmppSessionHandler;
 import com.cloudhopper.smpp.impl.DefaultSmppClient;
 import com.cloudhopper.smpp.pdu.SubmitSm;
-import com.cloudhopper.smpp.type.Address;
+import com.cloudhopper.smpp.pdu.SubmitSmResp;
 import com.cloudhopper.smpp.type.RecoverablePduException;
 import com.cloudhopper.smpp.type.SmppChannelException;
 import com.cloudhopper.smpp.type.SmppInvalidArgumentException;
@@ -22,16 +22,22 @@ import com.cloudhopper.smpp.type.SmppTimeoutException;
 import com.cloudhopper.smpp.type.UnrecoverablePduException;
 
 import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.sender.AbstractSpecializedSender;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
 import fr.sii.ogham.sms.exception.message.EncodingException;
 import fr.sii.ogham.sms.exception.message.PhoneNumberTranslatorException;
-import fr.sii.ogham.sms.message.PhoneNumber;
+import fr.sii.ogham.sms.exception.message.SubmitRejectedException;
 import fr.sii.ogham.sms.message.Recipient;
 import fr.sii.ogham.sms.message.Sms;
-import fr.sii.ogham.sms.message.addressing.AddressedPhoneNumber;
 import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberTranslator;
 import fr.sii.ogham.sms.sender.impl.cloudhopper.CloudhopperCharsetHandler;
 import fr.sii.ogham.sms.sender.impl.cloudhopper.CloudhopperOptions;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.SubmitSmFactory;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.dlr.DeliveryReceiptHandler;
 
 
 /**
@@ -41,30 +47,41 @@ import fr.sii.ogham.sms.sender.impl.cloudhopper.CloudhopperOptions;
  * 
  * @author Aurélien Baudet
  */
-public class CloudhopperSMPPSender extends AbstractSpecializedSender<Sms> {
+public class CloudhopperSMPPSender extends AbstractSpecializedSender<Sms> implements Closeable, ConnectionStatusProvider {
 	private static final Logger LOG = LoggerFactory.getLogger(CloudhopperSMPPSender.class);
 
-	private static final int BODY_OFFSET = 6;
-
 	/** Configuration to bind an SmppSession as an ESME to an SMSC. */
 	private final SmppSessionConfiguration smppSessionConfiguration;
 
 	/** Additional options. */
 	private final CloudhopperOptions options;
 
-	/** Random seed to generate reference number in case of split messages. */
-	private final Random splitMessagesReferenceGenerator = new Random();
+	/**
+	 * Creates the SMPP submits (handles charset detection and fallback
+	 * addressing policy)
+	 */
+	private final SubmitSmFactory submitSmFactory;
+
+	/**
+	 * Handles delivery receipts. If set, the SMPP session is kept opened to
+	 * receive the receipts.
+	 */
+	private DeliveryReceiptHandler receiptHandler;
 
 	/**
-	 * This phone number translator will handle the fallback addressing policy
-	 * (TON / NPI).
+	 * The client used for the persistent session
 	 */
-	private PhoneNumberTranslator fallBackPhoneNumberTranslator;
+	private DefaultSmppClient persistentClient;
 
 	/**
-	 * Handle sms charset detection.
+	 * The session kept opened to receive delivery receipts
 	 */
-	private final CloudhopperCharsetHandler charsetHandler;
+	private volatile SmppSession persistentSession;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
 
 	/**
 	 * Initializes a CloudhopperSMPPSender with SMPP session configuration, some
@@ -78,10 +95,7 @@ public class CloudhopperSMPPSender extends AbstractSpecializedSender<Sms> {
 	 *            Handles charset detection for messages content
 	 */
 	public CloudhopperSMPPSender(SmppSessionConfiguration smppSessionConfiguration, CloudhopperOptions options, CloudhopperCharsetHandler charsetHandler) {
-		super();
-		this.smppSessionConfiguration = smppSessionConfiguration;
-		this.options = options;
-		this.charsetHandler = charsetHandler;
+		this(smppSessionConfiguration, options, charsetHandler, null);
 	}
 
 	/**
@@ -99,106 +113,181 @@ public class CloudhopperSMPPSender extends AbstractSpecializedSender<Sms> {
 	 *            Fallback phone translator to handle addressing policy
 	 */
 	public CloudhopperSMPPSender(SmppSessionConfiguration smppSessionConfiguration, CloudhopperOptions options, CloudhopperCharsetHandler charsetHandler, PhoneNumberTranslator phoneNumberTranslator) {
-		this(smppSessionConfiguration, options, charsetHandler);
+		this(smppSessionConfiguration, options, charsetHandler, phoneNumberTranslator, null);
+	}
 
-		this.fallBackPhoneNumberTranslator = phoneNumberTranslator;
+	/**
+	 * Initializes a CloudhopperSMPPSender that keeps its SMPP session opened
+	 * in order to receive delivery receipts. The receipts are processed by the
+	 * provided handler. The session must be bound as transceiver (or
+	 * receiver).
+	 * 
+	 * @param smppSessionConfiguration
+	 *            SMPP session configuration
+	 * @param options
+	 *            Dedicated CloudHopper options
+	 * @param charsetHandler
+	 *            Handler that is able to provide a charset for the provided
+	 *            message
+	 * @param phoneNumberTranslator
+	 *            Fallback phone translator to handle addressing policy
+	 * @param receiptHandler
+	 *            Handler that correlates delivery receipts with sent messages
+	 */
+	public CloudhopperSMPPSender(SmppSessionConfiguration smppSessionConfiguration, CloudhopperOptions options, CloudhopperCharsetHandler charsetHandler, PhoneNumberTranslator phoneNumberTranslator, DeliveryReceiptHandler receiptHandler) {
+		this(smppSessionConfiguration, options, charsetHandler, phoneNumberTranslator, receiptHandler, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initializes a CloudhopperSMPPSender that keeps its SMPP session opened
+	 * in order to receive delivery receipts. The receipts are processed by the
+	 * provided handler. The session must be bound as transceiver (or
+	 * receiver).
+	 * 
+	 * @param smppSessionConfiguration
+	 *            SMPP session configuration
+	 * @param options
+	 *            Dedicated CloudHopper options
+	 * @param charsetHandler
+	 *            Handler that is able to provide a charset for the provided
+	 *            message
+	 * @param phoneNumberTranslator
+	 *            Fallback phone translator to handle addressing policy
+	 * @param receiptHandler
+	 *            Handler that correlates delivery receipts with sent messages
+	 *            (may be null to close the session after each message)
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public CloudhopperSMPPSender(SmppSessionConfiguration smppSessionConfiguration, CloudhopperOptions options, CloudhopperCharsetHandler charsetHandler, PhoneNumberTranslator phoneNumberTranslator, DeliveryReceiptHandler receiptHandler, MetricsRecorder metrics) {
+		super();
+		this.smppSessionConfiguration = smppSessionConfiguration;
+		this.options = options;
+		this.submitSmFactory = new SubmitSmFactory(charsetHandler, phoneNumberTranslator);
+		this.receiptHandler = receiptHandler;
+		this.metrics = metrics;
 	}
 
 	@Override
 	public void send(Sms message) throws MessageException {
-		DefaultSmppClient client = new DefaultSmppClient();
+		long start = metrics.startTimer();
+		boolean persistent = receiptHandler != null;
+		DefaultSmppClient client = persistent ? null : new DefaultSmppClient();
 		SmppSession session = null;
 		try {
-			LOG.debug("Creating a new SMPP session...");
-			session = client.bind(smppSessionConfiguration);
-			LOG.info("SMPP session bounded");
-			for (SubmitSm msg : createMessages(message)) {
-				session.submit(msg, options.getResponseTimeout());
+			session = persistent ? getPersistentSession() : bind(client, null);
+			List<Recipient> targets = new ArrayList<>();
+			List<SubmitSm> submits = submitSmFactory.createMessages(message, targets);
+			metrics.record(MetricNames.CLOUDHOPPER_SUBMITS, submits.size());
+			for (int i = 0; i < submits.size(); i++) {
+				SubmitSmResp response = session.submit(submits.get(i), options.getResponseTimeout());
+				int status = response.getCommandStatus();
+				if (status != SmppConstants.STATUS_OK) {
+					metrics.increment(status == SmppConstants.STATUS_THROTTLED ? MetricNames.CLOUDHOPPER_THROTTLED : MetricNames.errors(MetricNames.CLOUDHOPPER_SEND));
+					throw new SubmitRejectedException("SMSC rejected submit (status=" + status + "): " + response.getResultMessage(), message, status);
+				}
+				if (persistent) {
+					receiptHandler.register(response.getMessageId(), message, targets.get(i).getPhoneNumber());
+				}
 			}
 		} catch (SmppInvalidArgumentException | PhoneNumberTranslatorException | EncodingException e) {
+			metrics.increment(MetricNames.errors(MetricNames.CLOUDHOPPER_SEND));
 			throw new MessageException("Failed to create SMPP message", message, e);
 		} catch (SmppTimeoutException | SmppChannelException | UnrecoverablePduException | InterruptedException | RecoverablePduException e) {
+			metrics.increment(MetricNames.errors(MetricNames.CLOUDHOPPER_SEND));
+			if (persistent && session != null && (e instanceof SmppChannelException || e instanceof UnrecoverablePduException)) {
+				// the session may be broken: bind a new one for next message
+				invalidate(session);
+			}
 			throw new MessageException("Failed to initialize SMPP session", message, e);
 		} finally {
-			if (session != null) {
-				session.unbind(options.getUnbindTimeout());
-				session.close();
-				session.destroy();
+			metrics.stopTimer(MetricNames.CLOUDHOPPER_SEND, start);
+			if (!persistent) {
+				if (session != null) {
+					destroy(session);
+				}
+				client.destroy();
 			}
-			client.destroy();
 		}
 	}
 
-	private List<SubmitSm> createMessages(Sms message) throws SmppInvalidArgumentException, PhoneNumberTranslatorException, EncodingException {
-		List<SubmitSm> messages = new ArrayList<>();
-		for (Recipient recipient : message.getRecipients()) {
-			messages.addAll(createMessages(message, recipient));
+	/**
+	 * Unbinds and destroys the persistent session (if any). A new session is
+	 * bound if a message is sent later.
+	 */
+	@Override
+	public synchronized void close() {
+		if (persistentSession != null) {
+			LOG.info("Closing persistent SMPP session");
+			destroy(persistentSession);
+			persistentSession = null;
+		}
+		if (persistentClient != null) {
+			persistentClient.destroy();
+			persistentClient = null;
 		}
-		return messages;
 	}
 
-	private List<SubmitSm> createMessages(Sms message, Recipient recipient) throws SmppInvalidArgumentException, PhoneNumberTranslatorException, EncodingException {
-		List<SubmitSm> messages = new ArrayList<>();
-		byte[] textBytes = charsetHandler.encode(message.getContent().toString());
-
-		// generate new reference number
-		byte[] referenceNumber = new byte[1];
-		splitMessagesReferenceGenerator.nextBytes(referenceNumber);
-
-		// split message when too long
-		byte[][] msgs = GsmUtil.createConcatenatedBinaryShortMessages(textBytes, referenceNumber[0]);
-		if (msgs == null) {
-			SubmitSm submit = createMessage(message, recipient, textBytes);
-			LOG.debug("SubmitSm generated with content '{}'", new String(textBytes));
-			messages.add(submit);
-		} else {
-			LOG.debug("Content split into {} parts", msgs.length);
-			for (int i = 0; i < msgs.length; i++) {
-				SubmitSm submit = createMessage(message, recipient, msgs[i]);
-				LOG.debug("SubmitSm generated with content '{}'", new String(Arrays.copyOfRange(msgs[i], BODY_OFFSET, msgs[i].length)));
-				submit.setEsmClass(SmppConstants.ESM_CLASS_UDHI_MASK);
-				messages.add(submit);
-			}
+	/**
+	 * Only the persistent session (kept opened to receive delivery receipts)
+	 * is reported. Other sessions are opened only while sending a message.
+	 */
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		if (receiptHandler == null) {
+			return Collections.emptyList();
 		}
-		return messages;
+		SmppSession session = persistentSession;
+		boolean bound = session != null && session.isBound();
+		int pending = bound ? session.getSendWindow().getSize() : 0;
+		String name = smppSessionConfiguration.getHost() + ":" + smppSessionConfiguration.getPort();
+		return Collections.singletonList(new ConnectionStatus(name, bound ? 1 : 0, 1, pending, smppSessionConfiguration.getWindowSize(), session == null || bound));
 	}
 
-	private SubmitSm createMessage(Sms message, Recipient recipient, byte[] content) throws SmppInvalidArgumentException, PhoneNumberTranslatorException {
-		SubmitSm submit = new SubmitSm();
-		submit.setSourceAddress(toAddress(message.getFrom().getPhoneNumber()));
-		submit.setDestAddress(toAddress(recipient.getPhoneNumber()));
-
-		// TODO: should be configurable ?
-		submit.setRegisteredDelivery(SmppConstants.REGISTERED_DELIVERY_SMSC_RECEIPT_REQUESTED);
-		submit.setShortMessage(content);
-		return submit;
+	private synchronized SmppSession getPersistentSession() throws SmppTimeoutException, SmppChannelException, UnrecoverablePduException, InterruptedException {
+		if (persistentSession != null && persistentSession.isBound()) {
+			return persistentSession;
+		}
+		if (persistentSession != null) {
+			destroy(persistentSession);
+			persistentSession = null;
+		}
+		if (persistentClient == null) {
+			persistentClient = new DefaultSmppClient();
+		}
+		persistentSession = bind(persistentClient, receiptHandler);
+		return persistentSession;
 	}
 
 	/**
-	 * Transforms a {@link PhoneNumber} in a {@link Address} type.
+	 * Destroys the persistent session that failed. Other threads may be using
+	 * the same session or may have already replaced it: the session is only
+	 * destroyed if it is still the current one and the client is kept to
+	 * bind the next session.
 	 * 
-	 * @param phoneNumber
-	 *            The given phone number
-	 * @return corresponding address with number, TON and NPI
-	 * @throws PhoneNumberTranslatorException
-	 *             If an error occurs during fallback phone number translation
+	 * @param session
+	 *            the session that failed
 	 */
-	private Address toAddress(PhoneNumber phoneNumber) throws PhoneNumberTranslatorException {
-		Address address = null;
-		AddressedPhoneNumber addressedPhoneNumber = null;
-
-		if (phoneNumber instanceof AddressedPhoneNumber) {
-			addressedPhoneNumber = (AddressedPhoneNumber) phoneNumber;
-		} else if (fallBackPhoneNumberTranslator != null) {
-			LOG.warn("Fallback addressing policy used for PhoneNumber '{}'. You might decorate your sender with a PhoneNumberTranslatorSender.", phoneNumber);
-			addressedPhoneNumber = fallBackPhoneNumberTranslator.translate(phoneNumber);
-
-		} else {
-			throw new IllegalStateException("Must provide addressing policy with the phone number or with a fallback phone number translator.");
+	private synchronized void invalidate(SmppSession session) {
+		if (session != persistentSession) {
+			return;
 		}
-		LOG.debug("Addressing policy applied on {} ", addressedPhoneNumber);
-		address = new Address(addressedPhoneNumber.getTon().value(), addressedPhoneNumber.getNpi().value(), addressedPhoneNumber.getNumber());
-		return address;
+		LOG.info("Persistent SMPP session failed, a new one will be bound for next message");
+		persistentSession = null;
+		destroy(session);
+	}
+
+	private SmppSession bind(DefaultSmppClient client, SmppSessionHandler handler) throws SmppTimeoutException, SmppChannelException, UnrecoverablePduException, InterruptedException {
+		LOG.debug("Creating a new SMPP session...");
+		SmppSession session = client.bind(smppSessionConfiguration, handler);
+		LOG.info("SMPP session bounded");
+		return session;
+	}
+
+	private void destroy(SmppSession session) {
+		session.unbind(options.getUnbindTimeout());
+		session.close();
+		session.destroy();
 	}
 
 	@Override
@@ -0,0 +1,309 @@
+package fr.sii.ogham.sms.sender.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cloudhopper.smpp.SmppConstants;
+import com.cloudhopper.smpp.SmppSession;
+import com.cloudhopper.smpp.SmppSessionHandler;
+import com.cloudhopper.smpp.impl.DefaultSmppClient;
+import com.cloudhopper.smpp.impl.DefaultSmppSessionHandler;
+import com.cloudhopper.smpp.pdu.SubmitSm;
+import com.cloudhopper.smpp.pdu.SubmitSmResp;
+import com.cloudhopper.smpp.type.RecoverablePduException;
+import com.cloudhopper.smpp.type.SmppChannelException;
+import com.cloudhopper.smpp.type.SmppInvalidArgumentException;
+import com.cloudhopper.smpp.type.SmppTimeoutException;
+import com.cloudhopper.smpp.type.UnrecoverablePduException;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.sender.AbstractSpecializedSender;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.sms.exception.message.EncodingException;
+import fr.sii.ogham.sms.exception.message.PhoneNumberTranslatorException;
+import fr.sii.ogham.sms.exception.message.SubmitRejectedException;
+import fr.sii.ogham.sms.message.Recipient;
+import fr.sii.ogham.sms.message.Sms;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.CloudhopperOptions;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.SubmitSmFactory;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.LoadBalancingStrategy;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.SmscNode;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.dlr.DeliveryReceiptHandler;
+
+/**
+ * Implementation based on <a
+ * href="https://github.com/twitter/cloudhopper-smpp">cloudhopper-smpp</a>
+ * library that distributes the messages over several SMSCs.
+ *
+ * <p>
+ * Each SMSC is represented by a {@link SmscNode} that keeps a pool of bound
+ * sessions. For each recipient, a SMSC is selected by the
+ * {@link LoadBalancingStrategy} and all the parts of the message are
+ * submitted to it. If the SMSC is throttling (or if its session is broken),
+ * it is paused and the whole message is submitted again to another SMSC (with
+ * a new concatenation reference number) so that the parts of a message never
+ * go through different SMSCs. Paused SMSCs are only used if no other SMSC is
+ * available. If the SMSC rejects the message for another reason, the sending
+ * fails.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ */
+public class LoadBalancedSMPPSender extends AbstractSpecializedSender<Sms> implements Closeable, ConnectionStatusProvider {
+	private static final Logger LOG = LoggerFactory.getLogger(LoadBalancedSMPPSender.class);
+
+	/** The SMSCs that can be used */
+	private final List<SmscNode> nodes;
+
+	/** Selects the SMSC for each recipient */
+	private final LoadBalancingStrategy strategy;
+
+	/** Additional options. */
+	private final CloudhopperOptions options;
+
+	/** Creates the SMPP submits */
+	private final SubmitSmFactory submitSmFactory;
+
+	/**
+	 * Handles delivery receipts (may be null)
+	 */
+	private final DeliveryReceiptHandler receiptHandler;
+
+	/**
+	 * Handler for the requests sent by the SMSCs
+	 */
+	private final SmppSessionHandler sessionHandler;
+
+	/**
+	 * The client used to bind all the sessions
+	 */
+	private final DefaultSmppClient client;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	/**
+	 * Initializes the sender.
+	 *
+	 * @param nodes
+	 *            the SMSCs that can be used
+	 * @param strategy
+	 *            selects the SMSC for each recipient
+	 * @param options
+	 *            Dedicated CloudHopper options
+	 * @param submitSmFactory
+	 *            creates the SMPP submits
+	 * @param receiptHandler
+	 *            handler that correlates delivery receipts with sent messages
+	 *            (may be null)
+	 */
+	public LoadBalancedSMPPSender(List<SmscNode> nodes, LoadBalancingStrategy strategy, CloudhopperOptions options, SubmitSmFactory submitSmFactory, DeliveryReceiptHandler receiptHandler) {
+		this(nodes, strategy, options, submitSmFactory, receiptHandler, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initializes the sender.
+	 *
+	 * @param nodes
+	 *            the SMSCs that can be used
+	 * @param strategy
+	 *            selects the SMSC for each recipient
+	 * @param options
+	 *            Dedicated CloudHopper options
+	 * @param submitSmFactory
+	 *            creates the SMPP submits
+	 * @param receiptHandler
+	 *            handler that correlates delivery receipts with sent messages
+	 *            (may be null)
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public LoadBalancedSMPPSender(List<SmscNode> nodes, LoadBalancingStrategy strategy, CloudhopperOptions options, SubmitSmFactory submitSmFactory, DeliveryReceiptHandler receiptHandler, MetricsRecorder metrics) {
+		super();
+		if (nodes.isEmpty()) {
+			throw new IllegalArgumentException("At least one SMSC is required");
+		}
+		this.nodes = nodes;
+		this.strategy = strategy;
+		this.options = options;
+		this.submitSmFactory = submitSmFactory;
+		this.receiptHandler = receiptHandler;
+		this.sessionHandler = receiptHandler == null ? new DefaultSmppSessionHandler() : receiptHandler;
+		this.client = new DefaultSmppClient();
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void send(Sms message) throws MessageException {
+		long start = metrics.startTimer();
+		try {
+			List<Recipient> targets = new ArrayList<>();
+			List<SubmitSm> submits = submitSmFactory.createMessages(message, targets);
+			metrics.record(MetricNames.CLOUDHOPPER_SUBMITS, submits.size());
+			// submits of the same recipient are consecutive
+			int from = 0;
+			while (from < submits.size()) {
+				int to = from + 1;
+				while (to < submits.size() && targets.get(to) == targets.get(from)) {
+					to++;
+				}
+				send(message, targets.get(from), submits.subList(from, to));
+				from = to;
+			}
+		} catch (SmppInvalidArgumentException | PhoneNumberTranslatorException | EncodingException e) {
+			metrics.increment(MetricNames.errors(MetricNames.CLOUDHOPPER_SEND));
+			throw new MessageException("Failed to create SMPP message", message, e);
+		} catch (MessageException e) {
+			metrics.increment(MetricNames.errors(MetricNames.CLOUDHOPPER_SEND));
+			throw e;
+		} finally {
+			metrics.stopTimer(MetricNames.CLOUDHOPPER_SEND, start);
+		}
+	}
+
+	/**
+	 * Unbinds and destroys the sessions of all SMSCs.
+	 */
+	@Override
+	public void close() {
+		for (SmscNode node : nodes) {
+			node.close(options.getUnbindTimeout());
+		}
+		client.destroy();
+	}
+
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		long now = System.currentTimeMillis();
+		List<ConnectionStatus> statuses = new ArrayList<>(nodes.size());
+		for (SmscNode node : nodes) {
+			statuses.add(new ConnectionStatus(node.getName(), node.getBoundSessions(), node.getMaxSessions(), node.getOutstanding(), node.getMaxSessions() * node.getWindowSize(), node.isAvailable(now)));
+		}
+		return statuses;
+	}
+
+	private void send(Sms message, Recipient recipient, List<SubmitSm> parts) throws MessageException, SmppInvalidArgumentException {
+		List<SmscNode> tried = new ArrayList<>(nodes.size());
+		Exception lastError = null;
+		List<SubmitSm> attempt = parts;
+		while (true) {
+			SmscNode node = select(tried);
+			if (node == null) {
+				throw new MessageException("No SMSC could accept the message", message, lastError);
+			}
+			if (!tried.isEmpty()) {
+				// the previous SMSC may have accepted some parts: the whole
+				// message is sent again so that all parts go through the same
+				// SMSC (with a new reference number)
+				attempt = submitSmFactory.copyForRetry(parts);
+			}
+			tried.add(node);
+			try {
+				if (submit(node, message, recipient, attempt)) {
+					return;
+				}
+			} catch (SmppTimeoutException | SmppChannelException | UnrecoverablePduException | RecoverablePduException e) {
+				LOG.warn("Failed to submit message to SMSC " + node.getName() + ". Trying another one", e);
+				lastError = e;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessageException("Interrupted while sending message", message, e);
+			}
+		}
+	}
+
+	/**
+	 * Submit all the parts to the SMSC. The delivery receipts are registered
+	 * only once all parts are accepted.
+	 *
+	 * @return true if all parts are accepted, false if the SMSC is throttling
+	 * @throws MessageException
+	 *             when the SMSC rejects a part
+	 */
+	private boolean submit(SmscNode node, Sms message, Recipient recipient, List<SubmitSm> parts)
+			throws SmppTimeoutException, SmppChannelException, UnrecoverablePduException, RecoverablePduException, InterruptedException, MessageException {
+		SmppSession session;
+		try {
+			session = node.getSession(client, sessionHandler);
+		} catch (SmppTimeoutException | SmppChannelException | UnrecoverablePduException e) {
+			node.pause();
+			throw e;
+		}
+		List<String> messageIds = new ArrayList<>(parts.size());
+		for (SubmitSm part : parts) {
+			long start = node.started();
+			SubmitSmResp response;
+			try {
+				response = session.submit(part, options.getResponseTimeout());
+			} catch (SmppTimeoutException | SmppChannelException | UnrecoverablePduException e) {
+				node.failed();
+				node.invalidate(session);
+				node.pause();
+				throw e;
+			} catch (RecoverablePduException | InterruptedException e) {
+				node.failed();
+				throw e;
+			}
+			int status = response.getCommandStatus();
+			if (status == SmppConstants.STATUS_THROTTLED || status == SmppConstants.STATUS_MSGQFUL) {
+				LOG.info("SMSC {} is throttling ({}). Trying another one", node.getName(), response.getResultMessage());
+				metrics.increment(MetricNames.CLOUDHOPPER_THROTTLED);
+				node.failed();
+				node.pause();
+				return false;
+			}
+			node.succeeded(start);
+			if (status != SmppConstants.STATUS_OK) {
+				throw new SubmitRejectedException("SMSC " + node.getName() + " rejected submit (status=" + status + "): " + response.getResultMessage(), message, status);
+			}
+			messageIds.add(response.getMessageId());
+		}
+		if (receiptHandler != null) {
+			for (String messageId : messageIds) {
+				receiptHandler.register(messageId, message, recipient.getPhoneNumber());
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Select a SMSC that has not been tried yet. Available SMSCs are preferred
+	 * over paused ones.
+	 */
+	private SmscNode select(List<SmscNode> tried) {
+		long now = System.currentTimeMillis();
+		List<SmscNode> available = new ArrayList<>(nodes.size());
+		List<SmscNode> paused = new ArrayList<>(nodes.size());
+		for (SmscNode node : nodes) {
+			if (!tried.contains(node)) {
+				if (node.isAvailable(now)) {
+					available.add(node);
+				} else {
+					paused.add(node);
+				}
+			}
+		}
+		if (!available.isEmpty()) {
+			return strategy.select(available);
+		}
+		if (!paused.isEmpty()) {
+			return strategy.select(paused);
+		}
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "LoadBalancedSMPPSender " + nodes;
+	}
+}
@@ -0,0 +1,299 @@
+package fr.sii.ogham.sms.sender.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.util.PhoneNumberException;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.sender.AbstractSpecializedSender;
+import fr.sii.ogham.core.sender.AsyncSender;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.util.concurrent.AllCompletedCallback;
+import fr.sii.ogham.core.util.concurrent.Batcher;
+import fr.sii.ogham.core.util.concurrent.Batcher.BatchHandler;
+import fr.sii.ogham.core.util.concurrent.Batcher.Entry;
+import fr.sii.ogham.sms.message.Recipient;
+import fr.sii.ogham.sms.message.Sms;
+
+/**
+ * <p>
+ * Sender that coalesces SMS sharing the same sender and the same content into
+ * a single OVH request. OVH accepts several recipients for one message so a
+ * campaign of many {@link Sms} with identical content only needs a few HTTP
+ * calls.
+ * </p>
+ * <p>
+ * An SMS is sent immediately if no request with the same sender and content
+ * is running. Otherwise, it is grouped with the other SMS received meanwhile
+ * and the group is sent when the running request is done, when the group
+ * reaches the maximum number of recipients or when the maximum linger time
+ * has elapsed (see {@link Batcher}). A caller that sends SMS one after the
+ * other is therefore never delayed while concurrent callers (several threads
+ * or {@link #sendAsync(Sms)}) benefit from grouping.
+ * </p>
+ * <p>
+ * An SMS that has more recipients than the maximum is split into several
+ * requests. Each original message still gets its own result:
+ * {@link #sendAsync(Sms)} returns a dedicated future that completes when all
+ * the requests containing the message are done. {@link #send(Sms)} blocks
+ * until then.
+ * </p>
+ * <p>
+ * As all messages of a batch are sent in a single request, they either all
+ * succeed or all fail. Phone numbers are checked before a message joins a
+ * batch so that an invalid number can't make other messages fail.
+ * </p>
+ * <p>
+ * The number of SMS waiting in the batches is reported as the pending
+ * requests of the <code>ovh-batch</code> {@link ConnectionStatus}.
+ * </p>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class OvhBatchingSmsSender extends AbstractSpecializedSender<Sms> implements AsyncSender<Sms>, ConnectionStatusProvider, Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(OvhBatchingSmsSender.class);
+
+	/**
+	 * The name of the reported {@link ConnectionStatus}
+	 */
+	public static final String STATUS_NAME = "ovh-batch";
+
+	/**
+	 * The sender that really calls OVH
+	 */
+	private final OvhSmsSender delegate;
+
+	/**
+	 * The maximum number of recipients for a single request
+	 */
+	private final int maxRecipients;
+
+	/**
+	 * Groups the SMS that share the same sender and content
+	 */
+	private final Batcher<BatchKey, Part> batcher;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	/**
+	 * Initialize the sender.
+	 * 
+	 * @param delegate
+	 *            the sender that really calls OVH
+	 * @param maxRecipients
+	 *            the maximum number of recipients for a single request
+	 * @param maxLinger
+	 *            the maximum time a message waits for other messages
+	 * @param unit
+	 *            the unit of the maximum linger time
+	 * @param executor
+	 *            the executor used to trigger and send batches
+	 */
+	public OvhBatchingSmsSender(OvhSmsSender delegate, int maxRecipients, long maxLinger, TimeUnit unit, ScheduledExecutorService executor) {
+		this(delegate, maxRecipients, maxLinger, unit, executor, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initialize the sender.
+	 * 
+	 * @param delegate
+	 *            the sender that really calls OVH
+	 * @param maxRecipients
+	 *            the maximum number of recipients for a single request
+	 * @param maxLinger
+	 *            the maximum time a message waits for other messages
+	 * @param unit
+	 *            the unit of the maximum linger time
+	 * @param executor
+	 *            the executor used to trigger and send batches
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public OvhBatchingSmsSender(OvhSmsSender delegate, int maxRecipients, long maxLinger, TimeUnit unit, ScheduledExecutorService executor, MetricsRecorder metrics) {
+		super();
+		if (delegate == null) {
+			throw new IllegalArgumentException("[delegate] cannot be null");
+		}
+		if (maxRecipients < 1) {
+			throw new IllegalArgumentException("[maxRecipients] must be positive");
+		}
+		this.delegate = delegate;
+		this.maxRecipients = maxRecipients;
+		this.batcher = new Batcher<>(new BatchHandler<Part>() {
+			@Override
+			public void handle(List<Entry<Part>> entries) {
+				sendBatch(entries);
+			}
+		}, maxRecipients, maxLinger, unit, executor);
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void send(Sms message) throws MessageException {
+		try {
+			sendAsync(message).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageException("Interrupted while waiting for SMS to be sent through OVH", message, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MessageException) {
+				throw (MessageException) e.getCause();
+			}
+			throw new MessageException("Failed to send SMS through OVH", message, e.getCause());
+		}
+	}
+
+	@Override
+	public Future<Void> sendAsync(Sms message) throws MessageException {
+		if (message == null) {
+			throw new IllegalArgumentException("[message] cannot be null");
+		}
+		BatchKey key = checkAndGetKey(message);
+		List<Recipient> recipients = message.getRecipients();
+		try {
+			if (recipients.size() <= maxRecipients) {
+				return batcher.submit(key, new Part(message, recipients), recipients.size(), null);
+			}
+			// too many recipients for a single request
+			int parts = (recipients.size() + maxRecipients - 1) / maxRecipients;
+			LOG.debug("SMS has {} recipients, split into {} requests", recipients.size(), parts);
+			AllCompletedCallback callback = new AllCompletedCallback(parts);
+			for (int from = 0; from < recipients.size(); from += maxRecipients) {
+				List<Recipient> chunk = new ArrayList<>(recipients.subList(from, Math.min(from + maxRecipients, recipients.size())));
+				batcher.submit(key, new Part(message, chunk), chunk.size(), callback);
+			}
+			return callback.getResult();
+		} catch (IllegalStateException e) {
+			throw new MessageException("Failed to send SMS through OVH (sender is closed)", message, e);
+		}
+	}
+
+	/**
+	 * Get the number of SMS (or parts of SMS) that are waiting for other SMS
+	 * or being sent.
+	 * 
+	 * @return the number of pending SMS
+	 */
+	public int getPendingMessages() {
+		return batcher.getPendingEntries();
+	}
+
+	/**
+	 * No connection is kept opened to OVH. The status only reports the SMS
+	 * (or parts of SMS) that are waiting for other SMS or being sent.
+	 */
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return Collections.singletonList(new ConnectionStatus(STATUS_NAME, 0, 0, getPendingMessages(), 0, true));
+	}
+
+	/**
+	 * Sends all pending batches and stops accepting new ones. Already
+	 * dispatched batches are still sent.
+	 */
+	@Override
+	public void close() {
+		batcher.close();
+	}
+
+	/**
+	 * Check that phone numbers are valid for OVH before the message joins a
+	 * batch and generate the key used to group messages.
+	 * 
+	 * @param message
+	 *            the message to check
+	 * @return the key of the batch the message belongs to
+	 * @throws MessageException
+	 *             when a phone number is invalid
+	 */
+	private static BatchKey checkAndGetKey(Sms message) throws MessageException {
+		try {
+			String from = OvhSmsSender.toInternational(message.getFrom().getPhoneNumber());
+			for (Recipient recipient : message.getRecipients()) {
+				OvhSmsSender.toInternational(recipient.getPhoneNumber());
+			}
+			return new BatchKey(from, message.getContent().toString());
+		} catch (PhoneNumberException e) {
+			throw new MessageException("Failed to send SMS through OVH (invalid phone number)", message, e);
+		}
+	}
+
+	private void sendBatch(List<Entry<Part>> entries) {
+		Sms first = entries.get(0).getValue().message;
+		List<Recipient> recipients = new ArrayList<>();
+		for (Entry<Part> entry : entries) {
+			recipients.addAll(entry.getValue().recipients);
+		}
+		metrics.record(MetricNames.OVH_BATCH_SIZE, entries.size());
+		LOG.debug("Sending {} SMS to {} recipients in a single OVH request", entries.size(), recipients.size());
+		try {
+			delegate.send(new Sms(first.getContent(), first.getFrom(), recipients));
+			for (Entry<Part> entry : entries) {
+				entry.completed();
+			}
+		} catch (MessageException | RuntimeException e) {
+			for (Entry<Part> entry : entries) {
+				entry.failed(new MessageException("Failed to send SMS through OVH (sent in a request of " + entries.size() + " messages)", entry.getValue().message, e));
+			}
+		}
+	}
+
+	/**
+	 * The recipients of a message that are sent in the same request
+	 */
+	private static class Part {
+		private final Sms message;
+		private final List<Recipient> recipients;
+
+		public Part(Sms message, List<Recipient> recipients) {
+			super();
+			this.message = message;
+			this.recipients = recipients;
+		}
+	}
+
+	private static class BatchKey {
+		private final String from;
+		private final String content;
+
+		public BatchKey(String from, String content) {
+			super();
+			this.from = from;
+			this.content = content;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * from.hashCode() + content.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof BatchKey)) {
+				return false;
+			}
+			BatchKey other = (BatchKey) obj;
+			return from.equals(other.from) && content.equals(other.content);
+		}
+	}
+}
@@ -1,13 +1,12 @@
 package fr.sii.ogham.sms.sender.impl;
 
-import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
-import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.JsonProcessingException;
-import org.codehaus.jackson.map.ObjectMapper;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,16 +14,28 @@ import fr.sii.ogham.core.exception.MessageException;
 import fr.sii.ogham.core.exception.MessageNotSentException;
 import fr.sii.ogham.core.exception.util.HttpException;
 import fr.sii.ogham.core.exception.util.PhoneNumberException;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
 import fr.sii.ogham.core.sender.AbstractSpecializedSender;
+import fr.sii.ogham.core.sender.AsyncSender;
+import fr.sii.ogham.core.builder.HttpTransportBuilder;
 import fr.sii.ogham.core.util.HttpUtils;
 import fr.sii.ogham.core.util.StringUtils;
+import fr.sii.ogham.core.util.http.AsyncHttpTransport;
+import fr.sii.ogham.core.util.http.HttpTransport;
 import fr.sii.ogham.core.util.http.Parameter;
-import fr.sii.ogham.core.util.http.Response;
+import fr.sii.ogham.sms.encoding.Segmentation;
+import fr.sii.ogham.sms.encoding.SegmentationUtils;
+import fr.sii.ogham.sms.encoding.SmsEncoding;
 import fr.sii.ogham.sms.message.PhoneNumber;
 import fr.sii.ogham.sms.message.Recipient;
 import fr.sii.ogham.sms.message.Sms;
 import fr.sii.ogham.sms.sender.impl.ovh.OvhAuthParams;
 import fr.sii.ogham.sms.sender.impl.ovh.OvhOptions;
+import fr.sii.ogham.sms.sender.impl.ovh.OvhResponse;
+import fr.sii.ogham.sms.sender.impl.ovh.OvhResponseParser;
+import fr.sii.ogham.sms.sender.impl.ovh.SmsCoding;
 
 /**
  * Implementation that is able to send SMS through <a
@@ -41,18 +52,33 @@ import fr.sii.ogham.sms.sender.impl.ovh.OvhOptions;
  * additional '0' are added to reach the 4 digits)</li>
  * </ul>
  * 
+ * <p>
+ * If a non-blocking HTTP client is provided, {@link #sendAsync(Sms)} doesn't
+ * hold the calling thread while OVH processes the request.
+ * </p>
+ * <p>
+ * Long messages are concatenated by OVH. The content is analyzed before
+ * sending to compute the number of SMS that are needed (see
+ * {@link SegmentationUtils}). If no encoding is explicitly configured in
+ * {@link OvhOptions}, GSM 7-bit encoding is used when possible and UTF-8
+ * otherwise.
+ * </p>
+ * 
  * @author Aurélien Baudet
  *
  */
-public class OvhSmsSender extends AbstractSpecializedSender<Sms> {
+public class OvhSmsSender extends AbstractSpecializedSender<Sms> implements AsyncSender<Sms> {
 	private static final Logger LOG = LoggerFactory.getLogger(OvhSmsSender.class);
 	private static final String CONTENT_TYPE = "application/json";
 	private static final String RESPONSE_TYPE = "contentType";
 	private static final String MESSAGE = "message";
 	private static final String TO = "to";
 	private static final String FROM = "from";
+	private static final String NO_STOP = "noStop";
+	private static final String TAG = "tag";
+	private static final String SMS_CODING = "smsCoding";
+	private static final String SMS_CLASS = "class";
 	private static final String RECIPIENTS_SEPARATOR = ",";
-	private static final int OK_STATUS = 200;
 	private static final int INTERNATIONAL_FORMAT_LENGTH = 13;
 
 	/**
@@ -68,43 +94,164 @@ public class OvhSmsSender extends AbstractSpecializedSender<Sms> {
 	/**
 	 * This is used to parse JSON response
 	 */
-	private final ObjectMapper mapper;
+	private final OvhResponseParser parser;
 
 	/**
 	 * The URL to OVH web service
 	 */
 	private final URL url;
 
-	public OvhSmsSender(URL url, OvhAuthParams authParams, OvhOptions options) {
+	/**
+	 * The HTTP client used to call OVH web service
+	 */
+	private final HttpTransport transport;
+
+	/**
+	 * The non-blocking HTTP client used by {@link #sendAsync(Sms)} (may be
+	 * null)
+	 */
+	private final AsyncHttpTransport asyncTransport;
+
+	/**
+	 * Authentication and options converted once into request parameters
+	 */
+	private final List<Parameter> staticParams;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	public OvhSmsSender(URL url, OvhAuthParams authParams, OvhOptions options, HttpTransport transport, AsyncHttpTransport asyncTransport) {
+		this(url, authParams, options, transport, asyncTransport, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	public OvhSmsSender(URL url, OvhAuthParams authParams, OvhOptions options, HttpTransport transport, AsyncHttpTransport asyncTransport, MetricsRecorder metrics) {
 		super();
 		this.url = url;
 		this.authParams = authParams;
 		this.options = options;
-		this.mapper = new ObjectMapper();
+		this.transport = transport;
+		this.asyncTransport = asyncTransport;
+		this.parser = new OvhResponseParser();
+		try {
+			this.staticParams = HttpUtils.toParameters(authParams, new Parameter(RESPONSE_TYPE, CONTENT_TYPE), new Parameter(NO_STOP, String.valueOf(options.getNoStop())),
+					new Parameter(TAG, options.getTag()));
+		} catch (HttpException e) {
+			throw new IllegalArgumentException("Invalid OVH authentication parameters or options", e);
+		}
+		this.metrics = metrics;
+	}
+
+	public OvhSmsSender(URL url, OvhAuthParams authParams, OvhOptions options, HttpTransport transport) {
+		this(url, authParams, options, transport, null);
+	}
+
+	public OvhSmsSender(URL url, OvhAuthParams authParams, OvhOptions options) {
+		this(url, authParams, options, new HttpTransportBuilder().build());
 	}
 
 	@Override
 	public void send(Sms message) throws MessageException {
+		long start = metrics.startTimer();
 		try {
-			// @formatter:off
-			Response response = HttpUtils.get(url.toString(), authParams, options,
-									new Parameter(RESPONSE_TYPE, CONTENT_TYPE),
-									// convert phone number to international format
-									new Parameter(FROM, toInternational(message.getFrom().getPhoneNumber())),
-									new Parameter(TO, StringUtils.join(convert(message.getRecipients()), RECIPIENTS_SEPARATOR)),
-									// TODO: manage long messages: how to do ??
-									new Parameter(MESSAGE, getContent(message)));
-			// @formatter:on
-			handleResponse(message, response);
-		} catch (IOException e) {
-			throw new MessageException("Failed to read response when sending SMS through OVH", message, e);
+			handleResponse(message, transport.get(url.toString(), toParameters(message), parser));
+		} catch (MessageNotSentException e) {
+			metrics.increment(MetricNames.errors(MetricNames.OVH_SEND));
+			throw e;
 		} catch (HttpException e) {
+			metrics.increment(MetricNames.errors(MetricNames.OVH_SEND));
 			throw new MessageException("Failed to send SMS through OVH", message, e);
 		} catch (PhoneNumberException e) {
+			metrics.increment(MetricNames.errors(MetricNames.OVH_SEND));
 			throw new MessageException("Failed to send SMS through OVH (invalid phone number)", message, e);
+		} finally {
+			metrics.stopTimer(MetricNames.OVH_SEND, start);
 		}
 	}
 
+	/**
+	 * Sends the SMS using the non-blocking HTTP client. If no non-blocking
+	 * client is configured, the SMS is sent synchronously and the returned
+	 * future is already completed.
+	 */
+	@Override
+	public Future<Void> sendAsync(final Sms message) throws MessageException {
+		if (asyncTransport == null) {
+			send(message);
+			BasicFuture<Void> done = new BasicFuture<>(null);
+			done.completed(null);
+			return done;
+		}
+		final long start = metrics.startTimer();
+		final BasicFuture<Void> result = new BasicFuture<>(null);
+		List<Parameter> params;
+		try {
+			params = toParameters(message);
+		} catch (PhoneNumberException e) {
+			metrics.increment(MetricNames.errors(MetricNames.OVH_SEND));
+			metrics.stopTimer(MetricNames.OVH_SEND, start);
+			throw new MessageException("Failed to send SMS through OVH (invalid phone number)", message, e);
+		}
+		asyncTransport.get(url.toString(), params, parser, new FutureCallback<OvhResponse>() {
+			@Override
+			public void completed(OvhResponse response) {
+				try {
+					handleResponse(message, response);
+					result.completed(null);
+				} catch (MessageNotSentException e) {
+					metrics.increment(MetricNames.errors(MetricNames.OVH_SEND));
+					result.failed(e);
+				} finally {
+					metrics.stopTimer(MetricNames.OVH_SEND, start);
+				}
+			}
+
+			@Override
+			public void failed(Exception e) {
+				metrics.increment(MetricNames.errors(MetricNames.OVH_SEND));
+				metrics.stopTimer(MetricNames.OVH_SEND, start);
+				result.failed(new MessageException("Failed to send SMS through OVH", message, e));
+			}
+
+			@Override
+			public void cancelled() {
+				metrics.stopTimer(MetricNames.OVH_SEND, start);
+				result.cancel();
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Build the request parameters for the SMS.
+	 * 
+	 * @param message
+	 *            the SMS to send
+	 * @return the request parameters
+	 * @throws PhoneNumberException
+	 *             when a phone number is invalid
+	 */
+	private List<Parameter> toParameters(Sms message) throws PhoneNumberException {
+		List<Parameter> params = new ArrayList<>(staticParams.size() + 5);
+		params.addAll(staticParams);
+		// convert phone number to international format
+		params.add(new Parameter(FROM, toInternational(message.getFrom().getPhoneNumber())));
+		params.add(new Parameter(TO, StringUtils.join(convert(message.getRecipients()), RECIPIENTS_SEPARATOR)));
+		// long messages are concatenated by OVH, the content is analyzed only
+		// to select the encoding and report the number of SMS
+		String content = getContent(message);
+		Segmentation segmentation = SegmentationUtils.analyze(content);
+		LOG.debug("SMS content requires {} SMS ({} units using {})", segmentation.getSegments(), segmentation.getLength(), segmentation.getEncoding());
+		metrics.record(MetricNames.OVH_SEGMENTS, segmentation.getSegments());
+		params.add(new Parameter(MESSAGE, content));
+		params.add(new Parameter(SMS_CODING, String.valueOf(getCoding(segmentation).getValue())));
+		if (options.getSmsClass() != null) {
+			params.add(new Parameter(SMS_CLASS, String.valueOf(options.getSmsClass().getValue())));
+		}
+		return params;
+	}
+
 	/**
 	 * Handle OVH response. If status provided in response is less than 200,
 	 * then the message has been sent. Otherwise, the message has not been sent.
@@ -113,35 +260,28 @@ public class OvhSmsSender extends AbstractSpecializedSender<Sms> {
 	 *            the SMS to send
 	 * @param response
 	 *            the received response from OVH API
-	 * @throws IOException
-	 *             when the response couldn't be read
-	 * @throws JsonProcessingException
-	 *             when the response format is not valid JSON
 	 * @throws MessageNotSentException
 	 *             generated exception to indicate that the message couldn't be
 	 *             sent
 	 */
-	private void handleResponse(Sms message, Response response) throws IOException, JsonProcessingException, MessageNotSentException {
-		if (response.getStatus().isSuccess()) {
-			JsonNode json = mapper.readTree(response.getBody());
-			int ovhStatus = json.get("status").getIntValue();
+	private void handleResponse(Sms message, OvhResponse response) throws MessageNotSentException {
+		if (response.getHttpStatus().isSuccess()) {
 			// 100 <= ovh status < 200 ====> OK -> just log response
 			// 200 <= ovh status ====> KO -> throw an exception
-			if (ovhStatus >= OK_STATUS) {
+			if (!response.isSuccess()) {
 				LOG.error("SMS failed to be sent through OVH");
 				LOG.debug("Sent SMS: {}", message);
-				LOG.debug("Response status {}", response.getStatus());
-				LOG.debug("Response body {}", response.getBody());
-				throw new MessageNotSentException("SMS couldn't be sent through OVH: " + json.get("message").getTextValue(), message);
+				LOG.debug("Response {}", response);
+				throw new MessageNotSentException("SMS couldn't be sent through OVH: " + response.getMessage(), message);
 			} else {
 				LOG.info("SMS successfully sent through OVH");
 				LOG.debug("Sent SMS: {}", message);
-				LOG.debug("Response: {}", response.getBody());
+				LOG.debug("Response: {}", response);
 			}
 		} else {
-			LOG.error("Response status {}", response.getStatus());
+			LOG.error("Response status {}", response.getHttpStatus());
 			LOG.error("Response body {}", response.getBody());
-			throw new MessageNotSentException("SMS couldn't be sent. Response status is " + response.getStatus(), message);
+			throw new MessageNotSentException("SMS couldn't be sent. Response status is " + response.getHttpStatus(), message);
 		}
 	}
 
@@ -153,10 +293,41 @@ public class OvhSmsSender extends AbstractSpecializedSender<Sms> {
 	 *            the message that contains the content to extract
 	 * @return the content formatted for OVH
 	 */
-	private String getContent(Sms message) {
+	private static String getContent(Sms message) {
 		// if a string contains \r\n, only \r is kept
 		// if there are \n without \r, those \n are converted to \r
-		return message.getContent().toString().replaceAll("(\r)?\n", "\r");
+		String content = message.getContent().toString();
+		int first = content.indexOf('\n');
+		if (first < 0) {
+			return content;
+		}
+		StringBuilder sb = new StringBuilder(content.length());
+		sb.append(content, 0, first);
+		for (int i = first, l = content.length(); i < l; i++) {
+			char c = content.charAt(i);
+			if (c != '\n') {
+				sb.append(c);
+			} else if (i == 0 || content.charAt(i - 1) != '\r') {
+				sb.append('\r');
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Get the encoding to use: the one configured in {@link OvhOptions} if
+	 * any, GSM 7-bit if the content only contains characters of the GSM
+	 * alphabet, UTF-8 otherwise.
+	 * 
+	 * @param segmentation
+	 *            the result of the analysis of the content
+	 * @return the encoding to use
+	 */
+	private SmsCoding getCoding(Segmentation segmentation) {
+		if (options.getSmsCoding() != null) {
+			return options.getSmsCoding();
+		}
+		return segmentation.getEncoding() == SmsEncoding.GSM_7BIT ? SmsCoding.NORMAL : SmsCoding.UTF_8;
 	}
 
 	/**
@@ -186,7 +357,7 @@ public class OvhSmsSender extends AbstractSpecializedSender<Sms> {
 	 * @return the international phone number
 	 * @throws PhoneNumberException
 	 */
-	private static String toInternational(PhoneNumber phoneNumber) throws PhoneNumberException {
+	static String toInternational(PhoneNumber phoneNumber) throws PhoneNumberException {
 		String number = phoneNumber.getNumber();
 		if (number.startsWith("+") || number.length() == INTERNATIONAL_FORMAT_LENGTH) {
 			return StringUtils.leftPad(number.replace("+", "").replaceAll("\\s+", ""), INTERNATIONAL_FORMAT_LENGTH, '0');
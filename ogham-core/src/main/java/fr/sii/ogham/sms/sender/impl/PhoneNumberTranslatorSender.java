@@ -1,5 +1,7 @@
 package fr.sii.ogham.sms.sender.impl;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,6 +10,9 @@ import fr.sii.ogham.core.exception.MessageNotSentException;
 import fr.sii.ogham.core.message.Message;
 import fr.sii.ogham.core.sender.ConditionalSender;
 import fr.sii.ogham.core.sender.MessageSender;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
 import fr.sii.ogham.sms.exception.message.PhoneNumberTranslatorException;
 import fr.sii.ogham.sms.message.Contact;
 import fr.sii.ogham.sms.message.PhoneNumber;
@@ -25,7 +30,7 @@ import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberTranslator;
  * @author cdejonghe
  * @see PhoneNumberTranslator
  */
-public class PhoneNumberTranslatorSender implements ConditionalSender {
+public class PhoneNumberTranslatorSender implements ConditionalSender, ConnectionStatusProvider {
 	private static final Logger LOG = LoggerFactory.getLogger(PhoneNumberTranslatorSender.class);
 
 	/** The translator that transforms the content of the message. */
@@ -99,6 +104,11 @@ public class PhoneNumberTranslatorSender implements ConditionalSender {
 		}
 	}
 
+	@Override
+	public List<ConnectionStatus> getConnectionStatuses() {
+		return ConnectionStatusUtils.collect(delegate);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
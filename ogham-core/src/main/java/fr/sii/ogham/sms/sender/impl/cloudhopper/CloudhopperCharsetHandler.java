@@ -21,4 +21,16 @@ public interface CloudhopperCharsetHandler {
 	 */
 	byte[] encode(String messageStringContent) throws EncodingException;
 
+	/**
+	 * Encodes the message string content after a charset detection and
+	 * provides the SMPP data coding that matches the detected charset.
+	 * 
+	 * @param messageStringContent
+	 *            the message as string to encode
+	 * @return the encoded string with its data coding
+	 * @throws EncodingException
+	 *             when message can't be encoded
+	 */
+	EncodedContent encodeContent(String messageStringContent) throws EncodingException;
+
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package fr.sii.ogham.sms.sender.impl.cloudhopper;
+
+import com.cloudhopper.commons.charset.Charset;
+
+/**
+ * The content of a SMS encoded using a Cloudhopper charset and the SMPP data
+ * coding that indicates to the SMSC how the bytes are encoded.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class EncodedContent {
+	/**
+	 * The encoded content
+	 */
+	private final byte[] bytes;
+
+	/**
+	 * The charset used to encode the content
+	 */
+	private final Charset charset;
+
+	/**
+	 * The SMPP data coding matching the charset
+	 */
+	private final byte dataCoding;
+
+	public EncodedContent(byte[] bytes, Charset charset, byte dataCoding) {
+		super();
+		this.bytes = bytes;
+		this.charset = charset;
+		this.dataCoding = dataCoding;
+	}
+
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public byte getDataCoding() {
+		return dataCoding;
+	}
+}
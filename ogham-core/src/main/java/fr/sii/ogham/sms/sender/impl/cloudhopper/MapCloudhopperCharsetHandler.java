@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 import com.cloudhopper.commons.charset.Charset;
 import com.cloudhopper.commons.charset.CharsetUtil;
+import com.cloudhopper.smpp.SmppConstants;
 
 import fr.sii.ogham.core.charset.CharsetProvider;
 import fr.sii.ogham.sms.exception.message.EncodingException;
@@ -100,6 +101,11 @@ public class MapCloudhopperCharsetHandler implements CloudhopperCharsetHandler {
 
 	@Override
 	public byte[] encode(String messageStringContent) throws EncodingException {
+		return encodeContent(messageStringContent).getBytes();
+	}
+
+	@Override
+	public EncodedContent encodeContent(String messageStringContent) throws EncodingException {
 		java.nio.charset.Charset nioCharset = charsetProvider.getCharset(messageStringContent);
 		if (nioCharset == null) {
 			throw new EncodingException("No charset provided for message : \n" + messageStringContent);
@@ -107,6 +113,24 @@ public class MapCloudhopperCharsetHandler implements CloudhopperCharsetHandler {
 
 		Charset cloudhopperCharset = get(nioCharset);
 		LOG.debug("Encoding message using mapping nio {} -> {}", nioCharset.name(), cloudhopperCharset);
-		return CharsetUtil.encode(messageStringContent, cloudhopperCharset);
+		return new EncodedContent(CharsetUtil.encode(messageStringContent, cloudhopperCharset), cloudhopperCharset, getDataCoding(cloudhopperCharset));
+	}
+
+	/**
+	 * Get the SMPP data coding that indicates how the content is encoded.
+	 * Unknown charsets are considered as the SMSC default alphabet.
+	 * 
+	 * @param cloudhopperCharset
+	 *            the charset used to encode the content
+	 * @return the SMPP data coding
+	 */
+	private static byte getDataCoding(Charset cloudhopperCharset) {
+		if (cloudhopperCharset == CharsetUtil.CHARSET_UCS_2) {
+			return SmppConstants.DATA_CODING_UCS2;
+		}
+		if (cloudhopperCharset == CharsetUtil.CHARSET_ISO_8859_1) {
+			return SmppConstants.DATA_CODING_LATIN1;
+		}
+		return SmppConstants.DATA_CODING_DEFAULT;
 	}
 }
@@ -0,0 +1,257 @@
+package fr.sii.ogham.sms.sender.impl.cloudhopper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cloudhopper.commons.charset.CharsetUtil;
+import com.cloudhopper.smpp.SmppConstants;
+import com.cloudhopper.smpp.pdu.SubmitSm;
+import com.cloudhopper.smpp.type.Address;
+import com.cloudhopper.smpp.type.SmppInvalidArgumentException;
+
+import fr.sii.ogham.sms.encoding.SegmentationUtils;
+import fr.sii.ogham.sms.encoding.SmsEncoding;
+import fr.sii.ogham.sms.exception.message.EncodingException;
+import fr.sii.ogham.sms.exception.message.PhoneNumberTranslatorException;
+import fr.sii.ogham.sms.message.PhoneNumber;
+import fr.sii.ogham.sms.message.Recipient;
+import fr.sii.ogham.sms.message.Sms;
+import fr.sii.ogham.sms.message.addressing.AddressedPhoneNumber;
+import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberTranslator;
+
+/**
+ * Creates the SMPP <code>submit_sm</code> requests needed to send a
+ * {@link Sms} to all its recipients: the content is encoded using the charset
+ * handler, split into several parts if too long and the phone numbers are
+ * converted to SMPP addresses.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class SubmitSmFactory {
+	private static final Logger LOG = LoggerFactory.getLogger(SubmitSmFactory.class);
+
+	private static final int BODY_OFFSET = 6;
+
+	/**
+	 * The maximum number of parts of a concatenated message (the number of
+	 * parts is written on a single byte)
+	 */
+	private static final int MAX_PARTS = 255;
+
+	/**
+	 * Position of the reference number in the concatenation header
+	 */
+	private static final int REFERENCE_NUMBER_OFFSET = 3;
+
+	/**
+	 * Handle sms charset detection.
+	 */
+	private final CloudhopperCharsetHandler charsetHandler;
+
+	/**
+	 * This phone number translator will handle the fallback addressing policy
+	 * (TON / NPI).
+	 */
+	private final PhoneNumberTranslator fallBackPhoneNumberTranslator;
+
+	/**
+	 * Initializes the factory.
+	 * 
+	 * @param charsetHandler
+	 *            Handler that is able to provide a charset for the provided
+	 *            message
+	 * @param fallBackPhoneNumberTranslator
+	 *            Fallback phone translator to handle addressing policy (may be
+	 *            null)
+	 */
+	public SubmitSmFactory(CloudhopperCharsetHandler charsetHandler, PhoneNumberTranslator fallBackPhoneNumberTranslator) {
+		super();
+		this.charsetHandler = charsetHandler;
+		this.fallBackPhoneNumberTranslator = fallBackPhoneNumberTranslator;
+	}
+
+	/**
+	 * Creates the {@link SubmitSm}s for every recipient of the message. The
+	 * content is encoded and split only once per message. The resulting
+	 * segments (and the reference number used for concatenation) are shared
+	 * by all recipients.
+	 * 
+	 * @param message
+	 *            the message to send
+	 * @param targets
+	 *            filled with the recipient of each created submit (same
+	 *            order)
+	 * @return the list of submits to send
+	 * @throws SmppInvalidArgumentException
+	 *             when the content can't be set on the submit
+	 * @throws PhoneNumberTranslatorException
+	 *             when a phone number can't be translated
+	 * @throws EncodingException
+	 *             when the content can't be encoded
+	 */
+	public List<SubmitSm> createMessages(Sms message, List<Recipient> targets) throws SmppInvalidArgumentException, PhoneNumberTranslatorException, EncodingException {
+		EncodedContent encoded = charsetHandler.encodeContent(message.getContent().toString());
+		byte[][] parts = split(encoded);
+		Address source = toAddress(message.getFrom().getPhoneNumber());
+		List<SubmitSm> messages = new ArrayList<>(parts.length * message.getRecipients().size());
+		for (Recipient recipient : message.getRecipients()) {
+			Address destination = toAddress(recipient.getPhoneNumber());
+			for (byte[] part : parts) {
+				SubmitSm submit = createMessage(source, destination, part, encoded.getDataCoding());
+				if (parts.length > 1) {
+					submit.setEsmClass(SmppConstants.ESM_CLASS_UDHI_MASK);
+				}
+				messages.add(submit);
+				targets.add(recipient);
+			}
+		}
+		return messages;
+	}
+
+	/**
+	 * Creates new submits with the same content as the provided ones in order
+	 * to send the message again (to another SMSC for example). The submits
+	 * can't be reused as they already have a sequence number. If the message
+	 * is split, the copies use a new reference number so that the handset
+	 * never mixes the parts of both attempts.
+	 * 
+	 * @param parts
+	 *            the submits of a single message for a single recipient
+	 * @return the copies to send
+	 * @throws SmppInvalidArgumentException
+	 *             when the content can't be set on the submit
+	 */
+	public List<SubmitSm> copyForRetry(List<SubmitSm> parts) throws SmppInvalidArgumentException {
+		List<SubmitSm> copies = new ArrayList<>(parts.size());
+		byte referenceNumber = 0;
+		if (!parts.isEmpty() && isConcatenated(parts.get(0))) {
+			byte previous = parts.get(0).getShortMessage()[REFERENCE_NUMBER_OFFSET];
+			referenceNumber = (byte) (previous + 1 + ThreadLocalRandom.current().nextInt(255));
+		}
+		for (SubmitSm part : parts) {
+			byte[] content = part.getShortMessage().clone();
+			if (isConcatenated(part)) {
+				content[REFERENCE_NUMBER_OFFSET] = referenceNumber;
+			}
+			SubmitSm copy = createMessage(part.getSourceAddress(), part.getDestAddress(), content, part.getDataCoding());
+			copy.setEsmClass(part.getEsmClass());
+			copies.add(copy);
+		}
+		return copies;
+	}
+
+	private static boolean isConcatenated(SubmitSm submit) {
+		return (submit.getEsmClass() & SmppConstants.ESM_CLASS_UDHI_MASK) != 0;
+	}
+
+	/**
+	 * Splits the encoded content into concatenated short messages if the
+	 * content is too long to fit in a single one. The limits depend on the
+	 * encoding (160 characters in a single message and 153 in each part for
+	 * GSM 7-bit, 70 and 67 for UCS-2, 140 and 134 bytes otherwise) and a
+	 * character is never split across two parts (see
+	 * {@link SegmentationUtils#split(byte[], SmsEncoding)}).
+	 * 
+	 * @param encoded
+	 *            the encoded content
+	 * @return the parts to send (a single part containing the whole content if
+	 *         no split is needed)
+	 * @throws SmppInvalidArgumentException
+	 *             when the content needs too many parts
+	 */
+	private static byte[][] split(EncodedContent encoded) throws SmppInvalidArgumentException {
+		byte[] textBytes = encoded.getBytes();
+		List<byte[]> bodies = SegmentationUtils.split(textBytes, getEncoding(encoded));
+		if (bodies.size() == 1) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("SubmitSm generated with content '{}'", new String(textBytes));
+			}
+			return new byte[][] { textBytes };
+		}
+		if (bodies.size() > MAX_PARTS) {
+			throw new SmppInvalidArgumentException("Content is too long: " + bodies.size() + " parts are needed (maximum is " + MAX_PARTS + ")");
+		}
+		// one reference number for all parts of the message
+		byte referenceNumber = (byte) ThreadLocalRandom.current().nextInt(256);
+		byte[][] msgs = new byte[bodies.size()][];
+		for (int i = 0; i < msgs.length; i++) {
+			byte[] body = bodies.get(i);
+			byte[] msg = new byte[BODY_OFFSET + body.length];
+			// User Data Header: concatenated short message with 8-bit
+			// reference number
+			msg[0] = 0x05;
+			msg[1] = 0x00;
+			msg[2] = 0x03;
+			msg[REFERENCE_NUMBER_OFFSET] = referenceNumber;
+			msg[4] = (byte) msgs.length;
+			msg[5] = (byte) (i + 1);
+			System.arraycopy(body, 0, msg, BODY_OFFSET, body.length);
+			msgs[i] = msg;
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Content split into {} parts", msgs.length);
+			for (byte[] msg : msgs) {
+				LOG.debug("SubmitSm generated with content '{}'", new String(msg, BODY_OFFSET, msg.length - BODY_OFFSET));
+			}
+		}
+		return msgs;
+	}
+
+	/**
+	 * Get the encoding that determines the limits of the parts. The GSM
+	 * charset produces unpacked septets (one byte per septet).
+	 */
+	private static SmsEncoding getEncoding(EncodedContent encoded) {
+		if (encoded.getCharset() == CharsetUtil.CHARSET_UCS_2 || encoded.getDataCoding() == SmppConstants.DATA_CODING_UCS2) {
+			return SmsEncoding.UCS_2;
+		}
+		if (encoded.getCharset() == CharsetUtil.CHARSET_GSM) {
+			return SmsEncoding.GSM_7BIT;
+		}
+		return SmsEncoding.OCTET_8BIT;
+	}
+
+	private static SubmitSm createMessage(Address source, Address destination, byte[] content, byte dataCoding) throws SmppInvalidArgumentException {
+		SubmitSm submit = new SubmitSm();
+		submit.setSourceAddress(source);
+		submit.setDestAddress(destination);
+
+		// TODO: should be configurable ?
+		submit.setRegisteredDelivery(SmppConstants.REGISTERED_DELIVERY_SMSC_RECEIPT_REQUESTED);
+		submit.setDataCoding(dataCoding);
+		submit.setShortMessage(content);
+		return submit;
+	}
+
+	/**
+	 * Transforms a {@link PhoneNumber} in a {@link Address} type.
+	 * 
+	 * @param phoneNumber
+	 *            The given phone number
+	 * @return corresponding address with number, TON and NPI
+	 * @throws PhoneNumberTranslatorException
+	 *             If an error occurs during fallback phone number translation
+	 */
+	private Address toAddress(PhoneNumber phoneNumber) throws PhoneNumberTranslatorException {
+		Address address = null;
+		AddressedPhoneNumber addressedPhoneNumber = null;
+
+		if (phoneNumber instanceof AddressedPhoneNumber) {
+			addressedPhoneNumber = (AddressedPhoneNumber) phoneNumber;
+		} else if (fallBackPhoneNumberTranslator != null) {
+			LOG.warn("Fallback addressing policy used for PhoneNumber '{}'. You might decorate your sender with a PhoneNumberTranslatorSender.", phoneNumber);
+			addressedPhoneNumber = fallBackPhoneNumberTranslator.translate(phoneNumber);
+
+		} else {
+			throw new IllegalStateException("Must provide addressing policy with the phone number or with a fallback phone number translator.");
+		}
+		LOG.debug("Addressing policy applied on {} ", addressedPhoneNumber);
+		address = new Address(addressedPhoneNumber.getTon().value(), addressedPhoneNumber.getNpi().value(), addressedPhoneNumber.getNumber());
+		return address;
+	}
+}
@@ -0,0 +1,30 @@
+package fr.sii.ogham.sms.sender.impl.cloudhopper.balancing;
+
+import java.util.List;
+
+/**
+ * Selects the SMSC that has the lowest expected response time: the observed
+ * response time multiplied by the number of submits already waiting for a
+ * response (plus one). A SMSC that has not been used yet is selected first in
+ * order to measure its latency.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class LatencyLoadBalancingStrategy implements LoadBalancingStrategy {
+
+	@Override
+	public SmscNode select(List<SmscNode> nodes) {
+		SmscNode selected = null;
+		double min = Double.MAX_VALUE;
+		for (SmscNode node : nodes) {
+			double expected = node.getLatency() * (node.getOutstanding() + 1);
+			if (expected < min) {
+				min = expected;
+				selected = node;
+			}
+		}
+		return selected;
+	}
+
+}
@@ -0,0 +1,29 @@
+package fr.sii.ogham.sms.sender.impl.cloudhopper.balancing;
+
+import java.util.List;
+
+/**
+ * Selects the SMSC that has the fewest submits waiting for a response
+ * relative to its weight. A slow or overloaded SMSC keeps its window full and
+ * naturally receives fewer submits.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class LeastOutstandingLoadBalancingStrategy implements LoadBalancingStrategy {
+
+	@Override
+	public SmscNode select(List<SmscNode> nodes) {
+		SmscNode selected = null;
+		double min = Double.MAX_VALUE;
+		for (SmscNode node : nodes) {
+			double load = (double) node.getOutstanding() / node.getWeight();
+			if (load < min) {
+				min = load;
+				selected = node;
+			}
+		}
+		return selected;
+	}
+
+}
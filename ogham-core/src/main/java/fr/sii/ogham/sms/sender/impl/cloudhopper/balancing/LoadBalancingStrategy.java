@@ -0,0 +1,20 @@
+package fr.sii.ogham.sms.sender.impl.cloudhopper.balancing;
+
+import java.util.List;
+
+/**
+ * Chooses the SMSC that will receive the next submits.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public interface LoadBalancingStrategy {
+	/**
+	 * Select a SMSC among the available ones.
+	 *
+	 * @param nodes
+	 *            the available SMSCs (never empty)
+	 * @return the selected SMSC
+	 */
+	SmscNode select(List<SmscNode> nodes);
+}
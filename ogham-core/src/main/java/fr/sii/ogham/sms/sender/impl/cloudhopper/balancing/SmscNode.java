@@ -0,0 +1,320 @@
+package fr.sii.ogham.sms.sender.impl.cloudhopper.balancing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cloudhopper.smpp.SmppSession;
+import com.cloudhopper.smpp.SmppSessionConfiguration;
+import com.cloudhopper.smpp.SmppSessionHandler;
+import com.cloudhopper.smpp.impl.DefaultSmppClient;
+import com.cloudhopper.smpp.type.SmppChannelException;
+import com.cloudhopper.smpp.type.SmppTimeoutException;
+import com.cloudhopper.smpp.type.UnrecoverablePduException;
+
+/**
+ * A SMSC used by the
+ * {@link fr.sii.ogham.sms.sender.impl.LoadBalancedSMPPSender}. The node holds
+ * a pool of SMPP sessions bound to the SMSC and the statistics used by the
+ * {@link LoadBalancingStrategy} (number of outstanding submits and observed
+ * latency).
+ *
+ * <p>
+ * When the SMSC indicates that it is throttling (or when the session is
+ * broken), the node stops receiving new submits for a while (submits in
+ * progress are not interrupted). The pause is doubled each time the SMSC
+ * throttles again (up to a maximum) and is reset as soon as a submit
+ * succeeds.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class SmscNode {
+	private static final Logger LOG = LoggerFactory.getLogger(SmscNode.class);
+
+	/**
+	 * Weight of the last sample for the latency moving average
+	 */
+	private static final double LATENCY_SMOOTHING = 0.2;
+
+	/**
+	 * The name of the SMSC (used for logs)
+	 */
+	private final String name;
+
+	/**
+	 * The configuration used to bind the sessions
+	 */
+	private final SmppSessionConfiguration configuration;
+
+	/**
+	 * The relative weight of the SMSC
+	 */
+	private final int weight;
+
+	/**
+	 * The pool of sessions (bound lazily). The pool is updated while holding
+	 * the lock of the node but it can be read without locking (a bind may take
+	 * a long time)
+	 */
+	private final AtomicReferenceArray<SmppSession> sessions;
+
+	/**
+	 * Index of the next session to use
+	 */
+	private int nextSession;
+
+	/**
+	 * Number of submits waiting for a response
+	 */
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	/**
+	 * Moving average of response time in nanoseconds (0 if no sample yet)
+	 */
+	private volatile double latency;
+
+	/**
+	 * The initial pause when the SMSC throttles
+	 */
+	private final long initialBackoff;
+
+	/**
+	 * The maximum pause when the SMSC throttles
+	 */
+	private final long maxBackoff;
+
+	/**
+	 * The current pause when the SMSC throttles
+	 */
+	private long backoff;
+
+	/**
+	 * The time (in milliseconds) until which no submit is sent to this SMSC
+	 */
+	private volatile long pausedUntil;
+
+	/**
+	 * Initialize the node.
+	 *
+	 * @param name
+	 *            the name of the SMSC
+	 * @param configuration
+	 *            the configuration used to bind the sessions
+	 * @param weight
+	 *            the relative weight of the SMSC
+	 * @param sessions
+	 *            the number of sessions in the pool
+	 * @param initialBackoff
+	 *            the initial pause (in milliseconds) when the SMSC throttles
+	 * @param maxBackoff
+	 *            the maximum pause (in milliseconds) when the SMSC throttles
+	 */
+	public SmscNode(String name, SmppSessionConfiguration configuration, int weight, int sessions, long initialBackoff, long maxBackoff) {
+		super();
+		if (weight <= 0) {
+			throw new IllegalArgumentException("weight of SMSC " + name + " must be positive");
+		}
+		if (sessions <= 0) {
+			throw new IllegalArgumentException("number of sessions of SMSC " + name + " must be positive");
+		}
+		this.name = name;
+		this.configuration = configuration;
+		this.weight = weight;
+		this.sessions = new AtomicReferenceArray<>(sessions);
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+		this.backoff = initialBackoff;
+	}
+
+	/**
+	 * Get a bound session from the pool. Sessions are used in turn. A session
+	 * is bound if it has never been bound or if it is no more bound.
+	 *
+	 * @param client
+	 *            the client used to bind sessions
+	 * @param handler
+	 *            the handler for the requests sent by the SMSC
+	 * @return a bound session
+	 * @throws SmppTimeoutException
+	 *             when the bind takes too long
+	 * @throws SmppChannelException
+	 *             when the connection can't be opened
+	 * @throws UnrecoverablePduException
+	 *             when the bind is rejected
+	 * @throws InterruptedException
+	 *             when the thread is interrupted while binding
+	 */
+	public synchronized SmppSession getSession(DefaultSmppClient client, SmppSessionHandler handler) throws SmppTimeoutException, SmppChannelException, UnrecoverablePduException, InterruptedException {
+		int idx = nextSession;
+		nextSession = (nextSession + 1) % sessions.length();
+		SmppSession session = sessions.get(idx);
+		if (session == null || !session.isBound()) {
+			if (session != null) {
+				session.destroy();
+			}
+			LOG.debug("Binding session {} to SMSC {}...", idx, name);
+			sessions.set(idx, null);
+			session = client.bind(configuration, handler);
+			sessions.set(idx, session);
+			LOG.info("Session {} bound to SMSC {}", idx, name);
+		}
+		return session;
+	}
+
+	/**
+	 * Remove the session from the pool (it will be bound again later).
+	 *
+	 * @param session
+	 *            the broken session
+	 */
+	public synchronized void invalidate(SmppSession session) {
+		for (int i = 0; i < sessions.length(); i++) {
+			if (sessions.get(i) == session) {
+				sessions.set(i, null);
+				session.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Indicates that a submit is sent.
+	 *
+	 * @return the start time in nanoseconds to provide to
+	 *         {@link #succeeded(long)}
+	 */
+	public long started() {
+		outstanding.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Indicates that the SMSC has accepted the submit.
+	 *
+	 * @param start
+	 *            the value returned by {@link #started()}
+	 */
+	public void succeeded(long start) {
+		long elapsed = System.nanoTime() - start;
+		outstanding.decrementAndGet();
+		synchronized (this) {
+			latency = latency == 0 ? elapsed : (LATENCY_SMOOTHING * elapsed + (1 - LATENCY_SMOOTHING) * latency);
+			backoff = initialBackoff;
+		}
+	}
+
+	/**
+	 * Indicates that the submit has failed (no response or error response).
+	 */
+	public void failed() {
+		outstanding.decrementAndGet();
+	}
+
+	/**
+	 * Stop sending new submits to this SMSC for a while because the SMSC is
+	 * throttling or because the session is broken. Submits that are already
+	 * sent are not interrupted.
+	 */
+	public synchronized void pause() {
+		pausedUntil = System.currentTimeMillis() + backoff;
+		LOG.warn("SMSC {} paused for {}ms", name, backoff);
+		backoff = Math.min(backoff * 2, maxBackoff);
+	}
+
+	/**
+	 * Indicates if new submits can be sent to this SMSC.
+	 *
+	 * @param now
+	 *            the current time in milliseconds
+	 * @return true if the SMSC is not paused
+	 */
+	public boolean isAvailable(long now) {
+		return pausedUntil <= now;
+	}
+
+	/**
+	 * Unbind and destroy all the sessions of the pool.
+	 *
+	 * @param unbindTimeout
+	 *            the maximum time to wait for unbind response
+	 */
+	public synchronized void close(long unbindTimeout) {
+		for (int i = 0; i < sessions.length(); i++) {
+			SmppSession session = sessions.getAndSet(i, null);
+			if (session != null) {
+				session.unbind(unbindTimeout);
+				session.destroy();
+			}
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * The pool is not locked so a session that is binding is not counted.
+	 * 
+	 * @return the number of sessions of the pool that are currently bound
+	 */
+	public int getBoundSessions() {
+		int bound = 0;
+		for (int i = 0; i < sessions.length(); i++) {
+			SmppSession session = sessions.get(i);
+			if (session != null && session.isBound()) {
+				bound++;
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * @return the number of sessions in the pool
+	 */
+	public int getMaxSessions() {
+		return sessions.length();
+	}
+
+	/**
+	 * @return the maximum number of submits waiting for a response for each
+	 *         session
+	 */
+	public int getWindowSize() {
+		return configuration.getWindowSize();
+	}
+
+	/**
+	 * @return the number of submits waiting for a response
+	 */
+	public int getOutstanding() {
+		return outstanding.get();
+	}
+
+	/**
+	 * @return the moving average of response time in milliseconds (0 if no
+	 *         submit has been sent yet)
+	 */
+	public double getLatency() {
+		return latency / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * @return the time (in milliseconds) until which the SMSC is paused
+	 */
+	public long getPausedUntil() {
+		return pausedUntil;
+	}
+
+	@Override
+	public String toString() {
+		return "SmscNode " + name;
+	}
+}
@@ -0,0 +1,32 @@
+package fr.sii.ogham.sms.sender.impl.cloudhopper.balancing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distributes the submits randomly according to the weight of each SMSC. A
+ * SMSC with a weight of 2 receives twice as many submits as a SMSC with a
+ * weight of 1.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class WeightedLoadBalancingStrategy implements LoadBalancingStrategy {
+
+	@Override
+	public SmscNode select(List<SmscNode> nodes) {
+		int total = 0;
+		for (SmscNode node : nodes) {
+			total += node.getWeight();
+		}
+		int value = ThreadLocalRandom.current().nextInt(total);
+		for (SmscNode node : nodes) {
+			value -= node.getWeight();
+			if (value < 0) {
+				return node;
+			}
+		}
+		return nodes.get(nodes.size() - 1);
+	}
+
+}
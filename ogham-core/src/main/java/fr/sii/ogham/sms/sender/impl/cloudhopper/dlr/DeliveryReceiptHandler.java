@@ -0,0 +1,280 @@
+package fr.sii.ogham.sms.sender.impl.cloudhopper.dlr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cloudhopper.smpp.SmppConstants;
+import com.cloudhopper.smpp.impl.DefaultSmppSessionHandler;
+import com.cloudhopper.smpp.pdu.DeliverSm;
+import com.cloudhopper.smpp.pdu.PduRequest;
+import com.cloudhopper.smpp.pdu.PduResponse;
+import com.cloudhopper.smpp.tlv.Tlv;
+import com.cloudhopper.smpp.tlv.TlvConvertException;
+
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.sms.dlr.DeliveryReport;
+import fr.sii.ogham.sms.dlr.DeliveryReportListener;
+import fr.sii.ogham.sms.dlr.DeliveryStatus;
+import fr.sii.ogham.sms.message.PhoneNumber;
+import fr.sii.ogham.sms.message.Sms;
+
+/**
+ * SMPP session handler that processes the delivery receipts (
+ * <code>deliver_sm</code> with the delivery receipt ESM class) sent by the
+ * SMSC. Each receipt is correlated with the submission registered through
+ * {@link #register(String, Sms, PhoneNumber)} and a {@link DeliveryReport} is
+ * published to the {@link DeliveryReportListener}.
+ *
+ * <p>
+ * The message identifier is read from the <code>receipted_message_id</code>
+ * optional parameter if present (same format as the identifier returned in
+ * <code>submit_sm_resp</code>). Otherwise, it is read from the
+ * <code>id</code> field of the receipt text. Many SMSCs return a hexadecimal
+ * identifier in <code>submit_sm_resp</code> and write it in decimal in the
+ * receipt text, so the radix used to read each of them is configurable.
+ * Identifiers that are not numbers in the configured radix are correlated as
+ * is.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class DeliveryReceiptHandler extends DefaultSmppSessionHandler {
+	private static final Logger LOG = LoggerFactory.getLogger(DeliveryReceiptHandler.class);
+
+	/**
+	 * The default radix of the identifiers returned in
+	 * <code>submit_sm_resp</code>
+	 */
+	public static final int DEFAULT_SUBMIT_ID_RADIX = 16;
+
+	/**
+	 * The default radix of the identifier in the receipt text
+	 */
+	public static final int DEFAULT_RECEIPT_ID_RADIX = 10;
+
+	/**
+	 * The listener that receives the reports
+	 */
+	private final DeliveryReportListener listener;
+
+	/**
+	 * The submissions waiting for a receipt
+	 */
+	private final PendingSubmissions pending;
+
+	/**
+	 * The radix of the identifiers returned in <code>submit_sm_resp</code>
+	 */
+	private final int submitIdRadix;
+
+	/**
+	 * The radix of the identifier in the receipt text
+	 */
+	private final int receiptIdRadix;
+
+	/**
+	 * The recorder for the measures
+	 */
+	private final MetricsRecorder metrics;
+
+	/**
+	 * Initialize the handler with default radixes.
+	 *
+	 * @param listener
+	 *            the listener that receives the reports
+	 * @param maxPending
+	 *            the maximum number of submissions waiting for a receipt
+	 */
+	public DeliveryReceiptHandler(DeliveryReportListener listener, int maxPending) {
+		this(listener, new PendingSubmissions(maxPending), DEFAULT_SUBMIT_ID_RADIX, DEFAULT_RECEIPT_ID_RADIX);
+	}
+
+	/**
+	 * Initialize the handler.
+	 *
+	 * @param listener
+	 *            the listener that receives the reports
+	 * @param pending
+	 *            the store of submissions waiting for a receipt
+	 * @param submitIdRadix
+	 *            the radix of the identifiers returned in
+	 *            <code>submit_sm_resp</code>
+	 * @param receiptIdRadix
+	 *            the radix of the identifier in the receipt text
+	 */
+	public DeliveryReceiptHandler(DeliveryReportListener listener, PendingSubmissions pending, int submitIdRadix, int receiptIdRadix) {
+		this(listener, pending, submitIdRadix, receiptIdRadix, NoOpMetricsRecorder.INSTANCE);
+	}
+
+	/**
+	 * Initialize the handler.
+	 *
+	 * @param listener
+	 *            the listener that receives the reports
+	 * @param pending
+	 *            the store of submissions waiting for a receipt
+	 * @param submitIdRadix
+	 *            the radix of the identifiers returned in
+	 *            <code>submit_sm_resp</code>
+	 * @param receiptIdRadix
+	 *            the radix of the identifier in the receipt text
+	 * @param metrics
+	 *            the recorder for the measures
+	 */
+	public DeliveryReceiptHandler(DeliveryReportListener listener, PendingSubmissions pending, int submitIdRadix, int receiptIdRadix, MetricsRecorder metrics) {
+		super(LOG);
+		this.listener = listener;
+		this.pending = pending;
+		this.submitIdRadix = submitIdRadix;
+		this.receiptIdRadix = receiptIdRadix;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Register a submission so that the receipt can be correlated later.
+	 *
+	 * @param messageId
+	 *            the identifier returned by the SMSC in
+	 *            <code>submit_sm_resp</code>
+	 * @param message
+	 *            the sent message
+	 * @param recipient
+	 *            the recipient of the submission
+	 */
+	public void register(String messageId, Sms message, PhoneNumber recipient) {
+		if (messageId == null || messageId.trim().isEmpty()) {
+			LOG.warn("No message id provided by the SMSC. The delivery receipt won't be correlated");
+			return;
+		}
+		long id = parseId(messageId, submitIdRadix);
+		if (id < 0) {
+			LOG.debug("Message id '{}' is not a number in radix {}, correlated as is", messageId, submitIdRadix);
+			pending.put(messageId, message, recipient);
+			return;
+		}
+		pending.put(id, message, recipient);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public PduResponse firePduRequestReceived(PduRequest pduRequest) {
+		if (pduRequest instanceof DeliverSm) {
+			DeliverSm deliverSm = (DeliverSm) pduRequest;
+			if ((deliverSm.getEsmClass() & SmppConstants.ESM_CLASS_MT_SMSC_DELIVERY_RECEIPT) != 0) {
+				handleReceipt(deliverSm);
+			} else {
+				LOG.debug("Ignoring mobile originated message {}", deliverSm);
+			}
+		}
+		return pduRequest.createResponse();
+	}
+
+	/**
+	 * @return the store of the submissions waiting for a receipt
+	 */
+	public PendingSubmissions getPending() {
+		return pending;
+	}
+
+	private void handleReceipt(DeliverSm deliverSm) {
+		metrics.increment(MetricNames.CLOUDHOPPER_RECEIPTS);
+		String text = deliverSm.getShortMessage() == null ? "" : new String(deliverSm.getShortMessage());
+		String messageId = getTlvString(deliverSm, SmppConstants.TAG_RECEIPTED_MSG_ID);
+		long id;
+		if (messageId != null) {
+			id = parseId(messageId, submitIdRadix);
+		} else {
+			messageId = field(text, "id:");
+			id = parseId(messageId, receiptIdRadix);
+		}
+		DeliveryStatus status = getStatus(deliverSm, text);
+		String errorCode = field(text, "err:");
+		PendingSubmissions.Entry entry = new PendingSubmissions.Entry();
+		DeliveryReport report;
+		if (pending.take(id, entry) || pending.take(messageId, entry)) {
+			report = new DeliveryReport(messageId, status, errorCode, entry.getMessage(), entry.getRecipient());
+		} else {
+			LOG.debug("No pending submission for message id {}", messageId);
+			metrics.increment(MetricNames.errors(MetricNames.CLOUDHOPPER_RECEIPTS));
+			report = new DeliveryReport(messageId, status, errorCode, null, null);
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Delivery receipt received: {}", report);
+		}
+		try {
+			listener.onDeliveryReport(report);
+		} catch (RuntimeException e) {
+			LOG.error("Delivery report listener failed to handle " + report, e);
+		}
+	}
+
+	private static DeliveryStatus getStatus(DeliverSm deliverSm, String text) {
+		Tlv state = deliverSm.getOptionalParameter(SmppConstants.TAG_MSG_STATE);
+		if (state != null) {
+			try {
+				return DeliveryStatus.fromMessageState(state.getValueAsUnsignedByte());
+			} catch (TlvConvertException e) {
+				LOG.debug("Invalid message_state optional parameter", e);
+			}
+		}
+		return DeliveryStatus.fromCode(field(text, "stat:"));
+	}
+
+	private static String getTlvString(DeliverSm deliverSm, short tag) {
+		Tlv tlv = deliverSm.getOptionalParameter(tag);
+		if (tlv == null) {
+			return null;
+		}
+		try {
+			return tlv.getValueAsString();
+		} catch (TlvConvertException e) {
+			LOG.debug("Invalid receipted_message_id optional parameter", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Extract the value of a field of the receipt text. Values are separated
+	 * by spaces. The name of the field is not case sensitive.
+	 *
+	 * @param text
+	 *            the receipt text
+	 * @param name
+	 *            the name of the field including the colon
+	 * @return the value or null if not present
+	 */
+	static String field(String text, String name) {
+		int length = text.length() - name.length();
+		for (int i = 0; i <= length; i++) {
+			if ((i == 0 || text.charAt(i - 1) == ' ') && text.regionMatches(true, i, name, 0, name.length())) {
+				int start = i + name.length();
+				int end = text.indexOf(' ', start);
+				return text.substring(start, end < 0 ? text.length() : end);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Parse the identifier into a positive long.
+	 *
+	 * @param messageId
+	 *            the identifier
+	 * @param radix
+	 *            the radix to use
+	 * @return the numeric value or -1 if not parsable
+	 */
+	static long parseId(String messageId, int radix) {
+		if (messageId == null || messageId.isEmpty() || messageId.charAt(0) == '-' || messageId.charAt(0) == '+') {
+			return -1;
+		}
+		try {
+			return Long.parseLong(messageId.trim(), radix);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
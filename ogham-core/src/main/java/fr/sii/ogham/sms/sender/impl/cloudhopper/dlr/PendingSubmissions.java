@@ -0,0 +1,361 @@
+package fr.sii.ogham.sms.sender.impl.cloudhopper.dlr;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fr.sii.ogham.sms.message.PhoneNumber;
+import fr.sii.ogham.sms.message.Sms;
+
+/**
+ * Bounded store of the submissions that are waiting for a delivery receipt.
+ * Entries are indexed by the numeric value of the message identifier provided
+ * by the SMSC.
+ *
+ * <p>
+ * The store is designed to keep a very large number of outstanding
+ * submissions without generating garbage: all the arrays are allocated once
+ * with the maximum capacity, keys are primitive longs (open addressing with
+ * linear probing), insertion order is kept using slot indices and an entry
+ * only references the message and the recipient that already exist. When the
+ * store is full, the oldest submission is evicted.
+ * </p>
+ * <p>
+ * Some SMSCs return identifiers that are not numbers. Those submissions are
+ * kept apart, indexed by the identifier itself, with the same maximum
+ * capacity.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class PendingSubmissions {
+	/**
+	 * Marker for a free slot (message identifiers are never negative)
+	 */
+	private static final long FREE = -1;
+
+	/**
+	 * Marker for no slot in the insertion order links
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * The keys of the hash table
+	 */
+	private final long[] keys;
+
+	/**
+	 * The messages associated to the keys
+	 */
+	private final Sms[] messages;
+
+	/**
+	 * The recipients associated to the keys
+	 */
+	private final PhoneNumber[] recipients;
+
+	/**
+	 * Mask to apply on hash to get the index in the table
+	 */
+	private final int mask;
+
+	/**
+	 * Index of the previous slot in insertion order (-1 for the oldest)
+	 */
+	private final int[] previous;
+
+	/**
+	 * Index of the next slot in insertion order (-1 for the newest)
+	 */
+	private final int[] next;
+
+	/**
+	 * Slot of the oldest entry (-1 if empty)
+	 */
+	private int oldest = NONE;
+
+	/**
+	 * Slot of the newest entry (-1 if empty)
+	 */
+	private int newest = NONE;
+
+	/**
+	 * Maximum number of entries
+	 */
+	private final int capacity;
+
+	/**
+	 * Number of entries in the table
+	 */
+	private int size;
+
+	/**
+	 * Number of entries that have been evicted because the store was full
+	 */
+	private long evicted;
+
+	/**
+	 * The submissions whose identifier is not a number (in insertion order)
+	 */
+	private final Map<String, Entry> others;
+
+	/**
+	 * Initialize the store with the maximum number of pending submissions.
+	 *
+	 * @param capacity
+	 *            the maximum number of pending submissions
+	 */
+	public PendingSubmissions(int capacity) {
+		super();
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		// keep load factor under 0.5
+		int tableSize = Integer.highestOneBit(capacity) << 2;
+		keys = new long[tableSize];
+		Arrays.fill(keys, FREE);
+		messages = new Sms[tableSize];
+		recipients = new PhoneNumber[tableSize];
+		mask = tableSize - 1;
+		previous = new int[tableSize];
+		next = new int[tableSize];
+		this.capacity = capacity;
+		others = new LinkedHashMap<String, Entry>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				if (size() > PendingSubmissions.this.capacity) {
+					evicted++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Register a submission.
+	 *
+	 * @param messageId
+	 *            the numeric message identifier (must be positive or zero)
+	 * @param message
+	 *            the sent message
+	 * @param recipient
+	 *            the recipient of the submission
+	 */
+	public synchronized void put(long messageId, Sms message, PhoneNumber recipient) {
+		if (messageId < 0) {
+			throw new IllegalArgumentException("message id can't be negative");
+		}
+		int idx = indexOf(messageId);
+		if (keys[idx] == FREE) {
+			if (size == capacity) {
+				delete(oldest);
+				evicted++;
+				idx = indexOf(messageId);
+			}
+			size++;
+		} else {
+			unlink(idx);
+		}
+		keys[idx] = messageId;
+		messages[idx] = message;
+		recipients[idx] = recipient;
+		link(idx);
+	}
+
+	/**
+	 * Register a submission whose identifier is not a number.
+	 *
+	 * @param messageId
+	 *            the message identifier as provided by the SMSC
+	 * @param message
+	 *            the sent message
+	 * @param recipient
+	 *            the recipient of the submission
+	 */
+	public synchronized void put(String messageId, Sms message, PhoneNumber recipient) {
+		Entry entry = new Entry();
+		entry.message = message;
+		entry.recipient = recipient;
+		String key = messageId.trim();
+		// re-insert to keep insertion order
+		others.remove(key);
+		others.put(key, entry);
+	}
+
+	/**
+	 * Get and remove the submission registered with the message identifier.
+	 *
+	 * @param messageId
+	 *            the numeric message identifier
+	 * @param report
+	 *            the holder that is filled with the registered message and
+	 *            recipient
+	 * @return true if the submission has been found, false otherwise
+	 */
+	public synchronized boolean take(long messageId, Entry report) {
+		if (messageId < 0) {
+			return false;
+		}
+		int idx = indexOf(messageId);
+		if (keys[idx] == FREE) {
+			return false;
+		}
+		report.message = messages[idx];
+		report.recipient = recipients[idx];
+		delete(idx);
+		return true;
+	}
+
+	/**
+	 * Get and remove the submission registered with the non numeric message
+	 * identifier.
+	 *
+	 * @param messageId
+	 *            the message identifier as provided by the SMSC
+	 * @param report
+	 *            the holder that is filled with the registered message and
+	 *            recipient
+	 * @return true if the submission has been found, false otherwise
+	 */
+	public synchronized boolean take(String messageId, Entry report) {
+		if (messageId == null || others.isEmpty()) {
+			return false;
+		}
+		Entry entry = others.remove(messageId.trim());
+		if (entry == null) {
+			return false;
+		}
+		report.message = entry.message;
+		report.recipient = entry.recipient;
+		return true;
+	}
+
+	/**
+	 * @return the number of pending submissions
+	 */
+	public synchronized int size() {
+		return size + others.size();
+	}
+
+	/**
+	 * @return the number of submissions that have been evicted because the
+	 *         store was full
+	 */
+	public synchronized long getEvicted() {
+		return evicted;
+	}
+
+	/**
+	 * Find the slot of the key or the free slot where it should be inserted.
+	 */
+	private int indexOf(long key) {
+		int idx = hash(key) & mask;
+		while (keys[idx] != FREE && keys[idx] != key) {
+			idx = (idx + 1) & mask;
+		}
+		return idx;
+	}
+
+	/**
+	 * Free the slot and move back following entries of the same cluster so
+	 * that lookups never stop too early.
+	 */
+	private void delete(int slot) {
+		unlink(slot);
+		int free = slot;
+		int idx = slot;
+		while (true) {
+			idx = (idx + 1) & mask;
+			long key = keys[idx];
+			if (key == FREE) {
+				break;
+			}
+			int home = hash(key) & mask;
+			// move the entry only if its home slot is not between the free
+			// slot and its current slot (circularly)
+			boolean movable = free <= idx ? (home <= free || home > idx) : (home <= free && home > idx);
+			if (movable) {
+				move(idx, free);
+				free = idx;
+			}
+		}
+		keys[free] = FREE;
+		messages[free] = null;
+		recipients[free] = null;
+		size--;
+	}
+
+	/**
+	 * Move the entry to another slot keeping its position in insertion order.
+	 */
+	private void move(int from, int to) {
+		keys[to] = keys[from];
+		messages[to] = messages[from];
+		recipients[to] = recipients[from];
+		previous[to] = previous[from];
+		next[to] = next[from];
+		if (previous[to] == NONE) {
+			oldest = to;
+		} else {
+			next[previous[to]] = to;
+		}
+		if (next[to] == NONE) {
+			newest = to;
+		} else {
+			previous[next[to]] = to;
+		}
+	}
+
+	private void link(int slot) {
+		previous[slot] = newest;
+		next[slot] = NONE;
+		if (newest == NONE) {
+			oldest = slot;
+		} else {
+			next[newest] = slot;
+		}
+		newest = slot;
+	}
+
+	private void unlink(int slot) {
+		if (previous[slot] == NONE) {
+			oldest = next[slot];
+		} else {
+			next[previous[slot]] = next[slot];
+		}
+		if (next[slot] == NONE) {
+			newest = previous[slot];
+		} else {
+			previous[next[slot]] = previous[slot];
+		}
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Mutable holder for a pending submission. The same instance can be
+	 * reused for each lookup.
+	 *
+	 * @author Aurélien Baudet
+	 *
+	 */
+	public static class Entry {
+		private Sms message;
+		private PhoneNumber recipient;
+
+		public Sms getMessage() {
+			return message;
+		}
+
+		public PhoneNumber getRecipient() {
+			return recipient;
+		}
+	}
+}
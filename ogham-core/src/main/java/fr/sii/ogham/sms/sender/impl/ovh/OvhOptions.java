@@ -5,8 +5,11 @@ package fr.sii.ogham.sms.sender.impl.ovh;
  * <ul>
  * <li>noStop: do not display STOP footer. Disabled by default</li>
  * <li>tag: mark the sent SMS with a tag (20 characters max)</li>
- * <li>smsCoding: the SMS encoding. 7bits by default. If you change to UTF-8 (8bits),
- * the message limit will be 70 instead of 160</li>
+ * <li>smsCoding: the SMS encoding. If not set, the encoding is determined for
+ * each message: 7bits if all characters are part of the GSM alphabet, UTF-8
+ * otherwise. With UTF-8, the message limit is 70 instead of 160</li>
+ * <li>smsClass: how the SMS is handled by the phone. If not set, OVH default
+ * is used (stored in phone memory)</li>
  * </ul>
  * 
  * @author Aurélien Baudet
@@ -28,15 +31,25 @@ public class OvhOptions {
 	 */
 	private SmsCoding smsCoding;
 
+	/**
+	 * Option to select the class of the SMS
+	 */
+	private SmsClass smsClass;
+
 	public OvhOptions() {
 		this(true, null, null);
 	}
 
 	public OvhOptions(boolean noStop, String tag, SmsCoding smsCoding) {
+		this(noStop, tag, smsCoding, null);
+	}
+
+	public OvhOptions(boolean noStop, String tag, SmsCoding smsCoding, SmsClass smsClass) {
 		super();
 		this.noStop = noStop ? 1 : 0;
 		this.tag = tag;
 		this.smsCoding = smsCoding;
+		this.smsClass = smsClass;
 	}
 
 	public int getNoStop() {
@@ -51,6 +64,10 @@ public class OvhOptions {
 		return smsCoding;
 	}
 
+	public SmsClass getSmsClass() {
+		return smsClass;
+	}
+
 	public void setNoStop(boolean noStop) {
 		this.noStop = noStop ? 1 : 0;
 	}
@@ -62,4 +79,8 @@ public class OvhOptions {
 	public void setSmsCoding(SmsCoding smsCoding) {
 		this.smsCoding = smsCoding;
 	}
+
+	public void setSmsClass(SmsClass smsClass) {
+		this.smsClass = smsClass;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package fr.sii.ogham.sms.sender.impl.ovh;
+
+import java.util.Collections;
+import java.util.List;
+
+import fr.sii.ogham.core.util.http.HttpStatus;
+
+/**
+ * The useful information of a response of the OVH HTTP API.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class OvhResponse {
+	/**
+	 * OVH statuses under this value indicate success
+	 */
+	private static final int OK_STATUS = 200;
+
+	/**
+	 * The HTTP status
+	 */
+	private final HttpStatus httpStatus;
+
+	/**
+	 * The status provided by OVH in the JSON body (-1 if not available)
+	 */
+	private final int status;
+
+	/**
+	 * The message provided by OVH (only for errors)
+	 */
+	private final String message;
+
+	/**
+	 * The identifiers of the created SMS (one per recipient)
+	 */
+	private final List<String> smsIds;
+
+	/**
+	 * The raw body (only kept when the HTTP status is not a success)
+	 */
+	private final String body;
+
+	public OvhResponse(HttpStatus httpStatus, int status, String message, List<String> smsIds, String body) {
+		super();
+		this.httpStatus = httpStatus;
+		this.status = status;
+		this.message = message;
+		this.smsIds = smsIds == null ? Collections.<String> emptyList() : smsIds;
+		this.body = body;
+	}
+
+	/**
+	 * The message is sent if the HTTP status is a success and the status
+	 * provided by OVH is less than 200.
+	 * 
+	 * @return true if the message has been accepted by OVH
+	 */
+	public boolean isSuccess() {
+		return httpStatus.isSuccess() && status >= 0 && status < OK_STATUS;
+	}
+
+	public HttpStatus getHttpStatus() {
+		return httpStatus;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public List<String> getSmsIds() {
+		return smsIds;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("{httpStatus: ").append(httpStatus).append(", status: ").append(status);
+		if (message != null) {
+			builder.append(", message: ").append(message);
+		}
+		if (!smsIds.isEmpty()) {
+			builder.append(", smsIds: ").append(smsIds);
+		}
+		if (body != null) {
+			builder.append(", body: ").append(body);
+		}
+		return builder.append("}").toString();
+	}
+}
@@ -0,0 +1,79 @@
+package fr.sii.ogham.sms.sender.impl.ovh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+import fr.sii.ogham.core.util.IOUtils;
+import fr.sii.ogham.core.util.http.HttpStatus;
+import fr.sii.ogham.core.util.http.ResponseParser;
+
+/**
+ * Reads the JSON response of OVH directly from the stream using the Jackson
+ * streaming API. Only the fields that are needed are extracted (no tree nor
+ * intermediate string is built). If the HTTP status is not a success, the
+ * body is kept as is for logging.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class OvhResponseParser implements ResponseParser<OvhResponse> {
+	private static final String STATUS = "status";
+	private static final String MESSAGE = "message";
+	private static final String SMS_IDS = "SmsIds";
+
+	/**
+	 * Thread-safe factory
+	 */
+	private final JsonFactory factory;
+
+	public OvhResponseParser(JsonFactory factory) {
+		super();
+		this.factory = factory;
+	}
+
+	public OvhResponseParser() {
+		this(new JsonFactory());
+	}
+
+	@Override
+	public OvhResponse parse(HttpStatus httpStatus, InputStream body) throws IOException {
+		if (!httpStatus.isSuccess()) {
+			return new OvhResponse(httpStatus, -1, null, null, IOUtils.toString(body));
+		}
+		int status = -1;
+		String message = null;
+		List<String> smsIds = null;
+		JsonParser parser = factory.createJsonParser(body);
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException("OVH response should be a JSON object", parser.getCurrentLocation());
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if (STATUS.equals(field)) {
+					status = parser.getValueAsInt(-1);
+				} else if (MESSAGE.equals(field)) {
+					message = parser.getText();
+				} else if (SMS_IDS.equals(field) && value == JsonToken.START_ARRAY) {
+					smsIds = new ArrayList<>();
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						smsIds.add(parser.getText());
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+		} finally {
+			parser.close();
+		}
+		return new OvhResponse(httpStatus, status, message, smsIds, null);
+	}
+}
@@ -0,0 +1,36 @@
+package fr.sii.ogham.sms.sender.impl.ovh;
+
+/**
+ * The class of the SMS that indicates how the SMS is handled by the phone.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public enum SmsClass {
+	/**
+	 * The SMS is directly displayed and is not stored (flash SMS)
+	 */
+	FLASH(0),
+	/**
+	 * The SMS is stored in the phone memory
+	 */
+	PHONE_DISPLAY(1),
+	/**
+	 * The SMS is stored in the SIM card
+	 */
+	SIM(2),
+	/**
+	 * The SMS is transferred to the SIM toolkit application
+	 */
+	TOOLKIT(3);
+
+	private final int value;
+
+	private SmsClass(int value) {
+		this.value = value;
+	}
+
+	public int getValue() {
+		return value;
+	}
+}
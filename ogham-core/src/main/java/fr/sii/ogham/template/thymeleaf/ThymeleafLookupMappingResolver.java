@@ -10,6 +10,7 @@ import org.thymeleaf.templateresolver.ITemplateResolver;
 import org.thymeleaf.templateresolver.TemplateResolution;
 
 import fr.sii.ogham.core.util.LookupUtils;
+import fr.sii.ogham.core.util.ResolvedLookup;
 
 /**
  * <p>
@@ -93,9 +94,14 @@ public class ThymeleafLookupMappingResolver implements ITemplateResolver {
 
 	@Override
 	public TemplateResolution resolveTemplate(TemplateProcessingParameters templateProcessingParameters) {
-		return getResolver(templateProcessingParameters.getTemplateName()).resolveTemplate(
-				new TemplateProcessingParameters(templateProcessingParameters.getConfiguration(), getTemplateName(templateProcessingParameters.getTemplateName()), templateProcessingParameters
-						.getContext()));
+		ResolvedLookup<ITemplateResolver> resolved = LookupUtils.resolve(mapping, templateProcessingParameters.getTemplateName());
+		if (resolved == null || resolved.getValue() == null) {
+			// no resolver for the lookup: let Thymeleaf indicate that the
+			// template can't be resolved
+			return null;
+		}
+		return resolved.getValue().resolveTemplate(
+				new TemplateProcessingParameters(templateProcessingParameters.getConfiguration(), resolved.getRealPath(), templateProcessingParameters.getContext()));
 	}
 
 	@Override
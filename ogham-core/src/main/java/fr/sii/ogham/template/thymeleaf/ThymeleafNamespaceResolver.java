@@ -0,0 +1,94 @@
+package fr.sii.ogham.template.thymeleaf;
+
+import org.thymeleaf.TemplateProcessingParameters;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.templateresolver.TemplateResolution;
+
+/**
+ * <p>
+ * Decorator resolver used when the Thymeleaf template engine is shared with
+ * the application (Spring template engine for example). Ogham resolvers are
+ * then registered next to the application resolvers in the same engine.
+ * </p>
+ * <p>
+ * The decorated resolver only handles the templates that belong to Ogham:
+ * <ul>
+ * <li>the template name starts with the namespace (the namespace is added by
+ * the {@link ThymeleafParser} and removed before delegating)</li>
+ * <li>the template is included by an Ogham template (the context contains a
+ * variable named as the namespace)</li>
+ * </ul>
+ * Other templates are left to the other resolvers of the engine. As the
+ * template name contains the namespace, the templates parsed by Ogham never
+ * conflict with the application templates in the template cache. However,
+ * included fragments are cached by their name only, so avoid using the same
+ * fragment names for Ogham and for the application.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class ThymeleafNamespaceResolver implements ITemplateResolver {
+	/**
+	 * The prefix of the template names handled by the delegate
+	 */
+	private final String namespace;
+
+	/**
+	 * The resolver that really resolves the templates
+	 */
+	private final ITemplateResolver delegate;
+
+	public ThymeleafNamespaceResolver(String namespace, ITemplateResolver delegate) {
+		super();
+		this.namespace = namespace;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public String getName() {
+		return "NamespaceResolver(" + namespace + ")";
+	}
+
+	/**
+	 * The resolver only handles Ogham templates so it is placed before the
+	 * resolvers of the application that may handle any template.
+	 */
+	@Override
+	public Integer getOrder() {
+		return Integer.MIN_VALUE;
+	}
+
+	@Override
+	public TemplateResolution resolveTemplate(TemplateProcessingParameters templateProcessingParameters) {
+		String templateName = templateProcessingParameters.getTemplateName();
+		if (templateName.startsWith(namespace)) {
+			return delegate.resolveTemplate(new TemplateProcessingParameters(templateProcessingParameters.getConfiguration(), templateName.substring(namespace.length()),
+					templateProcessingParameters.getContext()));
+		}
+		if (isOghamContext(templateProcessingParameters.getContext())) {
+			return delegate.resolveTemplate(templateProcessingParameters);
+		}
+		// not an Ogham template: let other resolvers handle it
+		return null;
+	}
+
+	@Override
+	public void initialize() {
+		delegate.initialize();
+	}
+
+	/**
+	 * Get the prefix of the template names handled by this resolver.
+	 *
+	 * @return the namespace
+	 */
+	public String getNamespace() {
+		return namespace;
+	}
+
+	private boolean isOghamContext(IContext context) {
+		return context != null && context.getVariables().containsKey(namespace);
+	}
+}
@@ -31,10 +31,26 @@ public class ThymeleafParser implements TemplateParser {
 	 */
 	private ThymeleafContextConverter contextConverter;
 	
-	public ThymeleafParser(TemplateEngine engine, ThymeleafContextConverter contextConverter) {
+	/**
+	 * The namespace of the templates when the engine is shared (see
+	 * {@link ThymeleafNamespaceResolver}), null if the engine is dedicated to
+	 * Ogham
+	 */
+	private String namespace;
+	
+	public ThymeleafParser(TemplateEngine engine, ThymeleafContextConverter contextConverter, String namespace) {
 		super();
 		this.engine = engine;
 		this.contextConverter = contextConverter;
+		this.namespace = namespace;
+	}
+
+	public ThymeleafParser(TemplateEngine engine, ThymeleafContextConverter contextConverter) {
+		this(engine, contextConverter, null);
+	}
+
+	public ThymeleafParser(TemplateEngine engine, String namespace) {
+		this(engine, new SimpleThymeleafContextConverter(), namespace);
 	}
 
 	public ThymeleafParser(TemplateEngine engine) {
@@ -45,7 +61,15 @@ public class ThymeleafParser implements TemplateParser {
 	public Content parse(String templateName, Context ctx) throws ParseException {
 		try {
 			LOG.debug("Parsing Thymeleaf template {} with context {}...", templateName, ctx);
-			String result = engine.process(templateName, contextConverter.convert(ctx));
+			org.thymeleaf.context.Context context = contextConverter.convert(ctx);
+			String result;
+			if (namespace == null) {
+				result = engine.process(templateName, context);
+			} else {
+				// mark the context so included fragments are also resolved by Ogham
+				context.setVariable(namespace, Boolean.TRUE);
+				result = engine.process(namespace + templateName, context);
+			}
 			LOG.debug("Template {} successfully parsed with context {}. Result:", templateName);
 			LOG.debug(result);
 			return new StringContent(result);
@@ -1,5 +1,7 @@
 package fr.sii.ogham.template.thymeleaf.builder;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.thymeleaf.TemplateEngine;
@@ -12,6 +14,7 @@ import fr.sii.ogham.core.resource.resolver.ResourceResolver;
 import fr.sii.ogham.core.template.parser.TemplateParser;
 import fr.sii.ogham.template.exception.NoResolverAdapterException;
 import fr.sii.ogham.template.thymeleaf.ThymeleafLookupMappingResolver;
+import fr.sii.ogham.template.thymeleaf.ThymeleafNamespaceResolver;
 import fr.sii.ogham.template.thymeleaf.ThymeleafParser;
 import fr.sii.ogham.template.thymeleaf.adapter.ClassPathResolverAdapter;
 import fr.sii.ogham.template.thymeleaf.adapter.FileResolverAdapter;
@@ -27,12 +30,24 @@ import fr.sii.ogham.template.thymeleaf.adapter.ThymeleafResolverAdapter;
  */
 public class ThymeleafBuilder implements TemplateParserBuilder {
 	private static final Logger LOG = LoggerFactory.getLogger(ThymeleafBuilder.class);
+
+	/**
+	 * Used to generate a distinct namespace for each builder that shares a
+	 * template engine
+	 */
+	private static final AtomicInteger NAMESPACE_COUNTER = new AtomicInteger();
 	
 	/**
-	 * The Thymeleaf template engine
+	 * The Thymeleaf template engine (created on demand if not provided)
 	 */
 	private TemplateEngine engine;
 
+	/**
+	 * True if the engine is provided (and may be shared with other builders
+	 * or with the application)
+	 */
+	private boolean sharedEngine;
+
 	/**
 	 * The resolver based on lookup prefix. It wraps the general
 	 * {@link LookupMappingResolver} to be usable by Thymeleaf
@@ -58,7 +73,6 @@ public class ThymeleafBuilder implements TemplateParserBuilder {
 
 	public ThymeleafBuilder() {
 		super();
-		this.engine = new TemplateEngine();
 		this.lookupResolver = new ThymeleafLookupMappingResolver();
 		this.resolverAdapter = new FirstSupportingResolverAdapter(new ClassPathResolverAdapter(), new FileResolverAdapter(), new StringResolverAdapter());
 		prefix = "";
@@ -75,8 +89,15 @@ public class ThymeleafBuilder implements TemplateParserBuilder {
 				templateResolver.setSuffix(suffix);
 			}
 		}
-		engine.addTemplateResolver(lookupResolver);
-		return new ThymeleafParser(engine);
+		if (!sharedEngine) {
+			TemplateEngine ownEngine = getEngine();
+			ownEngine.addTemplateResolver(lookupResolver);
+			return new ThymeleafParser(ownEngine);
+		}
+		String namespace = "__ogham" + NAMESPACE_COUNTER.incrementAndGet() + "__";
+		LOG.debug("Registering Ogham resolvers in the shared thymeleaf template engine using namespace {}", namespace);
+		engine.addTemplateResolver(new ThymeleafNamespaceResolver(namespace, lookupResolver));
+		return new ThymeleafParser(engine, namespace);
 	}
 
 	/**
@@ -102,7 +123,17 @@ public class ThymeleafBuilder implements TemplateParserBuilder {
 	}
 
 	/**
-	 * By default the builder uses the default Thymeleaf template engine as-is.
+	 * <p>
+	 * By default the builder creates a Thymeleaf template engine dedicated to
+	 * Ogham.
+	 * </p>
+	 * <p>
+	 * The provided engine may be shared with the application (and its
+	 * template cache too). Ogham resolvers are added to the engine but they
+	 * only handle the templates parsed by Ogham (see
+	 * {@link ThymeleafNamespaceResolver}). The engine must not be initialized
+	 * yet (no template processed) when the builder is built.
+	 * </p>
 	 * 
 	 * @param engine
 	 *            the new Thymeleaf template engine
@@ -110,6 +141,7 @@ public class ThymeleafBuilder implements TemplateParserBuilder {
 	 */
 	public ThymeleafBuilder withTemplateEngine(TemplateEngine engine) {
 		this.engine = engine;
+		this.sharedEngine = true;
 		return this;
 	}
 
@@ -154,6 +186,9 @@ public class ThymeleafBuilder implements TemplateParserBuilder {
 	 * @return Thymeleaf template engine
 	 */
 	public TemplateEngine getEngine() {
+		if (engine == null) {
+			engine = new TemplateEngine();
+		}
 		return engine;
 	}
 }
@@ -0,0 +1,76 @@
+package fr.sii.ogham.it.load;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.builder.MessagingBuilder;
+import fr.sii.ogham.core.service.MessagingService;
+import fr.sii.ogham.email.message.Email;
+import fr.sii.ogham.helper.load.LoadAction;
+import fr.sii.ogham.helper.load.LoadDriver;
+import fr.sii.ogham.helper.load.LoadReport;
+import fr.sii.ogham.helper.load.SinkBehavior;
+import fr.sii.ogham.helper.load.SmtpSink;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public class EmailLoadTest {
+	private static final int PORT = 3035;
+
+	private SmtpSink sink;
+
+	private MessagingService oghamService;
+
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Before
+	public void setUp() throws IOException {
+		Properties props = new Properties(System.getProperties());
+		props.load(getClass().getResourceAsStream("/application.properties"));
+		props.setProperty("mail.smtp.host", "127.0.0.1");
+		props.setProperty("mail.smtp.port", String.valueOf(PORT));
+		oghamService = new MessagingBuilder().useAllDefaults(props).build();
+	}
+
+	@After
+	public void tearDown() {
+		if (sink != null) {
+			sink.stop();
+		}
+	}
+
+	@Test
+	public void allAccepted() throws IOException, InterruptedException {
+		sink = new SmtpSink(PORT, new SinkBehavior().latency(5, TimeUnit.MILLISECONDS));
+		sink.start();
+		LoadReport report = new LoadDriver().rate(50).duration(1, TimeUnit.SECONDS).concurrency(4).run(new SendEmail());
+		Assert.assertEquals("all emails should be sent", 50, report.getSucceeded());
+		Assert.assertEquals("no failure expected", 0, report.getFailures());
+		Assert.assertEquals("all emails should be received", 50, sink.getBehavior().getAccepted());
+		Assert.assertTrue("latency should include sink latency", report.getP50(TimeUnit.MILLISECONDS) >= 5);
+	}
+
+	@Test
+	public void errors() throws IOException, InterruptedException {
+		sink = new SmtpSink(PORT, new SinkBehavior().errorRate(1));
+		sink.start();
+		LoadReport report = new LoadDriver().rate(20).duration(1, TimeUnit.SECONDS).concurrency(2).run(new SendEmail());
+		Assert.assertEquals("all emails should fail", 20, report.getFailures());
+		Assert.assertEquals("sink should count errors", 20, sink.getBehavior().getErrors());
+		Assert.assertEquals("no latency when nothing succeeded", -1, report.getP99(TimeUnit.MILLISECONDS));
+	}
+
+	private final class SendEmail implements LoadAction {
+		@Override
+		public void execute(int index) throws Exception {
+			oghamService.send(new Email("Load", "body #" + index, "recipient@sii.fr"));
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package fr.sii.ogham.it.load;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.cloudhopper.smpp.SmppConstants;
+import com.cloudhopper.smpp.SmppSessionConfiguration;
+
+import fr.sii.ogham.helper.load.LoadAction;
+import fr.sii.ogham.helper.load.LoadDriver;
+import fr.sii.ogham.helper.load.LoadReport;
+import fr.sii.ogham.helper.load.SinkBehavior;
+import fr.sii.ogham.helper.load.SmppSink;
+import fr.sii.ogham.helper.load.ThrottledException;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.helper.sms.rule.SmppServerException;
+import fr.sii.ogham.sms.builder.CloudhopperSMPPBuilder;
+import fr.sii.ogham.sms.exception.message.SubmitRejectedException;
+import fr.sii.ogham.sms.message.Sender;
+import fr.sii.ogham.sms.message.Sms;
+import fr.sii.ogham.sms.sender.impl.CloudhopperSMPPSender;
+
+public class SmsLoadTest {
+	private static final int PORT = 3036;
+
+	private SmppSink sink;
+
+	private CloudhopperSMPPSender sender;
+
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Before
+	public void setUp() {
+		SmppSessionConfiguration configuration = new SmppSessionConfiguration();
+		configuration.setHost("127.0.0.1");
+		configuration.setPort(PORT);
+		sender = new CloudhopperSMPPBuilder().withSmppSessionConfiguration(configuration).build();
+	}
+
+	@After
+	public void tearDown() {
+		sender.close();
+		if (sink != null) {
+			sink.stop();
+		}
+	}
+
+	@Test
+	public void allAccepted() throws SmppServerException, InterruptedException {
+		sink = new SmppSink(PORT, new SinkBehavior().latency(5, TimeUnit.MILLISECONDS));
+		sink.start();
+		LoadReport report = new LoadDriver().rate(50).duration(1, TimeUnit.SECONDS).concurrency(4).run(new SendSms());
+		Assert.assertEquals("all sms should be sent", 50, report.getSucceeded());
+		Assert.assertEquals("no failure expected", 0, report.getFailures());
+		Assert.assertEquals("no throttling expected", 0, report.getThrottled());
+		Assert.assertEquals("all sms should be received", 50, sink.getBehavior().getAccepted());
+		Assert.assertTrue("latency should include sink latency", report.getP50(TimeUnit.MILLISECONDS) >= 5);
+	}
+
+	@Test
+	public void throttled() throws SmppServerException, InterruptedException {
+		// 20 sms in less than a second: only the first 10 are accepted
+		sink = new SmppSink(PORT, new SinkBehavior().maxPerSecond(10));
+		sink.start();
+		LoadReport report = new LoadDriver().rate(40).duration(500, TimeUnit.MILLISECONDS).concurrency(4).run(new SendSms());
+		Assert.assertEquals("sms under the limit should be sent", 10, report.getSucceeded());
+		Assert.assertEquals("sms over the limit should be throttled", 10, report.getThrottled());
+		Assert.assertEquals("throttling is not a failure", 0, report.getFailures());
+		Assert.assertEquals("sink should count accepted sms", 10, sink.getBehavior().getAccepted());
+		Assert.assertEquals("sink should count throttled sms", 10, sink.getBehavior().getThrottled());
+	}
+
+	@Test
+	public void errors() throws SmppServerException, InterruptedException {
+		sink = new SmppSink(PORT, new SinkBehavior().errorRate(1));
+		sink.start();
+		LoadReport report = new LoadDriver().rate(20).duration(1, TimeUnit.SECONDS).concurrency(2).run(new SendSms());
+		Assert.assertEquals("all sms should fail", 20, report.getFailures());
+		Assert.assertEquals("errors are not throttling", 0, report.getThrottled());
+		Assert.assertEquals("nothing should be sent", 0, report.getSucceeded());
+		Assert.assertEquals("sink should count errors", 20, sink.getBehavior().getErrors());
+		Assert.assertEquals("no latency when nothing succeeded", -1, report.getP99(TimeUnit.MILLISECONDS));
+	}
+
+	private final class SendSms implements LoadAction {
+		@Override
+		public void execute(int index) throws Exception {
+			try {
+				sender.send(new Sms("body #" + index, new Sender("+33203040506"), "0203040506"));
+			} catch (SubmitRejectedException e) {
+				if (e.getCommandStatus() == SmppConstants.STATUS_THROTTLED) {
+					throw new ThrottledException(e);
+				}
+				throw e;
+			}
+		}
+	}
+}
@@ -66,8 +66,8 @@ public class SmsSMPPDefaultsTest {
 		AssertSms.assertEquals(new SplitSms(
 				new ExpectedAddressedPhoneNumber(INTERNATIONAL_PHONE_NUMBER, TypeOfNumber.INTERNATIONAL.value(), NumberingPlanIndicator.ISDN_TELEPHONE.value()),
 				new ExpectedAddressedPhoneNumber(NATIONAL_PHONE_NUMBER, TypeOfNumber.UNKNOWN.value(), NumberingPlanIndicator.ISDN_TELEPHONE.value()),
-				"sms content with a very very very loooooooooooooooooooonnnnnnnnnnnnnnnnng message that is over 160 characters in order to test the beh",
-				"avior of the sender when message has to be split"),
+				"sms content with a very very very loooooooooooooooooooonnnnnnnnnnnnnnnnng message that is over 160 characters in order to test the behavior of the sender",
+				" when message has to be split"),
 				smppServer.getReceivedMessages());
 	}
 
@@ -1,13 +1,38 @@
 package fr.sii.ogham.ut.email.builder;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import fr.sii.ogham.core.builder.HttpTransportBuilder;
 import fr.sii.ogham.email.builder.SendGridBuilder;
 import fr.sii.ogham.email.sender.impl.SendGridSender;
+import fr.sii.ogham.email.sender.impl.sendgrid.client.DelegateSendGridClient;
 import fr.sii.ogham.email.sender.impl.sendgrid.client.SendGridClient;
 
 /**
@@ -40,6 +65,32 @@ public final class SendGridBuilderTest {
 		assertNotNull("The builder returned no sender", val);
 	}
 
+	@Test
+	public void build_withHttpClient() throws Exception {
+		final CloseableHttpClient httpClient = new HttpTransportBuilder().withMaxConnectionsPerRoute(30).buildClient();
+		instance.withApiKey("apiKey").withHttpClient(httpClient);
+
+		final SendGridSender val = instance.build();
+
+		assertNotNull("The builder returned no sender", val);
+		final CloseableHttpClient used = getHttpClient(val);
+		assertSame("The sender should use the provided HTTP client", httpClient, used);
+		assertEquals("The pool of the provided HTTP client should be used", 30, maxConcurrentRequests(used, 40));
+	}
+
+	@Test
+	public void build_withHttpProperties() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("ogham.email.sendgrid.api.key", "apiKey");
+		props.setProperty("ogham.email.sendgrid.http.maxConnectionsPerRoute", "30");
+		instance.useDefaults(props);
+
+		final SendGridSender val = instance.build();
+
+		assertNotNull("The builder returned no sender", val);
+		assertEquals("The configured pool limit should be used", 30, maxConcurrentRequests(getHttpClient(val), 40));
+	}
+
 	@Test
 	public void build_withClient() {
 		instance.withClient(mock(SendGridClient.class));
@@ -49,4 +100,67 @@ public final class SendGridBuilderTest {
 		assertNotNull("The builder returned no sender", val);
 	}
 
+	private static CloseableHttpClient getHttpClient(SendGridSender sender) {
+		assertTrue("The sender should use the synchronous client", sender.getClient() instanceof DelegateSendGridClient);
+		CloseableHttpClient httpClient = ((DelegateSendGridClient) sender.getClient()).getHttpClient();
+		assertNotNull("The sender should use a pooled HTTP client", httpClient);
+		return httpClient;
+	}
+
+	/**
+	 * Send the requests concurrently to a local server that holds them and
+	 * count how many are received at the same time (limited by the size of the
+	 * connection pool of the client)
+	 */
+	private static int maxConcurrentRequests(final CloseableHttpClient httpClient, int requests) throws Exception {
+		final AtomicInteger received = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), requests);
+		server.setExecutor(Executors.newFixedThreadPool(requests));
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				received.incrementAndGet();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				// connections are not reused by the waiting requests
+				exchange.getResponseHeaders().add("Connection", "close");
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+			}
+		});
+		server.start();
+		ExecutorService callers = Executors.newFixedThreadPool(requests);
+		try {
+			final String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+			List<Future<Void>> results = new ArrayList<>();
+			for (int i = 0; i < requests; i++) {
+				results.add(callers.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						try (CloseableHttpResponse response = httpClient.execute(new HttpGet(url))) {
+							return null;
+						}
+					}
+				}));
+			}
+			// leave time for the requests to reach the server (the others
+			// wait for a connection of the pool)
+			Thread.sleep(1000);
+			int concurrent = received.get();
+			release.countDown();
+			for (Future<Void> result : results) {
+				result.get(10, TimeUnit.SECONDS);
+			}
+			return concurrent;
+		} finally {
+			release.countDown();
+			callers.shutdownNow();
+			server.stop(0);
+			((ExecutorService) server.getExecutor()).shutdownNow();
+		}
+	}
 }
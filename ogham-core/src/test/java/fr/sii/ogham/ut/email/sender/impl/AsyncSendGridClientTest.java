@@ -0,0 +1,90 @@
+package fr.sii.ogham.ut.email.sender.impl;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sendgrid.SendGrid;
+import com.sendgrid.SendGridException;
+
+import fr.sii.ogham.core.builder.AsyncHttpTransportBuilder;
+import fr.sii.ogham.email.sender.impl.sendgrid.client.AsyncDelegateSendGridClient;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public final class AsyncSendGridClientTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Rule
+	public WireMockRule serverRule = new WireMockRule(8078);
+
+	private AsyncDelegateSendGridClient instance;
+
+	@Before
+	public void setUp() {
+		instance = new AsyncDelegateSendGridClient("key", "http://localhost:" + serverRule.port() + "/api/mail.send.json", new AsyncHttpTransportBuilder().withIoThreads(1).build());
+	}
+
+	@Test
+	public void sendAsync() throws InterruptedException, ExecutionException {
+		stubFor(post(urlEqualTo("/api/mail.send.json"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withBody("{\"message\":\"success\"}")));
+
+		instance.sendAsync(email(), null).get();
+
+		verify(postRequestedFor(urlEqualTo("/api/mail.send.json"))
+				.withHeader("Authorization", equalTo("Bearer key"))
+				.withRequestBody(containing("subject")));
+	}
+
+	@Test(expected = SendGridException.class)
+	public void send_errorResponse() throws SendGridException {
+		stubFor(post(urlEqualTo("/api/mail.send.json"))
+				.willReturn(aResponse()
+						.withStatus(403)
+						.withBody("FORBIDDEN")));
+
+		instance.send(email());
+	}
+
+	@Test
+	public void sendAsync_errorResponse() throws InterruptedException {
+		stubFor(post(urlEqualTo("/api/mail.send.json"))
+				.willReturn(aResponse()
+						.withStatus(500)
+						.withBody("ERROR")));
+
+		try {
+			instance.sendAsync(email(), null).get();
+			Assert.fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			Assert.assertTrue("cause should be a SendGridException", e.getCause() instanceof SendGridException);
+		}
+	}
+
+	private static SendGrid.Email email() {
+		SendGrid.Email email = new SendGrid.Email();
+		email.setFrom("from@example.com");
+		email.setFromName("From");
+		email.addTo("to@example.com", "To");
+		email.setSubject("subject");
+		email.setText("text");
+		return email;
+	}
+
+}
@@ -60,4 +60,9 @@ public final class SendGridClientTest {
 		instance.send(exp);
 	}
 
+	@Test(expected = IllegalStateException.class)
+	public void send_noCredentials() throws SendGridException {
+		new DelegateSendGridClient((String) null).send(new SendGrid.Email());
+	}
+
 }
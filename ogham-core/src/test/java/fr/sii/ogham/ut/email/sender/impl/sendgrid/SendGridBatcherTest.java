@@ -0,0 +1,227 @@
+package fr.sii.ogham.ut.email.sender.impl.sendgrid;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.sendgrid.SendGrid;
+import com.sendgrid.SendGridException;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.email.message.Email;
+import fr.sii.ogham.email.sender.impl.sendgrid.batch.SendGridBatcher;
+import fr.sii.ogham.email.sender.impl.sendgrid.client.SendGridClient;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+/**
+ * Test campaign for the {@link SendGridBatcher} class.
+ */
+public final class SendGridBatcherTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private SendGridClient client;
+	private SendGridBatcher instance;
+	private CountDownLatch release;
+
+	@Before
+	public void setUp() {
+		client = mock(SendGridClient.class);
+		release = new CountDownLatch(1);
+		instance = new SendGridBatcher(client, 3, 1, TimeUnit.MINUTES, Executors.newScheduledThreadPool(2));
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		instance.close();
+	}
+
+	@Test
+	public void sameContentIsCoalesced() throws InterruptedException, ExecutionException, SendGridException, MessageException {
+		doAnswer(new Blocking(release)).doNothing().when(client).send(any(SendGrid.Email.class));
+		// sent immediately: nothing to wait for
+		Future<Void> running = instance.submit(new Email(), prepared("content", "x@example.com"));
+		// grouped while the first request is running
+		Future<Void> first = instance.submit(new Email(), prepared("content", "a@example.com"));
+		Future<Void> second = instance.submit(new Email(), prepared("content", "b@example.com"));
+		Assert.assertEquals(3, instance.getPendingMessages());
+		// nothing running for this content
+		Future<Void> other = instance.submit(new Email(), prepared("other", "c@example.com"));
+		release.countDown();
+		running.get();
+		first.get();
+		second.get();
+		other.get();
+
+		ArgumentCaptor<SendGrid.Email> sent = ArgumentCaptor.forClass(SendGrid.Email.class);
+		verify(client, times(3)).send(sent.capture());
+		SendGrid.Email coalesced = null;
+		for (SendGrid.Email email : sent.getAllValues()) {
+			if (email.getSMTPAPI().jsonString().contains("a@example.com")) {
+				coalesced = email;
+			}
+		}
+		Assert.assertNotNull(coalesced);
+		String smtpapi = coalesced.getSMTPAPI().jsonString();
+		Assert.assertTrue(smtpapi.contains("b@example.com"));
+		Assert.assertFalse(smtpapi.contains("c@example.com"));
+		Assert.assertFalse(smtpapi.contains("x@example.com"));
+	}
+
+	@Test
+	public void sequentialSendingNotDelayed() throws InterruptedException, ExecutionException, SendGridException, MessageException {
+		long start = System.currentTimeMillis();
+		instance.submit(new Email(), prepared("content", "a@example.com")).get();
+		instance.submit(new Email(), prepared("content", "b@example.com")).get();
+		Assert.assertTrue(System.currentTimeMillis() - start < 30000);
+		verify(client, times(2)).send(any(SendGrid.Email.class));
+	}
+
+	@Test
+	public void batchSize() throws InterruptedException, ExecutionException, SendGridException, MessageException {
+		doAnswer(new Blocking(release)).doNothing().when(client).send(any(SendGrid.Email.class));
+		Future<Void> running = instance.submit(new Email(), prepared("content", "x@example.com"));
+		Future<Void> first = instance.submit(new Email(), prepared("content", "a@example.com", "b@example.com"));
+		Future<Void> second = instance.submit(new Email(), prepared("content", "c@example.com", "d@example.com"));
+		release.countDown();
+		running.get();
+		first.get();
+		second.get();
+
+		verify(client, times(3)).send(any(SendGrid.Email.class));
+	}
+
+	@Test
+	public void tooManyRecipientsSplit() throws InterruptedException, ExecutionException, SendGridException, MessageException {
+		release.countDown();
+		instance.submit(new Email(), prepared("content", "a@example.com", "b@example.com", "c@example.com", "d@example.com", "e@example.com", "f@example.com", "g@example.com")).get();
+
+		ArgumentCaptor<SendGrid.Email> sent = ArgumentCaptor.forClass(SendGrid.Email.class);
+		verify(client, times(3)).send(sent.capture());
+		for (SendGrid.Email email : sent.getAllValues()) {
+			Assert.assertTrue(email.getSMTPAPI().jsonString().split("@example.com").length - 1 <= 3);
+		}
+	}
+
+	@Test
+	public void recipientErrorMappedToEmail() throws InterruptedException, ExecutionException, SendGridException, MessageException {
+		doAnswer(new Blocking(release))
+			.doThrow(new SendGridException(new IOException("Sending to SendGrid failed: (400) {\"errors\":[\"Invalid address bad@example\"]}")))
+			.doNothing()
+			.when(client).send(any(SendGrid.Email.class));
+		Future<Void> running = instance.submit(new Email(), prepared("content", "x@example.com"));
+		Email bad = new Email();
+		Future<Void> failed = instance.submit(bad, prepared("content", "bad@example"));
+		Future<Void> ok = instance.submit(new Email(), prepared("content", "a@example.com"));
+		release.countDown();
+
+		running.get();
+		ok.get();
+		try {
+			failed.get();
+			Assert.fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			Assert.assertSame(bad, ((MessageException) e.getCause()).getOghamMessage());
+		}
+		verify(client, times(3)).send(any(SendGrid.Email.class));
+	}
+
+	@Test
+	public void recipientErrorMatchesWholeAddress() throws InterruptedException, ExecutionException, SendGridException, MessageException {
+		doAnswer(new Blocking(release))
+			.doThrow(new SendGridException(new IOException("Sending to SendGrid failed: (400) {\"errors\":[\"Invalid address jimbob@example.com.\"]}")))
+			.doNothing()
+			.when(client).send(any(SendGrid.Email.class));
+		Future<Void> running = instance.submit(new Email(), prepared("content", "x@example.com"));
+		Email jimbob = new Email();
+		Future<Void> failed = instance.submit(jimbob, prepared("content", "jimbob@example.com"));
+		Future<Void> bob = instance.submit(new Email(), prepared("content", "bob@example.com"));
+		release.countDown();
+
+		running.get();
+		bob.get();
+		try {
+			failed.get();
+			Assert.fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			Assert.assertSame(jimbob, ((MessageException) e.getCause()).getOghamMessage());
+		}
+		verify(client, times(3)).send(any(SendGrid.Email.class));
+	}
+
+	@Test
+	public void errorFailsAllEmails() throws InterruptedException, ExecutionException, SendGridException, MessageException {
+		doAnswer(new Blocking(release))
+			.doThrow(new SendGridException(new IOException("Sending to SendGrid failed: (500) error")))
+			.when(client).send(any(SendGrid.Email.class));
+		Future<Void> running = instance.submit(new Email(), prepared("content", "x@example.com"));
+		Future<Void> first = instance.submit(new Email(), prepared("content", "a@example.com"));
+		Future<Void> second = instance.submit(new Email(), prepared("content", "b@example.com"));
+		release.countDown();
+
+		running.get();
+		assertFailed(first);
+		assertFailed(second);
+		verify(client, times(2)).send(any(SendGrid.Email.class));
+	}
+
+	private static void assertFailed(Future<Void> result) throws InterruptedException {
+		try {
+			result.get();
+			Assert.fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof MessageException);
+		}
+	}
+
+	private static SendGrid.Email prepared(String text, String... tos) {
+		SendGrid.Email email = new SendGrid.Email();
+		email.setFrom("sender@example.com");
+		email.setFromName("Sender");
+		email.setSubject("subject");
+		email.setText(text);
+		for (String to : tos) {
+			email.addTo(to, "Name");
+		}
+		return email;
+	}
+
+	/**
+	 * Holds the first request until released so that the next emails are
+	 * grouped
+	 */
+	private static class Blocking implements Answer<Void> {
+		private final CountDownLatch release;
+
+		public Blocking(CountDownLatch release) {
+			super();
+			this.release = release;
+		}
+
+		@Override
+		public Void answer(InvocationOnMock invocation) throws Throwable {
+			release.await(5, TimeUnit.SECONDS);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package fr.sii.ogham.ut.id.generator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fr.sii.ogham.core.id.generator.IdGenerator;
+import fr.sii.ogham.core.id.generator.SequentialIdGenerator;
+import fr.sii.ogham.core.id.generator.UUIDGenerator;
+
+public class IdGeneratorTest {
+	private static final int THREADS = 8;
+	private static final int IDS_PER_THREAD = 10000;
+
+	@Test
+	public void sequential() {
+		IdGenerator generator = new SequentialIdGenerator(5);
+		Assert.assertEquals("img5", generator.generate("img"));
+		Assert.assertEquals("img6", generator.generate("img"));
+	}
+
+	@Test
+	public void sequentialConcurrentUnique() throws Exception {
+		assertUnique(new SequentialIdGenerator());
+	}
+
+	@Test
+	public void uuid() {
+		String id = new UUIDGenerator().generate("h1.gif");
+		Assert.assertTrue("should start with name", id.startsWith("h1.gif"));
+		Assert.assertTrue("should be a random UUID", id.substring("h1.gif".length()).matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"));
+	}
+
+	@Test
+	public void uuidConcurrentUnique() throws Exception {
+		assertUnique(new UUIDGenerator());
+	}
+
+	private static void assertUnique(final IdGenerator generator) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<List<String>>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				futures.add(executor.submit(new Callable<List<String>>() {
+					@Override
+					public List<String> call() throws Exception {
+						List<String> ids = new ArrayList<>(IDS_PER_THREAD);
+						for (int i = 0; i < IDS_PER_THREAD; i++) {
+							ids.add(generator.generate("img"));
+						}
+						return ids;
+					}
+				}));
+			}
+			Set<String> all = new HashSet<>();
+			for (Future<List<String>> future : futures) {
+				all.addAll(future.get());
+			}
+			Assert.assertEquals("generated ids should be unique", THREADS * IDS_PER_THREAD, all.size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package fr.sii.ogham.ut.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.condition.Condition;
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.MessagingException;
+import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.sender.MessageSender;
+import fr.sii.ogham.core.sender.MultiImplementationSender;
+import fr.sii.ogham.core.service.AsyncMessagingService;
+import fr.sii.ogham.core.service.EverySupportingMessagingService;
+import fr.sii.ogham.core.service.MessagingService;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public class AsyncMessagingServiceTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private ExecutorService executor;
+	private CountDownLatch release;
+	private BlockingService delegate;
+	private AsyncMessagingService service;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+		release = new CountDownLatch(1);
+		delegate = new BlockingService(release);
+		service = new AsyncMessagingService(delegate, executor, 5000);
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void callerNotBlocked() throws Exception {
+		Future<Void> result = service.sendAsync(new DummyMessage());
+		Assert.assertFalse(result.isDone());
+		Assert.assertEquals(1, service.getPendingMessages());
+		release.countDown();
+		result.get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(1, delegate.sent);
+		Assert.assertEquals(0, service.getPendingMessages());
+	}
+
+	@Test
+	public void failureReported() throws Exception {
+		delegate.fail = true;
+		release.countDown();
+		Future<Void> result = service.sendAsync(new DummyMessage());
+		try {
+			result.get(5, TimeUnit.SECONDS);
+			Assert.fail("should fail");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof MessageException);
+		}
+		Assert.assertEquals(0, service.getPendingMessages());
+	}
+
+	@Test
+	public void shutdownDrainsPendingMessages() throws Exception {
+		service.sendAsync(new DummyMessage());
+		service.sendAsync(new DummyMessage());
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				release.countDown();
+			}
+		}).start();
+		Assert.assertTrue(service.shutdown());
+		Assert.assertEquals(2, delegate.sent);
+	}
+
+	@Test
+	public void shutdownTimeout() throws MessageException {
+		service = new AsyncMessagingService(delegate, executor, 50);
+		service.sendAsync(new DummyMessage());
+		Assert.assertFalse(service.shutdown());
+		Assert.assertEquals(1, service.getPendingMessages());
+	}
+
+	@Test(expected = MessageException.class)
+	public void closedServiceRejectsMessages() throws MessageException {
+		service.close();
+		service.sendAsync(new DummyMessage());
+	}
+
+	@Test
+	public void concurrentSendingThroughMultiImplementationSender() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			RoutingSender a = new RoutingSender("a");
+			RoutingSender b = new RoutingSender("b");
+			MultiImplementationSender<RoutedMessage> sender = new MultiImplementationSender<RoutedMessage>() {};
+			sender.addImplementation(new TargetCondition("a"), a);
+			sender.addImplementation(new TargetCondition("b"), b);
+			AsyncMessagingService async = new AsyncMessagingService(new EverySupportingMessagingService(sender), pool, 5000);
+			List<Future<Void>> results = new ArrayList<>();
+			for (int i = 0; i < 2000; i++) {
+				results.add(async.sendAsync(new RoutedMessage(i % 2 == 0 ? "a" : "b")));
+			}
+			for (Future<Void> result : results) {
+				result.get(5, TimeUnit.SECONDS);
+			}
+			Assert.assertEquals(1000, a.sent.get());
+			Assert.assertEquals(1000, b.sent.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static class BlockingService implements MessagingService {
+		private final CountDownLatch release;
+		private volatile boolean fail;
+		private volatile int sent;
+
+		public BlockingService(CountDownLatch release) {
+			super();
+			this.release = release;
+		}
+
+		@Override
+		public synchronized void send(Message message) throws MessagingException {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessagingException(e);
+			}
+			if (fail) {
+				throw new MessagingException("failure");
+			}
+			sent++;
+		}
+	}
+
+	private static class DummyMessage implements Message {
+		@Override
+		public Content getContent() {
+			return null;
+		}
+
+		@Override
+		public void setContent(Content content) {
+			// nothing to do
+		}
+	}
+
+	private static class RoutedMessage extends DummyMessage {
+		private final String target;
+
+		public RoutedMessage(String target) {
+			super();
+			this.target = target;
+		}
+	}
+
+	private static class TargetCondition implements Condition<Message> {
+		private final String target;
+
+		public TargetCondition(String target) {
+			super();
+			this.target = target;
+		}
+
+		@Override
+		public boolean accept(Message message) {
+			return target.equals(((RoutedMessage) message).target);
+		}
+	}
+
+	private static class RoutingSender implements MessageSender {
+		private final String target;
+		private final AtomicInteger sent = new AtomicInteger();
+
+		public RoutingSender(String target) {
+			super();
+			this.target = target;
+		}
+
+		@Override
+		public void send(Message message) throws MessageException {
+			if (!target.equals(((RoutedMessage) message).target)) {
+				throw new MessageException("message routed to the wrong implementation", message);
+			}
+			sent.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package fr.sii.ogham.ut.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.sender.ConditionalSender;
+import fr.sii.ogham.core.sender.ContentTranslatorSender;
+import fr.sii.ogham.core.sender.LazySender;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.service.EverySupportingMessagingService;
+import fr.sii.ogham.core.service.WrapExceptionMessagingService;
+import fr.sii.ogham.email.message.Email;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public class ConnectionStatusTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private ConnectionStatus smsc1;
+	private ConnectionStatus smsc2;
+	private ConnectionStatus smtp;
+	private LazySender lazySender;
+	private WrapExceptionMessagingService service;
+
+	@Before
+	public void setUp() {
+		smsc1 = new ConnectionStatus("smsc1", 1, 2, 5, 20, true);
+		smsc2 = new ConnectionStatus("smsc2", 0, 2, 0, 20, false);
+		smtp = new ConnectionStatus("smtp", 1, 1, 0, 1, true);
+		lazySender = new LazySender(new Builder<ConditionalSender>() {
+			@Override
+			public ConditionalSender build() throws BuildException {
+				return new StatusSender(smtp);
+			}
+		}, Email.class);
+		ConditionalSender decorated = new ContentTranslatorSender(null, new StatusSender(smsc1, smsc2));
+		service = new WrapExceptionMessagingService(new EverySupportingMessagingService(decorated, lazySender));
+	}
+
+	@Test
+	public void collectedThroughDecorators() {
+		Assert.assertEquals(Arrays.asList(smsc1, smsc2), service.getConnectionStatuses());
+	}
+
+	@Test
+	public void lazySenderNotBuilt() {
+		service.getConnectionStatuses();
+		Assert.assertFalse(lazySender.isInitialized());
+		lazySender.warmUp();
+		Assert.assertEquals(Arrays.asList(smsc1, smsc2, smtp), service.getConnectionStatuses());
+	}
+
+	private static class StatusSender implements ConditionalSender, ConnectionStatusProvider {
+		private final List<ConnectionStatus> statuses;
+
+		public StatusSender(ConnectionStatus... statuses) {
+			super();
+			this.statuses = Arrays.asList(statuses);
+		}
+
+		@Override
+		public void send(Message message) throws MessageException {
+			// nothing to do
+		}
+
+		@Override
+		public boolean supports(Message message) {
+			return true;
+		}
+
+		@Override
+		public List<ConnectionStatus> getConnectionStatuses() {
+			return statuses;
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package fr.sii.ogham.ut.service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import fr.sii.ogham.core.builder.MessagingBuilder;
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.MessageNotSentException;
+import fr.sii.ogham.core.exception.MessagingException;
+import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.sender.ConditionalSender;
+import fr.sii.ogham.core.service.EverySupportingMessagingService;
+import fr.sii.ogham.core.service.EverySupportingMessagingService.FailureStrategy;
+import fr.sii.ogham.core.service.WrapExceptionMessagingService;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EverySupportingMessagingServiceTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Mock
+	private ConditionalSender sender1;
+
+	@Mock
+	private ConditionalSender sender2;
+
+	@Mock
+	private ConditionalSender unsupportingSender;
+
+	@Mock
+	private Message message;
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+		BDDMockito.when(sender1.supports(message)).thenReturn(true);
+		BDDMockito.when(sender2.supports(message)).thenReturn(true);
+		BDDMockito.when(unsupportingSender.supports(message)).thenReturn(false);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void sequential() throws MessagingException {
+		EverySupportingMessagingService service = new EverySupportingMessagingService(sender1, unsupportingSender, sender2);
+		service.send(message);
+		Mockito.verify(sender1).send(message);
+		Mockito.verify(sender2).send(message);
+		Mockito.verify(unsupportingSender, Mockito.never()).send(message);
+	}
+
+	@Test(expected = MessageNotSentException.class)
+	public void noSupportingSender() throws MessagingException {
+		EverySupportingMessagingService service = new EverySupportingMessagingService(Arrays.asList(unsupportingSender), executor, FailureStrategy.ALL_OR_NOTHING);
+		service.send(message);
+	}
+
+	@Test
+	public void concurrent() throws MessagingException {
+		// each sender waits for the other: it can only succeed if both are
+		// running at the same time
+		final CountDownLatch latch = new CountDownLatch(2);
+		Answer<Void> waitOther = new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				latch.countDown();
+				if (!latch.await(5, TimeUnit.SECONDS)) {
+					throw new MessageException("senders not called concurrently", message);
+				}
+				return null;
+			}
+		};
+		BDDMockito.doAnswer(waitOther).when(sender1).send(message);
+		BDDMockito.doAnswer(waitOther).when(sender2).send(message);
+		EverySupportingMessagingService service = new EverySupportingMessagingService(Arrays.asList(sender1, unsupportingSender, sender2), executor, FailureStrategy.ALL_OR_NOTHING);
+		service.send(message);
+		Mockito.verify(sender1).send(message);
+		Mockito.verify(sender2).send(message);
+		Mockito.verify(unsupportingSender, Mockito.never()).send(message);
+	}
+
+	@Test
+	public void allOrNothingFailure() throws MessagingException {
+		MessageException failure = new MessageException("failure", message);
+		BDDMockito.doThrow(failure).when(sender2).send(message);
+		EverySupportingMessagingService service = new EverySupportingMessagingService(Arrays.asList(sender1, sender2), executor, FailureStrategy.ALL_OR_NOTHING);
+		try {
+			service.send(message);
+			Assert.fail("should have failed");
+		} catch (MessageNotSentException e) {
+			Assert.assertSame(failure, e.getCause());
+		}
+	}
+
+	@Test
+	public void allOrNothingWaitsForRunningSenders() throws MessagingException {
+		// sender1 fails only once sender2 is running: sender2 can't be
+		// cancelled so its result must be awaited and reported
+		final CountDownLatch running = new CountDownLatch(1);
+		final MessageException failure1 = new MessageException("failure1", message);
+		final MessageException failure2 = new MessageException("failure2", message);
+		BDDMockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				running.await(5, TimeUnit.SECONDS);
+				throw failure1;
+			}
+		}).when(sender1).send(message);
+		BDDMockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				running.countDown();
+				Thread.sleep(200);
+				throw failure2;
+			}
+		}).when(sender2).send(message);
+		EverySupportingMessagingService service = new EverySupportingMessagingService(Arrays.asList(sender1, sender2), executor, FailureStrategy.ALL_OR_NOTHING);
+		try {
+			service.send(message);
+			Assert.fail("should have failed");
+		} catch (MessageNotSentException e) {
+			Assert.assertSame(failure1, e.getCause());
+			Assert.assertArrayEquals(new Throwable[] { failure2 }, e.getSuppressed());
+		}
+	}
+
+	@Test
+	public void bestEffortPartialFailure() throws MessagingException {
+		BDDMockito.doThrow(new MessageException("failure", message)).when(sender2).send(message);
+		EverySupportingMessagingService service = new EverySupportingMessagingService(Arrays.asList(sender1, sender2), executor, FailureStrategy.BEST_EFFORT);
+		service.send(message);
+		Mockito.verify(sender1).send(message);
+	}
+
+	@Test
+	public void bestEffortTotalFailure() throws MessagingException {
+		MessageException failure1 = new MessageException("failure1", message);
+		MessageException failure2 = new MessageException("failure2", message);
+		BDDMockito.doThrow(failure1).when(sender1).send(message);
+		BDDMockito.doThrow(failure2).when(sender2).send(message);
+		EverySupportingMessagingService service = new EverySupportingMessagingService(Arrays.asList(sender1, sender2), executor, FailureStrategy.BEST_EFFORT);
+		try {
+			service.send(message);
+			Assert.fail("should have failed");
+		} catch (MessageNotSentException e) {
+			Assert.assertSame(failure1, e.getCause());
+			Assert.assertArrayEquals(new Throwable[] { failure2 }, e.getSuppressed());
+		}
+	}
+
+	@Test
+	public void managedExecutorShutDownOnClose() throws Exception {
+		EverySupportingMessagingService service = new EverySupportingMessagingService(Arrays.asList(sender1, sender2), executor, FailureStrategy.ALL_OR_NOTHING, true);
+		service.send(message);
+		service.close();
+		Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		try {
+			service.send(message);
+			Assert.fail("should reject messages once closed");
+		} catch (MessageNotSentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void providedExecutorNotShutDownOnClose() throws MessagingException {
+		EverySupportingMessagingService service = new EverySupportingMessagingService(Arrays.asList(sender1, sender2), executor, FailureStrategy.ALL_OR_NOTHING);
+		service.send(message);
+		service.close();
+		Assert.assertFalse(executor.isShutdown());
+	}
+
+	@Test
+	public void builtDispatchPoolTerminatedOnClose() throws Exception {
+		WrapExceptionMessagingService service = (WrapExceptionMessagingService) new MessagingBuilder().withParallelDispatch(2).build();
+		ExecutorService pool = ((EverySupportingMessagingService) service.getDelegate()).getExecutor();
+		// start a thread of the pool
+		pool.submit(new Callable<Void>() {
+			@Override
+			public Void call() {
+				return null;
+			}
+		}).get(5, TimeUnit.SECONDS);
+		service.close();
+		Assert.assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void eachBuiltServiceHasItsOwnPool() throws IOException {
+		MessagingBuilder builder = new MessagingBuilder().withParallelDispatch(2);
+		WrapExceptionMessagingService first = (WrapExceptionMessagingService) builder.build();
+		WrapExceptionMessagingService second = (WrapExceptionMessagingService) builder.build();
+		first.close();
+		Assert.assertTrue(((EverySupportingMessagingService) first.getDelegate()).getExecutor().isShutdown());
+		Assert.assertFalse(((EverySupportingMessagingService) second.getDelegate()).getExecutor().isShutdown());
+		second.close();
+	}
+}
@@ -0,0 +1,104 @@
+package fr.sii.ogham.ut.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.MessagingException;
+import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.sender.ConditionalSender;
+import fr.sii.ogham.core.sender.LazySender;
+import fr.sii.ogham.core.service.EverySupportingMessagingService;
+import fr.sii.ogham.email.message.Email;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.sms.message.Sms;
+
+public class LazyInitializationTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private CountingBuilder emailBuilder;
+	private CountingBuilder smsBuilder;
+	private LazySender emailSender;
+	private LazySender smsSender;
+	private EverySupportingMessagingService service;
+
+	@Before
+	public void setUp() {
+		emailBuilder = new CountingBuilder();
+		smsBuilder = new CountingBuilder();
+		emailSender = new LazySender(emailBuilder, Email.class);
+		smsSender = new LazySender(smsBuilder, Sms.class);
+		service = new EverySupportingMessagingService(emailSender, smsSender);
+	}
+
+	@Test
+	public void notBuiltUntilUsed() throws MessagingException {
+		Assert.assertFalse(emailSender.isInitialized());
+		Assert.assertFalse(smsSender.isInitialized());
+		Sms sms = new Sms("content", "0102030405");
+		service.send(sms);
+		service.send(sms);
+		Assert.assertEquals("sms sender built once", 1, smsBuilder.builds);
+		Assert.assertEquals("email sender never built", 0, emailBuilder.builds);
+		Assert.assertEquals(2, smsBuilder.sent.size());
+	}
+
+	@Test
+	public void warmUp() {
+		service.warmUp();
+		service.warmUp();
+		Assert.assertTrue(emailSender.isInitialized());
+		Assert.assertTrue(smsSender.isInitialized());
+		Assert.assertEquals(1, emailBuilder.builds);
+		Assert.assertEquals(1, smsBuilder.builds);
+	}
+
+	@Test
+	public void buildRetriedAfterFailure() {
+		emailBuilder.fail = true;
+		try {
+			emailSender.warmUp();
+			Assert.fail("build failure should be reported");
+		} catch (BuildException e) {
+			// expected
+		}
+		Assert.assertFalse(emailSender.isInitialized());
+		emailBuilder.fail = false;
+		emailSender.warmUp();
+		Assert.assertTrue(emailSender.isInitialized());
+		Assert.assertEquals(2, emailBuilder.builds);
+	}
+
+	private static class CountingBuilder implements Builder<ConditionalSender> {
+		private int builds;
+		private boolean fail;
+		private final List<Message> sent = new ArrayList<>();
+
+		@Override
+		public ConditionalSender build() throws BuildException {
+			builds++;
+			if (fail) {
+				throw new BuildException("build failure");
+			}
+			return new ConditionalSender() {
+				@Override
+				public void send(Message message) throws MessageException {
+					sent.add(message);
+				}
+
+				@Override
+				public boolean supports(Message message) {
+					return true;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package fr.sii.ogham.ut.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.builder.Builder;
+import fr.sii.ogham.core.builder.ContentTranslatorBuilder;
+import fr.sii.ogham.core.builder.InstrumentedBuilder;
+import fr.sii.ogham.core.builder.MessagingBuilder;
+import fr.sii.ogham.core.condition.FixedCondition;
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.MessagingException;
+import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.metrics.MetricNames;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.sender.MessageSender;
+import fr.sii.ogham.core.service.MessagingService;
+import fr.sii.ogham.email.message.Email;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public class MetricsRecorderTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Test
+	public void eachServiceRecordsInItsOwnRecorder() throws MessagingException {
+		RecordingRecorder first = new RecordingRecorder();
+		RecordingRecorder second = new RecordingRecorder();
+		RecordingBuilder firstImpl = new RecordingBuilder();
+		RecordingBuilder secondImpl = new RecordingBuilder();
+		MessagingService firstService = build(first, firstImpl);
+		MessagingService secondService = build(second, secondImpl);
+
+		firstService.send(new Email("subject", "content", "to@foo.bar"));
+		Assert.assertTrue(first.names.contains(MetricNames.CONTENT_TRANSLATION));
+		Assert.assertTrue(second.names.isEmpty());
+		Assert.assertSame(first, firstImpl.recorder);
+		Assert.assertSame(second, secondImpl.recorder);
+
+		secondService.send(new Email("subject", "content", "to@foo.bar"));
+		Assert.assertTrue(second.names.contains(MetricNames.CONTENT_TRANSLATION));
+	}
+
+	@Test
+	public void notRecordedByDefault() throws MessagingException {
+		RecordingBuilder impl = new RecordingBuilder();
+		MessagingBuilder builder = new MessagingBuilder().withEmail();
+		builder.getEmailBuilder().withTemplate(new ContentTranslatorBuilder().withMultiContentSupport()).registerImplementation(new FixedCondition<Message>(true), impl);
+		builder.build().send(new Email("subject", "content", "to@foo.bar"));
+		Assert.assertNull(impl.recorder);
+	}
+
+	private static MessagingService build(MetricsRecorder recorder, RecordingBuilder impl) {
+		MessagingBuilder builder = new MessagingBuilder().withEmail().withMetricsRecorder(recorder);
+		builder.getEmailBuilder().withTemplate(new ContentTranslatorBuilder().withMultiContentSupport()).registerImplementation(new FixedCondition<Message>(true), impl);
+		return builder.build();
+	}
+
+	private static class RecordingRecorder implements MetricsRecorder {
+		private final List<String> names = Collections.synchronizedList(new ArrayList<String>());
+
+		@Override
+		public long startTimer() {
+			return 0;
+		}
+
+		@Override
+		public void stopTimer(String name, long start) {
+			names.add(name);
+		}
+
+		@Override
+		public void increment(String name) {
+			names.add(name);
+		}
+
+		@Override
+		public void record(String name, long value) {
+			names.add(name);
+		}
+	}
+
+	private static class RecordingBuilder implements Builder<MessageSender>, InstrumentedBuilder<RecordingBuilder> {
+		private MetricsRecorder recorder;
+
+		@Override
+		public RecordingBuilder withMetricsRecorder(MetricsRecorder recorder) {
+			this.recorder = recorder;
+			return this;
+		}
+
+		@Override
+		public MessageSender build() throws BuildException {
+			return new MessageSender() {
+				@Override
+				public void send(Message message) throws MessageException {
+					// nothing to do
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package fr.sii.ogham.ut.sms.encoding;
+
+import java.nio.charset.Charset;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.sms.encoding.AdaptiveSmsCharsetProvider;
+
+public class AdaptiveSmsCharsetProviderTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private final AdaptiveSmsCharsetProvider provider = new AdaptiveSmsCharsetProvider();
+
+	@Test
+	public void gsm() {
+		Assert.assertEquals(Charset.forName("UTF-8"), provider.getCharset("Hello @ ΔΦ ÄÖÑÜ §¿ àèé"));
+	}
+
+	@Test
+	public void gsmExtension() {
+		Assert.assertEquals(Charset.forName("UTF-8"), provider.getCharset("{[~]} ^ | \\ €"));
+	}
+
+	@Test
+	public void ucs2() {
+		Assert.assertEquals(Charset.forName("UTF-16BE"), provider.getCharset("accent not in GSM: ç â"));
+		Assert.assertEquals(Charset.forName("UTF-16BE"), provider.getCharset("Привет"));
+	}
+}
@@ -0,0 +1,110 @@
+package fr.sii.ogham.ut.sms.encoding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.sms.encoding.Segmentation;
+import fr.sii.ogham.sms.encoding.SegmentationUtils;
+import fr.sii.ogham.sms.encoding.SmsEncoding;
+
+public class SegmentationUtilsTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Test
+	public void gsmSingle() {
+		Segmentation segmentation = SegmentationUtils.analyze(repeat('a', 160));
+		Assert.assertEquals(SmsEncoding.GSM_7BIT, segmentation.getEncoding());
+		Assert.assertEquals(160, segmentation.getLength());
+		Assert.assertEquals(1, segmentation.getSegments());
+	}
+
+	@Test
+	public void gsmMultipart() {
+		Assert.assertEquals(2, SegmentationUtils.analyze(repeat('a', 161)).getSegments());
+		Assert.assertEquals(2, SegmentationUtils.analyze(repeat('a', 306)).getSegments());
+		Assert.assertEquals(3, SegmentationUtils.analyze(repeat('a', 307)).getSegments());
+	}
+
+	@Test
+	public void gsmExtensionUsesTwoSeptets() {
+		Segmentation segmentation = SegmentationUtils.analyze(repeat('a', 158) + "€");
+		Assert.assertEquals(SmsEncoding.GSM_7BIT, segmentation.getEncoding());
+		Assert.assertEquals(160, segmentation.getLength());
+		Assert.assertEquals(1, segmentation.getSegments());
+		Assert.assertEquals(2, SegmentationUtils.analyze(repeat('a', 159) + "[").getSegments());
+	}
+
+	@Test
+	public void ucs2() {
+		Segmentation segmentation = SegmentationUtils.analyze(repeat('a', 69) + "✓");
+		Assert.assertEquals(SmsEncoding.UCS_2, segmentation.getEncoding());
+		Assert.assertEquals(70, segmentation.getLength());
+		Assert.assertEquals(1, segmentation.getSegments());
+		Assert.assertEquals(2, SegmentationUtils.analyze(repeat('a', 70) + "✓").getSegments());
+	}
+
+	@Test
+	public void isGsm7() {
+		Assert.assertTrue(SegmentationUtils.isGsm7("Hello @ ΔΦ ÄÖÑÜ §¿ {}"));
+		Assert.assertFalse(SegmentationUtils.isGsm7("naïve"));
+	}
+
+	@Test
+	public void splitGsm() {
+		Assert.assertEquals(1, SegmentationUtils.split(bytes('a', 160), SmsEncoding.GSM_7BIT).size());
+		List<byte[]> parts = SegmentationUtils.split(bytes('a', 161), SmsEncoding.GSM_7BIT);
+		Assert.assertEquals(2, parts.size());
+		Assert.assertEquals(153, parts.get(0).length);
+		Assert.assertEquals(8, parts.get(1).length);
+	}
+
+	@Test
+	public void splitGsmKeepsEscapeSequence() {
+		byte[] content = bytes('a', 170);
+		// escape character at the end of the first part
+		content[152] = 0x1B;
+		content[153] = 0x65;
+		List<byte[]> parts = SegmentationUtils.split(content, SmsEncoding.GSM_7BIT);
+		Assert.assertEquals(2, parts.size());
+		Assert.assertEquals(152, parts.get(0).length);
+		Assert.assertEquals(0x1B, parts.get(1)[0]);
+		Assert.assertEquals(0x65, parts.get(1)[1]);
+	}
+
+	@Test
+	public void splitUcs2KeepsSurrogatePairs() {
+		Assert.assertEquals(1, SegmentationUtils.split(repeat('✓', 70).getBytes(StandardCharsets.UTF_16BE), SmsEncoding.UCS_2).size());
+		// the emoji (surrogate pair) would be split at the end of the first part
+		byte[] content = (repeat('✓', 66) + "\uD83D\uDE00" + repeat('✓', 10)).getBytes(StandardCharsets.UTF_16BE);
+		List<byte[]> parts = SegmentationUtils.split(content, SmsEncoding.UCS_2);
+		Assert.assertEquals(2, parts.size());
+		Assert.assertEquals(132, parts.get(0).length);
+		Assert.assertEquals("\uD83D\uDE00" + repeat('✓', 10), new String(parts.get(1), StandardCharsets.UTF_16BE));
+	}
+
+	@Test
+	public void splitOctets() {
+		Assert.assertEquals(1, SegmentationUtils.split(bytes('a', 140), SmsEncoding.OCTET_8BIT).size());
+		List<byte[]> parts = SegmentationUtils.split(bytes('a', 141), SmsEncoding.OCTET_8BIT);
+		Assert.assertEquals(2, parts.size());
+		Assert.assertEquals(134, parts.get(0).length);
+	}
+
+	private static byte[] bytes(char c, int count) {
+		return repeat(c, count).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static String repeat(char c, int count) {
+		StringBuilder sb = new StringBuilder(count);
+		for (int i = 0; i < count; i++) {
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,97 @@
+package fr.sii.ogham.ut.sms.message.addressing.translator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.sms.exception.message.PhoneNumberTranslatorException;
+import fr.sii.ogham.sms.message.PhoneNumber;
+import fr.sii.ogham.sms.message.addressing.AddressedPhoneNumber;
+import fr.sii.ogham.sms.message.addressing.NumberingPlanIndicator;
+import fr.sii.ogham.sms.message.addressing.TypeOfNumber;
+import fr.sii.ogham.sms.message.addressing.translator.AlphanumericCodeNumberFormatHandler;
+import fr.sii.ogham.sms.message.addressing.translator.CachingPhoneNumberTranslator;
+import fr.sii.ogham.sms.message.addressing.translator.CompositePhoneNumberTranslator;
+import fr.sii.ogham.sms.message.addressing.translator.DefaultHandler;
+import fr.sii.ogham.sms.message.addressing.translator.InternationalNumberFormatHandler;
+import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberFormat;
+import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberFormatTranslator;
+import fr.sii.ogham.sms.message.addressing.translator.PhoneNumberTranslator;
+import fr.sii.ogham.sms.message.addressing.translator.ShortCodeNumberFormatHandler;
+
+public class PhoneNumberFormatTranslatorTest {
+	private static final String[] NUMBERS = { "", "+", "1", "12345", "123456", "+1234", "+33102030405", "0102030405", "abc", "ab1", "0123456789b", "+33 1 02 03", "+abc" };
+
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Test
+	public void sameAsSenderHandlers() throws PhoneNumberTranslatorException {
+		CompositePhoneNumberTranslator expected = new CompositePhoneNumberTranslator(new AlphanumericCodeNumberFormatHandler(), new ShortCodeNumberFormatHandler(), new InternationalNumberFormatHandler(), new DefaultHandler());
+		assertSameTranslations(expected, new PhoneNumberFormatTranslator(PhoneNumberFormat.ALPHANUMERIC, PhoneNumberFormat.SHORT_CODE, PhoneNumberFormat.INTERNATIONAL));
+	}
+
+	@Test
+	public void sameAsOtherOrder() throws PhoneNumberTranslatorException {
+		CompositePhoneNumberTranslator expected = new CompositePhoneNumberTranslator(new InternationalNumberFormatHandler(), new ShortCodeNumberFormatHandler(), new DefaultHandler());
+		assertSameTranslations(expected, new PhoneNumberFormatTranslator(PhoneNumberFormat.INTERNATIONAL, PhoneNumberFormat.SHORT_CODE));
+	}
+
+	@Test
+	public void sameAsDefaultHandler() throws PhoneNumberTranslatorException {
+		assertSameTranslations(new CompositePhoneNumberTranslator(new DefaultHandler()), new PhoneNumberFormatTranslator());
+	}
+
+	@Test
+	public void cacheReturnsCopies() throws PhoneNumberTranslatorException {
+		CountingTranslator counting = new CountingTranslator(new PhoneNumberFormatTranslator(PhoneNumberFormat.INTERNATIONAL));
+		PhoneNumberTranslator translator = new CachingPhoneNumberTranslator(counting, 2);
+		AddressedPhoneNumber first = translator.translate(new PhoneNumber("+33102030405"));
+		first.setNumber("modified");
+		AddressedPhoneNumber second = translator.translate(new PhoneNumber("+33102030405"));
+		Assert.assertEquals(1, counting.calls.get());
+		Assert.assertEquals("+33102030405", second.getNumber());
+		Assert.assertEquals(TypeOfNumber.INTERNATIONAL, second.getTon());
+		Assert.assertEquals(NumberingPlanIndicator.ISDN_TELEPHONE, second.getNpi());
+	}
+
+	@Test
+	public void cacheForgetsLeastRecentlyUsed() throws PhoneNumberTranslatorException {
+		CountingTranslator counting = new CountingTranslator(new PhoneNumberFormatTranslator());
+		PhoneNumberTranslator translator = new CachingPhoneNumberTranslator(counting, 2);
+		translator.translate(new PhoneNumber("1"));
+		translator.translate(new PhoneNumber("2"));
+		translator.translate(new PhoneNumber("1"));
+		translator.translate(new PhoneNumber("3"));
+		Assert.assertEquals(3, counting.calls.get());
+		translator.translate(new PhoneNumber("1"));
+		Assert.assertEquals("1 is still cached", 3, counting.calls.get());
+		translator.translate(new PhoneNumber("2"));
+		Assert.assertEquals("2 has been forgotten", 4, counting.calls.get());
+	}
+
+	private static void assertSameTranslations(PhoneNumberTranslator expected, PhoneNumberTranslator actual) throws PhoneNumberTranslatorException {
+		for (String number : NUMBERS) {
+			Assert.assertEquals("translation of '" + number + "'", expected.translate(new PhoneNumber(number)), actual.translate(new PhoneNumber(number)));
+		}
+	}
+
+	private static class CountingTranslator implements PhoneNumberTranslator {
+		private final PhoneNumberTranslator delegate;
+		private final AtomicInteger calls = new AtomicInteger();
+
+		public CountingTranslator(PhoneNumberTranslator delegate) {
+			super();
+			this.delegate = delegate;
+		}
+
+		@Override
+		public AddressedPhoneNumber translate(PhoneNumber phoneNumber) throws PhoneNumberTranslatorException {
+			calls.incrementAndGet();
+			return delegate.translate(phoneNumber);
+		}
+	}
+}
@@ -1,7 +1,11 @@
 package fr.sii.ogham.ut.sms.sender.impl;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.jsmpp.bean.SubmitSm;
 import org.junit.Assert;
@@ -21,6 +25,9 @@ import fr.sii.ogham.helper.sms.SplitSms;
 import fr.sii.ogham.helper.sms.rule.JsmppServerRule;
 import fr.sii.ogham.helper.sms.rule.SmppServerRule;
 import fr.sii.ogham.sms.builder.CloudhopperSMPPBuilder;
+import fr.sii.ogham.sms.dlr.DeliveryReport;
+import fr.sii.ogham.sms.dlr.DeliveryReportListener;
+import fr.sii.ogham.sms.dlr.DeliveryStatus;
 import fr.sii.ogham.sms.message.Sender;
 import fr.sii.ogham.sms.message.Sms;
 import fr.sii.ogham.sms.message.addressing.NumberingPlanIndicator;
@@ -65,7 +72,17 @@ public class CloudhopperSmppTest {
 		AssertSms.assertEquals(new SplitSms(
 				new ExpectedAddressedPhoneNumber(INTERNATIONAL_PHONE_NUMBER, TypeOfNumber.UNKNOWN.value(), NumberingPlanIndicator.ISDN_TELEPHONE.value()),
 				new ExpectedAddressedPhoneNumber(NATIONAL_PHONE_NUMBER, TypeOfNumber.UNKNOWN.value(), NumberingPlanIndicator.ISDN_TELEPHONE.value()),
-				"sms content with a very very very loooooooooooooooooooonnnnnnnnnnnnnnnnng message that is over 160 characters in order to test the beh", "avior of the sender when message has to be split"),
+				"sms content with a very very very loooooooooooooooooooonnnnnnnnnnnnnnnnng message that is over 160 characters in order to test the behavior of the sender", " when message has to be split"),
+				smppServer.getReceivedMessages());
+	}
+
+	@Test
+	public void gsmMessageUpTo160CharactersNotSplit() throws MessagingException, IOException {
+		String content = "sms content with exactly one hundred and sixty characters: no need to split it as the GSM 7-bit alphabet allows 160 characters in a single SMS..................";
+		sender.send(new Sms(content, new Sender(INTERNATIONAL_PHONE_NUMBER), NATIONAL_PHONE_NUMBER));
+		AssertSms.assertEquals(new ExpectedSms(content,
+				new ExpectedAddressedPhoneNumber(INTERNATIONAL_PHONE_NUMBER, TypeOfNumber.UNKNOWN.value(), NumberingPlanIndicator.ISDN_TELEPHONE.value()),
+				new ExpectedAddressedPhoneNumber(NATIONAL_PHONE_NUMBER, TypeOfNumber.UNKNOWN.value(), NumberingPlanIndicator.ISDN_TELEPHONE.value())),
 				smppServer.getReceivedMessages());
 	}
 
@@ -92,6 +109,39 @@ public class CloudhopperSmppTest {
 		AssertSms.assertEquals(Arrays.asList(expected1, expected2), smppServer.getReceivedMessages());
 	}
 
+	@Test
+	public void deliveryReceipt() throws MessagingException, IOException, InterruptedException {
+		// Given
+		final List<DeliveryReport> reports = new ArrayList<>();
+		final CountDownLatch received = new CountDownLatch(1);
+		SmppSessionConfiguration configuration = new SmppSessionConfiguration();
+		configuration.setHost("127.0.0.1");
+		configuration.setPort(smppServer.getPort());
+		CloudhopperSMPPSender dlrSender = new CloudhopperSMPPBuilder().withSmppSessionConfiguration(configuration).withDeliveryReportListener(new DeliveryReportListener() {
+			@Override
+			public void onDeliveryReport(DeliveryReport report) {
+				reports.add(report);
+				received.countDown();
+			}
+		}).build();
+		Sms message = new Sms("sms content", new Sender(INTERNATIONAL_PHONE_NUMBER), NATIONAL_PHONE_NUMBER);
+
+		// When
+		try {
+			dlrSender.send(message);
+			Assert.assertTrue("delivery receipt received", received.await(5, TimeUnit.SECONDS));
+		} finally {
+			dlrSender.close();
+		}
+
+		// Then
+		DeliveryReport report = reports.get(0);
+		Assert.assertEquals(DeliveryStatus.DELIVERED, report.getStatus());
+		Assert.assertTrue("correlated with sent message", report.isCorrelated());
+		Assert.assertSame(message, report.getMessage());
+		Assert.assertEquals(NATIONAL_PHONE_NUMBER, report.getRecipient().getNumber());
+	}
+
 	@Test
 	@Ignore("Not yet implemented")
 	public void charsets() throws MessagingException, IOException {
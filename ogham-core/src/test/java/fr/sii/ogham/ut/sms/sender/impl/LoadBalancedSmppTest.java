@@ -0,0 +1,127 @@
+package fr.sii.ogham.ut.sms.sender.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.jsmpp.bean.SubmitSm;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.cloudhopper.smpp.SmppSessionConfiguration;
+
+import fr.sii.ogham.core.exception.MessagingException;
+import fr.sii.ogham.core.exception.builder.BuildException;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.helper.sms.rule.JsmppServerRule;
+import fr.sii.ogham.helper.sms.rule.SmppServerRule;
+import fr.sii.ogham.sms.SmsConstants.SmppConstants;
+import fr.sii.ogham.sms.SmsConstants.SmppConstants.CloudhopperConstants;
+import fr.sii.ogham.sms.builder.LoadBalancedSMPPBuilder;
+import fr.sii.ogham.sms.message.Sender;
+import fr.sii.ogham.sms.message.Sms;
+import fr.sii.ogham.sms.sender.impl.LoadBalancedSMPPSender;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.LatencyLoadBalancingStrategy;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.LeastOutstandingLoadBalancingStrategy;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.SmscNode;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.balancing.WeightedLoadBalancingStrategy;
+
+public class LoadBalancedSmppTest {
+	private static final String PHONE_NUMBER = "0203040506";
+
+	private LoadBalancedSMPPSender sender;
+
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Rule
+	public final SmppServerRule<SubmitSm> primary = new JsmppServerRule(SmppServerRule.DEFAULT_PORT);
+
+	@Rule
+	public final SmppServerRule<SubmitSm> backup = new JsmppServerRule(SmppServerRule.DEFAULT_PORT + 1);
+
+	@Before
+	public void setUp() throws BuildException {
+		Properties props = new Properties();
+		props.setProperty(SmppConstants.HOST_PROPERTY, "127.0.0.1");
+		props.setProperty(SmppConstants.PORT_PROPERTY, String.valueOf(primary.getPort()));
+		props.setProperty(CloudhopperConstants.SMSC_PROPERTY, "primary, backup");
+		props.setProperty(CloudhopperConstants.SMSC_PREFIX + "backup.port", String.valueOf(backup.getPort()));
+		props.setProperty(CloudhopperConstants.SMSC_PREFIX + "backup.sessions", "2");
+		sender = new LoadBalancedSMPPBuilder().useDefaults(props).build();
+	}
+
+	@After
+	public void tearDown() {
+		sender.close();
+	}
+
+	@Test
+	public void distributedOverSmscs() throws MessagingException, IOException {
+		for (int i = 0; i < 20; i++) {
+			sender.send(new Sms("sms content " + i, new Sender(PHONE_NUMBER), PHONE_NUMBER));
+		}
+		Assert.assertEquals(20, primary.getReceivedMessages().size() + backup.getReceivedMessages().size());
+		Assert.assertFalse("primary used", primary.getReceivedMessages().isEmpty());
+		Assert.assertFalse("backup used", backup.getReceivedMessages().isEmpty());
+	}
+
+	@Test
+	public void leastOutstanding() {
+		SmscNode busy = node("busy", 1);
+		SmscNode idle = node("idle", 1);
+		busy.started();
+		Assert.assertSame(idle, new LeastOutstandingLoadBalancingStrategy().select(Arrays.asList(busy, idle)));
+	}
+
+	@Test
+	public void leastOutstandingRelativeToWeight() {
+		SmscNode small = node("small", 1);
+		SmscNode big = node("big", 4);
+		small.started();
+		big.started();
+		big.started();
+		Assert.assertSame(big, new LeastOutstandingLoadBalancingStrategy().select(Arrays.asList(small, big)));
+	}
+
+	@Test
+	public void latencyPrefersUnmeasured() {
+		SmscNode measured = node("measured", 1);
+		SmscNode unknown = node("unknown", 1);
+		measured.succeeded(measured.started() - 1000000);
+		Assert.assertSame(unknown, new LatencyLoadBalancingStrategy().select(Arrays.asList(measured, unknown)));
+	}
+
+	@Test
+	public void weighted() {
+		SmscNode light = node("light", 1);
+		SmscNode heavy = node("heavy", 9);
+		List<SmscNode> nodes = Arrays.asList(light, heavy);
+		WeightedLoadBalancingStrategy strategy = new WeightedLoadBalancingStrategy();
+		int heavySelected = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (strategy.select(nodes) == heavy) {
+				heavySelected++;
+			}
+		}
+		Assert.assertTrue("heavy selected " + heavySelected + " times", heavySelected > 800 && heavySelected < 980);
+	}
+
+	@Test
+	public void pausedWhenThrottling() {
+		SmscNode node = node("throttling", 1);
+		long now = System.currentTimeMillis();
+		Assert.assertTrue(node.isAvailable(now));
+		node.pause();
+		Assert.assertFalse(node.isAvailable(now));
+		Assert.assertTrue(node.isAvailable(node.getPausedUntil()));
+	}
+
+	private static SmscNode node(String name, int weight) {
+		return new SmscNode(name, new SmppSessionConfiguration(), weight, 1, 1000, 10000);
+	}
+}
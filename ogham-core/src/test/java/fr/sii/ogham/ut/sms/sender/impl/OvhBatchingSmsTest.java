@@ -0,0 +1,195 @@
+package fr.sii.ogham.ut.sms.sender.impl;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+import fr.sii.ogham.core.exception.MessageException;
+import fr.sii.ogham.core.exception.MessagingException;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.util.IOUtils;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.sms.builder.OvhBatchingSmsBuilder;
+import fr.sii.ogham.sms.builder.OvhSmsBuilder;
+import fr.sii.ogham.sms.message.Sender;
+import fr.sii.ogham.sms.message.Sms;
+import fr.sii.ogham.sms.sender.impl.OvhBatchingSmsSender;
+import fr.sii.ogham.sms.sender.impl.ovh.OvhAuthParams;
+import fr.sii.ogham.sms.sender.impl.ovh.OvhOptions;
+
+public class OvhBatchingSmsTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Rule
+	public WireMockRule serverRule = new WireMockRule(8079);
+
+	private OvhBatchingSmsSender sender;
+
+	@Before
+	public void setUp() throws IOException {
+		sender = new OvhBatchingSmsBuilder()
+						.withSenderBuilder(new OvhSmsBuilder()
+							.withUrl(new URL("http://localhost:"+serverRule.port()+"/cgi-bin/sms/http2sms.cgi"))
+							.withAuthParams(new OvhAuthParams("sms-nic-foobar42", "login", "password"))
+							.withOptions(new OvhOptions()))
+						.withMaxRecipients(3)
+						.withMaxLinger(200, TimeUnit.MILLISECONDS)
+						.build();
+	}
+
+	@After
+	public void tearDown() {
+		sender.close();
+	}
+
+	@Test
+	public void sameContentIsCoalesced() throws MessagingException, IOException, InterruptedException, ExecutionException {
+		stubOk("/ovh/response/ok.json");
+		// nothing running: sent immediately
+		Future<Void> first = sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040301"));
+		// same content while the first request is running: grouped
+		Future<Void> second = sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040302"));
+		Future<Void> third = sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040303"));
+		Future<Void> other = sender.sendAsync(new Sms("other content", new Sender("0033203040506"), "0033605040304"));
+		first.get();
+		second.get();
+		third.get();
+		other.get();
+		verify(1, getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("to", equalTo("0033605040301"))
+					.withQueryParam("message", equalTo("sms content")));
+		verify(1, getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("to", equalTo("0033605040302,0033605040303"))
+					.withQueryParam("message", equalTo("sms content")));
+		verify(1, getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("to", equalTo("0033605040304"))
+					.withQueryParam("message", equalTo("other content")));
+	}
+
+	@Test
+	public void maxRecipients() throws MessagingException, IOException, InterruptedException, ExecutionException {
+		stubOk("/ovh/response/ok.json");
+		Future<Void> first = sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040301", "0033605040302"));
+		Future<Void> second = sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040303", "0033605040304"));
+		Future<Void> third = sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040305", "0033605040306"));
+		first.get();
+		second.get();
+		third.get();
+		verify(1, getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("to", equalTo("0033605040301,0033605040302")));
+		verify(1, getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("to", equalTo("0033605040303,0033605040304")));
+		verify(1, getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("to", equalTo("0033605040305,0033605040306")));
+	}
+
+	@Test
+	public void tooManyRecipientsSplit() throws MessagingException, IOException, InterruptedException, ExecutionException {
+		stubOk("/ovh/response/ok.json");
+		sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040301", "0033605040302", "0033605040303", "0033605040304", "0033605040305",
+				"0033605040306", "0033605040307")).get();
+		verify(1, getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("to", equalTo("0033605040301,0033605040302,0033605040303")));
+		verify(1, getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("to", equalTo("0033605040304,0033605040305,0033605040306")));
+		verify(1, getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("to", equalTo("0033605040307")));
+	}
+
+	@Test
+	public void sequentialSendingNotDelayed() throws MessagingException, IOException {
+		stubOk("/ovh/response/ok.json");
+		OvhBatchingSmsSender lingering = new OvhBatchingSmsBuilder()
+				.withSenderBuilder(new OvhSmsBuilder()
+					.withUrl(new URL("http://localhost:"+serverRule.port()+"/cgi-bin/sms/http2sms.cgi"))
+					.withAuthParams(new OvhAuthParams("sms-nic-foobar42", "login", "password"))
+					.withOptions(new OvhOptions()))
+				.withMaxRecipients(3)
+				.withMaxLinger(1, TimeUnit.MINUTES)
+				.build();
+		try {
+			long start = System.currentTimeMillis();
+			lingering.send(new Sms("sms content", new Sender("0033203040506"), "0033605040301"));
+			lingering.send(new Sms("sms content", new Sender("0033203040506"), "0033605040302"));
+			Assert.assertTrue("sequential sending should not wait for other messages", System.currentTimeMillis() - start < 30000);
+		} finally {
+			lingering.close();
+		}
+	}
+
+	@Test
+	public void eachMessageGetsItsResult() throws MessagingException, IOException, InterruptedException {
+		stubOk("/ovh/response/ko.json");
+		Sms first = new Sms("sms content", new Sender("0033203040506"), "0033605040301");
+		Sms second = new Sms("sms content", new Sender("0033203040506"), "0033605040302");
+		Future<Void> firstResult = sender.sendAsync(first);
+		Future<Void> secondResult = sender.sendAsync(second);
+		Assert.assertSame(first, failure(firstResult).getOghamMessage());
+		Assert.assertSame(second, failure(secondResult).getOghamMessage());
+	}
+
+	@Test
+	public void pendingMessagesReported() throws MessagingException, IOException, InterruptedException, ExecutionException {
+		stubFor(get(urlMatching(".*"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withFixedDelay(500)
+						.withHeader("Content-Type", "application/json")
+						.withBody(IOUtils.toString(OvhBatchingSmsTest.class.getResourceAsStream("/ovh/response/ok.json")))));
+		Future<Void> first = sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040301"));
+		Future<Void> second = sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040302"));
+		ConnectionStatus status = sender.getConnectionStatuses().get(0);
+		Assert.assertEquals(OvhBatchingSmsSender.STATUS_NAME, status.getName());
+		Assert.assertEquals(2, status.getPendingRequests());
+		first.get();
+		second.get();
+		// the count is updated just after the results are completed
+		for (int i = 0; i < 50 && sender.getPendingMessages() > 0; i++) {
+			Thread.sleep(100);
+		}
+		Assert.assertEquals(0, sender.getConnectionStatuses().get(0).getPendingRequests());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void nationalNumber() throws MessagingException, IOException {
+		sender.send(new Sms("sms content", new Sender("02 03 04 05 06"), "06 05 04 03 02"));
+	}
+
+	private static void stubOk(String response) throws IOException {
+		stubFor(get(urlMatching(".*"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withHeader("Content-Type", "application/json")
+						.withBody(IOUtils.toString(OvhBatchingSmsTest.class.getResourceAsStream(response)))));
+	}
+
+	private static MessageException failure(Future<Void> result) throws InterruptedException {
+		try {
+			result.get();
+			Assert.fail("Expected ExecutionException");
+			return null;
+		} catch (ExecutionException e) {
+			return (MessageException) e.getCause();
+		}
+	}
+}
@@ -11,6 +11,9 @@ import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -20,6 +23,8 @@ import org.junit.Test;
 
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
 
+import fr.sii.ogham.core.builder.AsyncHttpTransportBuilder;
+import fr.sii.ogham.core.builder.HttpTransportBuilder;
 import fr.sii.ogham.core.exception.MessagingException;
 import fr.sii.ogham.core.util.IOUtils;
 import fr.sii.ogham.helper.rule.LoggingTestRule;
@@ -29,6 +34,8 @@ import fr.sii.ogham.sms.message.Sms;
 import fr.sii.ogham.sms.sender.impl.OvhSmsSender;
 import fr.sii.ogham.sms.sender.impl.ovh.OvhAuthParams;
 import fr.sii.ogham.sms.sender.impl.ovh.OvhOptions;
+import fr.sii.ogham.sms.sender.impl.ovh.SmsClass;
+import fr.sii.ogham.sms.sender.impl.ovh.SmsCoding;
 
 public class OvhSmsTest {
 	@Rule
@@ -150,6 +157,124 @@ public class OvhSmsTest {
 					.withQueryParam("message", equalTo("sms content")));
 	}
 
+	@Test
+	public void customHttpTransport() throws MessagingException, IOException {
+		sender = new OvhSmsBuilder()
+						.withUrl(new URL("http://localhost:"+serverRule.port()+"/cgi-bin/sms/http2sms.cgi"))
+						.withAuthParams(new OvhAuthParams("sms-nic-foobar42", "login", "password"))
+						.withOptions(new OvhOptions())
+						.withHttpTransport(new HttpTransportBuilder().withMaxConnectionsPerRoute(5).withKeepAlive(5, TimeUnit.SECONDS).build())
+						.build();
+		stubFor(get(urlMatching(".*"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withHeader("Content-Type", "application/json")
+						.withBody(IOUtils.toString(getClass().getResourceAsStream("/ovh/response/ok.json")))));
+		sender.send(new Sms("sms content", new Sender("0033203040506"), "0033605040302"));
+		sender.send(new Sms("other content", new Sender("0033203040506"), "0033605040302"));
+		verify(getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("account", equalTo("sms-nic-foobar42"))
+					.withQueryParam("message", equalTo("other content")));
+	}
+
+	@Test(expected=MessagingException.class)
+	public void readTimeout() throws MessagingException, IOException {
+		sender = new OvhSmsBuilder()
+						.withUrl(new URL("http://localhost:"+serverRule.port()+"/cgi-bin/sms/http2sms.cgi"))
+						.withAuthParams(new OvhAuthParams("sms-nic-foobar42", "login", "password"))
+						.withOptions(new OvhOptions())
+						.withHttpTransport(new HttpTransportBuilder().withReadTimeout(100, TimeUnit.MILLISECONDS).build())
+						.build();
+		stubFor(get(urlMatching(".*"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withFixedDelay(1000)
+						.withHeader("Content-Type", "application/json")
+						.withBody(IOUtils.toString(getClass().getResourceAsStream("/ovh/response/ok.json")))));
+		sender.send(new Sms("sms content", new Sender("0033203040506"), "0033605040302"));
+	}
+
+	@Test
+	public void encodingDetected() throws MessagingException, IOException {
+		stubFor(get(urlMatching(".*"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withHeader("Content-Type", "application/json")
+						.withBody(IOUtils.toString(getClass().getResourceAsStream("/ovh/response/ok.json")))));
+		sender.send(new Sms("gsm content {€}", new Sender("0033203040506"), "0033605040302"));
+		sender.send(new Sms("unicode content ✓", new Sender("0033203040506"), "0033605040302"));
+		verify(getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("message", equalTo("gsm content {€}"))
+					.withQueryParam("smsCoding", equalTo("1")));
+		verify(getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("message", equalTo("unicode content ✓"))
+					.withQueryParam("smsCoding", equalTo("2")));
+	}
+
+	@Test
+	public void explicitCodingAndClass() throws MessagingException, IOException {
+		sender = new OvhSmsBuilder()
+						.withUrl(new URL("http://localhost:"+serverRule.port()+"/cgi-bin/sms/http2sms.cgi"))
+						.withAuthParams(new OvhAuthParams("sms-nic-foobar42", "login", "password"))
+						.withOptions(new OvhOptions(false, "campaign", SmsCoding.UTF_8, SmsClass.FLASH))
+						.build();
+		stubFor(get(urlMatching(".*"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withHeader("Content-Type", "application/json")
+						.withBody(IOUtils.toString(getClass().getResourceAsStream("/ovh/response/ok.json")))));
+		sender.send(new Sms("sms content", new Sender("0033203040506"), "0033605040302"));
+		verify(getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("noStop", equalTo("0"))
+					.withQueryParam("tag", equalTo("campaign"))
+					.withQueryParam("smsCoding", equalTo("2"))
+					.withQueryParam("class", equalTo("0")));
+	}
+
+	@Test
+	public void async() throws MessagingException, IOException, InterruptedException, ExecutionException {
+		sender = new OvhSmsBuilder()
+						.withUrl(new URL("http://localhost:"+serverRule.port()+"/cgi-bin/sms/http2sms.cgi"))
+						.withAuthParams(new OvhAuthParams("sms-nic-foobar42", "login", "password"))
+						.withOptions(new OvhOptions())
+						.withAsyncHttpTransport(new AsyncHttpTransportBuilder().withIoThreads(1).build())
+						.build();
+		stubFor(get(urlMatching(".*"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withHeader("Content-Type", "application/json")
+						.withBody(IOUtils.toString(getClass().getResourceAsStream("/ovh/response/ok.json")))));
+		Future<Void> first = sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040302"));
+		Future<Void> second = sender.sendAsync(new Sms("other content", new Sender("0033203040506"), "0033605040302"));
+		first.get();
+		second.get();
+		verify(getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("message", equalTo("sms content")));
+		verify(getRequestedFor(urlPathEqualTo("/cgi-bin/sms/http2sms.cgi"))
+					.withQueryParam("message", equalTo("other content")));
+	}
+
+	@Test
+	public void asyncKo() throws MessagingException, IOException, InterruptedException {
+		sender = new OvhSmsBuilder()
+						.withUrl(new URL("http://localhost:"+serverRule.port()+"/cgi-bin/sms/http2sms.cgi"))
+						.withAuthParams(new OvhAuthParams("sms-nic-foobar42", "login", "password"))
+						.withOptions(new OvhOptions())
+						.withAsyncHttpTransport(new AsyncHttpTransportBuilder().withIoThreads(1).build())
+						.build();
+		stubFor(get(urlMatching(".*"))
+				.willReturn(aResponse()
+						.withStatus(200)
+						.withHeader("Content-Type", "application/json")
+						.withBody(IOUtils.toString(getClass().getResourceAsStream("/ovh/response/ko.json")))));
+		try {
+			sender.sendAsync(new Sms("sms content", new Sender("0033203040506"), "0033605040302")).get();
+			Assert.fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			Assert.assertTrue("cause should be a MessagingException", e.getCause() instanceof MessagingException);
+		}
+	}
+
 	@Test(expected=IllegalArgumentException.class)
 	public void nationalNumber() throws MessagingException, IOException {
 		sender.send(new Sms("sms content", new Sender("02 03 04 05 06"), "06 05 04 03 02"));
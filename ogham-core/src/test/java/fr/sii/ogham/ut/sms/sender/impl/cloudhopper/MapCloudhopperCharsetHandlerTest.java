@@ -19,10 +19,13 @@ import org.mockito.internal.stubbing.defaultanswers.ReturnsSmartNulls;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import com.cloudhopper.commons.charset.CharsetUtil;
+import com.cloudhopper.smpp.SmppConstants;
 
 import fr.sii.ogham.core.charset.CharsetProvider;
 import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.sms.encoding.AdaptiveSmsCharsetProvider;
 import fr.sii.ogham.sms.exception.message.EncodingException;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.EncodedContent;
 import fr.sii.ogham.sms.sender.impl.cloudhopper.MapCloudhopperCharsetHandler;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -141,4 +144,19 @@ public class MapCloudhopperCharsetHandlerTest {
 		// when
 		charsetHandler.encode(givenContent);
 	}
+
+	@Test
+	public void encodeContentGivesDataCoding() throws EncodingException {
+		charsetHandler = new MapCloudhopperCharsetHandler(new AdaptiveSmsCharsetProvider());
+		charsetHandler.addCharset(AdaptiveSmsCharsetProvider.DEFAULT_GSM_CHARSET, CharsetUtil.NAME_GSM);
+		charsetHandler.addCharset(AdaptiveSmsCharsetProvider.DEFAULT_UCS2_CHARSET, CharsetUtil.NAME_UCS_2);
+
+		EncodedContent gsm = charsetHandler.encodeContent("hello");
+		Assert.assertEquals(SmppConstants.DATA_CODING_DEFAULT, gsm.getDataCoding());
+		Assert.assertEquals(5, gsm.getBytes().length);
+
+		EncodedContent ucs2 = charsetHandler.encodeContent("Привет");
+		Assert.assertEquals(SmppConstants.DATA_CODING_UCS2, ucs2.getDataCoding());
+		Assert.assertEquals(12, ucs2.getBytes().length);
+	}
 }
@@ -0,0 +1,97 @@
+package fr.sii.ogham.ut.sms.sender.impl.cloudhopper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.sms.message.PhoneNumber;
+import fr.sii.ogham.sms.message.Sms;
+import fr.sii.ogham.sms.sender.impl.cloudhopper.dlr.PendingSubmissions;
+
+public class PendingSubmissionsTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Test
+	public void putAndTake() {
+		PendingSubmissions pending = new PendingSubmissions(10);
+		Sms sms = new Sms("content", "0102030405");
+		PhoneNumber recipient = new PhoneNumber("0102030405");
+		pending.put(42, sms, recipient);
+		Assert.assertEquals(1, pending.size());
+
+		PendingSubmissions.Entry entry = new PendingSubmissions.Entry();
+		Assert.assertTrue(pending.take(42, entry));
+		Assert.assertSame(sms, entry.getMessage());
+		Assert.assertSame(recipient, entry.getRecipient());
+		Assert.assertEquals(0, pending.size());
+		Assert.assertFalse("already taken", pending.take(42, entry));
+		Assert.assertFalse("never registered", pending.take(43, entry));
+	}
+
+	@Test
+	public void oldestEvictedWhenFull() {
+		PendingSubmissions pending = new PendingSubmissions(3);
+		Sms sms = new Sms("content", "0102030405");
+		for (long id = 1; id <= 5; id++) {
+			pending.put(id, sms, null);
+		}
+		PendingSubmissions.Entry entry = new PendingSubmissions.Entry();
+		Assert.assertEquals(3, pending.size());
+		Assert.assertEquals(2, pending.getEvicted());
+		Assert.assertFalse(pending.take(1, entry));
+		Assert.assertFalse(pending.take(2, entry));
+		Assert.assertTrue(pending.take(3, entry));
+		Assert.assertTrue(pending.take(4, entry));
+		Assert.assertTrue(pending.take(5, entry));
+	}
+
+	@Test
+	public void nonNumericIds() {
+		PendingSubmissions pending = new PendingSubmissions(2);
+		Sms sms = new Sms("content", "0102030405");
+		PhoneNumber recipient = new PhoneNumber("0102030405");
+		pending.put("msg-1", sms, recipient);
+		pending.put("msg-2", sms, null);
+		pending.put("msg-3", sms, null);
+		Assert.assertEquals(2, pending.size());
+		Assert.assertEquals(1, pending.getEvicted());
+
+		PendingSubmissions.Entry entry = new PendingSubmissions.Entry();
+		Assert.assertFalse("evicted", pending.take("msg-1", entry));
+		Assert.assertTrue(pending.take(" msg-2 ", entry));
+		Assert.assertSame(sms, entry.getMessage());
+		Assert.assertFalse("already taken", pending.take("msg-2", entry));
+		Assert.assertFalse("never registered", pending.take("other", entry));
+		Assert.assertEquals(1, pending.size());
+	}
+
+	@Test
+	public void sameAsMap() {
+		int capacity = 1000;
+		PendingSubmissions pending = new PendingSubmissions(capacity);
+		Map<Long, Sms> expected = new HashMap<>();
+		Random random = new Random(1);
+		PendingSubmissions.Entry entry = new PendingSubmissions.Entry();
+		for (int i = 0; i < 100000; i++) {
+			long id = random.nextInt(5000);
+			if (random.nextBoolean() && expected.size() < capacity) {
+				Sms sms = new Sms("content" + i, "0102030405");
+				pending.put(id, sms, null);
+				expected.put(id, sms);
+			} else {
+				Sms sms = expected.remove(id);
+				Assert.assertEquals(sms != null, pending.take(id, entry));
+				if (sms != null) {
+					Assert.assertSame(sms, entry.getMessage());
+				}
+			}
+			Assert.assertEquals(expected.size(), pending.size());
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package fr.sii.ogham.ut.template;
+
+import java.util.Locale;
+import java.util.Map.Entry;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.exception.handler.ContentTranslatorException;
+import fr.sii.ogham.core.exception.template.ContextException;
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.message.content.MayHaveStringContent;
+import fr.sii.ogham.core.message.content.StringContent;
+import fr.sii.ogham.core.message.content.TemplateContent;
+import fr.sii.ogham.core.template.context.LocaleContext;
+import fr.sii.ogham.core.template.context.SimpleContext;
+import fr.sii.ogham.core.translator.content.CachingTemplateTranslator;
+import fr.sii.ogham.core.translator.content.ContentTranslator;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public class CachingTemplateTranslatorTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private CountingTranslator delegate;
+
+	@Before
+	public void setUp() {
+		delegate = new CountingTranslator();
+	}
+
+	@Test
+	public void sameTemplateAndValues() throws ContentTranslatorException {
+		CachingTemplateTranslator translator = new CachingTemplateTranslator(delegate, 10, 60000);
+		Content first = translator.translate(new TemplateContent("alert", new SimpleContext("name", "disk")));
+		Content second = translator.translate(new TemplateContent("alert", new SimpleContext("name", "disk")));
+		Assert.assertEquals("alert:{name=disk}", ((MayHaveStringContent) second).asString());
+		Assert.assertEquals(first, second);
+		Assert.assertNotSame("a copy is provided each time", first, second);
+		Assert.assertEquals(1, delegate.calls);
+	}
+
+	@Test
+	public void differentValuesOrLocale() throws ContentTranslatorException {
+		CachingTemplateTranslator translator = new CachingTemplateTranslator(delegate, 10, 60000);
+		translator.translate(new TemplateContent("alert", new SimpleContext("name", "disk")));
+		translator.translate(new TemplateContent("alert", new SimpleContext("name", "cpu")));
+		translator.translate(new TemplateContent("other", new SimpleContext("name", "cpu")));
+		translator.translate(new TemplateContent("alert", new LocaleContext(new SimpleContext("name", "cpu"), Locale.FRENCH)));
+		translator.translate(new TemplateContent("alert", new LocaleContext(new SimpleContext("name", "cpu"), Locale.FRENCH)));
+		Assert.assertEquals(4, delegate.calls);
+	}
+
+	@Test
+	public void leastRecentlyUsedForgotten() throws ContentTranslatorException {
+		CachingTemplateTranslator translator = new CachingTemplateTranslator(delegate, 2, 60000);
+		translator.translate(new TemplateContent("a", new SimpleContext("name", "disk")));
+		translator.translate(new TemplateContent("b", new SimpleContext("name", "disk")));
+		translator.translate(new TemplateContent("a", new SimpleContext("name", "disk")));
+		translator.translate(new TemplateContent("c", new SimpleContext("name", "disk")));
+		Assert.assertEquals(3, delegate.calls);
+		translator.translate(new TemplateContent("a", new SimpleContext("name", "disk")));
+		Assert.assertEquals(3, delegate.calls);
+		translator.translate(new TemplateContent("b", new SimpleContext("name", "disk")));
+		Assert.assertEquals(4, delegate.calls);
+	}
+
+	@Test
+	public void expired() throws ContentTranslatorException, InterruptedException {
+		CachingTemplateTranslator translator = new CachingTemplateTranslator(delegate, 10, 1);
+		translator.translate(new TemplateContent("alert", new SimpleContext("name", "disk")));
+		Thread.sleep(20);
+		translator.translate(new TemplateContent("alert", new SimpleContext("name", "disk")));
+		Assert.assertEquals(2, delegate.calls);
+	}
+
+	@Test
+	public void otherContentsDelegated() throws ContentTranslatorException {
+		CachingTemplateTranslator translator = new CachingTemplateTranslator(delegate, 10, 60000);
+		StringContent content = new StringContent("not a template");
+		Assert.assertSame(content, translator.translate(content));
+		Assert.assertEquals(0, delegate.calls);
+	}
+
+	private static class CountingTranslator implements ContentTranslator {
+		private int calls;
+
+		@Override
+		public Content translate(Content content) throws ContentTranslatorException {
+			if (!(content instanceof TemplateContent)) {
+				return content;
+			}
+			calls++;
+			try {
+				StringBuilder sb = new StringBuilder(((TemplateContent) content).getPath()).append(":{");
+				for (Entry<String, Object> entry : ((TemplateContent) content).getContext().getVariables().entrySet()) {
+					sb.append(entry.getKey()).append("=").append(entry.getValue());
+				}
+				return new StringContent(sb.append("}").toString());
+			} catch (ContextException e) {
+				throw new ContentTranslatorException("fake evaluation failed", e);
+			}
+		}
+	}
+}
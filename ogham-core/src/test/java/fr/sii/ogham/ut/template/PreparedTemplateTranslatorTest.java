@@ -0,0 +1,152 @@
+package fr.sii.ogham.ut.template;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.exception.handler.ContentTranslatorException;
+import fr.sii.ogham.core.exception.template.ContextException;
+import fr.sii.ogham.core.message.content.Content;
+import fr.sii.ogham.core.message.content.MayHaveStringContent;
+import fr.sii.ogham.core.message.content.PreparedTemplateContent;
+import fr.sii.ogham.core.message.content.StringContent;
+import fr.sii.ogham.core.message.content.TemplateContent;
+import fr.sii.ogham.core.template.context.SimpleContext;
+import fr.sii.ogham.core.translator.content.ContentTranslator;
+import fr.sii.ogham.core.translator.content.PreparedTemplateTranslator;
+import fr.sii.ogham.email.attachment.Attachment;
+import fr.sii.ogham.email.message.content.ContentWithAttachments;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public class PreparedTemplateTranslatorTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private FakeTemplateTranslator delegate;
+	private PreparedTemplateTranslator translator;
+
+	@Before
+	public void setUp() {
+		delegate = new FakeTemplateTranslator();
+		translator = new PreparedTemplateTranslator(delegate);
+	}
+
+	@Test
+	public void templateEvaluatedOnce() throws ContentTranslatorException {
+		delegate.template = "<html><body>Hello ${name}, ${company} offers you ${code}</body></html>";
+		PreparedTemplateContent template = new PreparedTemplateContent("campaign", new SimpleContext("company", "SII"), "name", "code");
+		Content first = translator.translate(template.personalize(new SimpleContext("name", "Alice").addValue("code", 42)));
+		Content second = translator.translate(template.personalize(new SimpleContext("name", "Bob & <Co>").addValue("code", "ABC")));
+		Assert.assertEquals("<html><body>Hello Alice, SII offers you 42</body></html>", ((MayHaveStringContent) first).asString());
+		Assert.assertEquals("<html><body>Hello Bob &amp; &lt;Co&gt;, SII offers you ABC</body></html>", ((MayHaveStringContent) second).asString());
+		Assert.assertEquals(1, delegate.calls);
+	}
+
+	@Test
+	public void textNotEscaped() throws ContentTranslatorException {
+		delegate.template = "Hello ${name}";
+		PreparedTemplateContent template = new PreparedTemplateContent("campaign", new SimpleContext("company", "SII"), "name");
+		Content content = translator.translate(template.personalize(new SimpleContext("name", "Bob & Co")));
+		Assert.assertEquals("Hello Bob & Co", ((MayHaveStringContent) content).asString());
+	}
+
+	@Test
+	public void attachmentsShared() throws ContentTranslatorException {
+		delegate.template = "<html><body><img src=\"cid:0\" />${name}</body></html>";
+		delegate.attachment = new Attachment("logo.png", new byte[] { 1, 2, 3 });
+		PreparedTemplateContent template = new PreparedTemplateContent("campaign", new SimpleContext("company", "SII"), "name");
+		ContentWithAttachments first = (ContentWithAttachments) translator.translate(template.personalize(new SimpleContext("name", "Alice")));
+		ContentWithAttachments second = (ContentWithAttachments) translator.translate(template.personalize(new SimpleContext("name", "Bob")));
+		Assert.assertEquals("<html><body><img src=\"cid:0\" />Alice</body></html>", first.asString());
+		Assert.assertEquals("<html><body><img src=\"cid:0\" />Bob</body></html>", second.asString());
+		Assert.assertEquals(Arrays.asList(delegate.attachment), first.getAttachments());
+		Assert.assertNotSame(first.getAttachments(), second.getAttachments());
+		Assert.assertEquals(1, delegate.calls);
+	}
+
+	@Test
+	public void missingValues() throws ContentTranslatorException {
+		delegate.template = "Hello ${name}${code}";
+		PreparedTemplateContent template = new PreparedTemplateContent("campaign", new SimpleContext("company", "SII"), "name", "code");
+		Content content = translator.translate(template.personalize(new SimpleContext("name", "Alice")));
+		Assert.assertEquals("Hello Alice", ((MayHaveStringContent) content).asString());
+	}
+
+	@Test
+	public void attributeValueSubstituted() throws ContentTranslatorException {
+		delegate.template = "<html><body><img alt=\"${name}\" src=\"cid:0\" /></body></html>";
+		PreparedTemplateContent template = new PreparedTemplateContent("campaign", new SimpleContext("company", "SII"), "name");
+		Content content = translator.translate(template.personalize(new SimpleContext("name", "Bob & \"Co\"")));
+		Assert.assertEquals("<html><body><img alt=\"Bob &amp; &quot;Co&quot;\" src=\"cid:0\" /></body></html>", ((MayHaveStringContent) content).asString());
+		Assert.assertEquals(1, delegate.calls);
+	}
+
+	@Test
+	public void linkParameterEvaluatedForEachMessage() throws ContentTranslatorException {
+		delegate.template = "<html><body><a href=\"http://example.com/offer?code=@{code}&amp;lang=fr\">${name}</a></body></html>";
+		PreparedTemplateContent template = new PreparedTemplateContent("campaign", new SimpleContext("company", "SII"), "name", "code");
+		Content first = translator.translate(template.personalize(new SimpleContext("name", "Alice").addValue("code", "A B&C=1")));
+		Content second = translator.translate(template.personalize(new SimpleContext("name", "Bob").addValue("code", "42")));
+		Assert.assertEquals("<html><body><a href=\"http://example.com/offer?code=A+B%26C%3D1&amp;lang=fr\">Alice</a></body></html>", ((MayHaveStringContent) first).asString());
+		Assert.assertEquals("<html><body><a href=\"http://example.com/offer?code=42&amp;lang=fr\">Bob</a></body></html>", ((MayHaveStringContent) second).asString());
+		Assert.assertEquals("prepared then evaluated for each message", 3, delegate.calls);
+	}
+
+	@Test
+	public void unescapedValueEvaluatedForEachMessage() throws ContentTranslatorException {
+		delegate.template = "<html><body>Hello $U{name}</body></html>";
+		PreparedTemplateContent template = new PreparedTemplateContent("campaign", new SimpleContext("company", "SII"), "name");
+		Content content = translator.translate(template.personalize(new SimpleContext("name", "<b>Bob</b>")));
+		Assert.assertEquals("<html><body>Hello <b>Bob</b></body></html>", ((MayHaveStringContent) content).asString());
+	}
+
+	@Test
+	public void otherContentsDelegated() throws ContentTranslatorException {
+		delegate.template = "Hello ${name}";
+		Content content = translator.translate(new TemplateContent("simple", new SimpleContext("name", "Alice")));
+		Assert.assertEquals("Hello Alice", ((MayHaveStringContent) content).asString());
+		translator.translate(new TemplateContent("simple", new SimpleContext("name", "Bob")));
+		Assert.assertEquals(2, delegate.calls);
+	}
+
+	/**
+	 * Evaluates the template like a template engine would: ${variable} is
+	 * replaced by the value (escaped if the template is HTML), $U{variable} by
+	 * the unescaped value and @{variable} by the URL-encoded value
+	 */
+	private static class FakeTemplateTranslator implements ContentTranslator {
+		private String template;
+		private Attachment attachment;
+		private int calls;
+
+		@Override
+		public Content translate(Content content) throws ContentTranslatorException {
+			if (!(content instanceof TemplateContent)) {
+				return content;
+			}
+			calls++;
+			try {
+				String result = template;
+				boolean html = template.startsWith("<html>");
+				for (Entry<String, Object> entry : ((TemplateContent) content).getContext().getVariables().entrySet()) {
+					String value = String.valueOf(entry.getValue());
+					result = result.replace("${" + entry.getKey() + "}", html ? StringEscapeUtils.escapeHtml4(value) : value);
+					result = result.replace("$U{" + entry.getKey() + "}", value);
+					result = result.replace("@{" + entry.getKey() + "}", URLEncoder.encode(value, "UTF-8"));
+				}
+				StringContent evaluated = new StringContent(result);
+				return attachment == null ? evaluated : new ContentWithAttachments(evaluated, new ArrayList<>(Arrays.asList(attachment)));
+			} catch (ContextException | UnsupportedEncodingException e) {
+				throw new ContentTranslatorException("fake evaluation failed", e);
+			}
+		}
+	}
+}
@@ -9,6 +9,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
 import fr.sii.ogham.core.builder.TemplateBuilder;
 import fr.sii.ogham.core.exception.template.ParseException;
@@ -91,6 +93,25 @@ public class ThymeleafParserTest {
 		AssertTemplate.assertSimilar("/template/thymeleaf/expected/locale_foo_42_en.txt", content);
 	}
 	
+	@Test
+	public void sharedEngine() throws ParseException, IOException {
+		TemplateEngine engine = new TemplateEngine();
+		ClassLoaderTemplateResolver applicationResolver = new ClassLoaderTemplateResolver();
+		applicationResolver.setPrefix("template/thymeleaf/source/fragments/");
+		applicationResolver.setSuffix(".html");
+		applicationResolver.setOrder(1);
+		engine.addTemplateResolver(applicationResolver);
+		TemplateParser sharedParser = new TemplateBuilder()
+					.registerTemplateParser(new ThymeleafBuilder().withTemplateEngine(engine))
+					.useDefaultResolvers()
+					.withPrefix("/template/thymeleaf/source/")
+					.build();
+		Content content = sharedParser.parse("classpath:layout.html", new BeanContext(new NestedBean(new SimpleBean("foo", 42))));
+		AssertTemplate.assertSimilar("/template/thymeleaf/expected/layout_foo_42.html", content);
+		String applicationTemplate = engine.process("header", new org.thymeleaf.context.Context());
+		Assert.assertTrue("application template should be resolved by application resolver", applicationTemplate.contains("Thymeleaf simple"));
+	}
+	
 	@Test(expected=ParseException.class)
 	public void invalid() throws ParseException, IOException {
 		parser.parse("classpath:invalid.html", new BeanContext(new NestedBean(new SimpleBean("foo", 42))));
@@ -0,0 +1,113 @@
+package fr.sii.ogham.ut.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.util.concurrent.Batcher;
+import fr.sii.ogham.core.util.concurrent.Batcher.BatchHandler;
+import fr.sii.ogham.core.util.concurrent.Batcher.Entry;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public class BatcherTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private RecordingHandler handler;
+	private Batcher<String, String> batcher;
+
+	@Before
+	public void setUp() {
+		handler = new RecordingHandler();
+		batcher = new Batcher<>(handler, 3, 1, TimeUnit.MINUTES, Executors.newScheduledThreadPool(2));
+	}
+
+	@After
+	public void tearDown() {
+		handler.release.countDown();
+		batcher.close();
+	}
+
+	@Test
+	public void notDelayedWhenNothingRunning() throws Exception {
+		handler.release.countDown();
+		batcher.submit("key", "a", 1, null).get(5, TimeUnit.SECONDS);
+		batcher.submit("key", "b", 1, null).get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(batches("a", "b"), handler.batches);
+	}
+
+	@Test
+	public void groupedWhileRunning() throws Exception {
+		Future<Void> a = batcher.submit("key", "a", 1, null);
+		Future<Void> b = batcher.submit("key", "b", 1, null);
+		Future<Void> c = batcher.submit("key", "c", 1, null);
+		Future<Void> other = batcher.submit("other", "d", 1, null);
+		Assert.assertEquals(4, batcher.getPendingEntries());
+		handler.release.countDown();
+		a.get(5, TimeUnit.SECONDS);
+		b.get(5, TimeUnit.SECONDS);
+		c.get(5, TimeUnit.SECONDS);
+		other.get(5, TimeUnit.SECONDS);
+		Assert.assertTrue(handler.batches.contains(Collections.singletonList("a")));
+		Assert.assertTrue(handler.batches.contains(Collections.singletonList("d")));
+		Assert.assertTrue(handler.batches.contains(Arrays.asList("b", "c")));
+		// the state of the key is updated just after the futures are completed
+		for (int i = 0; i < 50 && batcher.getPendingEntries() > 0; i++) {
+			Thread.sleep(100);
+		}
+		Assert.assertEquals(0, batcher.getPendingEntries());
+	}
+
+	@Test
+	public void maxSize() throws Exception {
+		Future<Void> a = batcher.submit("key", "a", 1, null);
+		Future<Void> b = batcher.submit("key", "b", 2, null);
+		Future<Void> c = batcher.submit("key", "c", 2, null);
+		handler.release.countDown();
+		a.get(5, TimeUnit.SECONDS);
+		b.get(5, TimeUnit.SECONDS);
+		c.get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(3, handler.batches.size());
+	}
+
+	private static List<List<String>> batches(String... values) {
+		List<List<String>> batches = new ArrayList<>();
+		for (String value : values) {
+			batches.add(Collections.singletonList(value));
+		}
+		return batches;
+	}
+
+	private static class RecordingHandler implements BatchHandler<String> {
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+
+		@Override
+		public void handle(List<Entry<String>> entries) {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			List<String> values = new ArrayList<>();
+			for (Entry<String> entry : entries) {
+				values.add(entry.getValue());
+			}
+			batches.add(values);
+			for (Entry<String> entry : entries) {
+				entry.completed();
+			}
+		}
+	}
+}
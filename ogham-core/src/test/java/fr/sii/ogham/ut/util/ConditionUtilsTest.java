@@ -0,0 +1,90 @@
+package fr.sii.ogham.ut.util;
+
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.condition.AndCondition;
+import fr.sii.ogham.core.condition.Condition;
+import fr.sii.ogham.core.condition.FixedCondition;
+import fr.sii.ogham.core.condition.OrCondition;
+import fr.sii.ogham.core.condition.RequiredClassCondition;
+import fr.sii.ogham.core.condition.RequiredPropertyCondition;
+import fr.sii.ogham.core.util.ConditionUtils;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public class ConditionUtilsTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private Properties properties;
+	private Condition<String> existingClass;
+	private Condition<String> missingClass;
+	private Condition<String> definedProperty;
+	private Condition<String> undefinedProperty;
+	private Condition<String> dynamic;
+
+	@Before
+	public void setUp() {
+		properties = new Properties();
+		properties.setProperty("defined", "value");
+		existingClass = new RequiredClassCondition<>("java.lang.String");
+		missingClass = new RequiredClassCondition<>("fr.sii.ogham.Unknown");
+		definedProperty = new RequiredPropertyCondition<>("defined", properties);
+		undefinedProperty = new RequiredPropertyCondition<>("undefined", properties);
+		dynamic = new Condition<String>() {
+			@Override
+			public boolean accept(String obj) {
+				return obj.startsWith("ok");
+			}
+		};
+	}
+
+	@Test
+	public void staticConditions() {
+		Assert.assertTrue(ConditionUtils.isFixed(ConditionUtils.precompute(existingClass), true));
+		Assert.assertTrue(ConditionUtils.isFixed(ConditionUtils.precompute(missingClass), false));
+		Assert.assertTrue(ConditionUtils.isFixed(ConditionUtils.precompute(definedProperty), true));
+		Assert.assertTrue(ConditionUtils.isFixed(ConditionUtils.precompute(undefinedProperty), false));
+	}
+
+	@Test
+	public void dynamicConditionUnchanged() {
+		Assert.assertSame(dynamic, ConditionUtils.precompute(dynamic));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void andCondition() {
+		Assert.assertSame(dynamic, ConditionUtils.precompute(new AndCondition<>(existingClass, definedProperty, dynamic)));
+		Assert.assertTrue(ConditionUtils.isFixed(ConditionUtils.precompute(new AndCondition<>(existingClass, missingClass, dynamic)), false));
+		Assert.assertTrue(ConditionUtils.isFixed(ConditionUtils.precompute(new AndCondition<>(existingClass, definedProperty)), true));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void orCondition() {
+		Assert.assertSame(dynamic, ConditionUtils.precompute(new OrCondition<>(missingClass, undefinedProperty, dynamic)));
+		Assert.assertTrue(ConditionUtils.isFixed(ConditionUtils.precompute(new OrCondition<>(missingClass, definedProperty, dynamic)), true));
+		Assert.assertTrue(ConditionUtils.isFixed(ConditionUtils.precompute(new OrCondition<>(missingClass, undefinedProperty)), false));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void nestedConditions() {
+		Condition<String> precomputed = ConditionUtils.precompute(new AndCondition<>(new OrCondition<>(undefinedProperty, definedProperty), existingClass, new OrCondition<>(missingClass, dynamic), dynamic));
+		Assert.assertTrue(precomputed instanceof AndCondition);
+		Assert.assertEquals(2, ((AndCondition<String>) precomputed).getConditions().size());
+		Assert.assertTrue(precomputed.accept("ok"));
+		Assert.assertFalse(precomputed.accept("ko"));
+	}
+
+	@Test
+	public void fixedConditionUnchanged() {
+		Condition<String> fixed = new FixedCondition<>(true);
+		Assert.assertSame(fixed, ConditionUtils.precompute(fixed));
+	}
+}
@@ -0,0 +1,86 @@
+package fr.sii.ogham.ut.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.util.LookupUtils;
+import fr.sii.ogham.core.util.ResolvedLookup;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+
+public class LookupUtilsTest {
+	private Map<String, String> mapping;
+
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	@Before
+	public void setUp() {
+		mapping = new HashMap<>();
+		mapping.put("classpath", "classpath resolver");
+		mapping.put("file", "file resolver");
+		mapping.put("", "default resolver");
+		mapping.put("foo", "foo resolver");
+		mapping.put("foo:bar", "multiple resolver");
+	}
+
+	@Test
+	public void simpleLookup() {
+		assertResolved("classpath", "classpath resolver", "/foo/bar.html", "classpath:/foo/bar.html");
+		assertResolved("file", "file resolver", "C:/foo/bar.html", "file:C:/foo/bar.html");
+	}
+
+	@Test
+	public void longestLookup() {
+		assertResolved("foo:bar", "multiple resolver", "/foobar.html", "foo:bar:/foobar.html");
+		assertResolved("foo", "foo resolver", "baz:/foobar.html", "foo:baz:/foobar.html");
+	}
+
+	@Test
+	public void inlineContentWithManyColons() {
+		mapping.put("string", "string resolver");
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			content.append("key").append(i).append(": value; ");
+		}
+		assertResolved("string", "string resolver", content.toString(), "string:" + content);
+		assertResolved("foo:bar", "multiple resolver", "a:b:c", "foo:bar:a:b:c");
+		Assert.assertNull(LookupUtils.resolve(mapping, "unknown:" + content));
+	}
+
+	@Test
+	public void defaultLookup() {
+		assertResolved("", "default resolver", "/foo/bar.html", "/foo/bar.html");
+	}
+
+	@Test
+	public void unknownLookup() {
+		Assert.assertNull(LookupUtils.resolve(mapping, "unknown:/foo/bar.html"));
+		Assert.assertNull(LookupUtils.resolve(mapping, ":/foo/bar.html"));
+		Assert.assertNull(LookupUtils.getResolver(mapping, "unknown:/foo/bar.html"));
+		Assert.assertEquals("unknown:/foo/bar.html", LookupUtils.getRealPath(mapping, "unknown:/foo/bar.html"));
+		mapping.remove("");
+		Assert.assertNull(LookupUtils.resolve(mapping, "/foo/bar.html"));
+	}
+
+	@Test
+	public void sameAsEntry() {
+		Map.Entry<String, String> entry = LookupUtils.getLookupEntry(mapping, "classpath:/foo/bar.html");
+		Assert.assertEquals("classpath", entry.getKey());
+		Assert.assertEquals("classpath resolver", entry.getValue());
+		Assert.assertEquals("classpath", LookupUtils.getLookupType(mapping, "classpath:/foo/bar.html"));
+		Assert.assertEquals("/foo/bar.html", LookupUtils.getRealPath(mapping, "classpath:/foo/bar.html"));
+	}
+
+	private void assertResolved(String lookup, String value, String realPath, String path) {
+		ResolvedLookup<String> resolved = LookupUtils.resolve(mapping, path);
+		Assert.assertNotNull("lookup of " + path + " should be found", resolved);
+		Assert.assertEquals("lookup of " + path, lookup, resolved.getLookup());
+		Assert.assertEquals("resolver of " + path, value, resolved.getValue());
+		Assert.assertEquals("real path of " + path, realPath, resolved.getRealPath());
+	}
+}
@@ -1,21 +1,37 @@
 package fr.sii.ogham.spring.autoconfigure;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.WebMvcAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.spring4.SpringTemplateEngine;
 
 import fr.sii.ogham.core.builder.MessagingBuilder;
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.metrics.NoOpMetricsRecorder;
+import fr.sii.ogham.core.service.AsyncMessagingService;
 import fr.sii.ogham.core.service.MessagingService;
 import fr.sii.ogham.spring.config.PropertiesBridge;
+import fr.sii.ogham.spring.health.OghamHealthIndicator;
+import fr.sii.ogham.spring.metrics.ConnectionStatusMeterBinder;
+import fr.sii.ogham.spring.metrics.MicrometerMetricsRecorder;
+import fr.sii.ogham.template.thymeleaf.ThymeleafNamespaceResolver;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * <p>
@@ -24,15 +40,27 @@ import fr.sii.ogham.spring.config.PropertiesBridge;
  * 
  * It links Ogham with Spring beans:
  * <ul>
- * <li>Use {@link SpringTemplateEngine} instead of default Thymeleaf
- * {@link TemplateEngine}</li>
+ * <li>Use {@link SpringTemplateEngine} (shared with the application) instead of
+ * default Thymeleaf {@link TemplateEngine}</li>
+ * <li>Record Ogham metrics in the Micrometer {@link MeterRegistry} if
+ * available</li>
+ * <li>Report the state of the connections opened by Ogham senders as a
+ * health indicator and as Micrometer gauges if available</li>
+ * <li>Send messages in background threads if
+ * <code>ogham.async.enabled=true</code></li>
  * </ul>
  * 
  * 
  * @author Aurélien Baudet
  */
 @Configuration
-@AutoConfigureAfter({ WebMvcAutoConfiguration.class, ThymeleafAutoConfiguration.class })
+@AutoConfigureAfter(value = { WebMvcAutoConfiguration.class, ThymeleafAutoConfiguration.class }, name = {
+		// Micrometer registries for Spring Boot 1.x (micrometer-spring-legacy)
+		"io.micrometer.spring.autoconfigure.MetricsAutoConfiguration",
+		"io.micrometer.spring.autoconfigure.CompositeMeterRegistryAutoConfiguration",
+		// Micrometer registries for Spring Boot 2.x
+		"org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration",
+		"org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration" })
 @ConditionalOnMissingBean(MessagingService.class)
 // TODO: manage all other template engines (freemarker, velocity, ...)
 public class OghamAutoConfiguration {
@@ -59,10 +87,23 @@ public class OghamAutoConfiguration {
 	 * Thymeleaf instead of default {@link TemplateEngine}.
 	 * </p>
 	 * <p>
+	 * The engine (and its template cache and dialects) is shared with the
+	 * application: no other engine is created for Ogham. Ogham resolvers are
+	 * added to the engine for email and SMS but they only handle the
+	 * templates parsed by Ogham (see {@link ThymeleafNamespaceResolver}) so
+	 * the application views are still resolved by the application resolvers.
+	 * Template caching is configured in one place (through
+	 * <code>spring.thymeleaf.cache</code> for example).
+	 * </p>
+	 * <p>
 	 * The {@link MessagingService} is configured to use all other default
 	 * behaviors. See {@link MessagingBuilder#useAllDefaults()} for more
 	 * information about default behaviors.
 	 * </p>
+	 * <p>
+	 * If a {@link MetricsRecorder} bean is defined, the measures of the
+	 * senders are recorded with it.
+	 * </p>
 	 * 
 	 * @author Aurélien Baudet
 	 */
@@ -72,16 +113,156 @@ public class OghamAutoConfiguration {
 		@Autowired
 		Environment environment;
 
+		@Autowired(required = false)
+		MetricsRecorder metricsRecorder;
+
 		@Bean
 		// TODO: use Spring message source and resource resolver too ?
 		public MessagingService messagingService(PropertiesBridge propertiesBridge, SpringTemplateEngine engine) {
 			MessagingBuilder builder = new MessagingBuilder().useAllDefaults(propertiesBridge.convert(environment));
 			builder.getEmailBuilder().getTemplateBuilder().getThymeleafParser().withTemplateEngine(engine);
 			builder.getSmsBuilder().getTemplateBuilder().getThymeleafParser().withTemplateEngine(engine);
+			if (metricsRecorder != null) {
+				builder.withMetricsRecorder(metricsRecorder);
+			}
 			return builder.build();
 		}
 	}
 
+	/**
+	 * <p>
+	 * This configuration is used when Micrometer is available in the classpath
+	 * and a {@link MeterRegistry} bean is defined.
+	 * </p>
+	 * <p>
+	 * It registers a {@link MicrometerMetricsRecorder} bean. The recorder is
+	 * provided to the builder of the {@link MessagingService} so that the
+	 * measures of this service are recorded in the {@link MeterRegistry}. It
+	 * also
+	 * registers gauges for the connections kept opened by the senders (see
+	 * {@link ConnectionStatusMeterBinder}).
+	 * </p>
+	 * <p>
+	 * Micrometer requires Java 8 so metrics are only available when the
+	 * application runs on Java 8 or later.
+	 * </p>
+	 * <p>
+	 * Ogham auto-configuration is applied after the Micrometer
+	 * auto-configurations so the {@link MeterRegistry} they provide is
+	 * detected.
+	 * </p>
+	 * 
+	 * @author Aurélien Baudet
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+	@ConditionalOnBean(type = "io.micrometer.core.instrument.MeterRegistry")
+	public static class MicrometerConfiguration {
+		@Bean
+		@ConditionalOnMissingBean(MetricsRecorder.class)
+		public MetricsRecorder oghamMetricsRecorder(MeterRegistry registry) {
+			return new MicrometerMetricsRecorder(registry);
+		}
+
+		@Bean
+		@ConditionalOnMissingBean(ConnectionStatusMeterBinder.class)
+		public ConnectionStatusMeterBinder oghamConnectionStatusMeterBinder(MeterRegistry registry, MessagingService messagingService) {
+			ConnectionStatusMeterBinder binder = new ConnectionStatusMeterBinder(messagingService);
+			binder.bindTo(registry);
+			return binder;
+		}
+	}
+
+	/**
+	 * <p>
+	 * This configuration is used when Spring Boot Actuator is available in the
+	 * classpath.
+	 * </p>
+	 * <p>
+	 * It registers an {@link OghamHealthIndicator} that reports the state of
+	 * the connections kept opened by the senders (without opening new ones).
+	 * </p>
+	 * 
+	 * @author Aurélien Baudet
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "org.springframework.boot.actuate.health.HealthIndicator")
+	public static class HealthConfiguration {
+		@Bean
+		@ConditionalOnMissingBean(OghamHealthIndicator.class)
+		public OghamHealthIndicator oghamHealthIndicator(MessagingService messagingService) {
+			return new OghamHealthIndicator(messagingService);
+		}
+	}
+
+	/**
+	 * <p>
+	 * This configuration is used when the property
+	 * <code>ogham.async.enabled</code> is set to <code>true</code>.
+	 * </p>
+	 * <p>
+	 * It registers an {@link AsyncMessagingService} that sends the messages
+	 * through the {@link MessagingService} in background threads. The threads
+	 * are provided by a {@link ThreadPoolTaskExecutor} bean named
+	 * <code>oghamTaskExecutor</code> configured by the following properties:
+	 * <ul>
+	 * <li><code>ogham.async.core-pool-size</code>: the number of threads kept
+	 * alive (default: 2)</li>
+	 * <li><code>ogham.async.max-pool-size</code>: the maximum number of threads
+	 * (default: 8)</li>
+	 * <li><code>ogham.async.queue-capacity</code>: the maximum number of
+	 * messages waiting for a thread (default: 1000). When the queue is full,
+	 * the message is sent in the calling thread</li>
+	 * <li><code>ogham.async.await-termination-seconds</code>: the maximum time
+	 * to wait for pending messages when the application context is closed
+	 * (default: 30)</li>
+	 * </ul>
+	 * Define your own {@link Executor} bean named
+	 * <code>oghamTaskExecutor</code> to use another executor (an executor
+	 * backed by virtual threads for example).
+	 * </p>
+	 * <p>
+	 * When the application context is closed, new messages are rejected and
+	 * the pending messages are sent before the executor is shut down.
+	 * </p>
+	 * 
+	 * @author Aurélien Baudet
+	 */
+	@Configuration
+	@ConditionalOnProperty(prefix = "ogham.async", name = "enabled", havingValue = "true")
+	public static class AsyncConfiguration {
+		@Autowired
+		Environment environment;
+
+		@Autowired(required = false)
+		MetricsRecorder metricsRecorder;
+
+		@Bean(name = "oghamTaskExecutor")
+		@ConditionalOnMissingBean(name = "oghamTaskExecutor")
+		public ThreadPoolTaskExecutor oghamTaskExecutor() {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setThreadNamePrefix("ogham-async-");
+			executor.setCorePoolSize(environment.getProperty("ogham.async.core-pool-size", Integer.class, 2));
+			executor.setMaxPoolSize(environment.getProperty("ogham.async.max-pool-size", Integer.class, 8));
+			executor.setQueueCapacity(environment.getProperty("ogham.async.queue-capacity", Integer.class, 1000));
+			executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+			executor.setWaitForTasksToCompleteOnShutdown(true);
+			executor.setAwaitTerminationSeconds(getAwaitTerminationSeconds());
+			return executor;
+		}
+
+		@Bean(destroyMethod = "close")
+		@ConditionalOnMissingBean(AsyncMessagingService.class)
+		public AsyncMessagingService asyncMessagingService(MessagingService messagingService, @Qualifier("oghamTaskExecutor") Executor oghamTaskExecutor) {
+			MetricsRecorder recorder = metricsRecorder == null ? NoOpMetricsRecorder.INSTANCE : metricsRecorder;
+			return new AsyncMessagingService(messagingService, oghamTaskExecutor, TimeUnit.SECONDS.toMillis(getAwaitTerminationSeconds()), recorder);
+		}
+
+		private int getAwaitTerminationSeconds() {
+			return environment.getProperty("ogham.async.await-termination-seconds", Integer.class, 30);
+		}
+	}
+
 	/**
 	 * <p>
 	 * This configuration is used when the {@link SpringTemplateEngine} is not
@@ -96,6 +277,10 @@ public class OghamAutoConfiguration {
 	 * See {@link MessagingBuilder#useAllDefaults()} for more information about
 	 * default behaviors.
 	 * </p>
+	 * <p>
+	 * If a {@link MetricsRecorder} bean is defined, the measures of the
+	 * senders are recorded with it.
+	 * </p>
 	 * 
 	 * @author Aurélien Baudet
 	 */
@@ -105,9 +290,16 @@ public class OghamAutoConfiguration {
 		@Autowired
 		Environment environment;
 
+		@Autowired(required = false)
+		MetricsRecorder metricsRecorder;
+
 		@Bean
 		public MessagingService messagingService(PropertiesBridge propertiesBridge) {
-			return new MessagingBuilder().useAllDefaults(propertiesBridge.convert(environment)).build();
+			MessagingBuilder builder = new MessagingBuilder().useAllDefaults(propertiesBridge.convert(environment));
+			if (metricsRecorder != null) {
+				builder.withMetricsRecorder(metricsRecorder);
+			}
+			return builder.build();
 		}
 	}
 }
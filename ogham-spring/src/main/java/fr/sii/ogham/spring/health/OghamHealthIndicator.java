@@ -0,0 +1,75 @@
+package fr.sii.ogham.spring.health;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.service.MessagingService;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
+
+/**
+ * <p>
+ * Spring Boot health indicator that reports the state of the connections kept
+ * opened by Ogham senders (pool of SMPP sessions for example). See
+ * {@link ConnectionStatusProvider}.
+ * </p>
+ * <p>
+ * The check only looks at the existing connections: no new connection is
+ * opened. The status is:
+ * <ul>
+ * <li>UP if at least one server has an opened session and is available</li>
+ * <li>DOWN if no server is usable and at least one server is not available
+ * (paused after failures or broken session)</li>
+ * <li>UNKNOWN otherwise (no connection opened yet or senders that don't keep
+ * connections opened)</li>
+ * </ul>
+ * The state of each server is provided in the details.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class OghamHealthIndicator extends AbstractHealthIndicator {
+	/**
+	 * The service that provides the connection statuses
+	 */
+	private final MessagingService messagingService;
+
+	public OghamHealthIndicator(MessagingService messagingService) {
+		super();
+		this.messagingService = messagingService;
+	}
+
+	@Override
+	protected void doHealthCheck(Health.Builder builder) throws Exception {
+		List<ConnectionStatus> statuses = ConnectionStatusUtils.collect(messagingService);
+		boolean up = false;
+		boolean down = false;
+		for (ConnectionStatus status : statuses) {
+			up |= status.isAvailable() && status.getOpenedSessions() > 0;
+			down |= !status.isAvailable();
+			builder.withDetail(status.getName(), toDetails(status));
+		}
+		if (up) {
+			builder.up();
+		} else if (down) {
+			builder.down();
+		} else {
+			builder.unknown();
+		}
+	}
+
+	private static Map<String, Object> toDetails(ConnectionStatus status) {
+		Map<String, Object> details = new LinkedHashMap<>();
+		details.put("available", status.isAvailable());
+		details.put("openedSessions", status.getOpenedSessions());
+		details.put("maxSessions", status.getMaxSessions());
+		details.put("pendingRequests", status.getPendingRequests());
+		details.put("maxPendingRequests", status.getMaxPendingRequests());
+		return details;
+	}
+}
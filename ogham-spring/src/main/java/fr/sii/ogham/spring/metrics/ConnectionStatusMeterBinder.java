@@ -0,0 +1,218 @@
+package fr.sii.ogham.spring.metrics;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.service.MessagingService;
+import fr.sii.ogham.core.util.ConnectionStatusUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Registers <a href="http://micrometer.io">Micrometer</a> gauges for the
+ * connections kept opened by Ogham senders (see
+ * {@link ConnectionStatusProvider}). Each server is identified by the
+ * <code>server</code> tag:
+ * <ul>
+ * <li><code>ogham.connection.sessions</code>: number of opened sessions</li>
+ * <li><code>ogham.connection.sessions.max</code>: maximum number of sessions
+ * (pool size)</li>
+ * <li><code>ogham.connection.pending</code>: number of requests waiting for a
+ * response (or messages waiting in a batch for senders that group
+ * messages)</li>
+ * <li><code>ogham.connection.window.usage</code>: ratio of the pending
+ * requests to the maximum (SMPP window usage for example)</li>
+ * </ul>
+ * <p>
+ * The servers are not known when binding: senders may be lazily initialized
+ * or open their connections on the first message. The gauges of a server are
+ * registered as soon as a sender reports it. The discovery is done each time
+ * the <code>ogham.connection.servers</code> gauge (number of known servers) is
+ * read so the servers that appear later are registered at the next
+ * publication of the metrics. {@link #refresh()} can also be called to
+ * register them immediately. All values are read from the senders each time
+ * a gauge is read.
+ * </p>
+ * <p>
+ * The binding is compiled with the rest of Ogham (Java 7) so each gauge is
+ * registered as a {@link Number} whose value is computed when it is read.
+ * Micrometer itself requires Java 8 so the binding is only usable on a Java 8
+ * (or later) runtime.
+ * </p>
+ *
+ * @author Aurélien Baudet
+ *
+ */
+public class ConnectionStatusMeterBinder implements MeterBinder {
+	public static final String SERVERS = "ogham.connection.servers";
+	public static final String SESSIONS = "ogham.connection.sessions";
+	public static final String MAX_SESSIONS = "ogham.connection.sessions.max";
+	public static final String PENDING = "ogham.connection.pending";
+	public static final String WINDOW_USAGE = "ogham.connection.window.usage";
+
+	/**
+	 * The service that provides the connection statuses
+	 */
+	private final MessagingService messagingService;
+
+	/**
+	 * The servers that already have their gauges (guarded by itself)
+	 */
+	private final Set<String> registeredServers;
+
+	/**
+	 * The values of the registered gauges. Micrometer only keeps weak
+	 * references to the gauge values so the binder keeps them (guarded by
+	 * {@link #registeredServers})
+	 */
+	private final List<Number> gauges;
+
+	/**
+	 * The registry the gauges are registered in (null until bound)
+	 */
+	private volatile MeterRegistry registry;
+
+	public ConnectionStatusMeterBinder(MessagingService messagingService) {
+		super();
+		this.messagingService = messagingService;
+		this.registeredServers = new HashSet<>();
+		this.gauges = new ArrayList<>();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+		register(registry, SERVERS, Tags.empty(), new GaugeValue() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public double doubleValue() {
+				return refresh();
+			}
+		});
+		refresh();
+	}
+
+	/**
+	 * Register the gauges of the servers that are reported by the senders and
+	 * that are not registered yet. Nothing is done if the binder is not bound
+	 * to a registry.
+	 *
+	 * @return the number of servers currently reported by the senders
+	 */
+	public int refresh() {
+		List<ConnectionStatus> statuses = ConnectionStatusUtils.collect(messagingService);
+		MeterRegistry current = registry;
+		if (current == null) {
+			return statuses.size();
+		}
+		synchronized (registeredServers) {
+			for (ConnectionStatus status : statuses) {
+				if (registeredServers.add(status.getName())) {
+					register(current, status.getName());
+				}
+			}
+		}
+		return statuses.size();
+	}
+
+	private void register(MeterRegistry registry, String server) {
+		register(registry, SESSIONS, server, new StatusValue(server) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected double value(ConnectionStatus current) {
+				return current.getOpenedSessions();
+			}
+		});
+		register(registry, MAX_SESSIONS, server, new StatusValue(server) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected double value(ConnectionStatus current) {
+				return current.getMaxSessions();
+			}
+		});
+		register(registry, PENDING, server, new StatusValue(server) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected double value(ConnectionStatus current) {
+				return current.getPendingRequests();
+			}
+		});
+		register(registry, WINDOW_USAGE, server, new StatusValue(server) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected double value(ConnectionStatus current) {
+				return current.getMaxPendingRequests() == 0 ? 0 : (double) current.getPendingRequests() / current.getMaxPendingRequests();
+			}
+		});
+	}
+
+	private void register(MeterRegistry registry, String name, String server, StatusValue value) {
+		register(registry, name, Tags.of("server", server), value);
+	}
+
+	private void register(MeterRegistry registry, String name, Tags tags, GaugeValue value) {
+		synchronized (registeredServers) {
+			gauges.add(value);
+		}
+		registry.gauge(name, tags, value);
+	}
+
+	/**
+	 * A gauge value that is computed each time it is read
+	 */
+	private abstract static class GaugeValue extends Number {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int intValue() {
+			return (int) doubleValue();
+		}
+
+		@Override
+		public long longValue() {
+			return (long) doubleValue();
+		}
+
+		@Override
+		public float floatValue() {
+			return (float) doubleValue();
+		}
+	}
+
+	/**
+	 * Reads a value of the current status of a server (NaN if the server is
+	 * no more known)
+	 */
+	private abstract class StatusValue extends GaugeValue {
+		private static final long serialVersionUID = 1L;
+
+		private final String server;
+
+		protected StatusValue(String server) {
+			super();
+			this.server = server;
+		}
+
+		@Override
+		public double doubleValue() {
+			for (ConnectionStatus status : ConnectionStatusUtils.collect(messagingService)) {
+				if (server.equals(status.getName())) {
+					return value(status);
+				}
+			}
+			return Double.NaN;
+		}
+
+		protected abstract double value(ConnectionStatus current);
+	}
+}
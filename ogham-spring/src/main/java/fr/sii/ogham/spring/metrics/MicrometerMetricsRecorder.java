@@ -0,0 +1,101 @@
+package fr.sii.ogham.spring.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Binding of Ogham instrumentation to <a href="http://micrometer.io">Micrometer</a>.
+ * Each measure emitted by Ogham is registered in the provided
+ * {@link MeterRegistry}:
+ * <ul>
+ * <li>timers are registered as {@link Timer}s</li>
+ * <li>counters are registered as {@link Counter}s</li>
+ * <li>histograms are registered as {@link DistributionSummary}s</li>
+ * </ul>
+ * The meters are created on first use and then kept to avoid looking them up
+ * in the registry for each measure.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class MicrometerMetricsRecorder implements MetricsRecorder {
+	/**
+	 * The registry used to create the meters
+	 */
+	private final MeterRegistry registry;
+
+	/**
+	 * Tags added to every meter (key/value pairs)
+	 */
+	private final String[] tags;
+
+	private final ConcurrentMap<String, Timer> timers;
+	private final ConcurrentMap<String, Counter> counters;
+	private final ConcurrentMap<String, DistributionSummary> summaries;
+
+	/**
+	 * Initialize with the registry and the tags to add to every meter.
+	 * 
+	 * @param registry
+	 *            the registry used to create the meters
+	 * @param tags
+	 *            the tags added to every meter (must be an even number of
+	 *            key/value pairs)
+	 */
+	public MicrometerMetricsRecorder(MeterRegistry registry, String... tags) {
+		super();
+		this.registry = registry;
+		this.tags = tags;
+		this.timers = new ConcurrentHashMap<>();
+		this.counters = new ConcurrentHashMap<>();
+		this.summaries = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public long startTimer() {
+		return System.nanoTime();
+	}
+
+	@Override
+	public void stopTimer(String name, long start) {
+		long duration = System.nanoTime() - start;
+		Timer timer = timers.get(name);
+		if (timer == null) {
+			timer = registry.timer(name, tags);
+			timers.putIfAbsent(name, timer);
+		}
+		timer.record(duration, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void increment(String name) {
+		Counter counter = counters.get(name);
+		if (counter == null) {
+			counter = registry.counter(name, tags);
+			counters.putIfAbsent(name, counter);
+		}
+		counter.increment(1.0);
+	}
+
+	@Override
+	public void record(String name, long value) {
+		DistributionSummary summary = summaries.get(name);
+		if (summary == null) {
+			summary = registry.summary(name, tags);
+			summaries.putIfAbsent(name, summary);
+		}
+		summary.record(value);
+	}
+
+	@Override
+	public String toString() {
+		return "MicrometerMetricsRecorder";
+	}
+}
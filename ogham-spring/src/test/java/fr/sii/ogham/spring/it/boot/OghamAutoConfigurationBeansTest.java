@@ -0,0 +1,119 @@
+package fr.sii.ogham.spring.it.boot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.EnvironmentTestUtils;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.thymeleaf.spring4.SpringTemplateEngine;
+
+import fr.sii.ogham.core.metrics.MetricsRecorder;
+import fr.sii.ogham.core.service.AsyncMessagingService;
+import fr.sii.ogham.core.service.MessagingService;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import fr.sii.ogham.spring.autoconfigure.OghamAutoConfiguration;
+import fr.sii.ogham.spring.health.OghamHealthIndicator;
+import fr.sii.ogham.spring.metrics.ConnectionStatusMeterBinder;
+import fr.sii.ogham.spring.metrics.MicrometerMetricsRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class OghamAutoConfigurationBeansTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private ConfigurableApplicationContext context;
+
+	@After
+	public void tearDown() {
+		if (context != null) {
+			context.close();
+		}
+	}
+
+	@Test
+	public void healthIndicator() {
+		load();
+		OghamHealthIndicator indicator = context.getBean(OghamHealthIndicator.class);
+		// nothing sent yet: no connection opened
+		assertEquals(Status.UNKNOWN, indicator.health().getStatus());
+	}
+
+	@Test
+	public void metrics() {
+		load();
+		assertTrue(context.getBean(MetricsRecorder.class) instanceof MicrometerMetricsRecorder);
+		assertNotNull(context.getBean(ConnectionStatusMeterBinder.class));
+		MeterRegistry registry = context.getBean(MeterRegistry.class);
+		assertNotNull(registry.find(ConnectionStatusMeterBinder.SERVERS).gauge());
+	}
+
+	@Test
+	public void metricsWithRegistryFromAutoConfiguration() {
+		context = new SpringApplicationBuilder(AutoConfiguredApplication.class).web(false)
+				.properties("test.meter-registry.enabled=true", "spring.thymeleaf.check-template-location=false", "mail.smtp.host=127.0.0.1", "mail.smtp.port=3025")
+				.run();
+		assertTrue(context.getBean(MetricsRecorder.class) instanceof MicrometerMetricsRecorder);
+		assertNotNull(context.getBean(ConnectionStatusMeterBinder.class));
+		MeterRegistry registry = context.getBean(MeterRegistry.class);
+		assertNotNull(registry.find(ConnectionStatusMeterBinder.SERVERS).gauge());
+	}
+
+	@Test
+	public void asyncDisabledByDefault() {
+		load();
+		assertEquals(0, context.getBeanNamesForType(AsyncMessagingService.class).length);
+		assertNotNull(context.getBean(MessagingService.class));
+	}
+
+	@Test
+	public void asyncEnabled() {
+		load("ogham.async.enabled=true", "ogham.async.core-pool-size=3");
+		AsyncMessagingService async = context.getBean(AsyncMessagingService.class);
+		assertEquals(0, async.getPendingMessages());
+		ThreadPoolTaskExecutor executor = context.getBean("oghamTaskExecutor", ThreadPoolTaskExecutor.class);
+		assertEquals(3, executor.getCorePoolSize());
+	}
+
+	private void load(String... pairs) {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		EnvironmentTestUtils.addEnvironment(ctx, "mail.smtp.host=127.0.0.1", "mail.smtp.port=3025", "mail.smtp.from=spring.test@foo.bar");
+		EnvironmentTestUtils.addEnvironment(ctx, pairs);
+		ctx.register(InfrastructureConfiguration.class, OghamAutoConfiguration.class);
+		ctx.refresh();
+		context = ctx;
+	}
+
+	/**
+	 * The registry is provided by an auto-configuration (see
+	 * {@link io.micrometer.spring.autoconfigure.CompositeMeterRegistryAutoConfiguration})
+	 */
+	@Configuration
+	@EnableAutoConfiguration
+	static class AutoConfiguredApplication {
+	}
+
+	@Configuration
+	static class InfrastructureConfiguration {
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public SpringTemplateEngine templateEngine() {
+			return new SpringTemplateEngine();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package fr.sii.ogham.spring.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.sii.ogham.core.exception.MessagingException;
+import fr.sii.ogham.core.message.Message;
+import fr.sii.ogham.core.service.ConnectionStatus;
+import fr.sii.ogham.core.service.ConnectionStatusProvider;
+import fr.sii.ogham.core.service.MessagingService;
+import fr.sii.ogham.helper.rule.LoggingTestRule;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ConnectionStatusMeterBinderTest {
+	@Rule
+	public final LoggingTestRule loggingRule = new LoggingTestRule();
+
+	private StatusService service;
+	private MeterRegistry registry;
+
+	@Before
+	public void setUp() {
+		service = new StatusService();
+		registry = new SimpleMeterRegistry();
+		new ConnectionStatusMeterBinder(service).bindTo(registry);
+	}
+
+	@Test
+	public void serverReportedAfterBinding() {
+		assertNull(pending("smsc1"));
+		service.statuses.add(new ConnectionStatus("smsc1", 1, 2, 5, 20, true));
+		// reading the number of servers registers the new ones
+		assertEquals(1, registry.find(ConnectionStatusMeterBinder.SERVERS).gauge().value(), 0);
+		assertEquals(5, pending("smsc1").value(), 0);
+		assertEquals(0.25, registry.find(ConnectionStatusMeterBinder.WINDOW_USAGE).tags("server", "smsc1").gauge().value(), 0);
+	}
+
+	@Test
+	public void valuesReadFromCurrentStatus() {
+		service.statuses.add(new ConnectionStatus("ovh-batch", 0, 0, 3, 0, true));
+		registry.find(ConnectionStatusMeterBinder.SERVERS).gauge().value();
+		service.statuses.set(0, new ConnectionStatus("ovh-batch", 0, 0, 7, 0, true));
+		assertEquals(7, pending("ovh-batch").value(), 0);
+		service.statuses.clear();
+		assertEquals(Double.NaN, pending("ovh-batch").value(), 0);
+	}
+
+	@Test
+	public void sameServerRegisteredOnce() {
+		service.statuses.add(new ConnectionStatus("smsc1", 1, 2, 5, 20, true));
+		registry.find(ConnectionStatusMeterBinder.SERVERS).gauge().value();
+		registry.find(ConnectionStatusMeterBinder.SERVERS).gauge().value();
+		assertNotNull(pending("smsc1"));
+		assertEquals(1, registry.find(ConnectionStatusMeterBinder.PENDING).gauges().size());
+	}
+
+	private Gauge pending(String server) {
+		return registry.find(ConnectionStatusMeterBinder.PENDING).tags("server", server).gauge();
+	}
+
+	private static class StatusService implements MessagingService, ConnectionStatusProvider {
+		private final List<ConnectionStatus> statuses = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void send(Message message) throws MessagingException {
+			// nothing to do
+		}
+
+		@Override
+		public List<ConnectionStatus> getConnectionStatuses() {
+			return statuses;
+		}
+	}
+}
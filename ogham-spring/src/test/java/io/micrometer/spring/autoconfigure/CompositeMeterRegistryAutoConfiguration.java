@@ -0,0 +1,26 @@
+package io.micrometer.spring.autoconfigure;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Stands in for the auto-configuration of micrometer-spring-legacy (that
+ * requires a more recent Spring Boot version than the one used by the tests).
+ * It has the same name so that it is ordered like the real one. It is only
+ * enabled when <code>test.meter-registry.enabled=true</code>.
+ *
+ * @author Aurélien Baudet
+ *
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "test.meter-registry", name = "enabled", havingValue = "true")
+public class CompositeMeterRegistryAutoConfiguration {
+	@Bean
+	public MeterRegistry meterRegistry() {
+		return new SimpleMeterRegistry();
+	}
+}
@@ -0,0 +1,30 @@
+package fr.sii.ogham.helper.load;
+
+/**
+ * A single unit of work executed by the {@link LoadDriver}. Typically it sends
+ * one message through a messaging service:
+ * 
+ * <pre>
+ * driver.run(new LoadAction() {
+ * 	&#64;Override
+ * 	public void execute(int index) throws Exception {
+ * 		service.send(new Email("subject", "body #" + index, "recipient@sii.fr"));
+ * 	}
+ * });
+ * </pre>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public interface LoadAction {
+	/**
+	 * Execute the action. A {@link ThrottledException} is counted as a
+	 * throttled execution, any other exception is counted as a failure.
+	 * 
+	 * @param index
+	 *            the index of the execution (starting at 0)
+	 * @throws Exception
+	 *             when the execution has failed
+	 */
+	public void execute(int index) throws Exception;
+}
@@ -0,0 +1,180 @@
+package fr.sii.ogham.helper.load;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pushes a fixed rate of {@link LoadAction}s and reports the observed latency
+ * and throughput.
+ * 
+ * <p>
+ * The driver is open-loop: executions are scheduled at a constant rate
+ * whatever the time needed by previous ones. The latency of an execution is
+ * measured from the instant it was scheduled (not from the instant a worker
+ * thread picked it up), so time spent waiting behind slow executions is part
+ * of the reported latency.
+ * </p>
+ * 
+ * <pre>
+ * LoadReport report = new LoadDriver().rate(200).duration(30, TimeUnit.SECONDS).concurrency(32).run(action);
+ * </pre>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class LoadDriver {
+	private static final Logger LOG = LoggerFactory.getLogger(LoadDriver.class);
+
+	/**
+	 * Number of executions per second
+	 */
+	private int rate;
+
+	/**
+	 * Duration of the run in milliseconds
+	 */
+	private long duration;
+
+	/**
+	 * Number of threads executing the actions
+	 */
+	private int concurrency;
+
+	/**
+	 * Maximum time in milliseconds to wait for pending executions once every
+	 * execution has been scheduled
+	 */
+	private long drainTimeout;
+
+	public LoadDriver() {
+		super();
+		rate = 100;
+		duration = TimeUnit.SECONDS.toMillis(10);
+		concurrency = 16;
+		drainTimeout = TimeUnit.SECONDS.toMillis(60);
+	}
+
+	/**
+	 * Set the number of executions per second.
+	 * 
+	 * @param perSecond
+	 *            the target rate
+	 * @return this instance for fluent use
+	 */
+	public LoadDriver rate(int perSecond) {
+		if (perSecond <= 0) {
+			throw new IllegalArgumentException("rate must be positive");
+		}
+		this.rate = perSecond;
+		return this;
+	}
+
+	/**
+	 * Set how long the load is applied.
+	 * 
+	 * @param value
+	 *            the duration
+	 * @param unit
+	 *            the unit of the duration
+	 * @return this instance for fluent use
+	 */
+	public LoadDriver duration(long value, TimeUnit unit) {
+		this.duration = unit.toMillis(value);
+		return this;
+	}
+
+	/**
+	 * Set the number of threads that execute the actions. It bounds the number
+	 * of in-flight executions.
+	 * 
+	 * @param threads
+	 *            the number of threads
+	 * @return this instance for fluent use
+	 */
+	public LoadDriver concurrency(int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("concurrency must be positive");
+		}
+		this.concurrency = threads;
+		return this;
+	}
+
+	/**
+	 * Set the maximum time to wait for pending executions once every
+	 * execution has been scheduled. Executions still running after this delay
+	 * are not part of the report.
+	 * 
+	 * @param value
+	 *            the timeout
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return this instance for fluent use
+	 */
+	public LoadDriver drainTimeout(long value, TimeUnit unit) {
+		this.drainTimeout = unit.toMillis(value);
+		return this;
+	}
+
+	/**
+	 * Run the load and wait for all executions to complete.
+	 * 
+	 * @param action
+	 *            the action to execute
+	 * @return the report of the run
+	 * @throws InterruptedException
+	 *             when the current thread is interrupted while waiting
+	 */
+	public LoadReport run(final LoadAction action) throws InterruptedException {
+		final int total = (int) Math.max(1, rate * duration / 1000);
+		final long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		final long[] latencies = new long[total];
+		Arrays.fill(latencies, -1);
+		final AtomicInteger failures = new AtomicInteger();
+		final AtomicInteger throttled = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		LOG.info("Starting load: {} executions at {}/s with {} threads", total, rate, concurrency);
+		final long start = System.nanoTime();
+		try {
+			for (int i = 0; i < total; i++) {
+				final int index = i;
+				final long scheduled = start + i * interval;
+				long wait = scheduled - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							action.execute(index);
+							latencies[index] = System.nanoTime() - scheduled;
+						} catch (ThrottledException e) {
+							throttled.incrementAndGet();
+						} catch (Exception e) {
+							if (failures.getAndIncrement() == 0) {
+								LOG.warn("First failure during load (next ones are only counted)", e);
+							}
+						}
+					}
+				});
+			}
+		} finally {
+			executor.shutdown();
+		}
+		if (!executor.awaitTermination(drainTimeout, TimeUnit.MILLISECONDS)) {
+			LOG.warn("Some executions are still running after {}ms, they are ignored", drainTimeout);
+			executor.shutdownNow();
+		}
+		long elapsed = System.nanoTime() - start;
+		LoadReport report = new LoadReport(total, failures.get(), throttled.get(), elapsed, latencies);
+		LOG.info("Load done: {}", report);
+		return report;
+	}
+}
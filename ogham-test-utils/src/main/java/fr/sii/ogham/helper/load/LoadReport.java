@@ -0,0 +1,123 @@
+package fr.sii.ogham.helper.load;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a {@link LoadDriver} run: number of executions, failures,
+ * throttled executions, throughput and latency distribution of the successful
+ * executions.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class LoadReport {
+	private final int total;
+	private final int failures;
+	private final int throttled;
+	private final long elapsed;
+	private final long[] latencies;
+
+	/**
+	 * @param total
+	 *            the number of scheduled executions
+	 * @param failures
+	 *            the number of failed executions (throttled ones excluded)
+	 * @param throttled
+	 *            the number of executions rejected because of throttling
+	 * @param elapsed
+	 *            the duration of the run in nanoseconds
+	 * @param latencies
+	 *            the latency in nanoseconds of each execution (negative for
+	 *            executions that did not succeed)
+	 */
+	public LoadReport(int total, int failures, int throttled, long elapsed, long[] latencies) {
+		super();
+		this.total = total;
+		this.failures = failures;
+		this.throttled = throttled;
+		this.elapsed = elapsed;
+		this.latencies = successful(latencies);
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public int getSucceeded() {
+		return latencies.length;
+	}
+
+	public int getFailures() {
+		return failures;
+	}
+
+	public int getThrottled() {
+		return throttled;
+	}
+
+	/**
+	 * @param unit
+	 *            the wanted unit
+	 * @return the duration of the run
+	 */
+	public long getElapsed(TimeUnit unit) {
+		return unit.convert(elapsed, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return the number of successful executions per second
+	 */
+	public double getThroughput() {
+		return elapsed == 0 ? 0 : latencies.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+
+	/**
+	 * Get the latency under which the given percentage of successful
+	 * executions have completed.
+	 * 
+	 * @param percentile
+	 *            the percentile (between 0 and 100)
+	 * @param unit
+	 *            the wanted unit
+	 * @return the latency or -1 if no execution has succeeded
+	 */
+	public long getLatency(double percentile, TimeUnit unit) {
+		if (latencies.length == 0) {
+			return -1;
+		}
+		int idx = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+		return unit.convert(latencies[Math.min(latencies.length - 1, Math.max(0, idx))], TimeUnit.NANOSECONDS);
+	}
+
+	public long getP50(TimeUnit unit) {
+		return getLatency(50, unit);
+	}
+
+	public long getP99(TimeUnit unit) {
+		return getLatency(99, unit);
+	}
+
+	public long getMax(TimeUnit unit) {
+		return getLatency(100, unit);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("total=%d, succeeded=%d, failures=%d, throttled=%d, elapsed=%dms, throughput=%.1f/s, p50=%dms, p99=%dms, max=%dms", total, getSucceeded(), failures, throttled,
+				getElapsed(TimeUnit.MILLISECONDS), getThroughput(), getP50(TimeUnit.MILLISECONDS), getP99(TimeUnit.MILLISECONDS), getMax(TimeUnit.MILLISECONDS));
+	}
+
+	private static long[] successful(long[] latencies) {
+		long[] ok = new long[latencies.length];
+		int n = 0;
+		for (long latency : latencies) {
+			if (latency >= 0) {
+				ok[n++] = latency;
+			}
+		}
+		long[] sorted = Arrays.copyOf(ok, n);
+		Arrays.sort(sorted);
+		return sorted;
+	}
+}
@@ -0,0 +1,175 @@
+package fr.sii.ogham.helper.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Describes how a load sink ({@link SmtpSink}, {@link SmppSink}) answers to
+ * received messages: latency before answering, proportion of messages
+ * rejected with an error and maximum number of messages accepted per second
+ * (messages above the limit are rejected as throttled).
+ * 
+ * <p>
+ * The behavior also counts the outcomes so that sink side figures can be
+ * compared with the {@link LoadReport}.
+ * </p>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class SinkBehavior {
+	/**
+	 * The possible answers of a sink
+	 */
+	public static enum Outcome {
+		/**
+		 * The message is accepted
+		 */
+		ACCEPTED,
+		/**
+		 * The message is rejected with a simulated error
+		 */
+		ERROR,
+		/**
+		 * The message is rejected because the rate limit is reached
+		 */
+		THROTTLED
+	}
+
+	private long minLatency;
+	private long maxLatency;
+	private double errorRate;
+	private int maxPerSecond;
+
+	private long windowStart;
+	private int windowCount;
+
+	private final AtomicLong accepted = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+
+	/**
+	 * Set a fixed latency applied before answering.
+	 * 
+	 * @param latency
+	 *            the latency
+	 * @param unit
+	 *            the unit of the latency
+	 * @return this instance for fluent use
+	 */
+	public SinkBehavior latency(long latency, TimeUnit unit) {
+		return latency(latency, latency, unit);
+	}
+
+	/**
+	 * Set a latency uniformly distributed between min and max applied before
+	 * answering.
+	 * 
+	 * @param min
+	 *            the minimum latency
+	 * @param max
+	 *            the maximum latency
+	 * @param unit
+	 *            the unit of the latencies
+	 * @return this instance for fluent use
+	 */
+	public SinkBehavior latency(long min, long max, TimeUnit unit) {
+		if (min < 0 || max < min) {
+			throw new IllegalArgumentException("invalid latency range [" + min + ", " + max + "]");
+		}
+		this.minLatency = unit.toMillis(min);
+		this.maxLatency = unit.toMillis(max);
+		return this;
+	}
+
+	/**
+	 * Set the proportion of messages rejected with an error.
+	 * 
+	 * @param rate
+	 *            the error rate (between 0 and 1)
+	 * @return this instance for fluent use
+	 */
+	public SinkBehavior errorRate(double rate) {
+		if (rate < 0 || rate > 1) {
+			throw new IllegalArgumentException("error rate must be between 0 and 1");
+		}
+		this.errorRate = rate;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of messages accepted per second. Use 0 for no
+	 * limit.
+	 * 
+	 * @param max
+	 *            the maximum number of messages per second
+	 * @return this instance for fluent use
+	 */
+	public SinkBehavior maxPerSecond(int max) {
+		this.maxPerSecond = max;
+		return this;
+	}
+
+	/**
+	 * Decide how the received message is answered and count the outcome.
+	 * 
+	 * @return the outcome for the message
+	 */
+	public Outcome next() {
+		if (maxPerSecond > 0 && !acquire()) {
+			throttled.incrementAndGet();
+			return Outcome.THROTTLED;
+		}
+		if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+			errors.incrementAndGet();
+			return Outcome.ERROR;
+		}
+		accepted.incrementAndGet();
+		return Outcome.ACCEPTED;
+	}
+
+	/**
+	 * @return the latency in milliseconds to apply for the next answer
+	 */
+	public long nextLatency() {
+		if (maxLatency == minLatency) {
+			return minLatency;
+		}
+		return minLatency + ThreadLocalRandom.current().nextLong(maxLatency - minLatency + 1);
+	}
+
+	public long getAccepted() {
+		return accepted.get();
+	}
+
+	public long getErrors() {
+		return errors.get();
+	}
+
+	public long getThrottled() {
+		return throttled.get();
+	}
+
+	/**
+	 * Reset the counters.
+	 */
+	public void reset() {
+		accepted.set(0);
+		errors.set(0);
+		throttled.set(0);
+	}
+
+	private synchronized boolean acquire() {
+		long now = System.nanoTime();
+		if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+			windowStart = now;
+			windowCount = 0;
+		}
+		if (windowCount >= maxPerSecond) {
+			return false;
+		}
+		windowCount++;
+		return true;
+	}
+}
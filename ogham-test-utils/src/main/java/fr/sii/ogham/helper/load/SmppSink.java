@@ -0,0 +1,175 @@
+package fr.sii.ogham.helper.load;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cloudhopper.smpp.SmppConstants;
+import com.cloudhopper.smpp.SmppServerConfiguration;
+import com.cloudhopper.smpp.SmppServerHandler;
+import com.cloudhopper.smpp.SmppServerSession;
+import com.cloudhopper.smpp.SmppSessionConfiguration;
+import com.cloudhopper.smpp.impl.DefaultSmppServer;
+import com.cloudhopper.smpp.impl.DefaultSmppSessionHandler;
+import com.cloudhopper.smpp.pdu.BaseBind;
+import com.cloudhopper.smpp.pdu.BaseBindResp;
+import com.cloudhopper.smpp.pdu.PduRequest;
+import com.cloudhopper.smpp.pdu.PduResponse;
+import com.cloudhopper.smpp.pdu.SubmitSm;
+import com.cloudhopper.smpp.pdu.SubmitSmResp;
+import com.cloudhopper.smpp.type.SmppChannelException;
+
+import fr.sii.ogham.helper.sms.rule.SmppServerException;
+
+/**
+ * SMPP server meant for load tests. Any bind is accepted. Unlike
+ * {@link fr.sii.ogham.helper.sms.cloudhopper.CloudhopperSMPPServer}, received
+ * PDUs are not stored. The way each <code>submit_sm</code> is answered is
+ * driven by a {@link SinkBehavior}:
+ * 
+ * <ul>
+ * <li>accepted messages are answered with <code>ESME_ROK</code> and a message
+ * id</li>
+ * <li>simulated errors are answered with <code>ESME_RSYSERR</code></li>
+ * <li>throttled messages are answered with <code>ESME_RTHROTTLED</code></li>
+ * </ul>
+ * 
+ * <p>
+ * The latency is applied asynchronously so that the session window is honored
+ * (several submits can be in flight on the same session).
+ * </p>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class SmppSink {
+	private static final Logger LOG = LoggerFactory.getLogger(SmppSink.class);
+
+	private final int port;
+	private final SinkBehavior behavior;
+	private final AtomicLong messageIds;
+	private DefaultSmppServer server;
+	private ScheduledExecutorService scheduler;
+
+	public SmppSink(int port, SinkBehavior behavior) {
+		super();
+		this.port = port;
+		this.behavior = behavior;
+		this.messageIds = new AtomicLong();
+	}
+
+	public SmppSink(int port) {
+		this(port, new SinkBehavior());
+	}
+
+	/**
+	 * Start listening.
+	 * 
+	 * @throws SmppServerException
+	 *             when the server can't be started
+	 */
+	public void start() throws SmppServerException {
+		SmppServerConfiguration configuration = new SmppServerConfiguration();
+		configuration.setPort(port);
+		configuration.setSystemId("sink");
+		scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+		server = new DefaultSmppServer(configuration, new SinkServerHandler());
+		try {
+			server.start();
+		} catch (SmppChannelException e) {
+			throw new SmppServerException("failed to start SMPP sink", e);
+		}
+		LOG.info("SMPP sink listening on port {}", port);
+	}
+
+	/**
+	 * Stop the server and close every session.
+	 */
+	public void stop() {
+		if (server != null) {
+			server.destroy();
+		}
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		LOG.info("SMPP sink stopped (accepted={}, errors={}, throttled={})", behavior.getAccepted(), behavior.getErrors(), behavior.getThrottled());
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public SinkBehavior getBehavior() {
+		return behavior;
+	}
+
+	private PduResponse answer(SubmitSm submit) {
+		SubmitSmResp response = submit.createResponse();
+		switch (behavior.next()) {
+			case ERROR:
+				response.setCommandStatus(SmppConstants.STATUS_SYSERR);
+				break;
+			case THROTTLED:
+				response.setCommandStatus(SmppConstants.STATUS_THROTTLED);
+				break;
+			default:
+				response.setMessageId(Long.toHexString(messageIds.incrementAndGet()));
+		}
+		return response;
+	}
+
+	private class SinkServerHandler implements SmppServerHandler {
+		@Override
+		public void sessionBindRequested(Long sessionId, SmppSessionConfiguration sessionConfiguration, BaseBind bindRequest) {
+			// any credentials are accepted
+		}
+
+		@Override
+		public void sessionCreated(Long sessionId, SmppServerSession session, BaseBindResp preparedBindResponse) {
+			session.serverReady(new SinkSessionHandler(session));
+		}
+
+		@Override
+		public void sessionDestroyed(Long sessionId, SmppServerSession session) {
+			session.destroy();
+		}
+	}
+
+	private class SinkSessionHandler extends DefaultSmppSessionHandler {
+		private final SmppServerSession session;
+
+		public SinkSessionHandler(SmppServerSession session) {
+			super();
+			this.session = session;
+		}
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		public PduResponse firePduRequestReceived(PduRequest request) {
+			if (!(request instanceof SubmitSm)) {
+				return super.firePduRequestReceived(request);
+			}
+			final PduResponse response = answer((SubmitSm) request);
+			long latency = behavior.nextLatency();
+			if (latency <= 0) {
+				return response;
+			}
+			scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						session.sendResponsePdu(response);
+					} catch (Exception e) {
+						LOG.debug("Failed to send delayed response", e);
+					}
+				}
+			}, latency, TimeUnit.MILLISECONDS);
+			// response is sent later
+			return null;
+		}
+	}
+}
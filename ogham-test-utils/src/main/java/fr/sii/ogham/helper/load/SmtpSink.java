@@ -0,0 +1,204 @@
+package fr.sii.ogham.helper.load;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal SMTP server meant for load tests. Unlike GreenMail, received
+ * messages are not parsed nor stored: the body is read and discarded. The way
+ * each message is answered is driven by a {@link SinkBehavior} (latency,
+ * errors and throttling).
+ * 
+ * <ul>
+ * <li>accepted messages are answered with <code>250</code></li>
+ * <li>simulated errors are answered with <code>451</code></li>
+ * <li>throttled messages are answered with <code>450</code></li>
+ * </ul>
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class SmtpSink {
+	private static final Logger LOG = LoggerFactory.getLogger(SmtpSink.class);
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+	private static final int BACKLOG = 1024;
+
+	private final int port;
+	private final SinkBehavior behavior;
+	private final Set<Socket> connections;
+	private ServerSocket serverSocket;
+	private ExecutorService executor;
+	private volatile boolean running;
+
+	public SmtpSink(int port, SinkBehavior behavior) {
+		super();
+		this.port = port;
+		this.behavior = behavior;
+		this.connections = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+	}
+
+	public SmtpSink(int port) {
+		this(port, new SinkBehavior());
+	}
+
+	/**
+	 * Start listening on localhost.
+	 * 
+	 * @throws IOException
+	 *             when the port can't be bound
+	 */
+	public void start() throws IOException {
+		serverSocket = new ServerSocket();
+		serverSocket.setReuseAddress(true);
+		serverSocket.bind(new InetSocketAddress("127.0.0.1", port), BACKLOG);
+		executor = Executors.newCachedThreadPool();
+		running = true;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				accept();
+			}
+		});
+		LOG.info("SMTP sink listening on port {}", port);
+	}
+
+	/**
+	 * Stop listening and close every open connection.
+	 */
+	public void stop() {
+		running = false;
+		closeQuietly(serverSocket);
+		for (Socket connection : connections) {
+			closeQuietly(connection);
+		}
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+		LOG.info("SMTP sink stopped (accepted={}, errors={}, throttled={})", behavior.getAccepted(), behavior.getErrors(), behavior.getThrottled());
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public SinkBehavior getBehavior() {
+		return behavior;
+	}
+
+	private void accept() {
+		while (running) {
+			try {
+				final Socket socket = serverSocket.accept();
+				connections.add(socket);
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						handle(socket);
+					}
+				});
+			} catch (IOException e) {
+				if (running) {
+					LOG.error("Failed to accept SMTP connection", e);
+				}
+			}
+		}
+	}
+
+	private void handle(Socket socket) {
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), ASCII));
+				Writer out = new OutputStreamWriter(socket.getOutputStream(), ASCII)) {
+			reply(out, "220 localhost ESMTP sink");
+			String line;
+			while ((line = in.readLine()) != null) {
+				String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+				switch (command) {
+					case "HELO":
+					case "EHLO":
+						reply(out, "250 localhost");
+						break;
+					case "MAIL":
+					case "RCPT":
+					case "RSET":
+					case "NOOP":
+						reply(out, "250 2.0.0 OK");
+						break;
+					case "DATA":
+						reply(out, "354 End data with <CR><LF>.<CR><LF>");
+						skipData(in);
+						reply(out, answer());
+						break;
+					case "QUIT":
+						reply(out, "221 2.0.0 Bye");
+						return;
+					default:
+						reply(out, "502 5.5.2 Command not implemented");
+				}
+			}
+		} catch (IOException e) {
+			if (running) {
+				LOG.debug("SMTP connection closed", e);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			connections.remove(socket);
+			closeQuietly(socket);
+		}
+	}
+
+	private String answer() throws InterruptedException {
+		SinkBehavior.Outcome outcome = behavior.next();
+		long latency = behavior.nextLatency();
+		if (latency > 0) {
+			Thread.sleep(latency);
+		}
+		switch (outcome) {
+			case ERROR:
+				return "451 4.3.0 Simulated error";
+			case THROTTLED:
+				return "450 4.7.1 Rate limit exceeded";
+			default:
+				return "250 2.0.0 OK";
+		}
+	}
+
+	private static void skipData(BufferedReader in) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null && !".".equals(line)) {
+			// body is discarded
+		}
+	}
+
+	private static void reply(Writer out, String line) throws IOException {
+		out.write(line);
+		out.write("\r\n");
+		out.flush();
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable == null) {
+			return;
+		}
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			LOG.trace("Failed to close", e);
+		}
+	}
+}
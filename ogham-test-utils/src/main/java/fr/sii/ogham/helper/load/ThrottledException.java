@@ -0,0 +1,21 @@
+package fr.sii.ogham.helper.load;
+
+/**
+ * Thrown by a {@link LoadAction} to indicate that the execution has been
+ * rejected because the server is throttling. The {@link LoadDriver} counts
+ * these executions separately from the failures.
+ * 
+ * @author Aurélien Baudet
+ *
+ */
+public class ThrottledException extends Exception {
+	private static final long serialVersionUID = 1;
+
+	public ThrottledException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public ThrottledException(Throwable cause) {
+		super(cause);
+	}
+}